@@ -21,11 +21,10 @@
 package org.apache.tiles.autotag.core.runtime;
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
-import java.util.regex.Pattern;
 
 import org.apache.tiles.autotag.core.runtime.util.NullWriter;
+import org.apache.tiles.autotag.core.runtime.util.TrimmingWriter;
 
 /**
  * Base class for the abstraction of the body.
@@ -34,8 +33,22 @@ import org.apache.tiles.autotag.core.runtime.util.NullWriter;
  */
 public abstract class AbstractModelBody implements ModelBody {
 
-    // precompiled the pattern to avoid compiling on every method call
-    private static final Pattern PATTERN = Pattern.compile("^\\s*|\\s*$");
+    /**
+     * The largest buffer kept for reuse by a thread, in characters.
+     */
+    private static final int MAX_REUSED_CAPACITY = 64 * 1024;
+
+    /**
+     * The trimming writer that each thread can reuse. It is removed while in
+     * use, so that nested bodies get their own.
+     */
+    private static final ThreadLocal<TrimmingWriter> IDLE_WRITER = new ThreadLocal<TrimmingWriter>();
+
+    /**
+     * The estimated size of the body as a string, from the previous
+     * evaluations.
+     */
+    private int sizeEstimate;
 
     /**
      * The default writer to use.
@@ -51,6 +64,15 @@ public abstract class AbstractModelBody implements ModelBody {
         this.defaultWriter = defaultWriter;
     }
 
+    /**
+     * Returns the default writer.
+     *
+     * @return The default writer to use.
+     */
+    Writer getDefaultWriter() {
+        return defaultWriter;
+    }
+
     @Override
     public void evaluate() throws IOException {
         evaluate(defaultWriter);
@@ -58,20 +80,28 @@ public abstract class AbstractModelBody implements ModelBody {
 
     @Override
     public String evaluateAsString() throws IOException {
-        StringWriter writer = new StringWriter();
+        TrimmingWriter writer = acquireWriter();
         try {
+            writer.ensureCapacity(sizeEstimate);
             evaluate(writer);
+            String body = writer.toString();
+            sizeEstimate = Math.max(body.length(), sizeEstimate / 2);
+            return body.length() > 0 ? body : null;
         } finally {
-            writer.close();
+            releaseWriter(writer);
         }
-        String body = writer.toString();
-        if (body != null) {
-            body = PATTERN.matcher(body).replaceAll("");
-            if (body.length() <= 0) {
-                body = null;
-            }
+    }
+
+    @Override
+    public boolean evaluateTo(Appendable appendable) throws IOException {
+        TrimmingWriter writer = acquireWriter();
+        try {
+            writer.reset(appendable);
+            evaluate(writer);
+            return writer.hasContent();
+        } finally {
+            releaseWriter(writer);
         }
-        return body;
     }
 
     @Override
@@ -84,4 +114,32 @@ public abstract class AbstractModelBody implements ModelBody {
         }
     }
 
+    /**
+     * Returns the trimming writer of the current thread, or a new one if it
+     * is in use, reset to write into its own buffer.
+     *
+     * @return The writer.
+     */
+    private static TrimmingWriter acquireWriter() {
+        TrimmingWriter writer = IDLE_WRITER.get();
+        if (writer == null) {
+            return new TrimmingWriter();
+        }
+        IDLE_WRITER.set(null);
+        writer.reset();
+        return writer;
+    }
+
+    /**
+     * Gives a trimming writer back to the current thread, unless its buffer
+     * became too large to be kept.
+     *
+     * @param writer The writer.
+     */
+    private static void releaseWriter(TrimmingWriter writer) {
+        writer.reset();
+        if (writer.capacity() <= MAX_REUSED_CAPACITY) {
+            IDLE_WRITER.set(writer);
+        }
+    }
 }
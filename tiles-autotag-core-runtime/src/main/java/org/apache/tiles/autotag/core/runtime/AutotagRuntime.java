@@ -25,6 +25,12 @@ package org.apache.tiles.autotag.core.runtime;
  * The implementations are expected to provide a default constructor,
  * and to implement another interface that can be used to provide the
  * parameters needed to build the actual request object.
+ * <p>
+ * The generated Velocity directives read primitive parameters with the
+ * primitive getters, such as {@link #getIntParameter(String, int)}. Their
+ * default implementations call {@link #getParameter(String, Class, Object)},
+ * which boxes the value; runtimes must override them to read primitive
+ * parameters without boxing.
  */
 public interface AutotagRuntime<R> {
     /**
@@ -48,4 +54,108 @@ public interface AutotagRuntime<R> {
      * @return The value of the parameter.
      */
     <T> T getParameter(String name, Class<T> type, T defaultValue);
+
+    /**
+     * Extracts a byte parameter from the tag. By default it calls
+     * {@link #getParameter(String, Class, Object)}, boxing the value; runtimes
+     * must override it to read the parameter without boxing.
+     * @param name The name of the parameter.
+     * @param defaultValue The default value if none is specified.
+     * @return The value of the parameter.
+     */
+    default byte getByteParameter(String name, byte defaultValue) {
+        Byte value = getParameter(name, Byte.class, null);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Extracts a short parameter from the tag. By default it calls
+     * {@link #getParameter(String, Class, Object)}, boxing the value; runtimes
+     * must override it to read the parameter without boxing.
+     * @param name The name of the parameter.
+     * @param defaultValue The default value if none is specified.
+     * @return The value of the parameter.
+     */
+    default short getShortParameter(String name, short defaultValue) {
+        Short value = getParameter(name, Short.class, null);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Extracts an int parameter from the tag. By default it calls
+     * {@link #getParameter(String, Class, Object)}, boxing the value; runtimes
+     * must override it to read the parameter without boxing.
+     * @param name The name of the parameter.
+     * @param defaultValue The default value if none is specified.
+     * @return The value of the parameter.
+     */
+    default int getIntParameter(String name, int defaultValue) {
+        Integer value = getParameter(name, Integer.class, null);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Extracts a long parameter from the tag. By default it calls
+     * {@link #getParameter(String, Class, Object)}, boxing the value; runtimes
+     * must override it to read the parameter without boxing.
+     * @param name The name of the parameter.
+     * @param defaultValue The default value if none is specified.
+     * @return The value of the parameter.
+     */
+    default long getLongParameter(String name, long defaultValue) {
+        Long value = getParameter(name, Long.class, null);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Extracts a float parameter from the tag. By default it calls
+     * {@link #getParameter(String, Class, Object)}, boxing the value; runtimes
+     * must override it to read the parameter without boxing.
+     * @param name The name of the parameter.
+     * @param defaultValue The default value if none is specified.
+     * @return The value of the parameter.
+     */
+    default float getFloatParameter(String name, float defaultValue) {
+        Float value = getParameter(name, Float.class, null);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Extracts a double parameter from the tag. By default it calls
+     * {@link #getParameter(String, Class, Object)}, boxing the value; runtimes
+     * must override it to read the parameter without boxing.
+     * @param name The name of the parameter.
+     * @param defaultValue The default value if none is specified.
+     * @return The value of the parameter.
+     */
+    default double getDoubleParameter(String name, double defaultValue) {
+        Double value = getParameter(name, Double.class, null);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Extracts a char parameter from the tag. By default it calls
+     * {@link #getParameter(String, Class, Object)}, boxing the value; runtimes
+     * must override it to read the parameter without boxing.
+     * @param name The name of the parameter.
+     * @param defaultValue The default value if none is specified.
+     * @return The value of the parameter.
+     */
+    default char getCharParameter(String name, char defaultValue) {
+        Character value = getParameter(name, Character.class, null);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Extracts a boolean parameter from the tag. By default it calls
+     * {@link #getParameter(String, Class, Object)}, boxing the value; runtimes
+     * must override it to read the parameter without boxing.
+     * @param name The name of the parameter.
+     * @param defaultValue The default value if none is specified.
+     * @return The value of the parameter.
+     */
+    default boolean getBooleanParameter(String name, boolean defaultValue) {
+        Boolean value = getParameter(name, Boolean.class, null);
+        return value != null ? value : defaultValue;
+    }
 }
@@ -0,0 +1,63 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+import java.util.function.Supplier;
+
+/**
+ * Provides the runtimes of the generated tags and directives. Every runtime
+ * obtained with {@link #getRuntime()} must be given back with
+ * {@link #release(AutotagRuntime)} once the invocation is over, so that the
+ * factory can reuse it.
+ *
+ * @param <R> The type of the request.
+ * @version $Rev$ $Date$
+ */
+public interface AutotagRuntimeFactory<R> {
+
+    /**
+     * Returns a runtime for an invocation.
+     *
+     * @return The runtime.
+     */
+    AutotagRuntime<R> getRuntime();
+
+    /**
+     * Gives back a runtime, once the invocation is over.
+     *
+     * @param runtime The runtime, as returned by {@link #getRuntime()}.
+     */
+    void release(AutotagRuntime<R> runtime);
+
+    /**
+     * Creates the default factory: it keeps a bounded pool of idle runtimes
+     * when the runtimes are {@link ReusableAutotagRuntime}s, and creates one
+     * for every invocation otherwise.
+     *
+     * @param <R> The type of the request.
+     * @param constructor Creates a runtime.
+     * @return The factory.
+     */
+    static <R> AutotagRuntimeFactory<R> of(Supplier<? extends AutotagRuntime<R>> constructor) {
+        return new PoolingAutotagRuntimeFactory<R>(constructor,
+                PoolingAutotagRuntimeFactory.DEFAULT_CAPACITY);
+    }
+}
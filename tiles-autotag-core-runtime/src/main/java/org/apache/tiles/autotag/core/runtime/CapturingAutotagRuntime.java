@@ -0,0 +1,49 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+import java.io.Writer;
+
+/**
+ * A runtime that can capture what a model writes, so that its output can be
+ * cached and written again later.
+ *
+ * @param <R> The type of the request.
+ * @version $Rev$ $Date$
+ */
+public interface CapturingAutotagRuntime<R> extends AutotagRuntime<R> {
+
+    /**
+     * Creates a request whose output is written into a writer, instead of
+     * the output of the template.
+     *
+     * @param writer The writer to write the output into.
+     * @return The request.
+     */
+    R createRequest(Writer writer);
+
+    /**
+     * Returns the writer of the output of the template.
+     *
+     * @return The writer.
+     */
+    Writer getWriter();
+}
@@ -0,0 +1,63 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * A body that can be evaluated outside of the thread of the request, for
+ * instance because it does not touch the page context or the Velocity
+ * context of the request. Only these bodies are evaluated with the executor
+ * by {@link #evaluateAsync(Executor)}, the other ones are evaluated
+ * synchronously.
+ *
+ * @version $Rev$ $Date$
+ */
+public interface ConcurrentModelBody extends ModelBody {
+
+    /**
+     * Evaluates the body as a string with the executor.
+     *
+     * @param executor The executor to evaluate the body with.
+     * @return The body as a string, <code>null</code> if it is empty, or the
+     * exception or error thrown when evaluating it, or when submitting it to
+     * the executor.
+     */
+    @Override
+    default CompletionStage<String> evaluateAsync(Executor executor) {
+        CompletableFuture<String> future = new CompletableFuture<String>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(evaluateAsString());
+                } catch (Throwable e) {
+                    // Errors too, or the future would never complete.
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import org.apache.tiles.autotag.core.runtime.util.TrimmingWriter;
+
+/**
+ * A body that is rendered once, on first evaluation, and replayed on the
+ * following ones, for models that evaluate their body more than once.
+ * <p>
+ * The body is rendered into a buffer even when it is first evaluated into the
+ * default writer. If the default writer of the wrapped body is not known,
+ * {@link #evaluate()} renders it again instead of replaying it.
+ *
+ * @version $Rev$ $Date$
+ */
+public class MemoizingModelBody implements ModelBody {
+
+    /**
+     * The wrapped body.
+     */
+    private ModelBody body;
+
+    /**
+     * The default writer, <code>null</code> if not known.
+     */
+    private Writer defaultWriter;
+
+    /**
+     * The rendered body, <code>null</code> if not rendered yet.
+     */
+    private String content;
+
+    /**
+     * The rendered body, trimmed, <code>null</code> if it is empty or not
+     * trimmed yet.
+     */
+    private String trimmedContent;
+
+    /**
+     * Indicates that the rendered body has been trimmed.
+     */
+    private boolean trimmed;
+
+    /**
+     * Constructor. The default writer is the one of the wrapped body, if it
+     * is an {@link AbstractModelBody}.
+     *
+     * @param body The body to wrap.
+     */
+    public MemoizingModelBody(ModelBody body) {
+        this(body, body instanceof AbstractModelBody
+                ? ((AbstractModelBody) body).getDefaultWriter() : null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param body The body to wrap.
+     * @param defaultWriter The default writer, <code>null</code> if not
+     * known.
+     */
+    public MemoizingModelBody(ModelBody body, Writer defaultWriter) {
+        this.body = body;
+        this.defaultWriter = defaultWriter;
+    }
+
+    @Override
+    public String evaluateAsString() throws IOException {
+        if (!trimmed) {
+            TrimmingWriter writer = new TrimmingWriter();
+            writer.write(render());
+            String value = writer.toString();
+            trimmedContent = value.length() > 0 ? value : null;
+            trimmed = true;
+        }
+        return trimmedContent;
+    }
+
+    /**
+     * Evaluates the body as a string. Once the body has been rendered, the
+     * stage is completed at once with the memoized body, without the
+     * executor and without touching the wrapped body, so it is safe whatever
+     * the wrapped body is. Before, the body is rendered synchronously, in the
+     * calling thread, since the wrapped body may depend on it.
+     *
+     * @param executor The executor, not used.
+     * @return The body as a string, <code>null</code> if it is empty, or the
+     * exception thrown when evaluating it.
+     */
+    @Override
+    public CompletionStage<String> evaluateAsync(Executor executor) {
+        if (content == null) {
+            return ModelBody.super.evaluateAsync(executor);
+        }
+        CompletableFuture<String> future = new CompletableFuture<String>();
+        try {
+            future.complete(evaluateAsString());
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public void evaluateWithoutWriting() throws IOException {
+        render();
+    }
+
+    @Override
+    public void evaluate() throws IOException {
+        if (defaultWriter != null) {
+            evaluate(defaultWriter);
+        } else {
+            body.evaluate();
+        }
+    }
+
+    @Override
+    public void evaluate(Writer writer) throws IOException {
+        writer.write(render());
+    }
+
+    /**
+     * Renders the wrapped body, unless it has already been rendered.
+     *
+     * @return The rendered body.
+     * @throws IOException If something goes wrong.
+     */
+    private String render() throws IOException {
+        if (content == null) {
+            StringWriter writer = new StringWriter();
+            body.evaluate(writer);
+            content = writer.toString();
+        }
+        return content;
+    }
+}
@@ -22,6 +22,13 @@ package org.apache.tiles.autotag.core.runtime;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 /**
  * Abstracts a tag/directive body.
@@ -38,6 +45,90 @@ public interface ModelBody {
      */
     String evaluateAsString() throws IOException;
 
+    /**
+     * Evaluates a body and appends it, trimmed as in
+     * {@link #evaluateAsString()}, without necessarily materializing it as a
+     * string. By default it appends the result of
+     * {@link #evaluateAsString()}.
+     *
+     * @param appendable Where the body is appended.
+     * @return <code>true</code> if something has been appended,
+     * <code>false</code> if the body is empty or made of whitespace only.
+     * @throws IOException If something goes wrong.
+     */
+    default boolean evaluateTo(Appendable appendable) throws IOException {
+        String body = evaluateAsString();
+        if (body == null) {
+            return false;
+        }
+        appendable.append(body);
+        return true;
+    }
+
+    /**
+     * Evaluates a body as a string, as {@link #evaluateAsString()} does,
+     * possibly in another thread. By default it is evaluated synchronously,
+     * in the calling thread, since a body is not known to support being
+     * evaluated in another one: the bodies that do implement
+     * {@link ConcurrentModelBody}.
+     *
+     * @param executor The executor to evaluate the body with.
+     * @return The body as a string, <code>null</code> if it is empty, or the
+     * exception thrown when evaluating it.
+     */
+    default CompletionStage<String> evaluateAsync(Executor executor) {
+        CompletableFuture<String> future = new CompletableFuture<String>();
+        try {
+            future.complete(evaluateAsString());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Evaluates several bodies concurrently, with
+     * {@link #evaluateAsync(Executor)}, and writes them in order. If a body
+     * fails, its exception is thrown once all the bodies are over, so that
+     * none of them is still running afterwards.
+     *
+     * @param bodies The bodies to evaluate.
+     * @param executor The executor to evaluate the bodies with.
+     * @param writer The writer to write the bodies into.
+     * @throws IOException If something goes wrong when evaluating or when
+     * writing.
+     */
+    static void evaluateInOrder(Collection<? extends ModelBody> bodies,
+            Executor executor, Writer writer) throws IOException {
+        List<CompletableFuture<String>> futures = new ArrayList<CompletableFuture<String>>(bodies.size());
+        for (ModelBody body : bodies) {
+            futures.add(body.evaluateAsync(executor).toCompletableFuture());
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+                .exceptionally(e -> null).join();
+        for (CompletableFuture<String> future : futures) {
+            String body;
+            try {
+                body = future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException("Cannot evaluate the body", cause);
+            }
+            if (body != null) {
+                writer.write(body);
+            }
+        }
+    }
+
     /**
      * Evaluates a body, but discards result.
      *
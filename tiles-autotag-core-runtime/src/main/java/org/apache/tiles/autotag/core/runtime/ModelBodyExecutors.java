@@ -0,0 +1,88 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the executors to evaluate model bodies concurrently with, through
+ * {@link ModelBody#evaluateAsync(java.util.concurrent.Executor)}. No executor
+ * is shared: the caller owns the executors it creates, and shuts them down
+ * when they are no longer needed, for instance when the web application is
+ * stopped, so that their threads do not keep it loaded.
+ *
+ * @version $Rev$ $Date$
+ */
+public final class ModelBodyExecutors {
+
+    /**
+     * How long an idle thread of a pool is kept, in seconds.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * Constructor, not to be used.
+     */
+    private ModelBodyExecutors() {
+    }
+
+    /**
+     * Creates an executor starting a virtual thread for every body, looked up
+     * by reflection since they are not available in every supported JDK.
+     *
+     * @return The executor, <code>null</code> if virtual threads are not
+     * available.
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            // Before they were final, virtual threads were a preview feature.
+            return null;
+        }
+    }
+
+    /**
+     * Creates an executor with a bounded pool of daemon threads, created when
+     * needed and discarded when idle. The bodies submitted while all the
+     * threads are busy wait in a queue. Evaluating a body usually blocks on
+     * the rendering of the template, so the common fork-join pool is not a
+     * good fit.
+     *
+     * @param maxThreads The maximum number of threads.
+     * @return The executor.
+     */
+    public static ExecutorService newThreadPoolExecutor(int maxThreads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+                    Thread thread = new Thread(runnable, "autotag-model-body");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a bounded pool of idle {@link ReusableAutotagRuntime}s, resetting
+ * them when they are released. The pool is held by the factory only, not by
+ * the threads, so that the runtimes, and the class loader of the web
+ * application, are not pinned by the threads of the container once the
+ * application is undeployed. Runtimes that are not reusable are created for
+ * every invocation and dropped when released, as are the reusable runtimes
+ * released while the pool is full.
+ *
+ * @param <R> The type of the request.
+ * @version $Rev$ $Date$
+ */
+public class PoolingAutotagRuntimeFactory<R> implements AutotagRuntimeFactory<R> {
+
+    /**
+     * The default number of idle runtimes kept.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Creates the runtimes.
+     */
+    private final Supplier<? extends AutotagRuntime<R>> constructor;
+
+    /**
+     * The idle runtimes.
+     */
+    private final BlockingQueue<AutotagRuntime<R>> idleRuntimes;
+
+    /**
+     * Constructor.
+     *
+     * @param constructor Creates the runtimes.
+     * @param capacity The maximum number of idle runtimes kept.
+     */
+    public PoolingAutotagRuntimeFactory(Supplier<? extends AutotagRuntime<R>> constructor, int capacity) {
+        this.constructor = constructor;
+        idleRuntimes = new ArrayBlockingQueue<AutotagRuntime<R>>(capacity);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AutotagRuntime<R> getRuntime() {
+        AutotagRuntime<R> runtime = idleRuntimes.poll();
+        if (runtime == null) {
+            return constructor.get();
+        }
+        return runtime;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void release(AutotagRuntime<R> runtime) {
+        if (runtime instanceof ReusableAutotagRuntime) {
+            ((ReusableAutotagRuntime<R>) runtime).reset();
+            idleRuntimes.offer(runtime);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+/**
+ * A runtime that can be used for several tag or directive invocations, one
+ * after the other, being reset between them.
+ *
+ * @param <R> The type of the request.
+ * @version $Rev$ $Date$
+ */
+public interface ReusableAutotagRuntime<R> extends AutotagRuntime<R> {
+
+    /**
+     * Forgets everything about the last invocation, such as its context, its
+     * body and its parameters, so that the runtime can be used for another
+     * one.
+     */
+    void reset();
+}
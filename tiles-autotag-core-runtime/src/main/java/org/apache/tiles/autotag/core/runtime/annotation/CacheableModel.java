@@ -0,0 +1,49 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares that the output of a template model depends only on its
+ * parameters, other than the request. The generated tags and directives then
+ * look up the output in a
+ * {@link org.apache.tiles.autotag.core.runtime.cache.RenderedOutputCache},
+ * keyed by the values of the parameters, before executing the model. It is
+ * ignored for models with a body.
+ * <p>
+ * The key is made of the values of the parameters only, not of the request:
+ * the cached output is shared by all the requests, hence by all the users,
+ * until it expires. Do not use it for models whose output depends on the
+ * user, the session, the locale or anything else read from the request.
+ * The output is cached only when the runtime implements
+ * {@link org.apache.tiles.autotag.core.runtime.CapturingAutotagRuntime}; the
+ * generate goals of the plugin warn when it does not.
+ *
+ * @version $Rev$ $Date$
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface CacheableModel {
+}
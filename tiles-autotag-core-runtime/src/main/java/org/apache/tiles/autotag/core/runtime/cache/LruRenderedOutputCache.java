@@ -0,0 +1,172 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A cache of the rendered output that holds a bounded number of entries,
+ * evicting the least recently used one, and that expires entries after a
+ * time to live.
+ *
+ * @version $Rev$ $Date$
+ */
+public class LruRenderedOutputCache implements RenderedOutputCache {
+
+    /**
+     * The entries, from the least recently used one.
+     */
+    private final Map<Object, CachedOutput> entries;
+
+    /**
+     * The time to live of the entries, in nanoseconds.
+     */
+    private final long timeToLive;
+
+    /**
+     * The clock, in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * The number of hits.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * The number of misses.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries The maximum number of entries.
+     * @param timeToLive The time to live of the entries.
+     * @param unit The unit of the time to live.
+     */
+    public LruRenderedOutputCache(int maxEntries, long timeToLive, TimeUnit unit) {
+        this(maxEntries, unit.toNanos(timeToLive), System::nanoTime);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries The maximum number of entries.
+     * @param timeToLive The time to live of the entries, in nanoseconds.
+     * @param clock The clock, in nanoseconds.
+     */
+    LruRenderedOutputCache(final int maxEntries, long timeToLive, LongSupplier clock) {
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        entries = new LinkedHashMap<Object, CachedOutput>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CachedOutput> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public String get(Object key) {
+        String output = null;
+        synchronized (entries) {
+            CachedOutput cached = entries.get(key);
+            if (cached != null) {
+                if (clock.getAsLong() - cached.created < timeToLive) {
+                    output = cached.output;
+                } else {
+                    entries.remove(key);
+                }
+            }
+        }
+        if (output != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return output;
+    }
+
+    @Override
+    public void put(Object key, String output) {
+        CachedOutput cached = new CachedOutput(output, clock.getAsLong());
+        synchronized (entries) {
+            entries.put(key, cached);
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of entries, including the expired ones that have
+     * not been looked up since they expired.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * A cached output.
+     */
+    private static final class CachedOutput {
+
+        /**
+         * The output.
+         */
+        private String output;
+
+        /**
+         * When the output has been cached, in nanoseconds.
+         */
+        private long created;
+
+        /**
+         * Constructor.
+         *
+         * @param output The output.
+         * @param created When the output has been cached, in nanoseconds.
+         */
+        private CachedOutput(String output, long created) {
+            this.output = output;
+            this.created = created;
+        }
+    }
+}
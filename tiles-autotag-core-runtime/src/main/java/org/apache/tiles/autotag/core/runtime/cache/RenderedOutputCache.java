@@ -0,0 +1,95 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime.cache;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.apache.tiles.autotag.core.runtime.AutotagRuntime;
+import org.apache.tiles.autotag.core.runtime.CapturingAutotagRuntime;
+
+/**
+ * Caches the output rendered by a cacheable template model, keyed by the
+ * values of its parameters. Implementations must be thread safe.
+ *
+ * @version $Rev$ $Date$
+ * @see RenderedOutputCacheFactory
+ */
+public interface RenderedOutputCache {
+
+    /**
+     * Returns the output rendered for a key, counting a hit or a miss.
+     *
+     * @param key The key.
+     * @return The output, or <code>null</code> if it is not in the cache.
+     */
+    String get(Object key);
+
+    /**
+     * Puts the output rendered for a key.
+     *
+     * @param key The key.
+     * @param output The output.
+     */
+    void put(Object key, String output);
+
+    /**
+     * Returns how many times {@link #get(Object)} found the output.
+     *
+     * @return The number of hits.
+     */
+    long getHitCount();
+
+    /**
+     * Returns how many times {@link #get(Object)} did not find the output.
+     *
+     * @return The number of misses.
+     */
+    long getMissCount();
+
+    /**
+     * Writes the output rendered for a key, executing the model and caching
+     * its output if it is not in the cache. If the runtime cannot capture the
+     * output, the model is executed as usual.
+     *
+     * @param <R> The type of the request.
+     * @param runtime The runtime.
+     * @param key The key, made of the values of the parameters.
+     * @param execution Executes the model.
+     * @throws IOException If something goes wrong when writing.
+     */
+    default <R> void render(AutotagRuntime<R> runtime, Object key,
+            ModelExecution<R> execution) throws IOException {
+        if (!(runtime instanceof CapturingAutotagRuntime)) {
+            execution.execute(runtime.createRequest());
+            return;
+        }
+        CapturingAutotagRuntime<R> capturingRuntime = (CapturingAutotagRuntime<R>) runtime;
+        String output = get(key);
+        if (output == null) {
+            StringWriter writer = new StringWriter();
+            execution.execute(capturingRuntime.createRequest(writer));
+            output = writer.toString();
+            put(key, output);
+        }
+        capturingRuntime.getWriter().write(output);
+    }
+}
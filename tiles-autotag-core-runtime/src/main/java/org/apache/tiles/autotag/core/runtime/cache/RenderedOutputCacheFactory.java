@@ -0,0 +1,41 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime.cache;
+
+/**
+ * Creates the caches of the rendered output. An implementation can be
+ * plugged in as a service, in
+ * <code>META-INF/services/org.apache.tiles.autotag.core.runtime.cache.RenderedOutputCacheFactory</code>;
+ * {@link LruRenderedOutputCache}s are created otherwise.
+ *
+ * @version $Rev$ $Date$
+ * @see RenderedOutputCaches
+ */
+public interface RenderedOutputCacheFactory {
+
+    /**
+     * Creates the cache of a template model.
+     *
+     * @param modelName The name of the template model class.
+     * @return The cache.
+     */
+    RenderedOutputCache createCache(String modelName);
+}
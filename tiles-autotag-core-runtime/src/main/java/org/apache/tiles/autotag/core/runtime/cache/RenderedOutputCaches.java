@@ -0,0 +1,90 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the caches of the rendered output, one per template model, created
+ * by the {@link RenderedOutputCacheFactory} service if there is one.
+ *
+ * @version $Rev$ $Date$
+ */
+public final class RenderedOutputCaches {
+
+    /**
+     * The maximum number of entries of the default caches.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /**
+     * The time to live of the entries of the default caches, in seconds.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = 60;
+
+    /**
+     * The factory of the caches.
+     */
+    private static final RenderedOutputCacheFactory FACTORY = loadFactory();
+
+    /**
+     * The caches, by template model name.
+     */
+    private static final Map<String, RenderedOutputCache> CACHES =
+            new ConcurrentHashMap<String, RenderedOutputCache>();
+
+    /**
+     * Constructor, private to avoid instantiation.
+     */
+    private RenderedOutputCaches() {
+    }
+
+    /**
+     * Returns the cache of a template model, creating it on first use.
+     *
+     * @param modelName The name of the template model class.
+     * @return The cache.
+     */
+    public static RenderedOutputCache getCache(String modelName) {
+        return CACHES.computeIfAbsent(modelName, FACTORY::createCache);
+    }
+
+    /**
+     * Loads the factory of the caches: the first service, or the default
+     * one.
+     *
+     * @return The factory.
+     */
+    private static RenderedOutputCacheFactory loadFactory() {
+        Iterator<RenderedOutputCacheFactory> factories = ServiceLoader.load(
+                RenderedOutputCacheFactory.class,
+                RenderedOutputCacheFactory.class.getClassLoader()).iterator();
+        if (factories.hasNext()) {
+            return factories.next();
+        }
+        return modelName -> new LruRenderedOutputCache(DEFAULT_MAX_ENTRIES,
+                DEFAULT_TIME_TO_LIVE, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime.util;
+
+/**
+ * Converts the values of parameters to the types that models declare. A
+ * template language evaluates a literal to the type it chooses, for instance
+ * an integer literal to an {@link Integer} even when the parameter is a
+ * <code>long</code>, so numbers are widened or narrowed to the type of the
+ * parameter and strings are parsed. Generated code uses the same rules when it
+ * folds a literal at initialization time and when it reads a parameter at
+ * render time.
+ *
+ * @version $Rev$ $Date$
+ */
+public final class ParameterConverter {
+
+    /**
+     * Constructor, private to avoid instantiation.
+     */
+    private ParameterConverter() {
+    }
+
+    /**
+     * Converts a value to a type.
+     *
+     * @param value The value to convert, may be <code>null</code>.
+     * @param type The type of the parameter, a wrapper class for primitive
+     * parameters.
+     * @param <T> The type of the parameter.
+     * @return The converted value, <code>null</code> if the value is
+     * <code>null</code>.
+     * @throws ClassCastException If the value cannot be converted.
+     * @throws NumberFormatException If the value is a string that is not a
+     * number, while the type is a number.
+     */
+    public static <T> T convert(Object value, Class<T> type) {
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        Object converted = null;
+        if (value instanceof Number) {
+            converted = convertNumber((Number) value, type);
+        } else if (value instanceof CharSequence) {
+            converted = convertString(value.toString(), type);
+        }
+        if (converted == null && type == String.class) {
+            converted = value.toString();
+        }
+        if (converted == null) {
+            throw new ClassCastException("Cannot convert "
+                    + value.getClass().getName() + " to " + type.getName());
+        }
+        return type.cast(converted);
+    }
+
+    /**
+     * Converts a number to a numeric type.
+     *
+     * @param value The number.
+     * @param type The type.
+     * @return The converted number, or <code>null</code> if the type is not
+     * numeric.
+     */
+    private static Object convertNumber(Number value, Class<?> type) {
+        if (type == Byte.class) {
+            return value.byteValue();
+        } else if (type == Short.class) {
+            return value.shortValue();
+        } else if (type == Integer.class) {
+            return value.intValue();
+        } else if (type == Long.class) {
+            return value.longValue();
+        } else if (type == Float.class) {
+            return value.floatValue();
+        } else if (type == Double.class) {
+            return value.doubleValue();
+        }
+        return null;
+    }
+
+    /**
+     * Parses a string to a numeric, boolean or character type.
+     *
+     * @param value The string.
+     * @param type The type.
+     * @return The parsed value, or <code>null</code> if the type cannot be
+     * parsed.
+     */
+    private static Object convertString(String value, Class<?> type) {
+        String trimmed = value.trim();
+        if (type == Byte.class) {
+            return Byte.valueOf(trimmed);
+        } else if (type == Short.class) {
+            return Short.valueOf(trimmed);
+        } else if (type == Integer.class) {
+            return Integer.valueOf(trimmed);
+        } else if (type == Long.class) {
+            return Long.valueOf(trimmed);
+        } else if (type == Float.class) {
+            return Float.valueOf(trimmed);
+        } else if (type == Double.class) {
+            return Double.valueOf(trimmed);
+        } else if (type == Boolean.class) {
+            return Boolean.valueOf(trimmed);
+        } else if (type == Character.class && value.length() == 1) {
+            return value.charAt(0);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * A writer that strips leading and trailing whitespace while writing, the
+ * whitespace being what <code>\s</code> matches in a regular expression.
+ * Leading whitespace is discarded, while whitespace after some text is held
+ * back until more text follows, so that trailing whitespace is never
+ * written.
+ * <p>
+ * The text is appended to a target, or to a buffer of the writer itself that
+ * {@link #toString()} returns. Instances can be reused with {@link #reset()}
+ * and {@link #reset(Appendable)}, but are not thread safe.
+ *
+ * @version $Rev$ $Date$
+ */
+public class TrimmingWriter extends Writer {
+
+    /**
+     * The buffer used when no target is specified.
+     */
+    private StringBuilder buffer = new StringBuilder();
+
+    /**
+     * The whitespace written after the last text, not written yet.
+     */
+    private StringBuilder pending = new StringBuilder();
+
+    /**
+     * Where the trimmed text is appended.
+     */
+    private Appendable target = buffer;
+
+    /**
+     * Whether some text, other than whitespace, has been written.
+     */
+    private boolean started;
+
+    /**
+     * Constructor, to write into the buffer of the writer.
+     */
+    public TrimmingWriter() {
+        super();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param target Where the trimmed text is appended.
+     */
+    public TrimmingWriter(Appendable target) {
+        this.target = target;
+    }
+
+    /**
+     * Resets the writer to write into its own buffer, emptied.
+     */
+    public void reset() {
+        reset(buffer);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Resets the writer to write into a target. The buffer of the writer is
+     * left untouched.
+     *
+     * @param target Where the trimmed text is appended.
+     */
+    public void reset(Appendable target) {
+        this.target = target;
+        pending.setLength(0);
+        started = false;
+    }
+
+    /**
+     * Ensures that the buffer of the writer can hold at least a number of
+     * characters without growing.
+     *
+     * @param capacity The minimum capacity.
+     */
+    public void ensureCapacity(int capacity) {
+        buffer.ensureCapacity(capacity);
+    }
+
+    /**
+     * Returns the capacity of the buffer of the writer.
+     *
+     * @return The capacity.
+     */
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Checks if some text, other than whitespace, has been written since the
+     * last reset.
+     *
+     * @return <code>true</code> if some text has been written.
+     */
+    public boolean hasContent() {
+        return started;
+    }
+
+    /**
+     * Returns the trimmed text written into the buffer of the writer.
+     *
+     * @return The trimmed text.
+     */
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(int c) throws IOException {
+        char ch = (char) c;
+        if (isWhitespace(ch)) {
+            if (started) {
+                pending.append(ch);
+            }
+        } else {
+            flushPending();
+            target.append(ch);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int start = off;
+        int end = off + len;
+        if (!started) {
+            while (start < end && isWhitespace(cbuf[start])) {
+                start++;
+            }
+        }
+        int last = end;
+        while (last > start && isWhitespace(cbuf[last - 1])) {
+            last--;
+        }
+        if (last > start) {
+            flushPending();
+            if (target instanceof StringBuilder) {
+                ((StringBuilder) target).append(cbuf, start, last - start);
+            } else if (target instanceof Writer) {
+                ((Writer) target).write(cbuf, start, last - start);
+            } else {
+                target.append(CharBuffer.wrap(cbuf, start, last - start));
+            }
+        }
+        if (started) {
+            pending.append(cbuf, last, end - last);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int start = off;
+        int end = off + len;
+        if (!started) {
+            while (start < end && isWhitespace(str.charAt(start))) {
+                start++;
+            }
+        }
+        int last = end;
+        while (last > start && isWhitespace(str.charAt(last - 1))) {
+            last--;
+        }
+        if (last > start) {
+            flushPending();
+            target.append(str, start, last);
+        }
+        if (started) {
+            pending.append(str, last, end);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void flush() {
+        // Does nothing, trailing whitespace must be held back
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        // Does nothing
+    }
+
+    /**
+     * Writes the held back whitespace, since some text follows it.
+     *
+     * @throws IOException If something goes wrong when appending.
+     */
+    private void flushPending() throws IOException {
+        if (pending.length() > 0) {
+            target.append(pending);
+            pending.setLength(0);
+        }
+        started = true;
+    }
+
+    /**
+     * Checks if a character is whitespace, as <code>\s</code> in a regular
+     * expression.
+     *
+     * @param c The character.
+     * @return <code>true</code> if it is whitespace.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+                || c == '\f' || c == '\r';
+    }
+}
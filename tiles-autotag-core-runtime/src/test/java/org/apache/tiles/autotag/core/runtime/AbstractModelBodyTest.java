@@ -24,10 +24,11 @@ import static org.easymock.EasyMock.*;
 import static org.junit.Assert.*;
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
+import java.util.concurrent.Executor;
 
 import org.apache.tiles.autotag.core.runtime.util.NullWriter;
+import org.apache.tiles.autotag.core.runtime.util.TrimmingWriter;
 import org.junit.Test;
 
 /**
@@ -64,6 +65,48 @@ public class AbstractModelBodyTest {
 
         modelBody = new MockModelBody(null, "\n   \n");
         assertNull(modelBody.evaluateAsString());
+
+        modelBody = new MockModelBody(null, " \t return\n me \r\n");
+        assertEquals("return\n me", modelBody.evaluateAsString());
+        assertEquals("return\n me", modelBody.evaluateAsString());
+    }
+
+    /**
+     * Test method for {@link org.apache.tiles.autotag.core.runtime.AbstractModelBody#evaluateAsString()},
+     * when a body is evaluated as a string while evaluating another one.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testEvaluateAsStringNested() throws IOException {
+        final AbstractModelBody inner = new MockModelBody(null, " inner ");
+        AbstractModelBody outer = new AbstractModelBody(null) {
+
+            @Override
+            public void evaluate(Writer writer) throws IOException {
+                writer.write(" before ");
+                writer.write(inner.evaluateAsString());
+                writer.write(" after ");
+            }
+        };
+        assertEquals("before inner after", outer.evaluateAsString());
+    }
+
+    /**
+     * Test method for {@link org.apache.tiles.autotag.core.runtime.AbstractModelBody#evaluateTo(Appendable)}.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testEvaluateTo() throws IOException {
+        StringBuilder builder = new StringBuilder("[");
+        AbstractModelBody modelBody = new MockModelBody(null, "\n return me \n");
+        assertTrue(modelBody.evaluateTo(builder));
+        builder.append(']');
+        assertEquals("[return me]", builder.toString());
+
+        builder.setLength(0);
+        modelBody = new MockModelBody(null, "\n   \n");
+        assertFalse(modelBody.evaluateTo(builder));
+        assertEquals(0, builder.length());
     }
 
     /**
@@ -75,7 +118,7 @@ public class AbstractModelBodyTest {
         Writer writer = createMock(Writer.class);
         AbstractModelBody modelBody = createMockBuilder(AbstractModelBody.class).withConstructor(writer).createMock();
 
-        modelBody.evaluate(isA(StringWriter.class));
+        modelBody.evaluate(isA(TrimmingWriter.class));
         expectLastCall().andThrow(new IOException());
 
         replay(writer, modelBody);
@@ -122,6 +165,28 @@ public class AbstractModelBodyTest {
         }
     }
 
+    /**
+     * Test method for {@link org.apache.tiles.autotag.core.runtime.AbstractModelBody#evaluateAsync(Executor)}:
+     * the body is evaluated in the calling thread, not with the executor.
+     */
+    @Test
+    public void testEvaluateAsync() {
+        final Thread caller = Thread.currentThread();
+        AbstractModelBody modelBody = new AbstractModelBody(null) {
+
+            @Override
+            public void evaluate(Writer writer) throws IOException {
+                assertSame(caller, Thread.currentThread());
+                writer.write(" return me ");
+            }
+        };
+        Executor executor = createMock(Executor.class);
+
+        replay(executor);
+        assertEquals("return me", modelBody.evaluateAsync(executor).toCompletableFuture().join());
+        verify(executor);
+    }
+
     /**
      * A mock model body.
      *
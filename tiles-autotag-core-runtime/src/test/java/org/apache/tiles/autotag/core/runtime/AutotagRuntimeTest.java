@@ -0,0 +1,95 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests the primitive getters of {@link AutotagRuntime}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class AutotagRuntimeTest {
+
+    /**
+     * Test method for {@link AutotagRuntime#getIntParameter(String, int)}.
+     */
+    @Test
+    public void testGetIntParameter() {
+        MockRuntime runtime = new MockRuntime();
+        runtime.parameters.put("one", 1);
+        assertEquals(1, runtime.getIntParameter("one", 3));
+        assertEquals(3, runtime.getIntParameter("two", 3));
+    }
+
+    /**
+     * Test method for {@link AutotagRuntime#getBooleanParameter(String, boolean)}.
+     */
+    @Test
+    public void testGetBooleanParameter() {
+        MockRuntime runtime = new MockRuntime();
+        runtime.parameters.put("one", Boolean.FALSE);
+        assertFalse(runtime.getBooleanParameter("one", true));
+        assertTrue(runtime.getBooleanParameter("two", true));
+    }
+
+    /**
+     * Test method for {@link AutotagRuntime#getDoubleParameter(String, double)}.
+     */
+    @Test(expected = ClassCastException.class)
+    public void testGetDoubleParameterWrongType() {
+        MockRuntime runtime = new MockRuntime();
+        runtime.parameters.put("one", 1);
+        runtime.getDoubleParameter("one", 0.0d);
+    }
+
+    /**
+     * A runtime that reads the parameters from a map.
+     */
+    private static class MockRuntime implements AutotagRuntime<Object> {
+
+        /**
+         * The parameters.
+         */
+        private Map<String, Object> parameters = new HashMap<String, Object>();
+
+        @Override
+        public Object createRequest() {
+            return null;
+        }
+
+        @Override
+        public ModelBody createModelBody() {
+            return null;
+        }
+
+        @Override
+        public <T> T getParameter(String name, Class<T> type, T defaultValue) {
+            Object value = parameters.get(name);
+            return value != null ? type.cast(value) : defaultValue;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.tiles.autotag.core.runtime.AbstractModelBodyTest.MockModelBody;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link ConcurrentModelBody}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class ConcurrentModelBodyTest {
+
+    /**
+     * The executor.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Sets up the test.
+     */
+    @Before
+    public void setUp() {
+        executor = ModelBodyExecutors.newThreadPoolExecutor(2);
+    }
+
+    /**
+     * Tears down the test.
+     */
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Test method for {@link ConcurrentModelBody#evaluateAsync(Executor)}.
+     */
+    @Test
+    public void testEvaluateAsync() {
+        final Thread caller = Thread.currentThread();
+        ModelBody modelBody = new MockConcurrentModelBody() {
+
+            @Override
+            public void evaluate(Writer writer) throws IOException {
+                assertNotSame(caller, Thread.currentThread());
+                writer.write(" return me ");
+            }
+        };
+        assertEquals("return me", modelBody.evaluateAsync(executor)
+                .toCompletableFuture().join());
+    }
+
+    /**
+     * Test method for {@link ConcurrentModelBody#evaluateAsync(Executor)}.
+     */
+    @Test
+    public void testEvaluateAsyncException() {
+        final IOException exception = new IOException();
+        ModelBody modelBody = new MockConcurrentModelBody() {
+
+            @Override
+            public void evaluate(Writer writer) throws IOException {
+                throw exception;
+            }
+        };
+        try {
+            modelBody.evaluateAsync(executor).toCompletableFuture().join();
+            fail("The exception has not been thrown");
+        } catch (CompletionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    /**
+     * Test method for {@link ModelBody#evaluateInOrder(java.util.Collection, Executor, Writer)},
+     * when the bodies complete in the reverse order, and one of them is not
+     * concurrent.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testEvaluateInOrder() throws IOException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        ModelBody first = new MockConcurrentModelBody() {
+
+            @Override
+            public void evaluate(Writer writer) throws IOException {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                writer.write(" first ");
+            }
+        };
+        ModelBody empty = new MockModelBody(null, "  ");
+        ModelBody last = new MockConcurrentModelBody() {
+
+            @Override
+            public void evaluate(Writer writer) throws IOException {
+                writer.write(" last ");
+                latch.countDown();
+            }
+        };
+        StringWriter writer = new StringWriter();
+        ModelBody.evaluateInOrder(Arrays.asList(first, empty, last), executor, writer);
+        assertEquals("firstlast", writer.toString());
+    }
+
+    /**
+     * Test method for {@link ModelBody#evaluateInOrder(java.util.Collection, Executor, Writer)},
+     * when a body cannot be evaluated.
+     * @throws IOException If something goes wrong.
+     */
+    @Test(expected = IOException.class)
+    public void testEvaluateInOrderException() throws IOException {
+        ModelBody failing = new MockConcurrentModelBody() {
+
+            @Override
+            public void evaluate(Writer writer) throws IOException {
+                throw new IOException();
+            }
+        };
+        Writer writer = createMock(Writer.class);
+
+        replay(writer);
+        try {
+            ModelBody.evaluateInOrder(Arrays.asList(failing, new MockModelBody(null, "body")),
+                    executor, writer);
+        } finally {
+            verify(writer);
+        }
+    }
+
+    /**
+     * Test method for {@link ConcurrentModelBody#evaluateAsync(Executor)},
+     * when the body throws an error.
+     */
+    @Test
+    public void testEvaluateAsyncError() {
+        final Error error = new Error();
+        ModelBody modelBody = new MockConcurrentModelBody() {
+
+            @Override
+            public void evaluate(Writer writer) throws IOException {
+                throw error;
+            }
+        };
+        try {
+            modelBody.evaluateAsync(executor).toCompletableFuture().join();
+            fail("The error has not been thrown");
+        } catch (CompletionException e) {
+            assertSame(error, e.getCause());
+        }
+    }
+
+    /**
+     * Test method for {@link ConcurrentModelBody#evaluateAsync(Executor)},
+     * when the executor rejects the body.
+     */
+    @Test
+    public void testEvaluateAsyncRejected() {
+        final RejectedExecutionException exception = new RejectedExecutionException();
+        ModelBody modelBody = new MockConcurrentModelBody() {
+
+            @Override
+            public void evaluate(Writer writer) throws IOException {
+                fail("The body has been evaluated");
+            }
+        };
+        try {
+            modelBody.evaluateAsync(runnable -> {
+                throw exception;
+            }).toCompletableFuture().join();
+            fail("The exception has not been thrown");
+        } catch (CompletionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    /**
+     * Test method for {@link ModelBody#evaluateInOrder(java.util.Collection, Executor, Writer)},
+     * when a body fails before the other ones are over: they are all over
+     * when the exception is thrown.
+     * @throws IOException If something goes wrong.
+     */
+    @Test(timeout = 10000)
+    public void testEvaluateInOrderWaits() throws IOException {
+        final Error error = new Error();
+        final CountDownLatch failed = new CountDownLatch(1);
+        final AtomicBoolean over = new AtomicBoolean();
+        ModelBody failing = new MockConcurrentModelBody() {
+
+            @Override
+            public void evaluate(Writer writer) throws IOException {
+                failed.countDown();
+                throw error;
+            }
+        };
+        ModelBody slow = new MockConcurrentModelBody() {
+
+            @Override
+            public void evaluate(Writer writer) throws IOException {
+                try {
+                    failed.await();
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                over.set(true);
+            }
+        };
+        try {
+            ModelBody.evaluateInOrder(Arrays.asList(failing, slow), executor, new StringWriter());
+            fail("The error has not been thrown");
+        } catch (Error e) {
+            assertSame(error, e);
+        }
+        assertTrue(over.get());
+    }
+
+    /**
+     * A model body that can be evaluated in another thread.
+     *
+     * @version $Rev$ $Date$
+     */
+    private abstract static class MockConcurrentModelBody extends AbstractModelBody
+            implements ConcurrentModelBody {
+
+        /**
+         * Constructor.
+         */
+        public MockConcurrentModelBody() {
+            super(null);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link MemoizingModelBody}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class MemoizingModelBodyTest {
+
+    /**
+     * Test method for {@link MemoizingModelBody#evaluateAsync(Executor)}: the
+     * body is rendered once in the calling thread, then replayed without the
+     * executor.
+     */
+    @Test
+    public void testEvaluateAsync() {
+        CountingModelBody body = new CountingModelBody(null, " body\n");
+        MemoizingModelBody modelBody = new MemoizingModelBody(body);
+        Executor executor = runnable -> fail("The executor has been used");
+
+        assertEquals("body", modelBody.evaluateAsync(executor).toCompletableFuture().join());
+        assertEquals("body", modelBody.evaluateAsync(executor).toCompletableFuture().join());
+        assertEquals(1, body.count);
+    }
+
+    /**
+     * Test method for {@link MemoizingModelBody#evaluateAsString()} and
+     * {@link MemoizingModelBody#evaluate()}.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testEvaluateAsStringThenEvaluate() throws IOException {
+        StringWriter defaultWriter = new StringWriter();
+        CountingModelBody body = new CountingModelBody(defaultWriter, " body\n");
+        MemoizingModelBody modelBody = new MemoizingModelBody(body);
+
+        assertEquals("body", modelBody.evaluateAsString());
+        assertEquals("body", modelBody.evaluateAsString());
+        modelBody.evaluate();
+        StringWriter writer = new StringWriter();
+        modelBody.evaluate(writer);
+        modelBody.evaluateWithoutWriting();
+        assertEquals(" body\n", defaultWriter.toString());
+        assertEquals(" body\n", writer.toString());
+        assertEquals(1, body.count);
+    }
+
+    /**
+     * Test method for {@link MemoizingModelBody#evaluateAsString()}, with an
+     * empty body.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testEvaluateAsStringEmpty() throws IOException {
+        CountingModelBody body = new CountingModelBody(null, " \n ");
+        MemoizingModelBody modelBody = new MemoizingModelBody(body);
+
+        assertNull(modelBody.evaluateAsString());
+        assertNull(modelBody.evaluateAsString());
+        StringBuilder builder = new StringBuilder();
+        assertFalse(modelBody.evaluateTo(builder));
+        assertEquals(0, builder.length());
+        assertEquals(1, body.count);
+    }
+
+    /**
+     * Test method for {@link MemoizingModelBody#evaluate()}, when the default
+     * writer is not known.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testEvaluateUnknownDefaultWriter() throws IOException {
+        StringWriter defaultWriter = new StringWriter();
+        CountingModelBody body = new CountingModelBody(defaultWriter, "body");
+        MemoizingModelBody modelBody = new MemoizingModelBody(body, null);
+
+        modelBody.evaluate(new StringWriter());
+        modelBody.evaluate();
+        assertEquals("body", defaultWriter.toString());
+        assertEquals(2, body.count);
+    }
+
+    /**
+     * Test method for {@link MemoizingModelBody#evaluate(Writer)}, when the
+     * rendering fails.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testEvaluateException() throws IOException {
+        CountingModelBody body = new CountingModelBody(null, null);
+        MemoizingModelBody modelBody = new MemoizingModelBody(body);
+
+        try {
+            modelBody.evaluate(new StringWriter());
+            fail("The exception has not been thrown");
+        } catch (IOException e) {
+            // Expected.
+        }
+        body.toReturn = "body";
+        assertEquals("body", modelBody.evaluateAsString());
+        assertEquals(2, body.count);
+    }
+
+    /**
+     * A body that counts its evaluations.
+     */
+    private static class CountingModelBody extends AbstractModelBody {
+
+        /**
+         * The result to return, <code>null</code> to throw an exception.
+         */
+        private String toReturn;
+
+        /**
+         * The number of evaluations.
+         */
+        private int count;
+
+        /**
+         * Constructor.
+         *
+         * @param defaultWriter The default writer.
+         * @param toReturn The result to return.
+         */
+        public CountingModelBody(Writer defaultWriter, String toReturn) {
+            super(defaultWriter);
+            this.toReturn = toReturn;
+        }
+
+        @Override
+        public void evaluate(Writer writer) throws IOException {
+            count++;
+            if (toReturn == null) {
+                throw new IOException();
+            }
+            writer.write(toReturn);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link ModelBodyExecutors}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class ModelBodyExecutorsTest {
+
+    /**
+     * Test method for {@link ModelBodyExecutors#newVirtualThreadExecutor()}.
+     */
+    @Test
+    public void testNewVirtualThreadExecutor() {
+        boolean available;
+        try {
+            Thread.class.getMethod("isVirtual");
+            available = true;
+        } catch (NoSuchMethodException e) {
+            available = false;
+        }
+        ExecutorService executor = ModelBodyExecutors.newVirtualThreadExecutor();
+        if (available) {
+            assertNotNull(executor);
+            executor.shutdown();
+        } else {
+            assertNull(executor);
+        }
+    }
+
+    /**
+     * Test method for {@link ModelBodyExecutors#newThreadPoolExecutor(int)}.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testNewThreadPoolExecutor() throws InterruptedException {
+        ExecutorService executor = ModelBodyExecutors.newThreadPoolExecutor(2);
+        try {
+            Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).join();
+            assertTrue(thread.isDaemon());
+            assertEquals("autotag-model-body", thread.getName());
+            assertEquals(2, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+            assertTrue(((ThreadPoolExecutor) executor).allowsCoreThreadTimeOut());
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link PoolingAutotagRuntimeFactory}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class PoolingAutotagRuntimeFactoryTest {
+
+    /**
+     * Tests that a reusable runtime is reset and reused.
+     */
+    @Test
+    public void testReusable() {
+        AutotagRuntimeFactory<Object> factory = AutotagRuntimeFactory.of(MockReusableRuntime::new);
+        MockReusableRuntime runtime = (MockReusableRuntime) factory.getRuntime();
+        factory.release(runtime);
+        assertEquals(1, runtime.resets);
+        assertSame(runtime, factory.getRuntime());
+    }
+
+    /**
+     * Tests that a nested invocation does not get the runtime in use.
+     */
+    @Test
+    public void testNested() {
+        AutotagRuntimeFactory<Object> factory = AutotagRuntimeFactory.of(MockReusableRuntime::new);
+        AutotagRuntime<Object> outer = factory.getRuntime();
+        AutotagRuntime<Object> inner = factory.getRuntime();
+        assertNotSame(outer, inner);
+        factory.release(inner);
+        factory.release(outer);
+        assertSame(inner, factory.getRuntime());
+        assertSame(outer, factory.getRuntime());
+        assertNotSame(outer, factory.getRuntime());
+    }
+
+    /**
+     * Tests that a runtime that cannot be reset is created every time.
+     */
+    @Test
+    public void testNotReusable() {
+        AutotagRuntimeFactory<Object> factory = AutotagRuntimeFactory.of(MockRuntime::new);
+        AutotagRuntime<Object> runtime = factory.getRuntime();
+        factory.release(runtime);
+        assertNotSame(runtime, factory.getRuntime());
+    }
+
+    /**
+     * Tests that the runtimes released while the pool is full are dropped.
+     */
+    @Test
+    public void testCapacity() {
+        AutotagRuntimeFactory<Object> factory = new PoolingAutotagRuntimeFactory<Object>(
+                MockReusableRuntime::new, 1);
+        AutotagRuntime<Object> first = factory.getRuntime();
+        AutotagRuntime<Object> second = factory.getRuntime();
+        factory.release(first);
+        factory.release(second);
+        assertSame(first, factory.getRuntime());
+        AutotagRuntime<Object> third = factory.getRuntime();
+        assertNotSame(first, third);
+        assertNotSame(second, third);
+    }
+
+    /**
+     * Tests that a runtime released by a thread is reused by another one.
+     *
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    @Test
+    public void testThreads() throws InterruptedException {
+        final AutotagRuntimeFactory<Object> factory = AutotagRuntimeFactory.of(MockReusableRuntime::new);
+        final List<AutotagRuntime<Object>> other = new ArrayList<AutotagRuntime<Object>>();
+        Thread thread = new Thread(() -> {
+            other.add(factory.getRuntime());
+            factory.release(other.get(0));
+        });
+        thread.start();
+        thread.join();
+        assertSame(other.get(0), factory.getRuntime());
+    }
+
+    /**
+     * A runtime that cannot be reset.
+     */
+    private static class MockRuntime implements AutotagRuntime<Object> {
+
+        @Override
+        public Object createRequest() {
+            return null;
+        }
+
+        @Override
+        public ModelBody createModelBody() {
+            return null;
+        }
+
+        @Override
+        public <T> T getParameter(String name, Class<T> type, T defaultValue) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * A runtime that counts its resets.
+     */
+    private static class MockReusableRuntime extends MockRuntime implements ReusableAutotagRuntime<Object> {
+
+        /**
+         * The number of resets.
+         */
+        private int resets;
+
+        @Override
+        public void reset() {
+            resets++;
+        }
+    }
+}
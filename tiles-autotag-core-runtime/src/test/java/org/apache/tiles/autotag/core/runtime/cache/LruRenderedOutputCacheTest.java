@@ -0,0 +1,99 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link LruRenderedOutputCache}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class LruRenderedOutputCacheTest {
+
+    /**
+     * The current time of the clock.
+     */
+    private long now;
+
+    /**
+     * The object to test.
+     */
+    private LruRenderedOutputCache cache;
+
+    /**
+     * Sets up the test.
+     */
+    @Before
+    public void setUp() {
+        cache = new LruRenderedOutputCache(2, 10L, () -> now);
+    }
+
+    /**
+     * Test method for {@link LruRenderedOutputCache#get(Object)}.
+     */
+    @Test
+    public void testGet() {
+        assertNull(cache.get(Arrays.asList("one", 1)));
+        cache.put(Arrays.asList("one", 1), "output");
+        assertEquals("output", cache.get(Arrays.asList("one", 1)));
+        assertNull(cache.get(Arrays.asList("one", 2)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    /**
+     * Test method for {@link LruRenderedOutputCache#put(Object, String)},
+     * evicting the least recently used entry.
+     */
+    @Test
+    public void testPutEvicts() {
+        cache.put("one", "1");
+        cache.put("two", "2");
+        assertEquals("1", cache.get("one"));
+        cache.put("three", "3");
+        assertEquals(2, cache.size());
+        assertNull(cache.get("two"));
+        assertEquals("1", cache.get("one"));
+        assertEquals("3", cache.get("three"));
+    }
+
+    /**
+     * Test method for {@link LruRenderedOutputCache#get(Object)}, with
+     * expired entries.
+     */
+    @Test
+    public void testGetExpired() {
+        cache.put("one", "1");
+        now = 9L;
+        assertEquals("1", cache.get("one"));
+        now = 10L;
+        assertNull(cache.get("one"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+}
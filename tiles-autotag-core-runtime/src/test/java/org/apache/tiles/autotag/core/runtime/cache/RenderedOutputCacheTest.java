@@ -0,0 +1,123 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime.cache;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tiles.autotag.core.runtime.AutotagRuntime;
+import org.apache.tiles.autotag.core.runtime.CapturingAutotagRuntime;
+import org.apache.tiles.autotag.core.runtime.ModelBody;
+import org.junit.Test;
+
+/**
+ * Tests {@link RenderedOutputCache}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class RenderedOutputCacheTest {
+
+    /**
+     * Test method for {@link RenderedOutputCache#render(AutotagRuntime, Object, ModelExecution)}.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testRender() throws IOException {
+        RenderedOutputCache cache = new LruRenderedOutputCache(1, 1, TimeUnit.MINUTES);
+        MockRuntime runtime = new MockRuntime();
+        int[] executions = new int[1];
+        ModelExecution<Writer> execution = request -> {
+            executions[0]++;
+            request.write("output");
+        };
+
+        cache.render(runtime, "key", execution);
+        cache.render(runtime, "key", execution);
+        assertEquals("outputoutput", runtime.writer.toString());
+        assertEquals(1, executions[0]);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * Test method for {@link RenderedOutputCache#render(AutotagRuntime, Object, ModelExecution)},
+     * with a runtime that cannot capture the output.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRenderNotCapturing() throws IOException {
+        RenderedOutputCache cache = new LruRenderedOutputCache(1, 1, TimeUnit.MINUTES);
+        AutotagRuntime<Writer> runtime = createMock(AutotagRuntime.class);
+        StringWriter writer = new StringWriter();
+        expect(runtime.createRequest()).andReturn(writer).times(2);
+
+        replay(runtime);
+        ModelExecution<Writer> execution = request -> request.write("output");
+        cache.render(runtime, "key", execution);
+        cache.render(runtime, "key", execution);
+        assertEquals("outputoutput", writer.toString());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+        verify(runtime);
+    }
+
+    /**
+     * A runtime whose requests are the writers to write into.
+     */
+    private static class MockRuntime implements CapturingAutotagRuntime<Writer> {
+
+        /**
+         * The writer of the output of the template.
+         */
+        private StringWriter writer = new StringWriter();
+
+        @Override
+        public Writer createRequest() {
+            return writer;
+        }
+
+        @Override
+        public ModelBody createModelBody() {
+            return null;
+        }
+
+        @Override
+        public <T> T getParameter(String name, Class<T> type, T defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public Writer createRequest(Writer writer) {
+            return writer;
+        }
+
+        @Override
+        public Writer getWriter() {
+            return writer;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link ParameterConverter}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class ParameterConverterTest {
+
+    /**
+     * Test method for {@link ParameterConverter#convert(Object, Class)}.
+     */
+    @Test
+    public void testConvertSameType() {
+        Object value = new Object();
+        assertSame(value, ParameterConverter.convert(value, Object.class));
+        assertEquals("value", ParameterConverter.convert("value", String.class));
+        assertNull(ParameterConverter.convert(null, Long.class));
+    }
+
+    /**
+     * Test method for {@link ParameterConverter#convert(Object, Class)}.
+     */
+    @Test
+    public void testConvertNumber() {
+        assertEquals(Long.valueOf(2L), ParameterConverter.convert(2, Long.class));
+        assertEquals(Double.valueOf(2.0), ParameterConverter.convert(2, Double.class));
+        assertEquals(Integer.valueOf(2), ParameterConverter.convert(2.5, Integer.class));
+        assertEquals(Byte.valueOf((byte) 2), ParameterConverter.convert(2L, Byte.class));
+        assertEquals(Short.valueOf((short) 2), ParameterConverter.convert(2L, Short.class));
+        assertEquals(Float.valueOf(2.5f), ParameterConverter.convert(2.5, Float.class));
+    }
+
+    /**
+     * Test method for {@link ParameterConverter#convert(Object, Class)}.
+     */
+    @Test
+    public void testConvertString() {
+        assertEquals(Integer.valueOf(2), ParameterConverter.convert(" 2 ", Integer.class));
+        assertEquals(Long.valueOf(2L), ParameterConverter.convert("2", Long.class));
+        assertEquals(Double.valueOf(2.5), ParameterConverter.convert("2.5", Double.class));
+        assertEquals(Boolean.TRUE, ParameterConverter.convert("true", Boolean.class));
+        assertEquals(Character.valueOf('x'), ParameterConverter.convert("x", Character.class));
+        assertEquals(new StringBuilder("2").toString(),
+                ParameterConverter.convert(new StringBuilder("2"), String.class));
+        assertEquals("2", ParameterConverter.convert(2, String.class));
+    }
+
+    /**
+     * Test method for {@link ParameterConverter#convert(Object, Class)}.
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testConvertNotANumber() {
+        ParameterConverter.convert("two", Integer.class);
+    }
+
+    /**
+     * Test method for {@link ParameterConverter#convert(Object, Class)}.
+     */
+    @Test(expected = ClassCastException.class)
+    public void testConvertIncompatible() {
+        ParameterConverter.convert(Boolean.TRUE, Integer.class);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.runtime.util;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link TrimmingWriter}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class TrimmingWriterTest {
+
+    /**
+     * The object to test.
+     */
+    private TrimmingWriter writer;
+
+    /**
+     * Sets up the test.
+     */
+    @Before
+    public void setUp() {
+        writer = new TrimmingWriter();
+    }
+
+    /**
+     * Test method for {@link org.apache.tiles.autotag.core.runtime.util.TrimmingWriter#write(String, int, int)}.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testWriteString() throws IOException {
+        writer.write("  \n");
+        assertFalse(writer.hasContent());
+        writer.write(" Hello ");
+        writer.write("\t");
+        writer.write("there\r\n");
+        writer.write("  ");
+        assertTrue(writer.hasContent());
+        assertEquals("Hello \tthere", writer.toString());
+    }
+
+    /**
+     * Test method for {@link org.apache.tiles.autotag.core.runtime.util.TrimmingWriter#write(char[], int, int)}.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testWriteCharArrayIntInt() throws IOException {
+        char[] chars = "x \f Hello  there \u000B x".toCharArray();
+        writer.write(chars, 1, chars.length - 2);
+        writer.write(chars, 1, 2);
+        assertEquals("Hello  there", writer.toString());
+        writer.write(chars, 0, 1);
+        assertEquals("Hello  there \u000B  \fx", writer.toString());
+    }
+
+    /**
+     * Test method for {@link org.apache.tiles.autotag.core.runtime.util.TrimmingWriter#write(int)}.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testWriteInt() throws IOException {
+        writer.write(' ');
+        writer.write('a');
+        writer.write(' ');
+        assertEquals("a", writer.toString());
+        writer.write('b');
+        assertEquals("a b", writer.toString());
+    }
+
+    /**
+     * Test method for {@link org.apache.tiles.autotag.core.runtime.util.TrimmingWriter#reset(Appendable)}.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testResetAppendable() throws IOException {
+        writer.write("buffered");
+        StringWriter target = new StringWriter();
+        writer.reset(target);
+        assertFalse(writer.hasContent());
+        writer.write(" one".toCharArray(), 0, 4);
+        writer.write(" two ");
+        writer.append(new StringBuilder("three "));
+        assertEquals("one two three", target.toString());
+        assertEquals("buffered", writer.toString());
+
+        StringBuilder builder = new StringBuilder();
+        writer.reset(builder);
+        writer.write(" one ".toCharArray(), 0, 5);
+        writer.write(" two ".toCharArray(), 0, 5);
+        assertEquals("one  two", builder.toString());
+    }
+
+    /**
+     * Test method for {@link org.apache.tiles.autotag.core.runtime.util.TrimmingWriter#reset()}.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testReset() throws IOException {
+        writer.write("Hello ");
+        writer.reset();
+        assertFalse(writer.hasContent());
+        assertEquals("", writer.toString());
+        writer.ensureCapacity(100);
+        assertTrue(writer.capacity() >= 100);
+        writer.write(" there");
+        assertEquals("there", writer.toString());
+    }
+}
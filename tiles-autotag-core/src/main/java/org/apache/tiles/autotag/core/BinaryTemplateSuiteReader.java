@@ -0,0 +1,151 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+
+/**
+ * Reads a template suite written by {@link BinaryTemplateSuiteWriter}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class BinaryTemplateSuiteReader {
+
+    /**
+     * Reads a template suite.
+     *
+     * @param stream The stream to read from. It is not closed.
+     * @return The template suite.
+     * @throws IOException If something goes wrong when reading, or if the
+     * stream is not a binary descriptor of a supported version.
+     */
+    public TemplateSuite read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != BinaryTemplateSuiteWriter.MAGIC) {
+            throw new IOException("Not a binary template suite descriptor");
+        }
+        short version = in.readShort();
+        if (version != BinaryTemplateSuiteWriter.VERSION) {
+            throw new IOException("Unsupported binary template suite descriptor version: "
+                    + version);
+        }
+        String[] strings = new String[in.readInt()];
+        byte[] buffer = new byte[0];
+        for (int i = 0; i < strings.length; i++) {
+            int length = in.readInt();
+            if (buffer.length < length) {
+                buffer = new byte[length];
+            }
+            in.readFully(buffer, 0, length);
+            strings[i] = new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+
+        String name = readString(in, strings);
+        String documentation = readString(in, strings);
+        int classCount = in.readInt();
+        List<TemplateClass> classes = new ArrayList<TemplateClass>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            String className = readString(in, strings);
+            String tagName = readString(in, strings);
+            String tagClassPrefix = readString(in, strings);
+            String classDocumentation = readString(in, strings);
+            boolean stateless = in.readBoolean();
+            boolean memoizedBody = in.readBoolean();
+            boolean cacheable = in.readBoolean();
+            TemplateMethod method = null;
+            if (in.readBoolean()) {
+                method = readMethod(in, strings);
+            }
+            TemplateClass templateClass = new TemplateClass(className,
+                    tagName, tagClassPrefix, method);
+            templateClass.setDocumentation(classDocumentation);
+            templateClass.setStateless(stateless);
+            templateClass.setMemoizedBody(memoizedBody);
+            templateClass.setCacheable(cacheable);
+            classes.add(templateClass);
+        }
+        return new TemplateSuite(name, documentation, classes);
+    }
+
+    /**
+     * Reads an execute method.
+     *
+     * @param in The input.
+     * @param strings The table of strings.
+     * @return The method.
+     * @throws IOException If something goes wrong when reading.
+     */
+    private TemplateMethod readMethod(DataInputStream in, String[] strings)
+            throws IOException {
+        String name = readString(in, strings);
+        String documentation = readString(in, strings);
+        int parameterCount = in.readInt();
+        List<TemplateParameter> parameters = new ArrayList<TemplateParameter>(parameterCount);
+        for (int i = 0; i < parameterCount; i++) {
+            String parameterName = readString(in, strings);
+            String exportedName = readString(in, strings);
+            String parameterDocumentation = readString(in, strings);
+            String type = readString(in, strings);
+            String defaultValue = readString(in, strings);
+            int flags = in.readUnsignedByte();
+            TemplateParameter parameter = new TemplateParameter(parameterName,
+                    exportedName, type, defaultValue,
+                    (flags & BinaryTemplateSuiteWriter.REQUIRED) != 0,
+                    (flags & BinaryTemplateSuiteWriter.REQUEST) != 0);
+            parameter.setDocumentation(parameterDocumentation);
+            parameters.add(parameter);
+        }
+        TemplateMethod method = new TemplateMethod(name, parameters);
+        method.setDocumentation(documentation);
+        return method;
+    }
+
+    /**
+     * Reads a string, as an index in the table of strings.
+     *
+     * @param in The input.
+     * @param strings The table of strings.
+     * @return The string, or <code>null</code>.
+     * @throws IOException If something goes wrong when reading.
+     */
+    private String readString(DataInputStream in, String[] strings)
+            throws IOException {
+        int index = in.readInt();
+        if (index == -1) {
+            return null;
+        }
+        if (index < 0 || index >= strings.length) {
+            throw new IOException("Invalid string index: " + index);
+        }
+        return strings[index];
+    }
+}
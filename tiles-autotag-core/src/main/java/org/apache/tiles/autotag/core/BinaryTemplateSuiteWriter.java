@@ -0,0 +1,172 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+
+/**
+ * Writes a template suite in a compact binary format, that is much faster to
+ * read than XML. The format is:
+ * <ul>
+ * <li>the magic number {@value #MAGIC} and the version of the format, as a
+ * short;</li>
+ * <li>the table of strings: their count, then every string as its UTF-8
+ * length and bytes. Every distinct string, e.g. a type name used by many
+ * parameters, is written once;</li>
+ * <li>the suite, where every string is the index in the table, or -1 for
+ * <code>null</code>: name, documentation, number of classes, then every
+ * class: name, tag name, tag class prefix, documentation, whether it is
+ * stateless, whether its body is memoized, whether it is cacheable, and
+ * whether it has an execute method; if so: method name, method documentation, number of
+ * parameters, then every parameter: name, exported name, documentation,
+ * type, default value and flags ({@value #REQUIRED}: required,
+ * {@value #REQUEST}: request).</li>
+ * </ul>
+ * All the numbers are big-endian integers, unless specified.
+ *
+ * @version $Rev$ $Date$
+ * @see BinaryTemplateSuiteReader
+ */
+public class BinaryTemplateSuiteWriter {
+
+    /**
+     * The magic number that starts the descriptor, "ATSD".
+     */
+    public static final int MAGIC = 0x41545344;
+
+    /**
+     * The version of the format.
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * The flag of required parameters.
+     */
+    static final int REQUIRED = 1;
+
+    /**
+     * The flag of request parameters.
+     */
+    static final int REQUEST = 2;
+
+    /**
+     * Writes a template suite.
+     *
+     * @param suite The suite to write.
+     * @param stream The stream to write to. It is not closed.
+     * @throws IOException If something goes wrong when writing.
+     */
+    public void write(TemplateSuite suite, OutputStream stream) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        writeString(suite.getName(), body, strings);
+        writeString(suite.getDocumentation(), body, strings);
+        Collection<TemplateClass> classes = suite.getTemplateClasses();
+        body.writeInt(classes.size());
+        for (TemplateClass templateClass : classes) {
+            writeString(templateClass.getName(), body, strings);
+            writeString(templateClass.getTagName(), body, strings);
+            writeString(templateClass.getTagClassPrefix(), body, strings);
+            writeString(templateClass.getDocumentation(), body, strings);
+            body.writeBoolean(templateClass.isStateless());
+            body.writeBoolean(templateClass.isMemoizedBody());
+            body.writeBoolean(templateClass.isCacheable());
+            TemplateMethod method = templateClass.getExecuteMethod();
+            body.writeBoolean(method != null);
+            if (method != null) {
+                writeMethod(method, body, strings);
+            }
+        }
+        body.flush();
+
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(strings.size());
+        for (String string : strings.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        bodyBytes.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Writes an execute method.
+     *
+     * @param method The method.
+     * @param body The body of the descriptor.
+     * @param strings The table of strings, indexed by value.
+     * @throws IOException If something goes wrong when writing.
+     */
+    private void writeMethod(TemplateMethod method, DataOutputStream body,
+            Map<String, Integer> strings) throws IOException {
+        writeString(method.getName(), body, strings);
+        writeString(method.getDocumentation(), body, strings);
+        Collection<TemplateParameter> parameters = method.getParameters();
+        body.writeInt(parameters.size());
+        for (TemplateParameter parameter : parameters) {
+            writeString(parameter.getName(), body, strings);
+            writeString(parameter.getExportedName(), body, strings);
+            writeString(parameter.getDocumentation(), body, strings);
+            writeString(parameter.getType(), body, strings);
+            writeString(parameter.getDefaultValue(), body, strings);
+            body.writeByte((parameter.isRequired() ? REQUIRED : 0)
+                    | (parameter.isRequest() ? REQUEST : 0));
+        }
+    }
+
+    /**
+     * Writes the index of a string, adding it to the table if needed.
+     *
+     * @param string The string, may be <code>null</code>.
+     * @param body The body of the descriptor.
+     * @param strings The table of strings, indexed by value.
+     * @throws IOException If something goes wrong when writing.
+     */
+    private void writeString(String string, DataOutputStream body,
+            Map<String, Integer> strings) throws IOException {
+        if (string == null) {
+            body.writeInt(-1);
+            return;
+        }
+        Integer index = strings.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.put(string, index);
+        }
+        body.writeInt(index);
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tiles.autotag.core.runtime.ModelBody;
+import org.apache.tiles.autotag.core.runtime.annotation.CacheableModel;
+import org.apache.tiles.autotag.core.runtime.annotation.CompiledParameter;
+import org.apache.tiles.autotag.core.runtime.annotation.MemoizedBody;
+import org.apache.tiles.autotag.core.runtime.annotation.Parameter;
+import org.apache.tiles.autotag.core.runtime.annotation.StatelessModel;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.StreamingTemplateSuiteFactory;
+import org.apache.tiles.autotag.model.TemplateClassConsumer;
+import org.apache.tiles.autotag.model.TemplateSuite;
+
+/**
+ * Creates a template suite out of compiled classes, e.g. the entries of a
+ * prebuilt jar, without their sources. It applies the same rules as
+ * {@link QDoxTemplateSuiteFactory}, with these differences:
+ * <ul>
+ * <li>class files contain no documentation;</li>
+ * <li>{@link Parameter} is not retained in class files, so only
+ * {@link CompiledParameter} is read;</li>
+ * <li>parameter names are read from the debug information or from the
+ * parameters metadata (<code>-g</code> or <code>-parameters</code> options of
+ * javac), and default to <code>argN</code>.</li>
+ * </ul>
+ * The goals of the Maven plugin read sources, and do not use this factory: it
+ * is meant to be called directly, e.g. by a build of its own.
+ *
+ * @version $Rev$ $Date$
+ */
+public class BytecodeTemplateSuiteFactory implements StreamingTemplateSuiteFactory {
+
+    /**
+     * The suffix of parsed classes.
+     */
+    private static final String TEMPLATE_SUFFIX = "Model";
+
+    /**
+     * The URLs of the class files to read.
+     */
+    private URL[] classes;
+
+    /**
+     * The name of the suite.
+     */
+    private String suiteName;
+
+    /**
+     * The documentation of the suite.
+     */
+    private String suiteDocumentation;
+
+    /**
+     * The request class the suite.
+     */
+    private String requestClass;
+
+    /**
+     * Constructor.
+     *
+     * @param classFiles All the class files to read.
+     */
+    public BytecodeTemplateSuiteFactory(File... classFiles) {
+        classes = new URL[classFiles.length];
+        try {
+            for (int i = 0; i < classFiles.length; i++) {
+                classes[i] = classFiles[i].toURI().toURL();
+            }
+        } catch (IOException e) {
+            throw new ClassParseException(
+                    "I/O Exception when adding class files", e);
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param urls All the URLs of class files to read, including
+     * <code>jar:</code> URLs.
+     */
+    public BytecodeTemplateSuiteFactory(URL... urls) {
+        classes = urls.clone();
+    }
+
+    /**
+     * Sets the suite name to assign to the created suite.
+     *
+     * @param suiteName The suite name.
+     */
+    public void setSuiteName(String suiteName) {
+        this.suiteName = suiteName;
+    }
+
+    /**
+     * Sets the suite documentation to assign to the suite.
+     *
+     * @param suiteDocumentation The suite documentation.
+     */
+    public void setSuiteDocumentation(String suiteDocumentation) {
+        this.suiteDocumentation = suiteDocumentation;
+    }
+
+    /**
+     * Sets the request class used by the suite.
+     *
+     * @param requestClass The request class name.
+     */
+    public void setRequestClass(String requestClass) {
+        this.requestClass = requestClass;
+    }
+
+    @Override
+    public TemplateSuite createTemplateSuite() {
+        return createTemplateSuite(null);
+    }
+
+    @Override
+    public TemplateSuite createTemplateSuite(TemplateClassConsumer consumer) {
+        TemplateSuite suite = new TemplateSuite(suiteName, suiteDocumentation);
+        for (URL url : classes) {
+            ClassFile clazz;
+            try {
+                InputStream stream = new BufferedInputStream(url.openStream());
+                try {
+                    clazz = ClassFile.read(stream);
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                throw new ClassParseException("Cannot read class file " + url, e);
+            }
+            String tagClassPrefix = getTagClassPrefix(clazz);
+            if (tagClassPrefix != null && clazz.getName() != null) {
+                String tagName = tagClassPrefix.substring(0, 1).toLowerCase()
+                        + tagClassPrefix.substring(1);
+                TemplateMethod executeMethod = null;
+                for (ClassFile.Method method : clazz.getMethods()) {
+                    if (isFeasible(method)) {
+                        executeMethod = createMethod(method);
+                    }
+                }
+                if (executeMethod != null) {
+                    TemplateClass templateClass = new TemplateClass(
+                            clazz.getName(), tagName, tagClassPrefix,
+                            executeMethod);
+                    templateClass.setStateless(clazz.hasAnnotation(
+                            StatelessModel.class.getName()));
+                    templateClass.setMemoizedBody(clazz.hasAnnotation(
+                            MemoizedBody.class.getName()));
+                    templateClass.setCacheable(clazz.hasAnnotation(
+                            CacheableModel.class.getName()));
+                    suite.addTemplateClass(templateClass);
+                    if (consumer != null) {
+                        consumer.accept(suite, templateClass);
+                    }
+                }
+            }
+        }
+        return suite;
+    }
+
+    /**
+     * Computes the tag class prefix.
+     *
+     * @param clazz The class file.
+     * @return The tag class prefix.
+     */
+    private String getTagClassPrefix(ClassFile clazz) {
+        String tagName;
+        String simpleClassName = clazz.getSimpleName();
+        if (simpleClassName.endsWith(TEMPLATE_SUFFIX)
+                && simpleClassName.length() > TEMPLATE_SUFFIX.length()) {
+            tagName = simpleClassName.substring(0, 1).toUpperCase()
+                    + simpleClassName.substring(1, simpleClassName.length()
+                            - TEMPLATE_SUFFIX.length());
+        } else {
+            tagName = null;
+        }
+        return tagName;
+    }
+
+    /**
+     * Creates a template method descriptor from a method of a class file.
+     *
+     * @param method The method.
+     * @return The template method descriptor.
+     */
+    private TemplateMethod createMethod(ClassFile.Method method) {
+        List<TemplateParameter> params = new ArrayList<TemplateParameter>();
+        List<String> parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            String name = method.getParameterName(i);
+            String exportedName = name;
+            boolean required = false;
+            String defaultValue = null;
+            Map<String, Object> annotation = method.getParameterAnnotation(i,
+                    CompiledParameter.class.getName());
+            if (annotation != null) {
+                Object value = annotation.get("name");
+                if (value != null && !Parameter.SAME_NAME.equals(value)) {
+                    exportedName = (String) value;
+                }
+                required = Boolean.TRUE.equals(annotation.get("required"));
+                value = annotation.get("defaultValue");
+                if (value != null) {
+                    defaultValue = escape((String) value);
+                }
+            }
+            String parameterType = parameterTypes.get(i);
+            params.add(new TemplateParameter(name, exportedName,
+                    parameterType, defaultValue, required,
+                    requestClass.equals(parameterType)));
+        }
+        return new TemplateMethod(method.getName(), params);
+    }
+
+    /**
+     * Verifies if the method can be used as an "execute" method.
+     *
+     * @param method The method.
+     * @return <code>true</code> if it is an execute method.
+     */
+    private boolean isFeasible(ClassFile.Method method) {
+        if ("execute".equals(method.getName())
+                && "void".equals(method.getReturnType())
+                && method.is(ClassFile.ACC_PUBLIC)
+                && !method.is(ClassFile.ACC_STATIC)
+                && !method.is(ClassFile.ACC_ABSTRACT)
+                && !method.is(ClassFile.ACC_BRIDGE)
+                && !method.is(ClassFile.ACC_SYNTHETIC)) {
+            List<String> params = method.getParameterTypes();
+            if (params.size() > 0) {
+                if (requestClass.equals(params.get(params.size() - 1))) {
+                    return true;
+                }
+            }
+            if (params.size() >= 2) {
+                if (requestClass.equals(params.get(params.size() - 2))
+                        && ModelBody.class.getName().equals(
+                                params.get(params.size() - 1))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Escapes a string value as it would be written in a Java string literal,
+     * since the other factories read the default value from the sources.
+     *
+     * @param value The value.
+     * @return The escaped value, without the enclosing quotes.
+     */
+    private static String escape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\b':
+                builder.append("\\b");
+                break;
+            case '\t':
+                builder.append("\\t");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            case '\f':
+                builder.append("\\f");
+                break;
+            case '\r':
+                builder.append("\\r");
+                break;
+            case '"':
+                builder.append("\\\"");
+                break;
+            case '\\':
+                builder.append("\\\\");
+                break;
+            default:
+                if (c < ' ') {
+                    builder.append(String.format("\\%03o", (int) c));
+                } else {
+                    builder.append(c);
+                }
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,747 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A lightweight reader of class files, that reads only what is needed to
+ * create template classes: the name and annotations of the class and the
+ * signatures, parameter names and parameter annotations of its methods.
+ *
+ * @version $Rev$ $Date$
+ */
+final class ClassFile {
+
+    /**
+     * The magic number of class files.
+     */
+    private static final int MAGIC = 0xCAFEBABE;
+
+    /**
+     * The "public" access flag.
+     */
+    static final int ACC_PUBLIC = 0x0001;
+
+    /**
+     * The "static" access flag.
+     */
+    static final int ACC_STATIC = 0x0008;
+
+    /**
+     * The "bridge" access flag of methods.
+     */
+    static final int ACC_BRIDGE = 0x0040;
+
+    /**
+     * The "abstract" access flag.
+     */
+    static final int ACC_ABSTRACT = 0x0400;
+
+    /**
+     * The "synthetic" access flag.
+     */
+    static final int ACC_SYNTHETIC = 0x1000;
+
+    /**
+     * The constant pool: strings for UTF-8 entries, boxed values for numeric
+     * entries, and the index of the name for class entries.
+     */
+    private Object[] constantPool;
+
+    /**
+     * The internal name of the class.
+     */
+    private String internalName;
+
+    /**
+     * The nested classes declared in the <code>InnerClasses</code> attribute,
+     * indexed by internal name. The value contains the internal name of the
+     * enclosing class and the simple name, which are <code>null</code> for
+     * local and anonymous classes.
+     */
+    private Map<String, String[]> innerClasses = new HashMap<String, String[]>();
+
+    /**
+     * The methods.
+     */
+    private List<Method> methods = new ArrayList<Method>();
+
+    /**
+     * The type names of the annotations of the class retained in the class
+     * file.
+     */
+    private Set<String> annotations = new HashSet<String>();
+
+    /**
+     * Private constructor, use {@link #read(InputStream)}.
+     */
+    private ClassFile() {
+    }
+
+    /**
+     * Reads a class file.
+     *
+     * @param stream The stream of the class file. It is not closed.
+     * @return The read class file.
+     * @throws IOException If the stream cannot be read or is not a class file.
+     */
+    public static ClassFile read(InputStream stream) throws IOException {
+        ClassFile classFile = new ClassFile();
+        classFile.parse(new DataInputStream(stream));
+        return classFile;
+    }
+
+    /**
+     * Returns the canonical name of the class.
+     *
+     * @return The canonical name, e.g. <code>my.package.Outer.Inner</code>, or
+     * <code>null</code> for local and anonymous classes.
+     */
+    public String getName() {
+        return getCanonicalName(internalName);
+    }
+
+    /**
+     * Returns the simple name of the class.
+     *
+     * @return The simple name.
+     */
+    public String getSimpleName() {
+        String[] innerClass = innerClasses.get(internalName);
+        if (innerClass != null && innerClass[1] != null) {
+            return innerClass[1];
+        }
+        return internalName.substring(internalName.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Checks if the class is annotated, with an annotation retained in the
+     * class file.
+     *
+     * @param annotationType The annotation type name.
+     * @return <code>true</code> if the class is annotated.
+     */
+    public boolean hasAnnotation(String annotationType) {
+        return annotations.contains(annotationType);
+    }
+
+    /**
+     * Returns the methods declared in the class, in order.
+     *
+     * @return The methods.
+     */
+    public List<Method> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Parses the class file.
+     *
+     * @param in The input.
+     * @throws IOException If something goes wrong when reading.
+     */
+    private void parse(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+        parseConstantPool(in);
+        in.readUnsignedShort(); // access flags
+        internalName = getClassName(in.readUnsignedShort());
+        in.readUnsignedShort(); // super class
+        skip(in, in.readUnsignedShort() * 2); // interfaces
+        int fieldCount = in.readUnsignedShort();
+        for (int i = 0; i < fieldCount; i++) {
+            skip(in, 6);
+            skipAttributes(in);
+        }
+        int methodCount = in.readUnsignedShort();
+        for (int i = 0; i < methodCount; i++) {
+            methods.add(parseMethod(in));
+        }
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String name = getUtf8(in.readUnsignedShort());
+            int length = in.readInt();
+            if ("InnerClasses".equals(name)) {
+                int count = in.readUnsignedShort();
+                for (int j = 0; j < count; j++) {
+                    String inner = getClassName(in.readUnsignedShort());
+                    int outerIndex = in.readUnsignedShort();
+                    int nameIndex = in.readUnsignedShort();
+                    in.readUnsignedShort(); // access flags
+                    innerClasses.put(inner, new String[] {
+                            outerIndex != 0 ? getClassName(outerIndex) : null,
+                            nameIndex != 0 ? getUtf8(nameIndex) : null });
+                }
+            } else if ("RuntimeVisibleAnnotations".equals(name)
+                    || "RuntimeInvisibleAnnotations".equals(name)) {
+                int count = in.readUnsignedShort();
+                for (int j = 0; j < count; j++) {
+                    String type = getUtf8(in.readUnsignedShort());
+                    parseAnnotationValues(in);
+                    annotations.add(toTypeName(type, new int[] {0}));
+                }
+            } else {
+                skip(in, length);
+            }
+        }
+        resolveTypeNames();
+    }
+
+    /**
+     * Replaces the internal names of the types of the methods and of the
+     * annotations with their canonical names, once the nested classes are
+     * known. The <code>InnerClasses</code> attribute follows the methods, so
+     * their types cannot be resolved while parsing them.
+     */
+    private void resolveTypeNames() {
+        Set<String> resolvedAnnotations = new HashSet<String>();
+        for (String annotation : annotations) {
+            resolvedAnnotations.add(resolveTypeName(annotation));
+        }
+        annotations = resolvedAnnotations;
+        for (Method method : methods) {
+            method.returnType = resolveTypeName(method.returnType);
+            for (int i = 0; i < method.parameterTypes.size(); i++) {
+                method.parameterTypes.set(i, resolveTypeName(method.parameterTypes.get(i)));
+                Map<String, Map<String, Object>> resolvedParameterAnnotations =
+                        new HashMap<String, Map<String, Object>>();
+                for (Map.Entry<String, Map<String, Object>> entry
+                        : method.parameterAnnotations.get(i).entrySet()) {
+                    resolvedParameterAnnotations.put(resolveTypeName(entry.getKey()), entry.getValue());
+                }
+                method.parameterAnnotations.set(i, resolvedParameterAnnotations);
+            }
+        }
+    }
+
+    /**
+     * Converts a type name whose classes are internal names, as returned by
+     * {@link #toTypeName(String, int[])}, to the name written in Java code.
+     * Only the nested classes declared in the <code>InnerClasses</code>
+     * attribute are separated from their enclosing class with a dot, so a
+     * <code>$</code> in the name of a top level class is kept.
+     *
+     * @param typeName The type name.
+     * @return The resolved type name. Local and anonymous classes keep their
+     * binary name.
+     */
+    private String resolveTypeName(String typeName) {
+        int dimensions = typeName.indexOf('[');
+        String name = dimensions >= 0 ? typeName.substring(0, dimensions) : typeName;
+        String canonicalName = getCanonicalName(name);
+        if (canonicalName == null) {
+            canonicalName = name.replace('/', '.');
+        }
+        return dimensions >= 0 ? canonicalName + typeName.substring(dimensions) : canonicalName;
+    }
+
+    /**
+     * Parses the constant pool.
+     *
+     * @param in The input.
+     * @throws IOException If something goes wrong when reading.
+     */
+    private void parseConstantPool(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        constantPool = new Object[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+            case 1: // Utf8
+                constantPool[i] = in.readUTF();
+                break;
+            case 3: // Integer
+                constantPool[i] = in.readInt();
+                break;
+            case 4: // Float
+                constantPool[i] = in.readFloat();
+                break;
+            case 5: // Long
+                constantPool[i] = in.readLong();
+                i++;
+                break;
+            case 6: // Double
+                constantPool[i] = in.readDouble();
+                i++;
+                break;
+            case 7: // Class
+                constantPool[i] = new int[] {in.readUnsignedShort()};
+                break;
+            case 8: // String
+            case 16: // MethodType
+            case 19: // Module
+            case 20: // Package
+                in.readUnsignedShort();
+                break;
+            case 15: // MethodHandle
+                skip(in, 3);
+                break;
+            case 9: // Fieldref
+            case 10: // Methodref
+            case 11: // InterfaceMethodref
+            case 12: // NameAndType
+            case 17: // Dynamic
+            case 18: // InvokeDynamic
+                in.readInt();
+                break;
+            default:
+                throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+    }
+
+    /**
+     * Parses a method.
+     *
+     * @param in The input.
+     * @return The method.
+     * @throws IOException If something goes wrong when reading.
+     */
+    private Method parseMethod(DataInputStream in) throws IOException {
+        int access = in.readUnsignedShort();
+        String name = getUtf8(in.readUnsignedShort());
+        String descriptor = getUtf8(in.readUnsignedShort());
+        Method method = new Method(access, name, descriptor);
+        int attributeCount = in.readUnsignedShort();
+        String[] localVariableNames = null;
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = getUtf8(in.readUnsignedShort());
+            int length = in.readInt();
+            if ("MethodParameters".equals(attributeName)) {
+                int count = in.readUnsignedByte();
+                for (int j = 0; j < count; j++) {
+                    int nameIndex = in.readUnsignedShort();
+                    in.readUnsignedShort(); // access flags
+                    if (nameIndex != 0 && j < method.parameterNames.length) {
+                        method.parameterNames[j] = getUtf8(nameIndex);
+                    }
+                }
+            } else if ("Code".equals(attributeName)) {
+                localVariableNames = parseCode(in);
+            } else if ("RuntimeVisibleParameterAnnotations".equals(attributeName)
+                    || "RuntimeInvisibleParameterAnnotations".equals(attributeName)) {
+                int count = in.readUnsignedByte();
+                // Synthetic parameters may not be annotated, the annotated
+                // ones are the last ones.
+                int offset = method.parameterTypes.size() - count;
+                for (int j = 0; j < count; j++) {
+                    int annotationCount = in.readUnsignedShort();
+                    for (int k = 0; k < annotationCount; k++) {
+                        String type = getUtf8(in.readUnsignedShort());
+                        Map<String, Object> values = parseAnnotationValues(in);
+                        if (j + offset >= 0) {
+                            method.parameterAnnotations.get(j + offset).put(
+                                    toTypeName(type, new int[] {0}), values);
+                        }
+                    }
+                }
+            } else {
+                skip(in, length);
+            }
+        }
+        if (localVariableNames != null) {
+            int slot = (access & ACC_STATIC) != 0 ? 0 : 1;
+            for (int i = 0; i < method.parameterNames.length; i++) {
+                if (method.parameterNames[i] == null && slot < localVariableNames.length) {
+                    method.parameterNames[i] = localVariableNames[slot];
+                }
+                String type = method.parameterTypes.get(i);
+                slot += "long".equals(type) || "double".equals(type) ? 2 : 1;
+            }
+        }
+        for (int i = 0; i < method.parameterNames.length; i++) {
+            if (method.parameterNames[i] == null) {
+                method.parameterNames[i] = "arg" + i;
+            }
+        }
+        return method;
+    }
+
+    /**
+     * Parses the <code>Code</code> attribute of a method, reading only the
+     * names of the local variables that are live at its start, i.e. the
+     * parameters.
+     *
+     * @param in The input.
+     * @return The names of the local variables, indexed by slot, or
+     * <code>null</code> if the class was compiled without debug information.
+     * @throws IOException If something goes wrong when reading.
+     */
+    private String[] parseCode(DataInputStream in) throws IOException {
+        in.readUnsignedShort(); // max stack
+        int maxLocals = in.readUnsignedShort();
+        skip(in, in.readInt()); // code
+        skip(in, in.readUnsignedShort() * 8); // exception table
+        String[] names = null;
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = getUtf8(in.readUnsignedShort());
+            int length = in.readInt();
+            if ("LocalVariableTable".equals(attributeName)) {
+                if (names == null) {
+                    names = new String[maxLocals];
+                }
+                int count = in.readUnsignedShort();
+                for (int j = 0; j < count; j++) {
+                    int startPc = in.readUnsignedShort();
+                    in.readUnsignedShort(); // length
+                    int nameIndex = in.readUnsignedShort();
+                    in.readUnsignedShort(); // descriptor
+                    int index = in.readUnsignedShort();
+                    if (startPc == 0 && index < names.length) {
+                        names[index] = getUtf8(nameIndex);
+                    }
+                }
+            } else {
+                skip(in, length);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Parses the element values of an annotation.
+     *
+     * @param in The input.
+     * @return The values, indexed by element name. Strings, enum constants and
+     * classes are returned as strings, booleans as {@link Boolean}, arrays as
+     * lists, while nested annotations are ignored.
+     * @throws IOException If something goes wrong when reading.
+     */
+    private Map<String, Object> parseAnnotationValues(DataInputStream in)
+            throws IOException {
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String name = getUtf8(in.readUnsignedShort());
+            values.put(name, parseElementValue(in));
+        }
+        return values;
+    }
+
+    /**
+     * Parses an element value of an annotation.
+     *
+     * @param in The input.
+     * @return The value.
+     * @throws IOException If something goes wrong when reading.
+     * @see #parseAnnotationValues(DataInputStream)
+     */
+    private Object parseElementValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+        case 'Z':
+            return Integer.valueOf(0).equals(constantPool[in.readUnsignedShort()])
+                    ? Boolean.FALSE : Boolean.TRUE;
+        case 'B':
+        case 'C':
+        case 'D':
+        case 'F':
+        case 'I':
+        case 'J':
+        case 'S':
+        case 's':
+            return constantPool[in.readUnsignedShort()];
+        case 'e':
+            in.readUnsignedShort(); // type
+            return getUtf8(in.readUnsignedShort());
+        case 'c':
+            return getUtf8(in.readUnsignedShort());
+        case '@':
+            in.readUnsignedShort(); // type
+            parseAnnotationValues(in);
+            return null;
+        case '[':
+            int count = in.readUnsignedShort();
+            List<Object> list = new ArrayList<Object>(count);
+            for (int i = 0; i < count; i++) {
+                list.add(parseElementValue(in));
+            }
+            return list;
+        default:
+            throw new IOException("Unknown element value tag " + (char) tag);
+        }
+    }
+
+    /**
+     * Skips the attributes of a field or a method.
+     *
+     * @param in The input.
+     * @throws IOException If something goes wrong when reading.
+     */
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            in.readUnsignedShort();
+            skip(in, in.readInt());
+        }
+    }
+
+    /**
+     * Skips bytes, failing if the end of the stream is reached.
+     *
+     * @param in The input.
+     * @param length The number of bytes to skip.
+     * @throws IOException If something goes wrong when reading.
+     */
+    private static void skip(DataInputStream in, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                in.readByte();
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * Returns a UTF-8 entry of the constant pool.
+     *
+     * @param index The index of the entry.
+     * @return The string.
+     */
+    private String getUtf8(int index) {
+        return (String) constantPool[index];
+    }
+
+    /**
+     * Returns the internal name of a class entry of the constant pool.
+     *
+     * @param index The index of the entry.
+     * @return The internal name.
+     */
+    private String getClassName(int index) {
+        return getUtf8(((int[]) constantPool[index])[0]);
+    }
+
+    /**
+     * Computes the canonical name of a class.
+     *
+     * @param name The internal name.
+     * @return The canonical name, or <code>null</code> for local and anonymous
+     * classes.
+     */
+    private String getCanonicalName(String name) {
+        String[] innerClass = innerClasses.get(name);
+        if (innerClass == null) {
+            return name.replace('/', '.');
+        }
+        if (innerClass[0] == null || innerClass[1] == null) {
+            return null;
+        }
+        String outer = getCanonicalName(innerClass[0]);
+        return outer != null ? outer + "." + innerClass[1] : null;
+    }
+
+    /**
+     * Converts a field descriptor to a type name, with the dimensions of arrays
+     * written as in Java code.
+     *
+     * @param descriptor The descriptor.
+     * @param position The position where the field descriptor starts, updated
+     * to the position after it.
+     * @return The type name, with classes as internal names, resolved later
+     * with {@link #resolveTypeName(String)}.
+     */
+    private static String toTypeName(String descriptor, int[] position) {
+        StringBuilder dimensions = new StringBuilder();
+        while (descriptor.charAt(position[0]) == '[') {
+            dimensions.append("[]");
+            position[0]++;
+        }
+        String typeName;
+        char c = descriptor.charAt(position[0]++);
+        switch (c) {
+        case 'B':
+            typeName = "byte";
+            break;
+        case 'C':
+            typeName = "char";
+            break;
+        case 'D':
+            typeName = "double";
+            break;
+        case 'F':
+            typeName = "float";
+            break;
+        case 'I':
+            typeName = "int";
+            break;
+        case 'J':
+            typeName = "long";
+            break;
+        case 'S':
+            typeName = "short";
+            break;
+        case 'Z':
+            typeName = "boolean";
+            break;
+        case 'V':
+            typeName = "void";
+            break;
+        case 'L':
+            int end = descriptor.indexOf(';', position[0]);
+            typeName = descriptor.substring(position[0], end);
+            position[0] = end + 1;
+            break;
+        default:
+            throw new IllegalArgumentException("Invalid descriptor " + descriptor);
+        }
+        return typeName + dimensions;
+    }
+
+    /**
+     * A method of a class file.
+     */
+    static final class Method {
+
+        /**
+         * The access flags.
+         */
+        private int access;
+
+        /**
+         * The name.
+         */
+        private String name;
+
+        /**
+         * The return type name.
+         */
+        private String returnType;
+
+        /**
+         * The parameter type names.
+         */
+        private List<String> parameterTypes = new ArrayList<String>();
+
+        /**
+         * The parameter names.
+         */
+        private String[] parameterNames;
+
+        /**
+         * The annotations of every parameter: their values indexed by
+         * annotation type name.
+         */
+        private List<Map<String, Map<String, Object>>> parameterAnnotations;
+
+        /**
+         * Constructor.
+         *
+         * @param access The access flags.
+         * @param name The name.
+         * @param descriptor The method descriptor.
+         */
+        private Method(int access, String name, String descriptor) {
+            this.access = access;
+            this.name = name;
+            int[] position = new int[] {1};
+            while (descriptor.charAt(position[0]) != ')') {
+                parameterTypes.add(toTypeName(descriptor, position));
+            }
+            position[0]++;
+            returnType = toTypeName(descriptor, position);
+            parameterNames = new String[parameterTypes.size()];
+            parameterAnnotations = new ArrayList<Map<String, Map<String, Object>>>();
+            for (int i = 0; i < parameterNames.length; i++) {
+                parameterAnnotations.add(new HashMap<String, Map<String, Object>>());
+            }
+        }
+
+        /**
+         * Checks an access flag.
+         *
+         * @param flag The flag, e.g. {@link ClassFile#ACC_PUBLIC}.
+         * @return <code>true</code> if the flag is set.
+         */
+        public boolean is(int flag) {
+            return (access & flag) != 0;
+        }
+
+        /**
+         * Returns the name.
+         *
+         * @return The name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the return type name.
+         *
+         * @return The return type name.
+         */
+        public String getReturnType() {
+            return returnType;
+        }
+
+        /**
+         * Returns the parameter type names.
+         *
+         * @return The parameter type names.
+         */
+        public List<String> getParameterTypes() {
+            return parameterTypes;
+        }
+
+        /**
+         * Returns the name of a parameter. It is read from the
+         * <code>MethodParameters</code> attribute or from the local variables,
+         * and defaults to <code>argN</code>.
+         *
+         * @param index The index of the parameter.
+         * @return The name.
+         */
+        public String getParameterName(int index) {
+            return parameterNames[index];
+        }
+
+        /**
+         * Returns the annotation of a parameter, if it is retained in the
+         * class file.
+         *
+         * @param index The index of the parameter.
+         * @param annotationType The annotation type name.
+         * @return The values of the annotation, indexed by element name, or
+         * <code>null</code> if the parameter is not annotated.
+         */
+        public Map<String, Object> getParameterAnnotation(int index, String annotationType) {
+            return parameterAnnotations.get(index).get(annotationType);
+        }
+    }
+}
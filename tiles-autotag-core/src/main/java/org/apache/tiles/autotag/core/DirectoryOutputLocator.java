@@ -50,6 +50,14 @@ public class DirectoryOutputLocator implements OutputLocator {
 		return new FileOutputStream(file);
 	}
 
+	@Override
+	public boolean write(String resourcePath, byte[] content) throws IOException {
+		if (OutputContents.hasContent(new File(directory, resourcePath), content)) {
+			return false;
+		}
+		return OutputLocator.super.write(resourcePath, content);
+	}
+
 	@Override
 	public boolean isUptodate(String resourcePath) {
 		File file = new File(directory, resourcePath);
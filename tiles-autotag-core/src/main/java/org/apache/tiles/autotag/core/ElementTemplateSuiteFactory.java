@@ -0,0 +1,425 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import org.apache.tiles.autotag.core.runtime.ModelBody;
+import org.apache.tiles.autotag.core.runtime.annotation.CacheableModel;
+import org.apache.tiles.autotag.core.runtime.annotation.CompiledParameter;
+import org.apache.tiles.autotag.core.runtime.annotation.MemoizedBody;
+import org.apache.tiles.autotag.core.runtime.annotation.Parameter;
+import org.apache.tiles.autotag.core.runtime.annotation.StatelessModel;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.apache.tiles.autotag.model.TemplateSuiteFactory;
+
+/**
+ * Creates a template suite out of the elements of the compiler, for use in an
+ * annotation processor. It applies the same rules as
+ * {@link QDoxTemplateSuiteFactory}, so that both create the same suite from
+ * the same sources.
+ *
+ * @version $Rev$ $Date$
+ */
+public class ElementTemplateSuiteFactory implements TemplateSuiteFactory {
+
+    /**
+     * The suffix of parsed classes.
+     */
+    private static final String TEMPLATE_SUFFIX = "Model";
+
+    /**
+     * The prefix of the Javadoc tag that documents a parameter.
+     */
+    private static final String PARAM_TAG = "@param";
+
+    /**
+     * The elements utilities of the compiler.
+     */
+    private Elements elements;
+
+    /**
+     * The types utilities of the compiler.
+     */
+    private Types types;
+
+    /**
+     * The type elements to inspect.
+     */
+    private Collection<? extends Element> typeElements;
+
+    /**
+     * The name of the suite.
+     */
+    private String suiteName;
+
+    /**
+     * The documentation of the suite.
+     */
+    private String suiteDocumentation;
+
+    /**
+     * The request class the suite.
+     */
+    private String requestClass;
+
+    /**
+     * Constructor.
+     *
+     * @param processingEnv The processing environment of the compiler.
+     * @param typeElements The elements to inspect. Elements other than types
+     * are ignored, while nested types are inspected too.
+     */
+    public ElementTemplateSuiteFactory(ProcessingEnvironment processingEnv,
+            Collection<? extends Element> typeElements) {
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.typeElements = typeElements;
+    }
+
+    /**
+     * Sets the suite name to assign to the created suite.
+     *
+     * @param suiteName The suite name.
+     */
+    public void setSuiteName(String suiteName) {
+        this.suiteName = suiteName;
+    }
+
+    /**
+     * Sets the suite documentation to assign to the suite.
+     *
+     * @param suiteDocumentation The suite documentation.
+     */
+    public void setSuiteDocumentation(String suiteDocumentation) {
+        this.suiteDocumentation = suiteDocumentation;
+    }
+
+    /**
+     * Sets the request class used by the suite.
+     *
+     * @param requestClass The request class name.
+     */
+    public void setRequestClass(String requestClass) {
+        this.requestClass = requestClass;
+    }
+
+    @Override
+    public TemplateSuite createTemplateSuite() {
+        List<TemplateClass> classes = new ArrayList<TemplateClass>();
+        for (TypeElement clazz : ElementFilter.typesIn(typeElements)) {
+            addTemplateClasses(clazz, classes);
+        }
+        return new TemplateSuite(suiteName, suiteDocumentation, classes);
+    }
+
+    /**
+     * Adds the template class created from a type, if any, then the ones
+     * created from its nested types.
+     *
+     * @param clazz The type.
+     * @param classes The list of template classes to fill.
+     */
+    private void addTemplateClasses(TypeElement clazz, List<TemplateClass> classes) {
+        String tagClassPrefix = getTagClassPrefix(clazz);
+        if (tagClassPrefix != null) {
+            String tagName = tagClassPrefix.substring(0, 1).toLowerCase()
+                    + tagClassPrefix.substring(1);
+            TemplateMethod executeMethod = null;
+            for (ExecutableElement method : ElementFilter.methodsIn(clazz
+                    .getEnclosedElements())) {
+                if (isFeasible(method)) {
+                    executeMethod = createMethod(method);
+                }
+            }
+            if (executeMethod != null) {
+                TemplateClass templateClass = new TemplateClass(clazz
+                        .getQualifiedName().toString(), tagName,
+                        tagClassPrefix, executeMethod);
+                templateClass.setDocumentation(new DocComment(elements
+                        .getDocComment(clazz)).getDescription());
+                templateClass.setStateless(hasAnnotation(clazz, StatelessModel.class));
+                templateClass.setMemoizedBody(hasAnnotation(clazz, MemoizedBody.class));
+                templateClass.setCacheable(hasAnnotation(clazz, CacheableModel.class));
+                classes.add(templateClass);
+            }
+        }
+        for (TypeElement nested : ElementFilter.typesIn(clazz.getEnclosedElements())) {
+            addTemplateClasses(nested, classes);
+        }
+    }
+
+    /**
+     * Computes the tag class prefix.
+     *
+     * @param clazz The type.
+     * @return The tag class prefix.
+     */
+    private String getTagClassPrefix(TypeElement clazz) {
+        String tagName;
+        String simpleClassName = clazz.getSimpleName().toString();
+        if (simpleClassName.endsWith(TEMPLATE_SUFFIX)
+                && simpleClassName.length() > TEMPLATE_SUFFIX.length()) {
+            tagName = simpleClassName.substring(0, 1).toUpperCase()
+                    + simpleClassName.substring(1, simpleClassName.length()
+                            - TEMPLATE_SUFFIX.length());
+        } else {
+            tagName = null;
+        }
+        return tagName;
+    }
+
+    /**
+     * Creates a template method descriptor from a method element.
+     *
+     * @param method The method element.
+     * @return The template method descriptor.
+     */
+    private TemplateMethod createMethod(ExecutableElement method) {
+        List<TemplateParameter> params = new ArrayList<TemplateParameter>();
+        for (VariableElement parameter : method.getParameters()) {
+            String name = parameter.getSimpleName().toString();
+            String exportedName = name;
+            boolean required = false;
+            String defaultValue = null;
+            AnnotationMirror annotation = getParameterAnnotation(parameter);
+            if (annotation != null) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation
+                        .getElementValues().entrySet()) {
+                    String attribute = entry.getKey().getSimpleName().toString();
+                    Object value = entry.getValue().getValue();
+                    if ("name".equals(attribute)) {
+                        if (!Parameter.SAME_NAME.equals(value)) {
+                            exportedName = (String) value;
+                        }
+                    } else if ("required".equals(attribute)) {
+                        required = Boolean.TRUE.equals(value);
+                    } else if ("defaultValue".equals(attribute)) {
+                        // QDox reads the literal as it is written in the
+                        // source, i.e. escaped.
+                        String literal = elements.getConstantExpression(value);
+                        defaultValue = literal.substring(1, literal.length() - 1);
+                    }
+                }
+            }
+            String parameterType = getTypeName(parameter);
+            TemplateParameter templateParameter = new TemplateParameter(
+                    name, exportedName, parameterType, defaultValue, required,
+                    requestClass.equals(parameterType));
+            params.add(templateParameter);
+        }
+        TemplateMethod templateMethod = new TemplateMethod(method
+                .getSimpleName().toString(), params);
+        DocComment comment = new DocComment(elements.getDocComment(method));
+        templateMethod.setDocumentation(comment.getDescription());
+        for (String tag : comment.getTags()) {
+            if (tag.startsWith(PARAM_TAG)) {
+                String tagValue = tag.substring(PARAM_TAG.length()).trim();
+                int pos = tagValue.indexOf(' ');
+                String paramName = pos >= 0 ? tagValue.substring(0, pos) : tagValue;
+                TemplateParameter templateParameter = templateMethod
+                        .getParameterByName(paramName);
+                if (templateParameter != null) {
+                    templateParameter.setDocumentation(pos >= 0 ? tagValue
+                            .substring(pos).trim() : "");
+                }
+            }
+        }
+        return templateMethod;
+    }
+
+    /**
+     * Checks if a type is annotated, e.g. with {@link StatelessModel}.
+     *
+     * @param clazz The type.
+     * @param annotationType The annotation type.
+     * @return <code>true</code> if the type is annotated.
+     */
+    private boolean hasAnnotation(TypeElement clazz, Class<?> annotationType) {
+        for (AnnotationMirror annotation : clazz.getAnnotationMirrors()) {
+            TypeElement element = (TypeElement) annotation
+                    .getAnnotationType().asElement();
+            if (annotationType.getName().equals(
+                    element.getQualifiedName().toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the {@link Parameter} or {@link CompiledParameter} annotation of
+     * a parameter.
+     *
+     * @param parameter The parameter element.
+     * @return The annotation, or <code>null</code> if the parameter is not
+     * annotated.
+     */
+    private AnnotationMirror getParameterAnnotation(VariableElement parameter) {
+        for (AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation
+                    .getAnnotationType().asElement();
+            String annotationName = annotationType.getQualifiedName().toString();
+            if (Parameter.class.getName().equals(annotationName)
+                    || CompiledParameter.class.getName().equals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verifies if the method can be used as an "execute" method.
+     *
+     * @param method The method element.
+     * @return <code>true</code> if it is an execute method.
+     */
+    private boolean isFeasible(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        if ("execute".equals(method.getSimpleName().toString())
+                && method.getReturnType().getKind() == TypeKind.VOID
+                && modifiers.contains(Modifier.PUBLIC)
+                && !modifiers.contains(Modifier.STATIC)
+                && !modifiers.contains(Modifier.ABSTRACT)) {
+            List<? extends VariableElement> params = method.getParameters();
+            if (params.size() > 0) {
+                VariableElement param = params.get(params.size() - 1);
+                if (requestClass.equals(getTypeName(param))) {
+                    return true;
+                }
+            }
+            if (params.size() >= 2) {
+                VariableElement param1 = params.get(params.size() - 2);
+                VariableElement param2 = params.get(params.size() - 1);
+                if (requestClass.equals(getTypeName(param1))
+                        && ModelBody.class.getName().equals(
+                                getTypeName(param2))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the fully qualified name of the type of a parameter, without
+     * type arguments, as QDox does.
+     *
+     * @param parameter The parameter element.
+     * @return The fully qualified name of the type.
+     */
+    private String getTypeName(VariableElement parameter) {
+        return types.erasure(parameter.asType()).toString();
+    }
+
+    /**
+     * A Javadoc comment, split into its description and its block tags.
+     */
+    private static final class DocComment {
+
+        /**
+         * The description, <code>null</code> if there is no comment.
+         */
+        private StringBuilder description;
+
+        /**
+         * The block tags, including their names.
+         */
+        private List<String> tags = new ArrayList<String>();
+
+        /**
+         * Constructor.
+         *
+         * @param comment The comment, as returned by
+         * {@link Elements#getDocComment(Element)}, may be <code>null</code>.
+         */
+        private DocComment(String comment) {
+            if (comment == null) {
+                return;
+            }
+            description = new StringBuilder();
+            StringBuilder current = description;
+            for (String line : comment.split("\n")) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith("@")) {
+                    addTag(current);
+                    current = new StringBuilder(trimmed);
+                } else {
+                    if (current.length() > 0) {
+                        current.append('\n');
+                    }
+                    current.append(trimmed);
+                }
+            }
+            addTag(current);
+        }
+
+        /**
+         * Adds a block tag, unless it is the description.
+         *
+         * @param tag The block tag.
+         */
+        private void addTag(StringBuilder tag) {
+            if (tag != description) {
+                tags.add(tag.toString().trim());
+            }
+        }
+
+        /**
+         * Returns the description.
+         *
+         * @return The description, trimmed, or <code>null</code> if there is
+         * no comment.
+         */
+        public String getDescription() {
+            return description != null ? description.toString().trim() : null;
+        }
+
+        /**
+         * Returns the block tags.
+         *
+         * @return The block tags, starting with their names.
+         */
+        public List<String> getTags() {
+            return tags;
+        }
+    }
+}
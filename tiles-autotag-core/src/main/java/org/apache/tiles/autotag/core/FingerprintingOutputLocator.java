@@ -0,0 +1,39 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+/**
+ * An output locator that knows from which inputs the files were generated,
+ * so that only the files whose inputs changed are generated again.
+ *
+ * @see TemplateFingerprints
+ */
+public interface FingerprintingOutputLocator extends OutputLocator {
+
+	/**
+	 * Returns the locator of the files generated from inputs with this
+	 * fingerprint. Such a file is up to date only if it was last generated
+	 * from inputs with the same fingerprint.
+	 * @param fingerprint the fingerprint of the inputs.
+	 * @return the output locator.
+	 */
+	OutputLocator forFingerprint(String fingerprint);
+}
@@ -0,0 +1,69 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the files in memory, for instance to compile the generated sources
+ * without writing them first. Nothing is ever up to date. Files may be
+ * written by several threads at once.
+ */
+public class MemoryOutputLocator implements OutputLocator {
+
+	private Map<String, byte[]> contents = new ConcurrentHashMap<String, byte[]>();
+
+	@Override
+	public OutputStream getOutputStream(final String resourcePath) throws IOException {
+		return new ByteArrayOutputStream() {
+
+			@Override
+			public void close() throws IOException {
+				super.close();
+				contents.put(resourcePath, toByteArray());
+			}
+		};
+	}
+
+	@Override
+	public boolean write(String resourcePath, byte[] content) throws IOException {
+		contents.put(resourcePath, content.clone());
+		return true;
+	}
+
+	@Override
+	public boolean isUptodate(String resourcePath) {
+		return false;
+	}
+
+	/**
+	 * Returns the written files.
+	 * @return the content of the files, sorted by path.
+	 */
+	public Map<String, byte[]> getContents() {
+		return new TreeMap<String, byte[]>(contents);
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Compares generated content with the files it would overwrite.
+ *
+ * @version $Rev$ $Date$
+ */
+public final class OutputContents {
+
+    /**
+     * The size of the buffer used to read files.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Constructor, private to avoid instantiation.
+     */
+    private OutputContents() {
+    }
+
+    /**
+     * Checks if a file has exactly this content. Files of another size are
+     * not read at all.
+     *
+     * @param file The file.
+     * @param content The content.
+     * @return <code>true</code> if the file exists and has this content.
+     * @throws IOException If something goes wrong when reading the file.
+     */
+    public static boolean hasContent(File file, byte[] content) throws IOException {
+        if (!file.isFile() || file.length() != content.length) {
+            return false;
+        }
+        InputStream stream = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[Math.min(content.length, BUFFER_SIZE)];
+            int offset = 0;
+            while (offset < content.length) {
+                int read = stream.read(buffer, 0, Math.min(buffer.length, content.length - offset));
+                if (read < 0 || !Arrays.equals(buffer, 0, read, content, offset, offset + read)) {
+                    return false;
+                }
+                offset += read;
+            }
+            return stream.read() < 0;
+        } finally {
+            stream.close();
+        }
+    }
+}
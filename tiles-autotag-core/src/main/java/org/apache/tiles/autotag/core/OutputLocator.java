@@ -40,4 +40,22 @@ public interface OutputLocator {
 	 * @return true if the output doesn't need to be generated again.
 	 */
 	boolean isUptodate(String resourcePath);
+
+	/**
+	 * Writes the file at this path, unless it already has this content, so
+	 * that its modification time does not change needlessly.
+	 * This implementation always writes it.
+	 * @param resourcePath the path of the file to write.
+	 * @param content the content of the file.
+	 * @return true if the file has been written.
+	 */
+	default boolean write(String resourcePath, byte[] content) throws IOException {
+		OutputStream stream = getOutputStream(resourcePath);
+		try {
+			stream.write(content);
+		} finally {
+			stream.close();
+		}
+		return true;
+	}
 }
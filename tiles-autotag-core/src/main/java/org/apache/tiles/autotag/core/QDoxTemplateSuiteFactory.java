@@ -20,20 +20,38 @@
  */
 package org.apache.tiles.autotag.core;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.tiles.autotag.core.runtime.ModelBody;
+import org.apache.tiles.autotag.core.runtime.annotation.CacheableModel;
+import org.apache.tiles.autotag.core.runtime.annotation.CompiledParameter;
+import org.apache.tiles.autotag.core.runtime.annotation.MemoizedBody;
 import org.apache.tiles.autotag.core.runtime.annotation.Parameter;
+import org.apache.tiles.autotag.core.runtime.annotation.StatelessModel;
 import org.apache.tiles.autotag.model.TemplateClass;
 import org.apache.tiles.autotag.model.TemplateMethod;
 import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.StreamingTemplateSuiteFactory;
+import org.apache.tiles.autotag.model.TemplateClassConsumer;
 import org.apache.tiles.autotag.model.TemplateSuite;
-import org.apache.tiles.autotag.model.TemplateSuiteFactory;
 
 import com.thoughtworks.qdox.JavaProjectBuilder;
 import com.thoughtworks.qdox.model.DocletTag;
@@ -41,13 +59,15 @@ import com.thoughtworks.qdox.model.JavaAnnotation;
 import com.thoughtworks.qdox.model.JavaClass;
 import com.thoughtworks.qdox.model.JavaMethod;
 import com.thoughtworks.qdox.model.JavaParameter;
+import com.thoughtworks.qdox.model.JavaSource;
+import com.thoughtworks.qdox.model.JavaType;
 
 /**
  * Creates a template suite using QDox.
  *
  * @version $Rev$ $Date$
  */
-public class QDoxTemplateSuiteFactory implements TemplateSuiteFactory {
+public class QDoxTemplateSuiteFactory implements StreamingTemplateSuiteFactory {
 
     /**
      * The suffix of parsed classes.
@@ -55,9 +75,14 @@ public class QDoxTemplateSuiteFactory implements TemplateSuiteFactory {
     private static final String TEMPLATE_SUFFIX = "Model";
 
     /**
-     * The Javadoc builder.
+     * The suffix of array types.
      */
-    private JavaProjectBuilder builder;
+    private static final String ARRAY_SUFFIX = "[]";
+
+    /**
+     * The URLs of the source files to parse.
+     */
+    private URL[] sources;
 
     /**
      * The name of the suite.
@@ -74,18 +99,31 @@ public class QDoxTemplateSuiteFactory implements TemplateSuiteFactory {
      */
     private String requestClass;
 
+    /**
+     * The number of threads used to parse the sources.
+     */
+    private int parallelism = 1;
+
+    /**
+     * The cache of template classes, indexed by source hash.
+     */
+    private SourceCache sourceCache;
+
+    /**
+     * Whether sources that cannot declare a template class are skipped.
+     */
+    private boolean prefilter;
+
     /**
      * Constructor.
      *
      * @param sourceFiles All the source files to parse.
      */
     public QDoxTemplateSuiteFactory(File... sourceFiles) {
-        builder = new JavaProjectBuilder();
-        builder.setEncoding(StandardCharsets.UTF_8.name());
-
+        sources = new URL[sourceFiles.length];
         try {
-            for (File file : sourceFiles) {
-                builder.addSource(file);
+            for (int i = 0; i < sourceFiles.length; i++) {
+                sources[i] = sourceFiles[i].toURI().toURL();
             }
         } catch (IOException e) {
             throw new ClassParseException(
@@ -99,17 +137,7 @@ public class QDoxTemplateSuiteFactory implements TemplateSuiteFactory {
      * @param urls All the URLs of source files to parse.
      */
     public QDoxTemplateSuiteFactory(URL... urls) {
-        builder = new JavaProjectBuilder();
-        builder.setEncoding(StandardCharsets.UTF_8.name());
-
-        try {
-            for (URL url : urls) {
-                builder.addSource(url);
-            }
-        } catch (IOException e) {
-            throw new ClassParseException(
-                    "I/O Exception when adding source files", e);
-        }
+        sources = urls.clone();
     }
 
     /**
@@ -139,18 +167,387 @@ public class QDoxTemplateSuiteFactory implements TemplateSuiteFactory {
         this.requestClass = requestClass;
     }
 
+    /**
+     * Sets the number of threads used to parse the sources. When greater than
+     * 1, every source is parsed on its own and the template classes are built
+     * concurrently, then merged in the order of the sources, so that the
+     * created suite is the same as the one created sequentially.
+     *
+     * @param parallelism The number of threads, 1 to parse sequentially.
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the cache of template classes. When set, every source is parsed on
+     * its own, and only if its content hash is not found in the cache; the
+     * cache is then updated with the parsed sources and purged of the other
+     * ones. All the sources are parsed when the classes they declare are not
+     * the ones declared when the cache has been updated.
+     *
+     * @param sourceCache The source cache.
+     */
+    public void setSourceCache(SourceCache sourceCache) {
+        this.sourceCache = sourceCache;
+    }
+
+    /**
+     * Sets whether the sources are scanned before being parsed, so that the
+     * ones that cannot declare a template class are skipped. The types
+     * declared in skipped sources cannot be resolved when they are used by
+     * template classes of the same package without being imported, as when
+     * the sources are not included at all.
+     *
+     * @param prefilter <code>true</code> to skip the sources that cannot
+     * declare a template class.
+     */
+    public void setPrefilter(boolean prefilter) {
+        this.prefilter = prefilter;
+    }
+
     @Override
     public TemplateSuite createTemplateSuite() {
+        return createTemplateSuite(null);
+    }
+
+    @Override
+    public TemplateSuite createTemplateSuite(TemplateClassConsumer consumer) {
+        TemplateSuite suite = new TemplateSuite(suiteName, suiteDocumentation);
+        URL[] candidates = prefilter ? getCandidates() : sources;
+        List<TemplateClass> classes;
+        if (sourceCache != null || (parallelism > 1 && candidates.length > 1)) {
+            classes = createTemplateClassesSeparately(candidates, suite, consumer);
+        } else {
+            JavaProjectBuilder builder = createBuilder();
+            try {
+                for (URL url : candidates) {
+                    builder.addSource(url);
+                }
+            } catch (IOException e) {
+                throw new ClassParseException(
+                        "I/O Exception when adding source files", e);
+            }
+            classes = createTemplateClasses(builder.getClasses(), null, suite,
+                    consumer);
+        }
+        for (TemplateClass templateClass : classes) {
+            suite.addTemplateClass(templateClass);
+        }
+        return suite;
+    }
+
+    /**
+     * Scans the sources and returns the ones that may declare a template
+     * class.
+     *
+     * @return The candidate sources.
+     */
+    private URL[] getCandidates() {
+        SourcePrefilter sourcePrefilter = new SourcePrefilter(requestClass);
+        List<URL> candidates = new ArrayList<URL>(sources.length);
+        try {
+            for (URL url : sources) {
+                if (sourcePrefilter.isCandidate(url)) {
+                    candidates.add(url);
+                }
+            }
+        } catch (IOException e) {
+            throw new ClassParseException(
+                    "I/O Exception when adding source files", e);
+        }
+        return candidates.toArray(new URL[candidates.size()]);
+    }
+
+    /**
+     * Creates a new Javadoc builder.
+     *
+     * @return The Javadoc builder.
+     */
+    private JavaProjectBuilder createBuilder() {
+        JavaProjectBuilder builder = new JavaProjectBuilder();
+        builder.setEncoding(StandardCharsets.UTF_8.name());
+        return builder;
+    }
+
+    /**
+     * Parses every source with its own builder, unless it is found in the
+     * source cache, then creates the template classes. If
+     * {@link #parallelism} is greater than 1, both steps run on a pool of
+     * threads.
+     *
+     * @param urls The URLs of the sources to parse.
+     * @param suite The suite being created.
+     * @param consumer The consumer of the template classes, may be
+     * <code>null</code>.
+     * @return The template classes, in the order of the sources.
+     */
+    private List<TemplateClass> createTemplateClassesSeparately(URL[] urls,
+            final TemplateSuite suite, final TemplateClassConsumer consumer) {
+        ExecutorService executor = null;
+        if (parallelism > 1 && urls.length > 1) {
+            executor = Executors.newFixedThreadPool(Math.min(parallelism,
+                    urls.length));
+        }
+        try {
+            List<Callable<ParsedSource>> parseTasks = new ArrayList<Callable<ParsedSource>>();
+            for (final URL url : urls) {
+                parseTasks.add(new Callable<ParsedSource>() {
+
+                    @Override
+                    public ParsedSource call() throws IOException {
+                        return parseSource(url, true);
+                    }
+                });
+            }
+            List<ParsedSource> parsed = invokeAll(executor, parseTasks);
+
+            // Every source has been parsed on its own, so types declared in
+            // the other sources must be resolved against this index.
+            final Set<String> sourceClassNames = new HashSet<String>();
+            for (ParsedSource source : parsed) {
+                sourceClassNames.addAll(source.getClassNames());
+            }
+            if (sourceCache != null && !sourceClassNames.equals(sourceCache.getClassNames())) {
+                // The cached template classes have been created with other
+                // declared classes, that may resolve their types differently.
+                parsed = reparseCachedSources(executor, urls, parsed);
+            }
+
+            List<Callable<List<TemplateClass>>> createTasks = new ArrayList<Callable<List<TemplateClass>>>();
+            for (final ParsedSource source : parsed) {
+                createTasks.add(new Callable<List<TemplateClass>>() {
+
+                    @Override
+                    public List<TemplateClass> call() {
+                        return getTemplateClasses(source, sourceClassNames,
+                                suite, consumer);
+                    }
+                });
+            }
+            List<TemplateClass> classes = new ArrayList<TemplateClass>();
+            for (List<TemplateClass> sourceTemplateClasses : invokeAll(executor, createTasks)) {
+                classes.addAll(sourceTemplateClasses);
+            }
+            if (sourceCache != null) {
+                List<String> hashes = new ArrayList<String>();
+                for (ParsedSource source : parsed) {
+                    hashes.add(source.getHash());
+                }
+                sourceCache.retainAll(hashes);
+                sourceCache.setClassNames(sourceClassNames);
+            }
+            return classes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClassParseException("Interrupted when parsing source files", e);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Parses again the sources that have been found in the source cache.
+     *
+     * @param executor The executor, may be <code>null</code>.
+     * @param urls The URLs of the sources.
+     * @param parsed The parsed sources, in the order of the URLs.
+     * @return The parsed sources, none of them found in the cache.
+     * @throws InterruptedException If the current thread is interrupted.
+     */
+    private List<ParsedSource> reparseCachedSources(ExecutorService executor,
+            URL[] urls, List<ParsedSource> parsed) throws InterruptedException {
+        List<ParsedSource> reparsed = new ArrayList<ParsedSource>(parsed);
+        List<Integer> indexes = new ArrayList<Integer>();
+        List<Callable<ParsedSource>> parseTasks = new ArrayList<Callable<ParsedSource>>();
+        for (int i = 0; i < urls.length; i++) {
+            if (parsed.get(i).getCacheEntry() != null) {
+                final URL url = urls[i];
+                indexes.add(i);
+                parseTasks.add(new Callable<ParsedSource>() {
+
+                    @Override
+                    public ParsedSource call() throws IOException {
+                        return parseSource(url, false);
+                    }
+                });
+            }
+        }
+        List<ParsedSource> results = invokeAll(executor, parseTasks);
+        for (int i = 0; i < indexes.size(); i++) {
+            reparsed.set(indexes.get(i), results.get(i));
+        }
+        return reparsed;
+    }
+
+    /**
+     * Parses a single source with its own builder. If a source cache is set,
+     * the source is not parsed when its hash is found in the cache, unless it
+     * must not be looked up.
+     *
+     * @param url The URL of the source.
+     * @param lookup Whether the source is looked up in the source cache.
+     * @return The parsed source.
+     * @throws IOException If the source cannot be read.
+     */
+    private ParsedSource parseSource(URL url, boolean lookup) throws IOException {
+        JavaProjectBuilder builder = createBuilder();
+        if (sourceCache == null) {
+            builder.addSource(url);
+            return new ParsedSource(null, builder.getClasses(), null);
+        }
+        byte[] content;
+        InputStream stream = url.openStream();
+        try {
+            content = stream.readAllBytes();
+        } finally {
+            stream.close();
+        }
+        String hash = getHash(content);
+        SourceCache.Entry entry = lookup ? sourceCache.get(hash) : null;
+        if (entry != null) {
+            return new ParsedSource(hash, null, entry);
+        }
+        builder.addSource(new InputStreamReader(new ByteArrayInputStream(
+                content), StandardCharsets.UTF_8));
+        return new ParsedSource(hash, builder.getClasses(), null);
+    }
+
+    /**
+     * Returns the template classes of a source, either from the source cache
+     * or by creating them from the parsed classes. In the latter case, they
+     * are put in the cache.
+     *
+     * @param source The parsed source.
+     * @param sourceClassNames The names of the classes declared in all the
+     * sources.
+     * @param suite The suite being created.
+     * @param consumer The consumer of the template classes, may be
+     * <code>null</code>.
+     * @return The template classes.
+     */
+    private List<TemplateClass> getTemplateClasses(ParsedSource source,
+            Set<String> sourceClassNames, TemplateSuite suite,
+            TemplateClassConsumer consumer) {
+        if (source.getCacheEntry() != null) {
+            List<TemplateClass> classes = source.getCacheEntry().getTemplateClasses();
+            for (TemplateClass templateClass : classes) {
+                publish(suite, templateClass, consumer);
+            }
+            return classes;
+        }
+        List<TemplateClass> classes = createTemplateClasses(
+                source.getClasses(), sourceClassNames, suite, consumer);
+        if (sourceCache != null) {
+            sourceCache.put(source.getHash(), new SourceCache.Entry(
+                    source.getClassNames(), classes));
+        }
+        return classes;
+    }
+
+    /**
+     * Computes the SHA-256 hash of a source content.
+     *
+     * @param content The content of the source.
+     * @return The hash, as an hexadecimal string.
+     */
+    private static String getHash(byte[] content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AutotagRuntimeException("SHA-256 is not supported", e);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest(content)) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Executes all the tasks, with the executor if any, or in the current
+     * thread otherwise, and returns their results, in order.
+     *
+     * @param <T> The type of the results.
+     * @param executor The executor, may be <code>null</code>.
+     * @param tasks The tasks to execute.
+     * @return The results.
+     * @throws InterruptedException If the current thread is interrupted.
+     */
+    private static <T> List<T> invokeAll(ExecutorService executor,
+            List<Callable<T>> tasks) throws InterruptedException {
+        List<T> results = new ArrayList<T>(tasks.size());
+        if (executor == null) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw createParseException(e);
+                }
+            }
+            return results;
+        }
+        for (Future<T> future : executor.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw createParseException(cause);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Wraps a checked exception thrown when parsing a source.
+     *
+     * @param cause The checked exception.
+     * @return The exception to throw.
+     */
+    private static ClassParseException createParseException(Throwable cause) {
+        if (cause instanceof IOException) {
+            return new ClassParseException(
+                    "I/O Exception when adding source files", cause);
+        }
+        return new ClassParseException(
+                "Exception when parsing source files", cause);
+    }
+
+    /**
+     * Creates the template classes out of parsed classes.
+     *
+     * @param parsedClasses The parsed classes.
+     * @param sourceClassNames The names of the classes declared in all the
+     * sources, if they were parsed separately, <code>null</code> otherwise.
+     * @param suite The suite being created.
+     * @param consumer The consumer of the template classes, may be
+     * <code>null</code>.
+     * @return The template classes.
+     */
+    private List<TemplateClass> createTemplateClasses(
+            Collection<JavaClass> parsedClasses, Set<String> sourceClassNames,
+            TemplateSuite suite, TemplateClassConsumer consumer) {
         List<TemplateClass> classes = new ArrayList<TemplateClass>();
-        for (JavaClass clazz : builder.getClasses()) {
+        for (JavaClass clazz : parsedClasses) {
             String tagClassPrefix = getTagClassPrefix(clazz);
             if (tagClassPrefix != null) {
                 String tagName = tagClassPrefix.substring(0, 1).toLowerCase()
                         + tagClassPrefix.substring(1);
                 TemplateMethod executeMethod = null;
                 for (JavaMethod method : clazz.getMethods()) {
-                    if (isFeasible(method)) {
-                        executeMethod = createMethod(method);
+                    if (isFeasible(method, sourceClassNames)) {
+                        executeMethod = createMethod(method, sourceClassNames);
                     }
                 }
                 if (executeMethod != null) {
@@ -158,11 +555,48 @@ public class QDoxTemplateSuiteFactory implements TemplateSuiteFactory {
                             .getFullyQualifiedName(), tagName, tagClassPrefix,
                             executeMethod);
                     templateClass.setDocumentation(clazz.getComment());
+                    templateClass.setStateless(hasAnnotation(clazz, StatelessModel.class));
+                    templateClass.setMemoizedBody(hasAnnotation(clazz, MemoizedBody.class));
+                    templateClass.setCacheable(hasAnnotation(clazz, CacheableModel.class));
                     classes.add(templateClass);
+                    publish(suite, templateClass, consumer);
                 }
             }
         }
-        return new TemplateSuite(suiteName, suiteDocumentation, classes);
+        return classes;
+    }
+
+    /**
+     * Publishes a template class to the consumer, if any. Calls to the
+     * consumer are serialized.
+     *
+     * @param suite The suite being created.
+     * @param templateClass The template class.
+     * @param consumer The consumer, may be <code>null</code>.
+     */
+    private static void publish(TemplateSuite suite,
+            TemplateClass templateClass, TemplateClassConsumer consumer) {
+        if (consumer != null) {
+            synchronized (consumer) {
+                consumer.accept(suite, templateClass);
+            }
+        }
+    }
+
+    /**
+     * Checks if a class is annotated, e.g. with {@link StatelessModel}.
+     *
+     * @param clazz The parsed class.
+     * @param annotationType The annotation type.
+     * @return <code>true</code> if the class is annotated.
+     */
+    private boolean hasAnnotation(JavaClass clazz, Class<?> annotationType) {
+        for (JavaAnnotation annotation : clazz.getAnnotations()) {
+            if (annotationType.getName().equals(annotation.getType().getFullyQualifiedName())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -189,9 +623,11 @@ public class QDoxTemplateSuiteFactory implements TemplateSuiteFactory {
      * Creates a template method descriptor from a parsed method.
      *
      * @param method The parsed method.
+     * @param sourceClassNames The names of the classes declared in the sources,
+     * if they were parsed separately.
      * @return The template method descriptor.
      */
-    private TemplateMethod createMethod(JavaMethod method) {
+    private TemplateMethod createMethod(JavaMethod method, Set<String> sourceClassNames) {
         List<TemplateParameter> params = new ArrayList<TemplateParameter>();
         for (JavaParameter parameter : method.getParameters()) {
             String exportedName = parameter.getName();
@@ -201,7 +637,9 @@ public class QDoxTemplateSuiteFactory implements TemplateSuiteFactory {
             if (annotations != null && annotations.size() > 0) {
                 boolean found = false;
                 for (int i = 0; i < annotations.size() && !found; i++) {
-                    if (Parameter.class.getName().equals(annotations.get(i).getType().getFullyQualifiedName())) {
+                    String annotationName = annotations.get(i).getType().getFullyQualifiedName();
+                    if (Parameter.class.getName().equals(annotationName)
+                            || CompiledParameter.class.getName().equals(annotationName)) {
                         found = true;
                         String candidateName = (String) annotations.get(i).getNamedParameter("name");
                         if (candidateName != null && candidateName.length() > 2) {
@@ -215,8 +653,7 @@ public class QDoxTemplateSuiteFactory implements TemplateSuiteFactory {
                     }
                 }
             }
-            String parameterType = parameter.getType()
-                    .getFullyQualifiedName();
+            String parameterType = getTypeName(parameter, sourceClassNames);
             TemplateParameter templateParameter = new TemplateParameter(
                     parameter.getName(), exportedName, parameterType, defaultValue, required,
                     requestClass.equals(parameterType));
@@ -246,9 +683,11 @@ public class QDoxTemplateSuiteFactory implements TemplateSuiteFactory {
      * Verifies if the method can be used as an "execute" method.
      *
      * @param method The parsed method.
+     * @param sourceClassNames The names of the classes declared in the sources,
+     * if they were parsed separately.
      * @return <code>true</code> if it is an execute method.
      */
-    private boolean isFeasible(JavaMethod method) {
+    private boolean isFeasible(JavaMethod method, Set<String> sourceClassNames) {
         JavaClass returns = method.getReturns();
         if ("execute".equals(method.getName()) && returns != null
                 && "void".equals(returns.getFullyQualifiedName())
@@ -257,22 +696,146 @@ public class QDoxTemplateSuiteFactory implements TemplateSuiteFactory {
             List<JavaParameter> params = method.getParameters();
             if (params.size() > 0) {
                 JavaParameter param = params.get(params.size() - 1);
-                if (requestClass.equals(
-                        param.getType().getFullyQualifiedName())) {
+                if (requestClass.equals(getTypeName(param, sourceClassNames))) {
                     return true;
                 }
             }
             if (params.size() >= 2) {
                 JavaParameter param1 = params.get(params.size() - 2);
                 JavaParameter param2 = params.get(params.size() - 1);
-                if (requestClass.equals(
-                        param1.getType().getFullyQualifiedName())
+                if (requestClass.equals(getTypeName(param1, sourceClassNames))
                         && ModelBody.class.getName().equals(
-                                param2.getType().getFullyQualifiedName())) {
+                                getTypeName(param2, sourceClassNames))) {
                     return true;
                 }
             }
         }
         return false;
     }
+
+    /**
+     * Returns the fully qualified name of the type of a parameter. When the
+     * sources have been parsed separately, QDox cannot resolve a type declared
+     * in another source: it is then looked up in the same package and in the
+     * on-demand imports, as QDox does when all the sources are parsed together.
+     * A nested type qualified by its enclosing type, e.g.
+     * <code>Outer.Inner</code>, is looked up by its enclosing type.
+     *
+     * @param parameter The parsed parameter.
+     * @param sourceClassNames The names of the classes declared in the sources,
+     * if they were parsed separately.
+     * @return The fully qualified name of the type.
+     */
+    private String getTypeName(JavaParameter parameter, Set<String> sourceClassNames) {
+        JavaType type = parameter.getType();
+        String typeName = type.getFullyQualifiedName();
+        if (sourceClassNames == null) {
+            return typeName;
+        }
+        String dimensions = "";
+        while (typeName.endsWith(ARRAY_SUFFIX)) {
+            typeName = typeName.substring(0, typeName.length() - ARRAY_SUFFIX.length());
+            dimensions += ARRAY_SUFFIX;
+        }
+        if (sourceClassNames.contains(typeName)) {
+            return type.getFullyQualifiedName();
+        }
+        int dot = typeName.indexOf('.');
+        String outerName = dot < 0 ? typeName : typeName.substring(0, dot);
+        String nestedName = dot < 0 ? "" : typeName.substring(dot);
+        JavaSource source = parameter.getDeclaringClass().getSource();
+        String packageName = source.getPackageName();
+        String candidate = packageName != null && packageName.length() > 0
+                ? packageName + "." + outerName : outerName;
+        if (sourceClassNames.contains(candidate)) {
+            return candidate + nestedName + dimensions;
+        }
+        for (String imported : source.getImports()) {
+            if (imported.endsWith(".*")) {
+                candidate = imported.substring(0, imported.length() - 1) + outerName;
+                if (sourceClassNames.contains(candidate)) {
+                    return candidate + nestedName + dimensions;
+                }
+            }
+        }
+        return type.getFullyQualifiedName();
+    }
+
+    /**
+     * A source parsed on its own, or found in the source cache.
+     */
+    private static final class ParsedSource {
+
+        /**
+         * The hash of the source content, if a source cache is used.
+         */
+        private String hash;
+
+        /**
+         * The parsed classes, if the source has been parsed.
+         */
+        private Collection<JavaClass> classes;
+
+        /**
+         * The cache entry, if the source has been found in the cache.
+         */
+        private SourceCache.Entry cacheEntry;
+
+        /**
+         * Constructor.
+         *
+         * @param hash The hash of the source content.
+         * @param classes The parsed classes.
+         * @param cacheEntry The cache entry.
+         */
+        private ParsedSource(String hash, Collection<JavaClass> classes,
+                SourceCache.Entry cacheEntry) {
+            this.hash = hash;
+            this.classes = classes;
+            this.cacheEntry = cacheEntry;
+        }
+
+        /**
+         * Returns the hash of the source content.
+         *
+         * @return The hash.
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * Returns the parsed classes.
+         *
+         * @return The parsed classes.
+         */
+        public Collection<JavaClass> getClasses() {
+            return classes;
+        }
+
+        /**
+         * Returns the cache entry.
+         *
+         * @return The cache entry.
+         */
+        public SourceCache.Entry getCacheEntry() {
+            return cacheEntry;
+        }
+
+        /**
+         * Returns the names of all the classes declared in the source.
+         *
+         * @return The class names.
+         */
+        public List<String> getClassNames() {
+            if (cacheEntry != null) {
+                return cacheEntry.getClassNames();
+            }
+            List<String> classNames = new ArrayList<String>();
+            for (JavaClass clazz : classes) {
+                classNames.add(clazz.getFullyQualifiedName());
+            }
+            return classNames;
+        }
+    }
 }
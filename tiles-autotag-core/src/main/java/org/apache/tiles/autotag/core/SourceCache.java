@@ -0,0 +1,183 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.tiles.autotag.model.TemplateClass;
+
+/**
+ * Caches the template classes created from source files, indexed by the hash
+ * of their content, so that unchanged sources are not parsed again.
+ *
+ * @version $Rev$ $Date$
+ */
+public class SourceCache {
+
+    /**
+     * Describes the context in which the sources have been parsed, such as the
+     * request class. A cache created in another context must not be used.
+     */
+    private String context;
+
+    /**
+     * The cached entries, indexed by source hash.
+     */
+    private Map<String, Entry> entries;
+
+    /**
+     * The names of the classes declared in all the sources, when the entries
+     * have been created. The types of a source are resolved against them, so
+     * the entries are valid only as long as they do not change. They are
+     * sorted, so that the cache is written the same way every time.
+     */
+    private List<String> classNames;
+
+    /**
+     * Constructor.
+     *
+     * @param context The context in which the sources are parsed.
+     */
+    public SourceCache(String context) {
+        this.context = context;
+        entries = new LinkedHashMap<String, Entry>();
+    }
+
+    /**
+     * Returns the context in which the sources have been parsed.
+     *
+     * @return The context.
+     */
+    public String getContext() {
+        return context;
+    }
+
+    /**
+     * Returns the entry of a source.
+     *
+     * @param hash The hash of the source content.
+     * @return The entry, or <code>null</code> if the source is not cached.
+     */
+    public synchronized Entry get(String hash) {
+        return entries.get(hash);
+    }
+
+    /**
+     * Puts the entry of a source.
+     *
+     * @param hash The hash of the source content.
+     * @param entry The entry.
+     */
+    public synchronized void put(String hash, Entry entry) {
+        entries.put(hash, entry);
+    }
+
+    /**
+     * Removes all the entries whose hash is not in the collection.
+     *
+     * @param hashes The hashes of the entries to keep.
+     */
+    public synchronized void retainAll(Collection<String> hashes) {
+        entries.keySet().retainAll(new HashSet<String>(hashes));
+    }
+
+    /**
+     * Returns the names of the classes declared in all the sources, when the
+     * entries have been created.
+     *
+     * @return The class names, <code>null</code> if they are unknown.
+     */
+    public synchronized Set<String> getClassNames() {
+        return classNames != null ? new HashSet<String>(classNames) : null;
+    }
+
+    /**
+     * Sets the names of the classes declared in all the sources.
+     *
+     * @param classNames The class names.
+     */
+    public synchronized void setClassNames(Collection<String> classNames) {
+        List<String> sortedClassNames = new ArrayList<String>(classNames);
+        Collections.sort(sortedClassNames);
+        this.classNames = sortedClassNames;
+    }
+
+    /**
+     * Returns the number of cached sources.
+     *
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * The cached result of the parsing of a single source.
+     */
+    public static class Entry {
+
+        /**
+         * The names of all the classes declared in the source.
+         */
+        private List<String> classNames;
+
+        /**
+         * The template classes created from the source.
+         */
+        private List<TemplateClass> templateClasses;
+
+        /**
+         * Constructor.
+         *
+         * @param classNames The names of all the classes declared in the source.
+         * @param templateClasses The template classes created from the source.
+         */
+        public Entry(List<String> classNames, List<TemplateClass> templateClasses) {
+            this.classNames = classNames;
+            this.templateClasses = templateClasses;
+        }
+
+        /**
+         * Returns the names of all the classes declared in the source.
+         *
+         * @return The class names.
+         */
+        public List<String> getClassNames() {
+            return classNames;
+        }
+
+        /**
+         * Returns the template classes created from the source.
+         *
+         * @return The template classes.
+         */
+        public List<TemplateClass> getTemplateClasses() {
+            return templateClasses;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tells, with a byte scan of a source file, whether it may declare a template
+ * class, so that files that cannot do not need to be parsed. A file may
+ * declare a template class only if it contains the <code>Model</code> suffix,
+ * an <code>execute</code> method call or declaration, and the simple name of
+ * the request class. Files are memory-mapped; sources that are not files are
+ * always considered as candidates.
+ * <p>
+ * The scan works on the bytes of the file, so it supports UTF-8 and all the
+ * encodings compatible with ASCII.
+ * </p>
+ *
+ * @version $Rev$ $Date$
+ */
+final class SourcePrefilter {
+
+    /**
+     * The name of the execute method.
+     */
+    private static final byte[] EXECUTE = "execute".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The suffix of template classes.
+     */
+    private static final byte[] MODEL = "Model".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The simple name of the request class.
+     */
+    private byte[] requestName;
+
+    /**
+     * Constructor.
+     *
+     * @param requestClass The name of the request class.
+     */
+    SourcePrefilter(String requestClass) {
+        String simpleName = requestClass.substring(requestClass.lastIndexOf('.') + 1);
+        requestName = simpleName.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether a source may declare a template class.
+     *
+     * @param url The URL of the source.
+     * @return <code>false</code> if the source cannot declare a template class.
+     * @throws IOException If the source cannot be read.
+     */
+    public boolean isCandidate(URL url) throws IOException {
+        if (!"file".equals(url.getProtocol())) {
+            return true;
+        }
+        File file;
+        try {
+            file = new File(url.toURI());
+        } catch (URISyntaxException e) {
+            return true;
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return indexOf(buffer, MODEL, 0) >= 0 && containsExecuteCall(buffer)
+                    && indexOf(buffer, requestName, 0) >= 0;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Checks whether the content contains <code>execute</code> followed by an
+     * opening parenthesis, possibly after whitespace.
+     *
+     * @param buffer The content.
+     * @return <code>true</code> if an execute call or declaration is found.
+     */
+    private static boolean containsExecuteCall(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        int from = 0;
+        int index;
+        while ((index = indexOf(buffer, EXECUTE, from)) >= 0) {
+            int position = index + EXECUTE.length;
+            while (position < limit && isWhitespace(buffer.get(position))) {
+                position++;
+            }
+            if (position < limit && buffer.get(position) == '(') {
+                return true;
+            }
+            from = index + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a byte is an ASCII whitespace.
+     *
+     * @param b The byte.
+     * @return <code>true</code> if it is a whitespace.
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+
+    /**
+     * Finds a sequence of bytes in the content.
+     *
+     * @param buffer The content.
+     * @param needle The bytes to find.
+     * @param from The position where to start.
+     * @return The position of the sequence, or -1 if it is not found.
+     */
+    private static int indexOf(ByteBuffer buffer, byte[] needle, int from) {
+        int last = buffer.limit() - needle.length;
+        byte first = needle[0];
+        for (int i = from; i <= last; i++) {
+            if (buffer.get(i) == first) {
+                int j = 1;
+                while (j < needle.length && buffer.get(i + j) == needle[j]) {
+                    j++;
+                }
+                if (j == needle.length) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+
+/**
+ * Computes fingerprints of the content of a template suite, that change
+ * whenever the files generated from it may change.
+ *
+ * @version $Rev$ $Date$
+ */
+public final class TemplateFingerprints {
+
+    /**
+     * The digits of hexadecimal numbers.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Constructor, private to avoid instantiation.
+     */
+    private TemplateFingerprints() {
+    }
+
+    /**
+     * Returns the fingerprint of the files generated from a template class,
+     * that also depend on the name of the suite.
+     *
+     * @param suite The template suite.
+     * @param clazz The template class.
+     * @return The fingerprint, as a hexadecimal string.
+     */
+    public static String getFingerprint(TemplateSuite suite, TemplateClass clazz) {
+        MessageDigest digest = createDigest();
+        update(digest, suite.getName());
+        update(digest, clazz);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns the fingerprint of the files generated from a whole template
+     * suite.
+     *
+     * @param suite The template suite.
+     * @return The fingerprint, as a hexadecimal string.
+     */
+    public static String getFingerprint(TemplateSuite suite) {
+        MessageDigest digest = createDigest();
+        update(digest, suite.getName());
+        update(digest, suite.getDocumentation());
+        for (TemplateClass clazz : suite.getTemplateClasses()) {
+            update(digest, clazz);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Adds a template class to a digest.
+     *
+     * @param digest The digest.
+     * @param clazz The template class.
+     */
+    private static void update(MessageDigest digest, TemplateClass clazz) {
+        update(digest, clazz.getName());
+        update(digest, clazz.getTagName());
+        update(digest, clazz.getTagClassPrefix());
+        update(digest, clazz.getDocumentation());
+        digest.update((byte) (clazz.isStateless() ? 1 : 0));
+        digest.update((byte) (clazz.isMemoizedBody() ? 1 : 0));
+        digest.update((byte) (clazz.isCacheable() ? 1 : 0));
+        TemplateMethod method = clazz.getExecuteMethod();
+        if (method == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        digest.update((byte) 1);
+        update(digest, method.getName());
+        update(digest, method.getDocumentation());
+        for (TemplateParameter parameter : method.getParameters()) {
+            digest.update((byte) 2);
+            update(digest, parameter.getName());
+            update(digest, parameter.getExportedName());
+            update(digest, parameter.getDocumentation());
+            update(digest, parameter.getType());
+            update(digest, parameter.getDefaultValue());
+            digest.update((byte) ((parameter.isRequired() ? 1 : 0)
+                    | (parameter.isRequest() ? 2 : 0)));
+        }
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Adds a string to a digest, after its length, so that consecutive
+     * strings cannot be confused.
+     *
+     * @param digest The digest.
+     * @param value The string, may be <code>null</code>.
+     */
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(new byte[4]);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // 0 stands for null, so the length is shifted.
+        int length = bytes.length + 1;
+        digest.update(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16),
+                (byte) (length >>> 8), (byte) length});
+        digest.update(bytes);
+    }
+
+    /**
+     * Creates the digest.
+     *
+     * @return The digest.
+     */
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AutotagRuntimeException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Converts bytes to a hexadecimal string.
+     *
+     * @param bytes The bytes.
+     * @return The hexadecimal string.
+     */
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateSuite;
+
+/**
+ * Annotation processor that creates the template suite descriptor while the
+ * template classes are compiled, instead of parsing their sources in a
+ * separate step. It uses {@link ElementTemplateSuiteFactory} and writes
+ * <code>META-INF/template-suite.xml</code> in the class output directory, in
+ * the same format as the <code>create-descriptor</code> goal.
+ * <p>
+ * The processor is not registered as a service, it must be named explicitly,
+ * e.g. with
+ * <code>-processor org.apache.tiles.autotag.core.TemplateSuiteProcessor</code>.
+ * It does nothing unless the {@value #SUITE_NAME_OPTION} option is specified,
+ * e.g. with
+ * <code>-Aautotag.suiteName=tiles -Aautotag.requestClass=org.apache.tiles.request.Request</code>.
+ * </p>
+ * <p>
+ * When only some of the sources are compiled, as in an incremental build, the
+ * template classes of the descriptor left by the previous compilation are
+ * kept, unless their classes have been compiled again or do not exist
+ * anymore. The descriptor is therefore only as accurate as the class output:
+ * a full build is required when the options change, or when a template class
+ * is affected by the change of another source that is not compiled again.
+ * </p>
+ *
+ * @version $Rev$ $Date$
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions({ TemplateSuiteProcessor.SUITE_NAME_OPTION,
+        TemplateSuiteProcessor.SUITE_DOCUMENTATION_OPTION,
+        TemplateSuiteProcessor.REQUEST_CLASS_OPTION })
+public class TemplateSuiteProcessor extends AbstractProcessor {
+
+    /**
+     * The option of the name of the suite.
+     */
+    public static final String SUITE_NAME_OPTION = "autotag.suiteName";
+
+    /**
+     * The option of the documentation of the suite.
+     */
+    public static final String SUITE_DOCUMENTATION_OPTION = "autotag.suiteDocumentation";
+
+    /**
+     * The option of the request class of the suite.
+     */
+    public static final String REQUEST_CLASS_OPTION = "autotag.requestClass";
+
+    /**
+     * The request class used when no option is specified.
+     */
+    public static final String DEFAULT_REQUEST_CLASS = "org.apache.tiles.request.Request";
+
+    /**
+     * The path of the descriptor, relative to the class output.
+     */
+    public static final String DESCRIPTOR_PATH = "META-INF/template-suite.xml";
+
+    /**
+     * The template classes found in all the rounds.
+     */
+    private List<TemplateClass> templateClasses = new ArrayList<TemplateClass>();
+
+    /**
+     * The names of the classes compiled in all the rounds.
+     */
+    private Set<String> compiledClassNames = new HashSet<String>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+            RoundEnvironment roundEnv) {
+        Map<String, String> options = processingEnv.getOptions();
+        if (!options.containsKey(SUITE_NAME_OPTION)) {
+            return false;
+        }
+        if (roundEnv.processingOver()) {
+            try {
+                TemplateSuite suite = new TemplateSuite(
+                        options.get(SUITE_NAME_OPTION),
+                        options.get(SUITE_DOCUMENTATION_OPTION),
+                        mergeTemplateClasses(readPreviousDescriptor()));
+                writeDescriptor(suite);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(
+                        Diagnostic.Kind.ERROR,
+                        "Cannot write " + DESCRIPTOR_PATH + ": " + e.getMessage());
+            }
+        } else {
+            String requestClass = options.get(REQUEST_CLASS_OPTION);
+            ElementTemplateSuiteFactory factory = new ElementTemplateSuiteFactory(
+                    processingEnv, roundEnv.getRootElements());
+            factory.setRequestClass(requestClass != null ? requestClass
+                    : DEFAULT_REQUEST_CLASS);
+            templateClasses.addAll(factory.createTemplateSuite()
+                    .getTemplateClasses());
+            addClassNames(ElementFilter.typesIn(roundEnv.getRootElements()));
+        }
+        // The processor does not claim any annotation.
+        return false;
+    }
+
+    /**
+     * Adds the names of types, and of the types nested in them, to the names
+     * of the compiled classes.
+     *
+     * @param types The types.
+     */
+    private void addClassNames(Iterable<TypeElement> types) {
+        for (TypeElement type : types) {
+            compiledClassNames.add(processingEnv.getElementUtils()
+                    .getBinaryName(type).toString());
+            compiledClassNames.add(type.getQualifiedName().toString());
+            addClassNames(ElementFilter.typesIn(type.getEnclosedElements()));
+        }
+    }
+
+    /**
+     * Reads the descriptor written by the previous compilation, if any.
+     *
+     * @return The previous suite, <code>null</code> if there is none.
+     * @throws IOException If the descriptor cannot be read.
+     */
+    private TemplateSuite readPreviousDescriptor() throws IOException {
+        InputStream stream;
+        try {
+            stream = processingEnv.getFiler().getResource(
+                    StandardLocation.CLASS_OUTPUT, "", DESCRIPTOR_PATH)
+                    .openInputStream();
+        } catch (IOException | IllegalArgumentException e) {
+            // There is no previous descriptor.
+            return null;
+        }
+        try {
+            return new XmlTemplateSuiteReader().read(stream);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Merges the template classes found in this compilation with the ones of
+     * the previous descriptor, whose classes have not been compiled again
+     * and still exist. The template classes keep the order of the previous
+     * descriptor, the new ones are added at the end.
+     *
+     * @param previous The previous suite, may be <code>null</code>.
+     * @return The merged template classes.
+     */
+    private Iterable<TemplateClass> mergeTemplateClasses(TemplateSuite previous) {
+        Map<String, TemplateClass> merged = new LinkedHashMap<String, TemplateClass>();
+        Map<String, TemplateClass> compiled = new LinkedHashMap<String, TemplateClass>();
+        for (TemplateClass templateClass : templateClasses) {
+            compiled.put(templateClass.getName(), templateClass);
+        }
+        if (previous != null) {
+            for (TemplateClass templateClass : previous.getTemplateClasses()) {
+                String name = templateClass.getName();
+                if (compiled.containsKey(name)) {
+                    merged.put(name, compiled.get(name));
+                } else if (!compiledClassNames.contains(name)
+                        && processingEnv.getElementUtils().getTypeElement(name) != null) {
+                    merged.put(name, templateClass);
+                }
+            }
+        }
+        for (TemplateClass templateClass : templateClasses) {
+            if (!merged.containsKey(templateClass.getName())) {
+                merged.put(templateClass.getName(), templateClass);
+            }
+        }
+        return merged.values();
+    }
+
+    /**
+     * Writes the descriptor in the class output.
+     *
+     * @param suite The suite to write.
+     * @throws IOException If something goes wrong when writing.
+     */
+    private void writeDescriptor(TemplateSuite suite) throws IOException {
+        FileObject file = processingEnv.getFiler().createResource(
+                StandardLocation.CLASS_OUTPUT, "", DESCRIPTOR_PATH);
+        Writer writer = new OutputStreamWriter(file.openOutputStream(),
+                StandardCharsets.UTF_8);
+        try {
+            new XmlTemplateSuiteWriter().write(suite, writer);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+
+/**
+ * Reads a template suite in the XML format of
+ * <code>META-INF/template-suite.xml</code>, as written by XStream or by
+ * {@link XmlTemplateSuiteWriter}, with StAX and plain constructors instead of
+ * reflection.
+ * <p>
+ * Control characters other than tabs and line breaks, that XStream writes as
+ * character references that are not valid in XML 1.0, are rejected with an
+ * {@link IOException}: such descriptors must be read with XStream.
+ *
+ * @version $Rev$ $Date$
+ */
+public class XmlTemplateSuiteReader {
+
+    /**
+     * The attribute XStream uses for references to already written objects.
+     */
+    private static final String REFERENCE_ATTRIBUTE = "reference";
+
+    /**
+     * The factory of StAX readers. Neither DTDs nor external entities are
+     * supported.
+     */
+    private XMLInputFactory inputFactory;
+
+    /**
+     * Constructor.
+     */
+    public XmlTemplateSuiteReader() {
+        inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    }
+
+    /**
+     * Reads a template suite.
+     *
+     * @param stream The stream to read from. It is not closed.
+     * @return The template suite.
+     * @throws IOException If something goes wrong when reading, or if the
+     * stream does not contain a template suite.
+     */
+    public TemplateSuite read(InputStream stream) throws IOException {
+        try {
+            XMLStreamReader in = inputFactory.createXMLStreamReader(stream);
+            try {
+                in.nextTag();
+                checkElement(in, XmlTemplateSuiteWriter.SUITE);
+                return readSuite(in);
+            } finally {
+                in.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Cannot read the template suite", e);
+        }
+    }
+
+    /**
+     * Reads a template suite, the reader being on its start element.
+     *
+     * @param in The input.
+     * @return The template suite.
+     * @throws XMLStreamException If something goes wrong when reading.
+     * @throws IOException If the content is not a template suite.
+     */
+    private TemplateSuite readSuite(XMLStreamReader in)
+            throws XMLStreamException, IOException {
+        String name = null;
+        String documentation = null;
+        List<TemplateClass> classes = new ArrayList<TemplateClass>();
+        while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String field = in.getLocalName();
+            if ("name".equals(field)) {
+                name = in.getElementText();
+            } else if ("documentation".equals(field)) {
+                documentation = in.getElementText();
+            } else if ("templateClasses".equals(field)) {
+                while (startEntry(in)) {
+                    checkElement(in, XmlTemplateSuiteWriter.CLASS);
+                    classes.add(readClass(in));
+                    endEntry(in);
+                }
+            } else {
+                throw unexpected(in);
+            }
+        }
+        return new TemplateSuite(name, documentation, classes);
+    }
+
+    /**
+     * Reads a template class, the reader being on its start element.
+     *
+     * @param in The input.
+     * @return The template class.
+     * @throws XMLStreamException If something goes wrong when reading.
+     * @throws IOException If the content is not a template class.
+     */
+    private TemplateClass readClass(XMLStreamReader in)
+            throws XMLStreamException, IOException {
+        String name = null;
+        String tagName = null;
+        String tagClassPrefix = null;
+        String documentation = null;
+        TemplateMethod method = null;
+        boolean stateless = false;
+        boolean memoizedBody = false;
+        boolean cacheable = false;
+        while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String field = in.getLocalName();
+            if ("name".equals(field)) {
+                name = in.getElementText();
+            } else if ("tagName".equals(field)) {
+                tagName = in.getElementText();
+            } else if ("tagClassPrefix".equals(field)) {
+                tagClassPrefix = in.getElementText();
+            } else if ("documentation".equals(field)) {
+                documentation = in.getElementText();
+            } else if ("executeMethod".equals(field)) {
+                method = readMethod(in);
+            } else if ("stateless".equals(field)) {
+                stateless = Boolean.parseBoolean(in.getElementText());
+            } else if ("memoizedBody".equals(field)) {
+                memoizedBody = Boolean.parseBoolean(in.getElementText());
+            } else if ("cacheable".equals(field)) {
+                cacheable = Boolean.parseBoolean(in.getElementText());
+            } else {
+                throw unexpected(in);
+            }
+        }
+        TemplateClass templateClass = new TemplateClass(name, tagName,
+                tagClassPrefix, method);
+        templateClass.setDocumentation(documentation);
+        templateClass.setStateless(stateless);
+        templateClass.setMemoizedBody(memoizedBody);
+        templateClass.setCacheable(cacheable);
+        return templateClass;
+    }
+
+    /**
+     * Reads an execute method, the reader being on its start element.
+     *
+     * @param in The input.
+     * @return The method.
+     * @throws XMLStreamException If something goes wrong when reading.
+     * @throws IOException If the content is not a method.
+     */
+    private TemplateMethod readMethod(XMLStreamReader in)
+            throws XMLStreamException, IOException {
+        checkNotReference(in);
+        String name = null;
+        String documentation = null;
+        List<TemplateParameter> parameters = new ArrayList<TemplateParameter>();
+        while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String field = in.getLocalName();
+            if ("name".equals(field)) {
+                name = in.getElementText();
+            } else if ("documentation".equals(field)) {
+                documentation = in.getElementText();
+            } else if ("parameters".equals(field)) {
+                while (startEntry(in)) {
+                    checkElement(in, XmlTemplateSuiteWriter.PARAMETER);
+                    parameters.add(readParameter(in));
+                    endEntry(in);
+                }
+            } else {
+                throw unexpected(in);
+            }
+        }
+        TemplateMethod method = new TemplateMethod(name, parameters);
+        method.setDocumentation(documentation);
+        return method;
+    }
+
+    /**
+     * Reads a template parameter, the reader being on its start element.
+     *
+     * @param in The input.
+     * @return The template parameter.
+     * @throws XMLStreamException If something goes wrong when reading.
+     * @throws IOException If the content is not a template parameter.
+     */
+    private TemplateParameter readParameter(XMLStreamReader in)
+            throws XMLStreamException, IOException {
+        String name = null;
+        String exportedName = null;
+        String documentation = null;
+        String type = null;
+        String defaultValue = null;
+        boolean required = false;
+        boolean request = false;
+        while (in.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String field = in.getLocalName();
+            if ("name".equals(field)) {
+                name = in.getElementText();
+            } else if ("exportedName".equals(field)) {
+                exportedName = in.getElementText();
+            } else if ("documentation".equals(field)) {
+                documentation = in.getElementText();
+            } else if ("type".equals(field)) {
+                type = in.getElementText();
+            } else if ("defaultValue".equals(field)) {
+                defaultValue = in.getElementText();
+            } else if ("required".equals(field)) {
+                required = Boolean.parseBoolean(in.getElementText());
+            } else if ("request".equals(field)) {
+                request = Boolean.parseBoolean(in.getElementText());
+            } else {
+                throw unexpected(in);
+            }
+        }
+        TemplateParameter parameter = new TemplateParameter(name, exportedName,
+                type, defaultValue, required, request);
+        parameter.setDocumentation(documentation);
+        return parameter;
+    }
+
+    /**
+     * Moves to the next entry of a map and skips its key, which is also
+     * stored in the value.
+     *
+     * @param in The input.
+     * @return <code>true</code> if the reader is on the start element of the
+     * value, <code>false</code> if the map is over.
+     * @throws XMLStreamException If something goes wrong when reading.
+     * @throws IOException If the content is not a map entry.
+     */
+    private boolean startEntry(XMLStreamReader in)
+            throws XMLStreamException, IOException {
+        if (in.nextTag() != XMLStreamConstants.START_ELEMENT) {
+            return false;
+        }
+        checkElement(in, XmlTemplateSuiteWriter.ENTRY);
+        in.nextTag();
+        if (XmlTemplateSuiteWriter.STRING.equals(in.getLocalName())) {
+            in.getElementText();
+        } else if (XmlTemplateSuiteWriter.NULL.equals(in.getLocalName())) {
+            in.nextTag();
+        } else {
+            throw unexpected(in);
+        }
+        in.nextTag();
+        return true;
+    }
+
+    /**
+     * Moves to the end of a map entry, the reader being on the end element of
+     * its value.
+     *
+     * @param in The input.
+     * @throws XMLStreamException If something goes wrong when reading.
+     * @throws IOException If the entry has more than a key and a value.
+     */
+    private void endEntry(XMLStreamReader in)
+            throws XMLStreamException, IOException {
+        if (in.nextTag() != XMLStreamConstants.END_ELEMENT) {
+            throw unexpected(in);
+        }
+    }
+
+    /**
+     * Checks that the reader is on the start element of an object written in
+     * full.
+     *
+     * @param in The input.
+     * @param name The expected name of the element.
+     * @throws IOException If the element is not the expected one.
+     */
+    private void checkElement(XMLStreamReader in, String name)
+            throws IOException {
+        if (!in.isStartElement() || !name.equals(in.getLocalName())) {
+            throw unexpected(in);
+        }
+        checkNotReference(in);
+    }
+
+    /**
+     * Checks that the current element is not a reference to another object,
+     * which XStream writes only for objects shared in the model, never
+     * created by the template suite factories.
+     *
+     * @param in The input.
+     * @throws IOException If the element is a reference.
+     */
+    private void checkNotReference(XMLStreamReader in) throws IOException {
+        if (in.getAttributeValue(null, REFERENCE_ATTRIBUTE) != null) {
+            throw new IOException("Shared objects are not supported, at line "
+                    + in.getLocation().getLineNumber());
+        }
+    }
+
+    /**
+     * Creates the exception for an unexpected element.
+     *
+     * @param in The input.
+     * @return The exception.
+     */
+    private IOException unexpected(XMLStreamReader in) {
+        String name = in.hasName() ? in.getLocalName() : "end of element";
+        return new IOException("Unexpected " + name + " at line "
+                + in.getLocation().getLineNumber());
+    }
+}
@@ -20,11 +20,13 @@
  */
 package org.apache.tiles.autotag.generate;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.tiles.autotag.core.AutotagRuntimeException;
 import org.apache.tiles.autotag.core.OutputLocator;
@@ -38,7 +40,10 @@ import org.apache.velocity.exception.ParseErrorException;
 import org.apache.velocity.exception.ResourceNotFoundException;
 
 /**
- * A base template class generator.
+ * A base template class generator. Templates are resolved once, and the
+ * values shared by all the classes of a generation are kept in a base
+ * context, so that every file only adds the template class to a thin child
+ * context.
  *
  * @version $Rev$ $Date$
  */
@@ -50,6 +55,16 @@ public abstract class AbstractTemplateClassGenerator implements
      */
     private VelocityEngine velocityEngine;
 
+    /**
+     * The templates already resolved, by path.
+     */
+    private Map<String, Template> templates = new ConcurrentHashMap<String, Template>();
+
+    /**
+     * The base context of the last generation.
+     */
+    private volatile BaseContext baseContext;
+
     /**
      * Constructor.
      *
@@ -68,23 +83,21 @@ public abstract class AbstractTemplateClassGenerator implements
                 + File.separator
                 + getFilename(packageName, suite, clazz, parameters, runtimeClass, requestClass);
 		if (!outputLocator.isUptodate(filePath)) {
-	        VelocityContext context = new VelocityContext();
-	        context.put("packageName", packageName);
-	        context.put("suite", suite);
+	        VelocityContext context = new VelocityContext(getBaseContext(
+	                packageName, suite, parameters, runtimeClass, requestClass));
 	        context.put("clazz", clazz);
-	        context.put("stringTool", new StringTool());
-	        context.put("parameters", parameters);
-	        context.put("runtimeClass", runtimeClass);
-	        context.put("requestClass", requestClass);
 	        try {
-	            Template template = velocityEngine.getTemplate(getTemplatePath(
+	            Template template = getTemplate(getTemplatePath(
 	                    packageName, suite, clazz, parameters, runtimeClass, requestClass));
-	            Writer writer = new OutputStreamWriter(outputLocator.getOutputStream(filePath));
+	            // Rendered first, so that unchanged files are not written again.
+	            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	            Writer writer = new OutputStreamWriter(buffer);
 	            try {
 	                template.merge(context, writer);
 	            } finally {
 	                writer.close();
 	            }
+	            outputLocator.write(filePath, buffer.toByteArray());
 	        } catch (ResourceNotFoundException e) {
 	            throw new AutotagRuntimeException("Cannot find template resource",
 	                    e);
@@ -104,6 +117,43 @@ public abstract class AbstractTemplateClassGenerator implements
 		}
     }
 
+    /**
+     * Returns a template, resolving it only the first time.
+     *
+     * @param path The path of the template.
+     * @return The template.
+     */
+    private Template getTemplate(String path) {
+        Template template = templates.get(path);
+        if (template == null) {
+            template = velocityEngine.getTemplate(path);
+            templates.put(path, template);
+        }
+        return template;
+    }
+
+    /**
+     * Returns the context holding the values shared by all the classes of a
+     * generation, creating it only when they change. It is never modified
+     * once created, so it can be read by several threads.
+     *
+     * @param packageName The name of the package.
+     * @param suite The template suite.
+     * @param parameters The map of parameters.
+     * @param runtimeClass The runtime class.
+     * @param requestClass The request class.
+     * @return The base context.
+     */
+    private VelocityContext getBaseContext(String packageName, TemplateSuite suite,
+            Map<String, String> parameters, String runtimeClass, String requestClass) {
+        BaseContext base = baseContext;
+        if (base == null || !base.isFor(packageName, suite, parameters, runtimeClass, requestClass)) {
+            base = new BaseContext(packageName, suite, parameters, runtimeClass, requestClass);
+            baseContext = base;
+        }
+        return base.context;
+    }
+
     /**
      * Calculates and returns the template path.
      *
@@ -143,4 +193,82 @@ public abstract class AbstractTemplateClassGenerator implements
             String packageName, TemplateSuite suite, TemplateClass clazz, Map<String, String> parameters,
             String runtimeClass, String requestClass);
 
+    /**
+     * The context holding the values shared by all the classes of a
+     * generation.
+     */
+    private static final class BaseContext {
+
+        /**
+         * The name of the package.
+         */
+        private String packageName;
+
+        /**
+         * The template suite.
+         */
+        private TemplateSuite suite;
+
+        /**
+         * The map of parameters.
+         */
+        private Map<String, String> parameters;
+
+        /**
+         * The runtime class.
+         */
+        private String runtimeClass;
+
+        /**
+         * The request class.
+         */
+        private String requestClass;
+
+        /**
+         * The context.
+         */
+        private VelocityContext context;
+
+        /**
+         * Constructor.
+         *
+         * @param packageName The name of the package.
+         * @param suite The template suite.
+         * @param parameters The map of parameters.
+         * @param runtimeClass The runtime class.
+         * @param requestClass The request class.
+         */
+        private BaseContext(String packageName, TemplateSuite suite,
+                Map<String, String> parameters, String runtimeClass, String requestClass) {
+            this.packageName = packageName;
+            this.suite = suite;
+            this.parameters = parameters;
+            this.runtimeClass = runtimeClass;
+            this.requestClass = requestClass;
+            context = new VelocityContext();
+            context.put("packageName", packageName);
+            context.put("suite", suite);
+            context.put("stringTool", StringTool.INSTANCE);
+            context.put("parameters", parameters);
+            context.put("runtimeClass", runtimeClass);
+            context.put("requestClass", requestClass);
+        }
+
+        /**
+         * Checks if this context holds exactly these values.
+         *
+         * @param packageName The name of the package.
+         * @param suite The template suite.
+         * @param parameters The map of parameters.
+         * @param runtimeClass The runtime class.
+         * @param requestClass The request class.
+         * @return <code>true</code> if it can be used for these values.
+         */
+        private boolean isFor(String packageName, TemplateSuite suite,
+                Map<String, String> parameters, String runtimeClass, String requestClass) {
+            return this.packageName == packageName && this.suite == suite
+                    && this.parameters == parameters && this.runtimeClass == runtimeClass
+                    && this.requestClass == requestClass;
+        }
+    }
 }
@@ -20,11 +20,13 @@
  */
 package org.apache.tiles.autotag.generate;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.tiles.autotag.core.AutotagRuntimeException;
 import org.apache.tiles.autotag.core.OutputLocator;
@@ -48,6 +50,11 @@ public abstract class AbstractTemplateSuiteGenerator implements TemplateSuiteGen
      */
     private VelocityEngine velocityEngine;
 
+    /**
+     * The templates already resolved, by path.
+     */
+    private Map<String, Template> templates = new ConcurrentHashMap<String, Template>();
+
     /**
      * Constructor.
      *
@@ -67,17 +74,20 @@ public abstract class AbstractTemplateSuiteGenerator implements TemplateSuiteGen
 	        VelocityContext context = new VelocityContext();
 	        context.put("packageName", packageName);
 	        context.put("suite", suite);
-	        context.put("stringTool", new StringTool());
+	        context.put("stringTool", StringTool.INSTANCE);
 	        context.put("parameters", parameters);
 	        try {
-	            Template template = velocityEngine.getTemplate(getTemplatePath(
+	            Template template = getTemplate(getTemplatePath(
 	                    packageName, suite, parameters));
-	            Writer writer = new OutputStreamWriter(outputLocator.getOutputStream(filePath));
+	            // Rendered first, so that unchanged files are not written again.
+	            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	            Writer writer = new OutputStreamWriter(buffer);
 	            try {
 	                template.merge(context, writer);
 	            } finally {
 	                writer.close();
 	            }
+	            outputLocator.write(filePath, buffer.toByteArray());
 	        } catch (ResourceNotFoundException e) {
 	            throw new AutotagRuntimeException("Cannot find template resource", e);
 	        } catch (ParseErrorException e) {
@@ -95,6 +105,21 @@ public abstract class AbstractTemplateSuiteGenerator implements TemplateSuiteGen
         }
     }
 
+    /**
+     * Returns a template, resolving it only the first time.
+     *
+     * @param path The path of the template.
+     * @return The template.
+     */
+    private Template getTemplate(String path) {
+        Template template = templates.get(path);
+        if (template == null) {
+            template = velocityEngine.getTemplate(path);
+            templates.put(path, template);
+        }
+        return template;
+    }
+
     /**
      * Calculates and returns the template path.
      *
@@ -20,11 +20,21 @@
  */
 package org.apache.tiles.autotag.generate;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.tiles.autotag.core.AutotagRuntimeException;
+import org.apache.tiles.autotag.core.FingerprintingOutputLocator;
 import org.apache.tiles.autotag.core.OutputLocator;
+import org.apache.tiles.autotag.core.TemplateFingerprints;
+import org.apache.tiles.autotag.model.StreamingTemplateSuiteFactory;
 import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateClassConsumer;
 import org.apache.tiles.autotag.model.TemplateSuite;
 
 /**
@@ -55,6 +65,12 @@ class BasicTemplateGenerator implements TemplateGenerator {
      */
     private boolean generatingClasses = false;
 
+    /**
+     * The number of threads generating the files, 1 to generate them
+     * sequentially.
+     */
+    private int parallelism;
+
     /**
      * Constructor.
      *
@@ -67,25 +83,193 @@ class BasicTemplateGenerator implements TemplateGenerator {
             List<TSGeneratorDirectoryPair> templateSuiteGenerators,
             List<TCGeneratorDirectoryPair> templateClassGenerators,
             boolean generatingClasses, boolean generatingResources) {
+        this(templateSuiteGenerators, templateClassGenerators,
+                generatingClasses, generatingResources, 1);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param templateSuiteGenerators The template suite generators.
+     * @param templateClassGenerators The template class generators.
+     * @param generatingClasses Indicates that this generator generates classes.
+     * @param generatingResources Indicates that this generator generates resources.
+     * @param parallelism The number of threads generating the files, 1 to
+     * generate them sequentially. The generators and the output locators
+     * must then be thread-safe.
+     */
+    BasicTemplateGenerator(
+            List<TSGeneratorDirectoryPair> templateSuiteGenerators,
+            List<TCGeneratorDirectoryPair> templateClassGenerators,
+            boolean generatingClasses, boolean generatingResources,
+            int parallelism) {
         this.templateSuiteGenerators = templateSuiteGenerators;
         this.templateClassGenerators = templateClassGenerators;
         this.generatingClasses = generatingClasses;
         this.generatingResources = generatingResources;
+        this.parallelism = parallelism;
     }
 
 
 
     @Override
-    public void generate(String packageName, TemplateSuite suite, Map<String, String> parameters,
-        String runtimeClass, String requestClass) {
+    public void generate(final String packageName, final TemplateSuite suite,
+            final Map<String, String> parameters, final String runtimeClass,
+            final String requestClass) {
+        if (parallelism <= 1) {
+            generateSuite(packageName, suite, parameters);
+            for (TemplateClass templateClass : suite.getTemplateClasses()) {
+                generateClass(packageName, suite, templateClass, parameters,
+                        runtimeClass, requestClass);
+            }
+            return;
+        }
+        // Every file is rendered from its own context and written to its own
+        // path, so the suite and every class are generated independently.
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            futures.add(executor.submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    generateSuite(packageName, suite, parameters);
+                }
+            }));
+            for (final TemplateClass templateClass : suite.getTemplateClasses()) {
+                futures.add(executor.submit(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        generateClass(packageName, suite, templateClass,
+                                parameters, runtimeClass, requestClass);
+                    }
+                }));
+            }
+            waitFor(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public TemplateSuite generate(final String packageName,
+            StreamingTemplateSuiteFactory factory,
+            final Map<String, String> parameters, final String runtimeClass,
+            final String requestClass) {
+        // Unless generating in parallel, a single thread generates the
+        // template classes, so that generators are never used concurrently,
+        // while the caller creates the suite.
+        final ExecutorService executor = parallelism > 1
+                ? Executors.newFixedThreadPool(parallelism)
+                : Executors.newSingleThreadExecutor();
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+        try {
+            TemplateSuite suite = factory.createTemplateSuite(new TemplateClassConsumer() {
+
+                @Override
+                public void accept(final TemplateSuite suite,
+                        final TemplateClass templateClass) {
+                    futures.add(executor.submit(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            generateClass(packageName, suite, templateClass,
+                                    parameters, runtimeClass, requestClass);
+                        }
+                    }));
+                }
+            });
+            waitFor(futures);
+            generateSuite(packageName, suite, parameters);
+            return suite;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for all the generation tasks to complete, even when some of them
+     * fail.
+     *
+     * @param futures The futures of the tasks.
+     * @throws AutotagRuntimeException If any task failed, with the other
+     * failures as suppressed exceptions, or if the current thread is
+     * interrupted.
+     */
+    private static void waitFor(List<Future<?>> futures) {
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AutotagRuntimeException("Interrupted when generating code", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (failure instanceof AutotagRuntimeException) {
+            throw (AutotagRuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new AutotagRuntimeException("Exception when generating code", failure);
+        }
+    }
+
+    /**
+     * Generates the files of the whole suite.
+     *
+     * @param packageName The name of the package.
+     * @param suite The template suite.
+     * @param parameters The map of parameters.
+     */
+    private void generateSuite(String packageName, TemplateSuite suite,
+            Map<String, String> parameters) {
+        String fingerprint = null;
         for (TSGeneratorDirectoryPair pair : templateSuiteGenerators) {
-            pair.getGenerator().generate(pair.getOutputLocator(), packageName, suite, parameters);
+            OutputLocator outputLocator = pair.getOutputLocator();
+            if (outputLocator instanceof FingerprintingOutputLocator) {
+                if (fingerprint == null) {
+                    fingerprint = TemplateFingerprints.getFingerprint(suite);
+                }
+                outputLocator = ((FingerprintingOutputLocator) outputLocator)
+                        .forFingerprint(fingerprint);
+            }
+            pair.getGenerator().generate(outputLocator, packageName, suite, parameters);
         }
-        for (TemplateClass templateClass : suite.getTemplateClasses()) {
-            for (TCGeneratorDirectoryPair pair : templateClassGenerators) {
-                pair.getGenerator().generate(pair.getOutputLocator(), packageName,
-                        suite, templateClass, parameters, runtimeClass, requestClass);
+    }
+
+    /**
+     * Generates the files of a template class.
+     *
+     * @param packageName The name of the package.
+     * @param suite The template suite.
+     * @param templateClass The template class.
+     * @param parameters The map of parameters.
+     * @param runtimeClass The runtime class.
+     * @param requestClass The request class.
+     */
+    private void generateClass(String packageName, TemplateSuite suite,
+            TemplateClass templateClass, Map<String, String> parameters,
+            String runtimeClass, String requestClass) {
+        String fingerprint = null;
+        for (TCGeneratorDirectoryPair pair : templateClassGenerators) {
+            OutputLocator outputLocator = pair.getOutputLocator();
+            if (outputLocator instanceof FingerprintingOutputLocator) {
+                if (fingerprint == null) {
+                    fingerprint = TemplateFingerprints.getFingerprint(suite, templateClass);
+                }
+                outputLocator = ((FingerprintingOutputLocator) outputLocator)
+                        .forFingerprint(fingerprint);
             }
+            pair.getGenerator().generate(outputLocator, packageName,
+                    suite, templateClass, parameters, runtimeClass, requestClass);
         }
     }
 
@@ -23,6 +23,7 @@ package org.apache.tiles.autotag.generate;
 
 import java.util.Map;
 
+import org.apache.tiles.autotag.model.StreamingTemplateSuiteFactory;
 import org.apache.tiles.autotag.model.TemplateSuite;
 
 /**
@@ -44,6 +45,28 @@ public interface TemplateGenerator {
     void generate(String packageName, TemplateSuite suite, Map<String, String> parameters,
         String runtimeClass, String requestClass);
 
+    /**
+     * Creates the template suite and generates the code, starting to generate
+     * the code of every template class as soon as it is created, while the
+     * other ones are still being created. The code of the suite itself is
+     * generated once the suite is complete. By default, the suite is created
+     * first, then the code is generated with
+     * {@link #generate(String, TemplateSuite, Map, String, String)}.
+     *
+     * @param packageName The package name.
+     * @param factory The factory of the template suite.
+     * @param parameters Configuration parameters.
+     * @param runtimeClass The RequestBuilder implementation.
+     * @param requestClass The request class to use.
+     * @return The created template suite.
+     */
+    default TemplateSuite generate(String packageName, StreamingTemplateSuiteFactory factory,
+            Map<String, String> parameters, String runtimeClass, String requestClass) {
+        TemplateSuite suite = factory.createTemplateSuite();
+        generate(packageName, suite, parameters, runtimeClass, requestClass);
+        return suite;
+    }
+
     /**
      * Indicates that this generator generates resources.
      *
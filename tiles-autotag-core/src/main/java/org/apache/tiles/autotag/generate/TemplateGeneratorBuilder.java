@@ -64,6 +64,11 @@ public class TemplateGeneratorBuilder {
      */
     private OutputLocator resourcesOutputLocator;
 
+    /**
+     * The number of threads generating the files.
+     */
+    private int parallelism = 1;
+
     /**
      * Constructor.
      */
@@ -103,6 +108,20 @@ public class TemplateGeneratorBuilder {
         return this;
     }
 
+    /**
+     * Sets the number of threads generating the files. With more than one
+     * thread, the suite and every template class are generated concurrently,
+     * so the generators and the output locators must be thread-safe.
+     *
+     * @param parallelism The number of threads, 1 to generate the files
+     * sequentially.
+     * @return This instance.
+     */
+    public TemplateGeneratorBuilder setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
     /**
      * Adds a new template suite generator to generate classes.
      *
@@ -178,7 +197,8 @@ public class TemplateGeneratorBuilder {
      */
     public TemplateGenerator build() {
         return new BasicTemplateGenerator(templateSuiteGenerators,
-                templateClassGenerators, generatingClasses, generatingResources);
+                templateClassGenerators, generatingClasses, generatingResources,
+                parallelism);
     }
 
 }
@@ -0,0 +1,39 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.model;
+
+/**
+ * Creates a new template suite, publishing every template class as soon as it
+ * is created, so that it can be processed while the other ones are created.
+ *
+ * @version $Rev$ $Date$
+ */
+public interface StreamingTemplateSuiteFactory extends TemplateSuiteFactory {
+
+    /**
+     * Creates a template suite.
+     *
+     * @param consumer The consumer that receives every template class as soon
+     * as it is created.
+     * @return The created template suite.
+     */
+    TemplateSuite createTemplateSuite(TemplateClassConsumer consumer);
+}
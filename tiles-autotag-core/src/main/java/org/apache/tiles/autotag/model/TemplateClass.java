@@ -56,6 +56,24 @@ public class TemplateClass {
      */
     private TemplateMethod executeMethod;
 
+    /**
+     * Indicates that the template class keeps no state, so that a single
+     * instance of it can be shared.
+     */
+    private boolean stateless;
+
+    /**
+     * Indicates that the template class may evaluate its body more than once,
+     * so that the body is rendered once and replayed.
+     */
+    private boolean memoizedBody;
+
+    /**
+     * Indicates that the output of the template class depends only on its
+     * parameters, so that it can be cached.
+     */
+    private boolean cacheable;
+
     /**
      * Constructor.
      *
@@ -148,6 +166,66 @@ public class TemplateClass {
         return executeMethod;
     }
 
+    /**
+     * Indicates that the template class keeps no state between executions,
+     * so that a single instance of it can be shared by all the threads.
+     *
+     * @return <code>true</code> if the template class is stateless.
+     */
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    /**
+     * Sets whether the template class keeps no state between executions.
+     *
+     * @param stateless <code>true</code> if the template class is stateless.
+     */
+    public void setStateless(boolean stateless) {
+        this.stateless = stateless;
+    }
+
+    /**
+     * Indicates that the template class may evaluate its body more than once,
+     * so that the body should be rendered once and then replayed.
+     *
+     * @return <code>true</code> if the body of the template class is
+     * memoized.
+     */
+    public boolean isMemoizedBody() {
+        return memoizedBody;
+    }
+
+    /**
+     * Sets whether the template class may evaluate its body more than once.
+     *
+     * @param memoizedBody <code>true</code> if the body of the template class
+     * is memoized.
+     */
+    public void setMemoizedBody(boolean memoizedBody) {
+        this.memoizedBody = memoizedBody;
+    }
+
+    /**
+     * Indicates that the output of the template class depends only on its
+     * parameters, other than the request, so that it can be cached.
+     *
+     * @return <code>true</code> if the template class is cacheable.
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Sets whether the output of the template class depends only on its
+     * parameters.
+     *
+     * @param cacheable <code>true</code> if the template class is cacheable.
+     */
+    public void setCacheable(boolean cacheable) {
+        this.cacheable = cacheable;
+    }
+
     /**
      * Returns the collection of regular parameters (no request, no body)
      * of the execute method.
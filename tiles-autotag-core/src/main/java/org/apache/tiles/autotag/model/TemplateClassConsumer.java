@@ -0,0 +1,42 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.model;
+
+/**
+ * Receives the template classes as soon as they are created by a
+ * {@link StreamingTemplateSuiteFactory}.
+ *
+ * @version $Rev$ $Date$
+ */
+public interface TemplateClassConsumer {
+
+    /**
+     * Receives a template class. Calls are never concurrent, but they may come
+     * from different threads and, if the factory creates the template classes
+     * concurrently, they may not follow the order of the suite.
+     *
+     * @param suite The template suite being created. Only its name and its
+     * documentation are reliable, its template classes are added when all of
+     * them have been created.
+     * @param templateClass The template class.
+     */
+    void accept(TemplateSuite suite, TemplateClass templateClass);
+}
@@ -20,39 +20,40 @@
  */
 package org.apache.tiles.autotag.tool;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.Reader;
-import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.tiles.autotag.core.AutotagRuntimeException;
+import org.apache.tiles.autotag.model.TemplateParameter;
 
 /**
- * A Velocity tools to manipulate strings.
+ * A Velocity tools to manipulate strings. It has no state, so a single
+ * instance, {@link #INSTANCE}, can be shared by all the templates and threads.
  *
  * @version $Rev$ $Date$
  */
 public class StringTool {
 
     /**
-     * Maps a primitive type to its default value as a string.
+     * The shared instance.
      */
-    private Map<String, String> type2default;
+    public static final StringTool INSTANCE = new StringTool();
 
     /**
-     * Maps a primitive type to its boxed version.
+     * Maps a primitive type to its default value as a string.
      */
-    private Map<String, String> primitive2wrapped;
+    private static final Map<String, String> TYPE2DEFAULT;
 
     /**
-     * Constructor.
+     * Maps a primitive type to its boxed version.
      */
-    public StringTool() {
-        type2default = new HashMap<String, String>();
+    private static final Map<String, String> PRIMITIVE2WRAPPED;
+
+    static {
+        Map<String, String> type2default = new HashMap<String, String>();
         type2default.put("byte", "0");
         type2default.put("short", "0");
         type2default.put("int", "0");
@@ -61,8 +62,9 @@ public class StringTool {
         type2default.put("double", "0.0d");
         type2default.put("char", "'\\u0000'");
         type2default.put("boolean", "false");
+        TYPE2DEFAULT = Collections.unmodifiableMap(type2default);
 
-        primitive2wrapped = new HashMap<String, String>();
+        Map<String, String> primitive2wrapped = new HashMap<String, String>();
         primitive2wrapped.put("byte", Byte.class.getName());
         primitive2wrapped.put("short", Short.class.getName());
         primitive2wrapped.put("int", Integer.class.getName());
@@ -71,10 +73,14 @@ public class StringTool {
         primitive2wrapped.put("double", Double.class.getName());
         primitive2wrapped.put("char", Character.class.getName());
         primitive2wrapped.put("boolean", Boolean.class.getName());
+        PRIMITIVE2WRAPPED = Collections.unmodifiableMap(primitive2wrapped);
     }
 
     /**
-     * Creates a list of strings, separating a string when a newline is encountered.
+     * Creates a list of strings, separating a string when a newline is
+     * encountered, as {@link java.io.BufferedReader#readLine()} does: a
+     * newline is <code>\n</code>, <code>\r</code> or <code>\r\n</code>, and a
+     * trailing newline does not start an empty line.
      *
      * @param toSplit The string to split.
      * @return The list of splitted strings.
@@ -84,20 +90,74 @@ public class StringTool {
         if (toSplit == null) {
             return retValue;
         }
-        Reader reader = new StringReader(toSplit);
-        BufferedReader bufReader = new BufferedReader(reader);
-        try {
-            String line;
-            while ((line = bufReader.readLine()) != null) {
-                retValue.add(line);
-            }
-        } catch (IOException e) {
-            throw new AutotagRuntimeException(
-                    "Cannot read the string completely", e);
+        int length = toSplit.length();
+        int start = 0;
+        while (start < length) {
+            int end = lineEnd(toSplit, start);
+            retValue.add(toSplit.substring(start, end));
+            start = nextLineStart(toSplit, end);
         }
         return retValue;
     }
 
+    /**
+     * Appends every line of a string to a builder, after a prefix and before
+     * a newline, splitting it as {@link #splitOnNewlines(String)} does, but
+     * without creating any intermediate object.
+     *
+     * @param builder The builder to append to.
+     * @param prefix The string to put before every line.
+     * @param toSplit The string to split, may be <code>null</code>.
+     */
+    public static void appendLines(StringBuilder builder, String prefix, String toSplit) {
+        if (toSplit == null) {
+            return;
+        }
+        int length = toSplit.length();
+        int start = 0;
+        while (start < length) {
+            int end = lineEnd(toSplit, start);
+            builder.append(prefix).append(toSplit, start, end).append('\n');
+            start = nextLineStart(toSplit, end);
+        }
+    }
+
+    /**
+     * Returns where a line ends.
+     *
+     * @param string The string containing the line.
+     * @param start The index of the first character of the line.
+     * @return The index of the newline ending the line, or the length of the
+     * string.
+     */
+    private static int lineEnd(String string, int start) {
+        int length = string.length();
+        int end = start;
+        while (end < length) {
+            char c = string.charAt(end);
+            if (c == '\n' || c == '\r') {
+                break;
+            }
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Returns where the line after a newline starts.
+     *
+     * @param string The string containing the lines.
+     * @param end The index of the newline, or the length of the string.
+     * @return The index of the first character of the next line.
+     */
+    private static int nextLineStart(String string, int end) {
+        if (end + 1 < string.length() && string.charAt(end) == '\r'
+                && string.charAt(end + 1) == '\n') {
+            return end + 2;
+        }
+        return end + 1;
+    }
+
     /**
      * Creates a string in which the first character is capitalized.
      *
@@ -108,6 +168,16 @@ public class StringTool {
         return string.substring(0, 1).toUpperCase() + string.substring(1);
     }
 
+    /**
+     * Returns the default value of a field of a type.
+     *
+     * @param type The type.
+     * @return The default value to use.
+     */
+    public String getDefaultValue(String type) {
+        return getDefaultValue(type, null);
+    }
+
     /**
      * Returns the default value for a type.
      *
@@ -120,7 +190,7 @@ public class StringTool {
             return overriddenDefaultValue;
         }
 
-        String retValue = type2default.get(type);
+        String retValue = TYPE2DEFAULT.get(type);
         if (retValue == null) {
             retValue = "null";
         }
@@ -134,10 +204,53 @@ public class StringTool {
      * @return The class to be used in casts.
      */
     public String getClassToCast(String type) {
-        String retValue = primitive2wrapped.get(type);
+        String retValue = PRIMITIVE2WRAPPED.get(type);
         if (retValue == null) {
             retValue = type;
         }
         return retValue;
     }
+
+    /**
+     * Checks if a type is primitive.
+     *
+     * @param type The type to check.
+     * @return <code>true</code> if it is a primitive type.
+     */
+    public boolean isPrimitive(String type) {
+        return PRIMITIVE2WRAPPED.containsKey(type);
+    }
+
+    /**
+     * Returns the name of the method of the runtime that reads a parameter
+     * of a type, without boxing it when it is primitive.
+     *
+     * @param type The type of the parameter.
+     * @return The name of the method, such as <code>getIntParameter</code>,
+     * or <code>getParameter</code> for non-primitive types.
+     */
+    public String getParameterGetter(String type) {
+        if (!isPrimitive(type)) {
+            return "getParameter";
+        }
+        return "get" + capitalizeFirstLetter(type) + "Parameter";
+    }
+
+    /**
+     * Returns the primitive types of some parameters, each once, in the order
+     * of their first parameter.
+     *
+     * @param parameters The parameters.
+     * @return The primitive types.
+     */
+    public List<String> getPrimitiveTypes(Collection<TemplateParameter> parameters) {
+        List<String> retValue = new ArrayList<String>();
+        for (TemplateParameter parameter : parameters) {
+            String type = parameter.getType();
+            if (isPrimitive(type) && !retValue.contains(type)) {
+                retValue.add(type);
+            }
+        }
+        return retValue;
+    }
 }
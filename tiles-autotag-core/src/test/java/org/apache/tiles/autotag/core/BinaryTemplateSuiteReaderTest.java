@@ -0,0 +1,197 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.junit.Test;
+
+/**
+ * Tests {@link BinaryTemplateSuiteReader}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class BinaryTemplateSuiteReaderTest {
+
+    /**
+     * Test method for {@link BinaryTemplateSuiteReader#read(java.io.InputStream)}.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testRead() throws IOException {
+        TemplateSuite suite = new TemplateSuite("suite", "docs");
+        suite.addTemplateClass(new TemplateClass("my.TemplateModel"));
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new BinaryTemplateSuiteWriter().write(suite, stream);
+
+        TemplateSuite read = new BinaryTemplateSuiteReader().read(
+                new ByteArrayInputStream(stream.toByteArray()));
+        assertEquals("suite", read.getName());
+        assertEquals("docs", read.getDocumentation());
+        TemplateClass templateClass = read.getTemplateClassByName("my.TemplateModel");
+        assertNotNull(templateClass);
+        assertNull(templateClass.getTagName());
+        assertNull(templateClass.getExecuteMethod());
+        assertFalse(templateClass.isStateless());
+        assertFalse(templateClass.isMemoizedBody());
+        assertFalse(templateClass.isCacheable());
+    }
+
+    /**
+     * Test method for {@link BinaryTemplateSuiteReader#read(java.io.InputStream)},
+     * with a stateless template class.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testReadStateless() throws IOException {
+        TemplateSuite suite = new TemplateSuite("suite", "docs");
+        TemplateClass templateClass = new TemplateClass("my.TemplateModel");
+        templateClass.setStateless(true);
+        suite.addTemplateClass(templateClass);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new BinaryTemplateSuiteWriter().write(suite, stream);
+
+        TemplateSuite read = new BinaryTemplateSuiteReader().read(
+                new ByteArrayInputStream(stream.toByteArray()));
+        assertTrue(read.getTemplateClassByName("my.TemplateModel").isStateless());
+        assertFalse(read.getTemplateClassByName("my.TemplateModel").isMemoizedBody());
+    }
+
+    /**
+     * Test method for {@link BinaryTemplateSuiteReader#read(java.io.InputStream)},
+     * with a template class with a memoized body.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testReadMemoizedBody() throws IOException {
+        TemplateSuite suite = new TemplateSuite("suite", "docs");
+        TemplateClass templateClass = new TemplateClass("my.TemplateModel");
+        templateClass.setMemoizedBody(true);
+        suite.addTemplateClass(templateClass);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new BinaryTemplateSuiteWriter().write(suite, stream);
+
+        TemplateSuite read = new BinaryTemplateSuiteReader().read(
+                new ByteArrayInputStream(stream.toByteArray()));
+        assertTrue(read.getTemplateClassByName("my.TemplateModel").isMemoizedBody());
+        assertFalse(read.getTemplateClassByName("my.TemplateModel").isStateless());
+    }
+
+    /**
+     * Test method for {@link BinaryTemplateSuiteReader#read(java.io.InputStream)},
+     * with a cacheable template class.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testReadCacheable() throws IOException {
+        TemplateSuite suite = new TemplateSuite("suite", "docs");
+        TemplateClass templateClass = new TemplateClass("my.TemplateModel");
+        templateClass.setCacheable(true);
+        suite.addTemplateClass(templateClass);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new BinaryTemplateSuiteWriter().write(suite, stream);
+
+        TemplateSuite read = new BinaryTemplateSuiteReader().read(
+                new ByteArrayInputStream(stream.toByteArray()));
+        assertTrue(read.getTemplateClassByName("my.TemplateModel").isCacheable());
+        assertFalse(read.getTemplateClassByName("my.TemplateModel").isMemoizedBody());
+    }
+
+    /**
+     * Test method for {@link BinaryTemplateSuiteReader#read(java.io.InputStream)},
+     * with a descriptor written by hand, following the documented format.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testReadFormat() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(BinaryTemplateSuiteWriter.MAGIC);
+        out.writeShort(BinaryTemplateSuiteWriter.VERSION);
+        out.writeInt(2);
+        out.writeInt(5);
+        out.write("suite".getBytes("UTF-8"));
+        out.writeInt(16);
+        out.write("my.TemplateModel".getBytes("UTF-8"));
+        out.writeInt(0);
+        out.writeInt(-1);
+        out.writeInt(1);
+        out.writeInt(1);
+        out.writeInt(-1);
+        out.writeInt(-1);
+        out.writeInt(-1);
+        out.writeBoolean(true);
+        out.writeBoolean(false);
+        out.writeBoolean(true);
+        out.writeBoolean(false);
+        out.close();
+
+        TemplateSuite read = new BinaryTemplateSuiteReader().read(
+                new ByteArrayInputStream(stream.toByteArray()));
+        assertEquals("suite", read.getName());
+        TemplateClass templateClass = read.getTemplateClassByName("my.TemplateModel");
+        assertNotNull(templateClass);
+        assertNull(templateClass.getExecuteMethod());
+        assertTrue(templateClass.isStateless());
+        assertFalse(templateClass.isMemoizedBody());
+        assertTrue(templateClass.isCacheable());
+    }
+
+    /**
+     * Test method for {@link BinaryTemplateSuiteReader#read(java.io.InputStream)},
+     * with a stream that is not a binary descriptor.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test(expected = IOException.class)
+    public void testReadInvalid() throws IOException {
+        new BinaryTemplateSuiteReader().read(new ByteArrayInputStream(
+                "<org.apache.tiles.autotag.model.TemplateSuite>".getBytes("UTF-8")));
+    }
+
+    /**
+     * Test method for {@link BinaryTemplateSuiteReader#read(java.io.InputStream)},
+     * with an unsupported version.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test(expected = IOException.class)
+    public void testReadUnsupportedVersion() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(BinaryTemplateSuiteWriter.MAGIC);
+        out.writeShort(BinaryTemplateSuiteWriter.VERSION + 1);
+        out.close();
+        new BinaryTemplateSuiteReader().read(new ByteArrayInputStream(stream.toByteArray()));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.tiles.autotag.core.internal.ExampleRequest;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.junit.Test;
+
+/**
+ * Tests {@link BinaryTemplateSuiteWriter} and {@link BinaryTemplateSuiteReader}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class BinaryTemplateSuiteWriterTest {
+
+    /**
+     * Test method for {@link BinaryTemplateSuiteWriter#write(TemplateSuite, java.io.OutputStream)}.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testWrite() throws IOException {
+        QDoxTemplateSuiteFactory factory = new QDoxTemplateSuiteFactory(
+                getClass().getResource("/org/apache/tiles/autotag/core/internal/ExampleModel.java"),
+                getClass().getResource("/org/apache/tiles/autotag/core/internal/AnnotatedExampleModel.java"),
+                getClass().getResource("/org/apache/tiles/autotag/core/internal/ExampleExecutableModel.java"));
+        factory.setSuiteName("The suite name");
+        factory.setRequestClass(ExampleRequest.class.getName());
+        TemplateSuite suite = factory.createTemplateSuite();
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new BinaryTemplateSuiteWriter().write(suite, stream);
+        byte[] bytes = stream.toByteArray();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        assertEquals(BinaryTemplateSuiteWriter.MAGIC, in.readInt());
+        assertEquals(BinaryTemplateSuiteWriter.VERSION, in.readShort());
+        // Repeated strings, such as types and parameter names, are written once.
+        assertEquals(getDistinctStrings(suite).size(), in.readInt());
+
+        TemplateSuite read = new BinaryTemplateSuiteReader().read(new ByteArrayInputStream(bytes));
+        assertEquals(suite.toString(), read.toString());
+        assertEquals(new ArrayList<TemplateClass>(suite.getTemplateClasses()).toString(),
+                new ArrayList<TemplateClass>(read.getTemplateClasses()).toString());
+        assertNull(read.getDocumentation());
+    }
+
+    /**
+     * Collects the distinct strings of a suite.
+     *
+     * @param suite The suite.
+     * @return The distinct strings.
+     */
+    private Set<String> getDistinctStrings(TemplateSuite suite) {
+        Set<String> strings = new HashSet<String>();
+        strings.add(suite.getName());
+        for (TemplateClass templateClass : suite.getTemplateClasses()) {
+            strings.add(templateClass.getName());
+            strings.add(templateClass.getTagName());
+            strings.add(templateClass.getTagClassPrefix());
+            strings.add(templateClass.getDocumentation());
+            TemplateMethod method = templateClass.getExecuteMethod();
+            strings.add(method.getName());
+            strings.add(method.getDocumentation());
+            for (TemplateParameter parameter : method.getParameters()) {
+                strings.add(parameter.getName());
+                strings.add(parameter.getExportedName());
+                strings.add(parameter.getDocumentation());
+                strings.add(parameter.getType());
+                strings.add(parameter.getDefaultValue());
+            }
+        }
+        strings.remove(null);
+        return strings;
+    }
+}
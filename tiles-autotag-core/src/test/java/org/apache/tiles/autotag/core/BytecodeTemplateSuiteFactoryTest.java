@@ -0,0 +1,213 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import static org.junit.Assert.*;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tiles.autotag.core.internal.AnnotatedExampleModel;
+import org.apache.tiles.autotag.core.internal.CompiledAnnotatedExampleModel;
+import org.apache.tiles.autotag.core.internal.ExampleExcluded;
+import org.apache.tiles.autotag.core.internal.ExampleExecutableModel;
+import org.apache.tiles.autotag.core.internal.ExampleModel;
+import org.apache.tiles.autotag.core.internal.ExampleRequest;
+import org.apache.tiles.autotag.core.internal.NestedTypesExampleModel;
+import org.apache.tiles.autotag.core.internal.NotFeasibleExampleModel;
+import org.apache.tiles.autotag.core.runtime.ModelBody;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link BytecodeTemplateSuiteFactory}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class BytecodeTemplateSuiteFactoryTest {
+
+    private static final String REQUEST_CLASS = ExampleRequest.class.getName();
+
+    /**
+     * The factory to test.
+     */
+    private BytecodeTemplateSuiteFactory factory;
+
+    /**
+     * Sets up the test.
+     */
+    @Before
+    public void setUp() {
+        factory = new BytecodeTemplateSuiteFactory(
+                getClassFile(ExampleModel.class),
+                getClassFile(AnnotatedExampleModel.class),
+                getClassFile(CompiledAnnotatedExampleModel.class),
+                getClassFile(ExampleExcluded.class),
+                getClassFile(ExampleExecutableModel.class),
+                getClassFile(NotFeasibleExampleModel.class));
+        factory.setSuiteName("The suite name");
+        factory.setSuiteDocumentation("This are the docs");
+        factory.setRequestClass(REQUEST_CLASS);
+    }
+
+    /**
+     * Test method for {@link BytecodeTemplateSuiteFactory#createTemplateSuite()}.
+     */
+    @Test
+    public void testCreateTemplateSuite() {
+        TemplateSuite suite = factory.createTemplateSuite();
+        assertEquals("The suite name", suite.getName());
+        assertEquals("This are the docs", suite.getDocumentation());
+        assertEquals(4, suite.getTemplateClasses().size());
+
+        TemplateClass templateClass = suite.getTemplateClassByName(ExampleModel.class.getName());
+        assertNotNull(templateClass);
+        assertEquals("example", templateClass.getTagName());
+        assertEquals("Example", templateClass.getTagClassPrefix());
+        assertNull(templateClass.getDocumentation());
+        TemplateMethod templateMethod = templateClass.getExecuteMethod();
+        assertNotNull(templateMethod);
+        assertTrue(templateMethod.hasBody());
+        assertEquals("execute", templateMethod.getName());
+        List<TemplateParameter> parameters = new ArrayList<TemplateParameter>(templateMethod.getParameters());
+        assertEquals(4, parameters.size());
+        TemplateParameter parameter = parameters.get(0);
+        assertEquals("one", parameter.getName());
+        assertEquals("java.lang.String", parameter.getType());
+        assertNull(parameter.getDocumentation());
+        parameter = parameters.get(1);
+        assertEquals("two", parameter.getName());
+        assertEquals("int", parameter.getType());
+        parameter = parameters.get(2);
+        assertEquals("request", parameter.getName());
+        assertEquals(REQUEST_CLASS, parameter.getType());
+        assertTrue(parameter.isRequest());
+        parameter = parameters.get(3);
+        assertEquals("modelBody", parameter.getName());
+        assertEquals(ModelBody.class.getName(), parameter.getType());
+
+        // The source-retained annotation is lost.
+        templateClass = suite.getTemplateClassByName(AnnotatedExampleModel.class.getName());
+        assertNotNull(templateClass);
+        parameter = templateClass.getExecuteMethod().getParameters().iterator().next();
+        assertEquals("one", parameter.getExportedName());
+        assertNull(parameter.getDefaultValue());
+        assertFalse(parameter.isRequired());
+
+        templateClass = suite.getTemplateClassByName(CompiledAnnotatedExampleModel.class.getName());
+        assertNotNull(templateClass);
+        parameter = templateClass.getExecuteMethod().getParameters().iterator().next();
+        assertEquals("one", parameter.getName());
+        assertEquals("alternateOne", parameter.getExportedName());
+        assertEquals("\\\"hello\\\"", parameter.getDefaultValue());
+        assertTrue(parameter.isRequired());
+        assertTrue(templateClass.isStateless());
+        assertFalse(suite.getTemplateClassByName(ExampleModel.class.getName()).isStateless());
+        assertTrue(templateClass.isMemoizedBody());
+        assertFalse(suite.getTemplateClassByName(ExampleModel.class.getName()).isMemoizedBody());
+        assertTrue(templateClass.isCacheable());
+        assertFalse(suite.getTemplateClassByName(ExampleModel.class.getName()).isCacheable());
+
+        templateClass = suite.getTemplateClassByName(ExampleExecutableModel.class.getName());
+        assertNotNull(templateClass);
+        templateMethod = templateClass.getExecuteMethod();
+        assertFalse(templateMethod.hasBody());
+        assertEquals(3, templateMethod.getParameters().size());
+
+        assertNull(suite.getTemplateClassByName(ExampleExcluded.class.getName()));
+        assertNull(suite.getTemplateClassByName(NotFeasibleExampleModel.class.getName()));
+    }
+
+    /**
+     * Test method for {@link BytecodeTemplateSuiteFactory#createTemplateSuite()},
+     * comparing with the parsed sources.
+     */
+    @Test
+    public void testCreateTemplateSuiteSameAsSources() {
+        QDoxTemplateSuiteFactory sourceFactory = new QDoxTemplateSuiteFactory(
+                getClass().getResource("/org/apache/tiles/autotag/core/internal/CompiledAnnotatedExampleModel.java"));
+        sourceFactory.setRequestClass(REQUEST_CLASS);
+        TemplateClass expected = sourceFactory.createTemplateSuite().getTemplateClasses().iterator().next();
+        TemplateClass actual = factory.createTemplateSuite().getTemplateClassByName(
+                CompiledAnnotatedExampleModel.class.getName());
+        assertEquals(expected.getTagName(), actual.getTagName());
+        assertTrue(expected.isStateless());
+        assertTrue(actual.isStateless());
+        assertTrue(expected.isMemoizedBody());
+        assertTrue(actual.isMemoizedBody());
+        assertTrue(expected.isCacheable());
+        assertTrue(actual.isCacheable());
+        List<TemplateParameter> expectedParameters = new ArrayList<TemplateParameter>(
+                expected.getExecuteMethod().getParameters());
+        List<TemplateParameter> actualParameters = new ArrayList<TemplateParameter>(
+                actual.getExecuteMethod().getParameters());
+        assertEquals(expectedParameters.size(), actualParameters.size());
+        for (int i = 0; i < expectedParameters.size(); i++) {
+            TemplateParameter expectedParameter = expectedParameters.get(i);
+            TemplateParameter actualParameter = actualParameters.get(i);
+            assertEquals(expectedParameter.getName(), actualParameter.getName());
+            assertEquals(expectedParameter.getExportedName(), actualParameter.getExportedName());
+            assertEquals(expectedParameter.getType(), actualParameter.getType());
+            assertEquals(expectedParameter.getDefaultValue(), actualParameter.getDefaultValue());
+            assertEquals(expectedParameter.isRequired(), actualParameter.isRequired());
+            assertEquals(expectedParameter.isRequest(), actualParameter.isRequest());
+        }
+    }
+
+    /**
+     * Test method for {@link BytecodeTemplateSuiteFactory#createTemplateSuite()},
+     * with parameters whose types are nested classes, or a top level class
+     * whose name contains a dollar sign.
+     */
+    @Test
+    public void testCreateTemplateSuiteNestedTypes() {
+        factory = new BytecodeTemplateSuiteFactory(getClassFile(NestedTypesExampleModel.class));
+        factory.setRequestClass(REQUEST_CLASS);
+        TemplateClass templateClass = factory.createTemplateSuite().getTemplateClassByName(
+                NestedTypesExampleModel.class.getName());
+        assertNotNull(templateClass);
+        List<TemplateParameter> parameters = new ArrayList<TemplateParameter>(
+                templateClass.getExecuteMethod().getParameters());
+        assertEquals(5, parameters.size());
+        assertEquals("org.apache.tiles.autotag.core.internal.Example$Value", parameters.get(0).getType());
+        assertEquals("java.util.Map.Entry", parameters.get(1).getType());
+        assertEquals("org.apache.tiles.autotag.core.internal.NestedTypesExampleModel.Value",
+                parameters.get(2).getType());
+        assertEquals("org.apache.tiles.autotag.core.internal.NestedTypesExampleModel.Value.Part[]",
+                parameters.get(3).getType());
+        assertTrue(parameters.get(4).isRequest());
+    }
+
+    /**
+     * Returns the URL of the class file of a class.
+     *
+     * @param clazz The class.
+     * @return The URL of the class file.
+     */
+    private URL getClassFile(Class<?> clazz) {
+        return clazz.getResource(clazz.getSimpleName() + ".class");
+    }
+}
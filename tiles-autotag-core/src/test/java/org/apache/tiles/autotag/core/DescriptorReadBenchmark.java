@@ -0,0 +1,178 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.reflection.SunUnsafeReflectionProvider;
+
+/**
+ * Compares the time needed to read a large descriptor with XStream,
+ * {@link XmlTemplateSuiteReader} and {@link BinaryTemplateSuiteReader}, as
+ * the generate goals do. It is not run by the build, only with the
+ * <code>benchmarks</code> profile: <code>mvn test -Pbenchmarks</code>. Every
+ * reader is timed on its best round, after warm-up rounds. The required
+ * speedups, 2 times for StAX over XStream and 5 times for the binary format
+ * over StAX, are below the measured ones, about 5 and 15 times.
+ *
+ * @version $Rev$ $Date$
+ */
+public class DescriptorReadBenchmark {
+
+    /**
+     * The number of warm-up rounds, so that the readers are compiled.
+     */
+    private static final int WARM_UP_ROUNDS = 20;
+
+    /**
+     * The number of timed rounds.
+     */
+    private static final int ROUNDS = 20;
+
+    /**
+     * The descriptor in XML, as written by XStream.
+     */
+    private byte[] xml;
+
+    /**
+     * The descriptor in the binary format.
+     */
+    private byte[] binary;
+
+    /**
+     * Writes the descriptors.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Before
+    public void setUp() throws IOException {
+        TemplateSuite suite = DescriptorRoundTripTest.createSuite();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        new XStream().toXML(suite, writer);
+        writer.close();
+        xml = stream.toByteArray();
+        stream = new ByteArrayOutputStream();
+        new BinaryTemplateSuiteWriter().write(suite, stream);
+        binary = stream.toByteArray();
+    }
+
+    /**
+     * Tests that {@link XmlTemplateSuiteReader} reads the XML descriptor
+     * faster than XStream.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testXmlReaderFasterThanXStream() throws IOException {
+        long xstreamTime = time(new Reader() {
+
+            @Override
+            public TemplateSuite read() {
+                XStream xstream = new XStream(new SunUnsafeReflectionProvider());
+                xstream.allowTypesByWildcard(new String[] {"org.apache.tiles.**"});
+                return (TemplateSuite) xstream.fromXML(new ByteArrayInputStream(xml));
+            }
+        });
+        long staxTime = time(new Reader() {
+
+            @Override
+            public TemplateSuite read() throws IOException {
+                return new XmlTemplateSuiteReader().read(new ByteArrayInputStream(xml));
+            }
+        });
+        assertTrue("StAX: " + staxTime + " ns, XStream: " + xstreamTime + " ns",
+                staxTime * 2 < xstreamTime);
+    }
+
+    /**
+     * Tests that {@link BinaryTemplateSuiteReader} reads the binary
+     * descriptor much faster than {@link XmlTemplateSuiteReader} reads the
+     * XML one.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testBinaryReaderFasterThanXmlReader() throws IOException {
+        long staxTime = time(new Reader() {
+
+            @Override
+            public TemplateSuite read() throws IOException {
+                return new XmlTemplateSuiteReader().read(new ByteArrayInputStream(xml));
+            }
+        });
+        long binaryTime = time(new Reader() {
+
+            @Override
+            public TemplateSuite read() throws IOException {
+                return new BinaryTemplateSuiteReader().read(new ByteArrayInputStream(binary));
+            }
+        });
+        assertTrue("Binary: " + binaryTime + " ns, StAX: " + staxTime + " ns",
+                binaryTime * 5 < staxTime);
+    }
+
+    /**
+     * Times a reader on its best round, after the warm-up rounds.
+     *
+     * @param reader The reader.
+     * @return The time of the best round, in nanoseconds.
+     * @throws IOException If something goes wrong.
+     */
+    private long time(Reader reader) throws IOException {
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            assertEquals(DescriptorRoundTripTest.CLASS_COUNT, reader.read().getTemplateClasses().size());
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            reader.read();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /**
+     * Reads the descriptor.
+     */
+    private interface Reader {
+
+        /**
+         * Reads the descriptor.
+         *
+         * @return The suite.
+         * @throws IOException If something goes wrong.
+         */
+        TemplateSuite read() throws IOException;
+    }
+}
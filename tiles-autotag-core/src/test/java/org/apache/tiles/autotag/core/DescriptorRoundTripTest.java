@@ -0,0 +1,132 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.junit.Test;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.reflection.SunUnsafeReflectionProvider;
+
+/**
+ * Tests that a large descriptor written by XStream, {@link XmlTemplateSuiteWriter}
+ * and {@link BinaryTemplateSuiteWriter} is read back the same by XStream,
+ * {@link XmlTemplateSuiteReader} and {@link BinaryTemplateSuiteReader}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class DescriptorRoundTripTest {
+
+    /**
+     * The number of template classes of the suite.
+     */
+    static final int CLASS_COUNT = 300;
+
+    /**
+     * Test method for {@link XmlTemplateSuiteReader#read(java.io.InputStream)}
+     * and {@link BinaryTemplateSuiteReader#read(java.io.InputStream)}.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        TemplateSuite suite = createSuite();
+        String expected = toXml(suite);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        new XStream().toXML(suite, writer);
+        writer.close();
+        byte[] xstreamXml = stream.toByteArray();
+        XStream xstream = new XStream(new SunUnsafeReflectionProvider());
+        xstream.allowTypesByWildcard(new String[] {"org.apache.tiles.**"});
+        assertEquals(expected, toXml((TemplateSuite) xstream.fromXML(new ByteArrayInputStream(xstreamXml))));
+        assertEquals(expected, toXml(new XmlTemplateSuiteReader().read(new ByteArrayInputStream(xstreamXml))));
+
+        stream = new ByteArrayOutputStream();
+        writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        new XmlTemplateSuiteWriter().write(suite, writer);
+        writer.close();
+        assertEquals(expected, toXml(new XmlTemplateSuiteReader().read(
+                new ByteArrayInputStream(stream.toByteArray()))));
+
+        stream = new ByteArrayOutputStream();
+        new BinaryTemplateSuiteWriter().write(suite, stream);
+        TemplateSuite read = new BinaryTemplateSuiteReader().read(new ByteArrayInputStream(stream.toByteArray()));
+        assertEquals(CLASS_COUNT, read.getTemplateClasses().size());
+        assertEquals(expected, toXml(read));
+    }
+
+    /**
+     * Writes a suite in XML, to compare suites.
+     *
+     * @param suite The suite.
+     * @return The XML.
+     * @throws IOException If something goes wrong.
+     */
+    private String toXml(TemplateSuite suite) throws IOException {
+        StringWriter writer = new StringWriter();
+        new XmlTemplateSuiteWriter().write(suite, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Creates a suite of {@value #CLASS_COUNT} template classes, with
+     * parameters of a few types as in a real tag library.
+     *
+     * @return The suite.
+     */
+    static TemplateSuite createSuite() {
+        String[] types = {"java.lang.String", "int", "boolean", "java.lang.Object"};
+        TemplateSuite suite = new TemplateSuite("timing", "Suite to time the readers.");
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            List<TemplateParameter> params = new ArrayList<TemplateParameter>();
+            for (int j = 0; j < 5; j++) {
+                TemplateParameter param = new TemplateParameter("param" + j, "param" + j,
+                        types[j % types.length], j % 2 == 0 ? null : "42", j == 0, false);
+                param.setDocumentation("Parameter " + j + " of template " + i + ".");
+                params.add(param);
+            }
+            params.add(new TemplateParameter("request", "request",
+                    "org.apache.tiles.request.Request", null, false, true));
+            TemplateClass clazz = new TemplateClass("org.apache.tiles.autotag.timing.Template" + i + "Model",
+                    "template" + i, "Template" + i, new TemplateMethod("execute", params));
+            clazz.setDocumentation("Template " + i + ".");
+            suite.addTemplateClass(clazz);
+        }
+        return suite;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+/**
+ * Tests {@link OutputContents}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class OutputContentsTest {
+
+    /**
+     * Test method for {@link OutputContents#hasContent(File, byte[])}.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testHasContent() throws IOException {
+        File file = File.createTempFile("autotagcontent", ".tmp");
+        try {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < 5000; i++) {
+                builder.append(i);
+            }
+            String content = builder.toString();
+            FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+            assertTrue(OutputContents.hasContent(file, content.getBytes(StandardCharsets.UTF_8)));
+            assertFalse(OutputContents.hasContent(file,
+                    (content.substring(0, content.length() - 1) + "x").getBytes(StandardCharsets.UTF_8)));
+            assertFalse(OutputContents.hasContent(file, "0".getBytes(StandardCharsets.UTF_8)));
+            assertFalse(OutputContents.hasContent(new File(file.getPath() + ".missing"), new byte[0]));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that {@link DirectoryOutputLocator#write(String, byte[])} does
+     * not write unchanged files again.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testWriteIfChanged() throws IOException {
+        File directory = File.createTempFile("autotagcontent", ".tmp");
+        directory.delete();
+        try {
+            OutputLocator locator = new DirectoryOutputLocator(directory);
+            byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+            assertTrue(locator.write("my/file.txt", content));
+            File file = new File(directory, "my/file.txt");
+            assertTrue(file.setLastModified(1000L));
+            assertFalse(locator.write("my/file.txt", content));
+            assertEquals(1000L, file.lastModified());
+            assertTrue(locator.write("my/file.txt", "other".getBytes(StandardCharsets.UTF_8)));
+            assertEquals("other", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+}
@@ -32,6 +32,7 @@ import org.apache.tiles.autotag.core.internal.ExampleRequest;
 import org.apache.tiles.autotag.core.internal.NotFeasibleExampleModel;
 import org.apache.tiles.autotag.core.runtime.ModelBody;
 import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateClassConsumer;
 import org.apache.tiles.autotag.model.TemplateMethod;
 import org.apache.tiles.autotag.model.TemplateParameter;
 import org.apache.tiles.autotag.model.TemplateSuite;
@@ -147,4 +148,133 @@ public class QDoxTemplateSuiteFactoryTest {
 
         assertNull(suite.getTemplateClassByName(NotFeasibleExampleModel.class.getName()));
     }
+
+    /**
+     * Test method for {@link QDoxTemplateSuiteFactory#setParallelism(int)}.
+     */
+    @Test
+    public void testCreateTemplateSuiteParallel() {
+        TemplateSuite expected = factory.createTemplateSuite();
+        factory.setParallelism(4);
+        TemplateSuite suite = factory.createTemplateSuite();
+        assertEquals(expected.toString(), suite.toString());
+        assertEquals(new ArrayList<TemplateClass>(expected.getTemplateClasses()).toString(),
+                new ArrayList<TemplateClass>(suite.getTemplateClasses()).toString());
+    }
+
+    /**
+     * Test method for {@link QDoxTemplateSuiteFactory#setSourceCache(SourceCache)}.
+     */
+    @Test
+    public void testCreateTemplateSuiteCached() {
+        TemplateSuite expected = factory.createTemplateSuite();
+        SourceCache sourceCache = new SourceCache("context");
+        factory.setSourceCache(sourceCache);
+        TemplateSuite cached = factory.createTemplateSuite();
+        assertEquals(expected.toString(), cached.toString());
+        assertEquals(5, sourceCache.size());
+
+        setUp();
+        factory.setSourceCache(sourceCache);
+        TemplateSuite suite = factory.createTemplateSuite();
+        assertEquals(expected.toString(), suite.toString());
+        assertSame(cached.getTemplateClassByName(ExampleModel.class.getName()),
+                suite.getTemplateClassByName(ExampleModel.class.getName()));
+
+        factory = new QDoxTemplateSuiteFactory(
+                getClass().getResource("/org/apache/tiles/autotag/core/internal/ExampleModel.java"));
+        factory.setRequestClass(REQUEST_CLASS);
+        factory.setSourceCache(sourceCache);
+        suite = factory.createTemplateSuite();
+        // The declared classes changed, so the source has been parsed again.
+        assertNotSame(cached.getTemplateClassByName(ExampleModel.class.getName()),
+                suite.getTemplateClassByName(ExampleModel.class.getName()));
+        assertEquals(cached.getTemplateClassByName(ExampleModel.class.getName()).toString(),
+                suite.getTemplateClassByName(ExampleModel.class.getName()).toString());
+        assertEquals(1, sourceCache.size());
+    }
+
+    /**
+     * Test method for {@link QDoxTemplateSuiteFactory#setSourceCache(SourceCache)},
+     * when a type used by an unchanged source is declared in a new source.
+     */
+    @Test
+    public void testCreateTemplateSuiteCachedDeclaredClassesChanged() {
+        String modelName = "org.apache.tiles.autotag.core.nested.NestedRequestExampleModel";
+        SourceCache sourceCache = new SourceCache("context");
+        factory = new QDoxTemplateSuiteFactory(
+                getClass().getResource("/org/apache/tiles/autotag/core/nested/NestedRequestExampleModel.java"));
+        factory.setRequestClass("org.apache.tiles.autotag.core.nested.ExampleContext.Request");
+        factory.setSourceCache(sourceCache);
+        assertNull(factory.createTemplateSuite().getTemplateClassByName(modelName));
+
+        factory = new QDoxTemplateSuiteFactory(
+                getClass().getResource("/org/apache/tiles/autotag/core/nested/ExampleContext.java"),
+                getClass().getResource("/org/apache/tiles/autotag/core/nested/NestedRequestExampleModel.java"));
+        factory.setRequestClass("org.apache.tiles.autotag.core.nested.ExampleContext.Request");
+        factory.setSourceCache(sourceCache);
+        assertNotNull(factory.createTemplateSuite().getTemplateClassByName(modelName));
+        assertEquals(2, sourceCache.size());
+    }
+
+    /**
+     * Test method for {@link QDoxTemplateSuiteFactory#setParallelism(int)},
+     * when the request class is a nested class declared in another source. The
+     * sources are not compiled, so that QDox cannot load the classes.
+     */
+    @Test
+    public void testCreateTemplateSuiteParallelNestedRequest() {
+        factory = new QDoxTemplateSuiteFactory(
+                getClass().getResource("/org/apache/tiles/autotag/core/nested/ExampleContext.java"),
+                getClass().getResource("/org/apache/tiles/autotag/core/nested/NestedRequestExampleModel.java"));
+        factory.setRequestClass("org.apache.tiles.autotag.core.nested.ExampleContext.Request");
+        TemplateSuite expected = factory.createTemplateSuite();
+        TemplateClass templateClass = expected.getTemplateClassByName(
+                "org.apache.tiles.autotag.core.nested.NestedRequestExampleModel");
+        assertNotNull(templateClass);
+        assertEquals(1, templateClass.getParameters().size());
+
+        factory.setParallelism(4);
+        assertEquals(new ArrayList<TemplateClass>(expected.getTemplateClasses()).toString(),
+                new ArrayList<TemplateClass>(factory.createTemplateSuite().getTemplateClasses()).toString());
+    }
+
+    /**
+     * Test method for {@link QDoxTemplateSuiteFactory#setPrefilter(boolean)}.
+     */
+    @Test
+    public void testCreateTemplateSuitePrefiltered() {
+        TemplateSuite expected = factory.createTemplateSuite();
+        factory.setPrefilter(true);
+        TemplateSuite suite = factory.createTemplateSuite();
+        assertEquals(expected.toString(), suite.toString());
+
+        // The source cache tells which sources have been parsed.
+        SourceCache sourceCache = new SourceCache("context");
+        factory.setSourceCache(sourceCache);
+        suite = factory.createTemplateSuite();
+        assertEquals(expected.toString(), suite.toString());
+        assertEquals(4, sourceCache.size());
+    }
+
+    /**
+     * Test method for {@link QDoxTemplateSuiteFactory#createTemplateSuite(TemplateClassConsumer)}.
+     */
+    @Test
+    public void testCreateTemplateSuiteStreaming() {
+        TemplateSuite expected = factory.createTemplateSuite();
+        final List<TemplateClass> published = new ArrayList<TemplateClass>();
+        factory.setParallelism(4);
+        TemplateSuite suite = factory.createTemplateSuite(new TemplateClassConsumer() {
+
+            @Override
+            public void accept(TemplateSuite suite, TemplateClass templateClass) {
+                assertEquals("The suite name", suite.getName());
+                published.add(templateClass);
+            }
+        });
+        assertEquals(expected.toString(), suite.toString());
+        assertEquals(3, published.size());
+        assertTrue(suite.getTemplateClasses().containsAll(published));
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.tiles.autotag.core.internal.ExampleRequest;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link SourcePrefilter}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class SourcePrefilterTest {
+
+    /**
+     * The prefilter to test.
+     */
+    private SourcePrefilter prefilter;
+
+    /**
+     * Sets up the test.
+     */
+    @Before
+    public void setUp() {
+        prefilter = new SourcePrefilter(ExampleRequest.class.getName());
+    }
+
+    /**
+     * Test method for {@link SourcePrefilter#isCandidate(URL)}.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testIsCandidate() throws IOException {
+        assertTrue(prefilter.isCandidate(getClass().getResource(
+                "/org/apache/tiles/autotag/core/internal/ExampleModel.java")));
+        assertTrue(prefilter.isCandidate(getClass().getResource(
+                "/org/apache/tiles/autotag/core/internal/ExampleExecutableModel.java")));
+        assertFalse(prefilter.isCandidate(getClass().getResource(
+                "/org/apache/tiles/autotag/core/internal/NotFeasibleExampleModel.java")));
+        assertFalse(prefilter.isCandidate(getClass().getResource(
+                "/org/apache/tiles/autotag/core/internal/ExampleRequest.java")));
+    }
+
+    /**
+     * Test method for {@link SourcePrefilter#isCandidate(URL)}, with whitespace
+     * before the parenthesis and an empty file.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testIsCandidateWhitespace() throws IOException {
+        File file = File.createTempFile("autotag", ".java");
+        try {
+            write(file, "class MyModel { public void execute \n\t(ExampleRequest r) {} }");
+            assertTrue(prefilter.isCandidate(file.toURI().toURL()));
+            write(file, "class MyModel { public void executed(ExampleRequest r) {} }");
+            assertFalse(prefilter.isCandidate(file.toURI().toURL()));
+            write(file, "");
+            assertFalse(prefilter.isCandidate(file.toURI().toURL()));
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    /**
+     * Writes a file.
+     *
+     * @param file The file.
+     * @param content The content.
+     * @throws IOException If something goes wrong.
+     */
+    private void write(File file, String content) throws IOException {
+        OutputStream stream = Files.newOutputStream(file.toPath());
+        Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+}
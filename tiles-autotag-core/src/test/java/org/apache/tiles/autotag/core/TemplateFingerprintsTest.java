@@ -0,0 +1,98 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.junit.Test;
+
+/**
+ * Tests {@link TemplateFingerprints}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class TemplateFingerprintsTest {
+
+    /**
+     * Test method for {@link TemplateFingerprints#getFingerprint(TemplateSuite, TemplateClass)}.
+     */
+    @Test
+    public void testGetClassFingerprint() {
+        TemplateClass one = createClass("my.OneModel", "doc", false);
+        TemplateClass two = createClass("my.TwoModel", "doc", false);
+        TemplateSuite suite = new TemplateSuite("suite", "docs", Arrays.asList(one, two));
+        String fingerprint = TemplateFingerprints.getFingerprint(suite, one);
+        assertEquals(64, fingerprint.length());
+        assertEquals(fingerprint, TemplateFingerprints.getFingerprint(
+                new TemplateSuite("suite", "other docs"),
+                createClass("my.OneModel", "doc", false)));
+        assertFalse(fingerprint.equals(TemplateFingerprints.getFingerprint(suite, two)));
+        assertFalse(fingerprint.equals(TemplateFingerprints.getFingerprint(
+                new TemplateSuite("other", "docs"), one)));
+        assertFalse(fingerprint.equals(TemplateFingerprints.getFingerprint(suite,
+                createClass("my.OneModel", "doc", true))));
+        assertFalse(fingerprint.equals(TemplateFingerprints.getFingerprint(suite,
+                createClass("my.OneModel", null, false))));
+        assertFalse(TemplateFingerprints.getFingerprint(suite, createClass("my.OneModel", "", false))
+                .equals(TemplateFingerprints.getFingerprint(suite, createClass("my.OneModel", null, false))));
+    }
+
+    /**
+     * Test method for {@link TemplateFingerprints#getFingerprint(TemplateSuite)}.
+     */
+    @Test
+    public void testGetSuiteFingerprint() {
+        TemplateSuite suite = new TemplateSuite("suite", "docs", Arrays.asList(
+                createClass("my.OneModel", "doc", false)));
+        String fingerprint = TemplateFingerprints.getFingerprint(suite);
+        assertEquals(fingerprint, TemplateFingerprints.getFingerprint(
+                new TemplateSuite("suite", "docs", Arrays.asList(
+                        createClass("my.OneModel", "doc", false)))));
+        assertFalse(fingerprint.equals(TemplateFingerprints.getFingerprint(
+                new TemplateSuite("suite", "other docs", Arrays.asList(
+                        createClass("my.OneModel", "doc", false))))));
+        assertFalse(fingerprint.equals(TemplateFingerprints.getFingerprint(
+                new TemplateSuite("suite", "docs", Arrays.asList(
+                        createClass("my.OneModel", "other doc", false))))));
+    }
+
+    /**
+     * Creates a template class.
+     *
+     * @param name The name of the class.
+     * @param documentation The documentation of its parameter.
+     * @param required Whether its parameter is required.
+     * @return The template class.
+     */
+    private TemplateClass createClass(String name, String documentation, boolean required) {
+        TemplateParameter parameter = new TemplateParameter("param", "param",
+                "java.lang.String", null, required, false);
+        parameter.setDocumentation(documentation);
+        return new TemplateClass(name, "tag", "Prefix",
+                new TemplateMethod("execute", Arrays.asList(parameter)));
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tiles.autotag.core.internal.ExampleRequest;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Tests {@link TemplateSuiteProcessor}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class TemplateSuiteProcessorTest {
+
+    /**
+     * The sources to compile.
+     */
+    private static final String[] SOURCES = {
+        "/org/apache/tiles/autotag/core/internal/ExampleModel.java",
+        "/org/apache/tiles/autotag/core/internal/AnnotatedExampleModel.java",
+        "/org/apache/tiles/autotag/core/internal/ExampleExcluded.java",
+        "/org/apache/tiles/autotag/core/internal/ExampleExecutableModel.java",
+        "/org/apache/tiles/autotag/core/internal/NotFeasibleExampleModel.java"
+    };
+
+    /**
+     * The output directory of the compiler.
+     */
+    private File directory;
+
+    /**
+     * Sets up the test.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("autotag", null);
+        directory.delete();
+        directory.mkdir();
+    }
+
+    /**
+     * Tears down the test.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    /**
+     * Tests that the processor creates the same suite as
+     * {@link QDoxTemplateSuiteFactory}.
+     *
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void testProcess() throws Exception {
+        assertTrue(compile("-Aautotag.suiteName=The suite name",
+                "-Aautotag.suiteDocumentation=This are the docs",
+                "-Aautotag.requestClass=" + ExampleRequest.class.getName()));
+
+        File descriptor = new File(directory, TemplateSuiteProcessor.DESCRIPTOR_PATH);
+        assertTrue(descriptor.exists());
+        XStream xstream = new XStream();
+        xstream.allowTypesByWildcard(new String[] {"org.apache.tiles.**"});
+        TemplateSuite suite;
+        Reader reader = new InputStreamReader(descriptor.toURI().toURL()
+                .openStream(), StandardCharsets.UTF_8);
+        try {
+            suite = (TemplateSuite) xstream.fromXML(reader);
+        } finally {
+            reader.close();
+        }
+
+        List<URL> urls = new ArrayList<URL>();
+        for (String source : SOURCES) {
+            urls.add(getClass().getResource(source));
+        }
+        QDoxTemplateSuiteFactory factory = new QDoxTemplateSuiteFactory(
+                urls.toArray(new URL[urls.size()]));
+        factory.setSuiteName("The suite name");
+        factory.setSuiteDocumentation("This are the docs");
+        factory.setRequestClass(ExampleRequest.class.getName());
+        TemplateSuite expected = factory.createTemplateSuite();
+
+        assertEquals(3, suite.getTemplateClasses().size());
+        assertEquals(expected.toString(), suite.toString());
+    }
+
+    /**
+     * Tests that the processor keeps the template classes of the previous
+     * descriptor that are not compiled again, unless they do not exist
+     * anymore.
+     *
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void testProcessIncremental() throws Exception {
+        String[] options = {"-Aautotag.suiteName=The suite name",
+                "-Aautotag.suiteDocumentation=This are the docs",
+                "-Aautotag.requestClass=" + ExampleRequest.class.getName()};
+        assertTrue(compile(options));
+        File descriptor = new File(directory, TemplateSuiteProcessor.DESCRIPTOR_PATH);
+        TemplateSuite expected = readDescriptor(descriptor);
+
+        TemplateSuite previous = new TemplateSuite(expected.getName(), expected.getDocumentation(),
+                expected.getTemplateClasses());
+        previous.addTemplateClass(new TemplateClass("org.apache.tiles.autotag.core.internal.RemovedModel",
+                "removed", "Removed", new TemplateMethod("execute", new ArrayList<TemplateParameter>())));
+        Writer writer = new OutputStreamWriter(new FileOutputStream(descriptor), StandardCharsets.UTF_8);
+        try {
+            new XmlTemplateSuiteWriter().write(previous, writer);
+        } finally {
+            writer.close();
+        }
+
+        assertTrue(compile(new String[] {"/org/apache/tiles/autotag/core/internal/ExampleModel.java"}, options));
+        TemplateSuite suite = readDescriptor(descriptor);
+        assertEquals(3, suite.getTemplateClasses().size());
+        assertEquals(expected.toString(), suite.toString());
+    }
+
+    /**
+     * Reads a descriptor.
+     *
+     * @param descriptor The descriptor file.
+     * @return The suite.
+     * @throws IOException If something goes wrong.
+     */
+    private TemplateSuite readDescriptor(File descriptor) throws IOException {
+        InputStream stream = new FileInputStream(descriptor);
+        try {
+            return new XmlTemplateSuiteReader().read(stream);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Tests that the processor does nothing without a suite name.
+     *
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void testProcessDisabled() throws Exception {
+        assertTrue(compile());
+        assertFalse(new File(directory, TemplateSuiteProcessor.DESCRIPTOR_PATH).exists());
+    }
+
+    /**
+     * Runs the processor on the example sources.
+     *
+     * @param options The processor options.
+     * @return <code>true</code> if the compilation succeeded.
+     * @throws IOException If something goes wrong.
+     * @throws URISyntaxException If something goes wrong.
+     */
+    private boolean compile(String... options) throws IOException, URISyntaxException {
+        return compile(SOURCES, options);
+    }
+
+    /**
+     * Runs the processor on some of the example sources.
+     *
+     * @param sources The sources to compile.
+     * @param options The processor options.
+     * @return <code>true</code> if the compilation succeeded.
+     * @throws IOException If something goes wrong.
+     * @throws URISyntaxException If something goes wrong.
+     */
+    private boolean compile(String[] sources, String... options) throws IOException, URISyntaxException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(
+                null, null, StandardCharsets.UTF_8);
+        try {
+            List<File> files = new ArrayList<File>();
+            for (String source : sources) {
+                files.add(new File(getClass().getResource(source).toURI()));
+            }
+            Iterable<? extends JavaFileObject> units = fileManager
+                    .getJavaFileObjectsFromFiles(files);
+            List<String> arguments = new ArrayList<String>(Arrays.asList(
+                    "-proc:only", "-processor",
+                    TemplateSuiteProcessor.class.getName(), "-classpath",
+                    System.getProperty("java.class.path"), "-d",
+                    directory.getAbsolutePath()));
+            arguments.addAll(Arrays.asList(options));
+            return compiler.getTask(null, fileManager, null, arguments, null,
+                    units).call();
+        } finally {
+            fileManager.close();
+        }
+    }
+}
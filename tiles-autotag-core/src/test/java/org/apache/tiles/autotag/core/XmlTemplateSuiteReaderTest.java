@@ -0,0 +1,154 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.apache.tiles.autotag.core.internal.ExampleRequest;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.junit.Test;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Tests {@link XmlTemplateSuiteReader}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class XmlTemplateSuiteReaderTest {
+
+    /**
+     * Test method for {@link XmlTemplateSuiteReader#read(InputStream)}.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testRead() throws IOException {
+        QDoxTemplateSuiteFactory factory = new QDoxTemplateSuiteFactory(
+                getClass().getResource("/org/apache/tiles/autotag/core/internal/ExampleModel.java"),
+                getClass().getResource("/org/apache/tiles/autotag/core/internal/AnnotatedExampleModel.java"),
+                getClass().getResource("/org/apache/tiles/autotag/core/internal/ExampleExecutableModel.java"));
+        factory.setSuiteName("The suite name");
+        factory.setRequestClass(ExampleRequest.class.getName());
+        TemplateSuite suite = factory.createTemplateSuite();
+
+        TemplateSuite read = new XmlTemplateSuiteReader().read(toStream(new XStream().toXML(suite)));
+        assertEquals(suite.toString(), read.toString());
+        assertEquals(new ArrayList<TemplateClass>(suite.getTemplateClasses()).toString(),
+                new ArrayList<TemplateClass>(read.getTemplateClasses()).toString());
+        assertNull(read.getDocumentation());
+    }
+
+    /**
+     * Tests reading escaped characters and empty values.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testReadSpecialValues() throws IOException {
+        String documentation = "a < b && c > \"d\" 'e'\r\n\tf é€";
+        TemplateParameter parameter = new TemplateParameter("param", "exported",
+                "java.lang.String", "", true, false);
+        parameter.setDocumentation(documentation);
+        TemplateMethod method = new TemplateMethod("execute", Arrays.asList(parameter));
+        TemplateClass templateClass = new TemplateClass("my.TemplateModel", "tag", "Prefix", method);
+        templateClass.setStateless(true);
+        templateClass.setMemoizedBody(true);
+        templateClass.setCacheable(true);
+        TemplateSuite suite = new TemplateSuite("suite", "", Arrays.asList(templateClass));
+        StringWriter writer = new StringWriter();
+        new XmlTemplateSuiteWriter().write(suite, writer);
+
+        assertEquals(new XStream().toXML(suite), writer.toString());
+
+        TemplateSuite read = new XmlTemplateSuiteReader().read(toStream(writer.toString()));
+        assertEquals("", read.getDocumentation());
+        assertTrue(read.getTemplateClassByName("my.TemplateModel").isStateless());
+        assertTrue(read.getTemplateClassByName("my.TemplateModel").isMemoizedBody());
+        assertTrue(read.getTemplateClassByName("my.TemplateModel").isCacheable());
+        TemplateParameter readParameter = read.getTemplateClassByName("my.TemplateModel")
+                .getExecuteMethod().getParameterByName("param");
+        assertEquals(documentation, readParameter.getDocumentation());
+        assertEquals("", readParameter.getDefaultValue());
+        assertTrue(readParameter.isRequired());
+        assertFalse(readParameter.isRequest());
+
+        read = new XmlTemplateSuiteReader().read(toStream(new XStream().toXML(
+                new TemplateSuite("empty", null))));
+        assertEquals("empty", read.getName());
+        assertTrue(read.getTemplateClasses().isEmpty());
+    }
+
+    /**
+     * Tests that unknown fields are rejected.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test(expected = IOException.class)
+    public void testReadUnknownField() throws IOException {
+        new XmlTemplateSuiteReader().read(toStream("<"
+                + TemplateSuite.class.getName() + "><unknown/></"
+                + TemplateSuite.class.getName() + ">"));
+    }
+
+    /**
+     * Tests that control characters, that XStream writes as character
+     * references invalid in XML 1.0, are rejected.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test(expected = IOException.class)
+    public void testReadControlCharacter() throws IOException {
+        new XmlTemplateSuiteReader().read(toStream(new XStream().toXML(
+                new TemplateSuite("suite", "\u0001"))));
+    }
+
+    /**
+     * Tests that other documents are rejected.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test(expected = IOException.class)
+    public void testReadNotSuite() throws IOException {
+        new XmlTemplateSuiteReader().read(toStream("<list/>"));
+    }
+
+    /**
+     * Converts a string to a stream.
+     *
+     * @param xml The string.
+     * @return The stream.
+     */
+    private InputStream toStream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
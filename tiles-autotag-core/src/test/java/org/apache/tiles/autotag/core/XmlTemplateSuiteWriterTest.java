@@ -0,0 +1,95 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.tiles.autotag.core.internal.ExampleRequest;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.junit.Test;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Tests {@link XmlTemplateSuiteWriter}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class XmlTemplateSuiteWriterTest {
+
+    /**
+     * Test method for {@link XmlTemplateSuiteWriter#write(TemplateSuite, java.io.Writer)}.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testWrite() throws IOException {
+        QDoxTemplateSuiteFactory factory = new QDoxTemplateSuiteFactory(
+                getClass().getResource("/org/apache/tiles/autotag/core/internal/ExampleModel.java"),
+                getClass().getResource("/org/apache/tiles/autotag/core/internal/AnnotatedExampleModel.java"),
+                getClass().getResource("/org/apache/tiles/autotag/core/internal/ExampleExecutableModel.java"));
+        factory.setSuiteName("The suite name");
+        factory.setRequestClass(ExampleRequest.class.getName());
+        assertSameAsXStream(factory.createTemplateSuite());
+    }
+
+    /**
+     * Tests that escaped characters, empty strings and empty maps are written
+     * as XStream writes them.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testWriteSpecialValues() throws IOException {
+        TemplateParameter parameter = new TemplateParameter("param", "exported",
+                "java.util.Map<java.lang.String, java.lang.Object>", "", false, true);
+        parameter.setDocumentation("a < b && c > \"d\" 'e'\r\n\tf\u0001 é€");
+        TemplateMethod method = new TemplateMethod("execute", Arrays.asList(parameter));
+        TemplateClass templateClass = new TemplateClass("my.TemplateModel",
+                "tag", "Prefix", method);
+        TemplateSuite suite = new TemplateSuite("suite", "",
+                Arrays.asList(templateClass, new TemplateClass("my.OtherModel",
+                        "other", "Other", new TemplateMethod("execute",
+                                Collections.<TemplateParameter>emptyList()))));
+        assertSameAsXStream(suite);
+        assertSameAsXStream(new TemplateSuite("empty", null));
+    }
+
+    /**
+     * Checks that a suite is written exactly as XStream writes it.
+     *
+     * @param suite The suite.
+     * @throws IOException If something goes wrong.
+     */
+    private void assertSameAsXStream(TemplateSuite suite) throws IOException {
+        StringWriter writer = new StringWriter();
+        new XmlTemplateSuiteWriter().write(suite, writer);
+        assertEquals(new XStream().toXML(suite), writer.toString());
+    }
+}
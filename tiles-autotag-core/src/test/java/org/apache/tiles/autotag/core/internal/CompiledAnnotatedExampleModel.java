@@ -0,0 +1,52 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.internal;
+
+import org.apache.tiles.autotag.core.runtime.ModelBody;
+import org.apache.tiles.autotag.core.runtime.annotation.CacheableModel;
+import org.apache.tiles.autotag.core.runtime.annotation.CompiledParameter;
+import org.apache.tiles.autotag.core.runtime.annotation.MemoizedBody;
+import org.apache.tiles.autotag.core.runtime.annotation.StatelessModel;
+
+/**
+ * Example start/stop template, annotated with class-retained annotations.
+ *
+ * @version $Rev$ $Date$
+ */
+@StatelessModel
+@MemoizedBody
+@CacheableModel
+public class CompiledAnnotatedExampleModel {
+
+    /**
+     * It starts.
+     *
+     * @param one Parameter one.
+     * @param two Parameter two.
+     * @param request The request.
+     * @param modelBody The model body.
+     */
+    public void execute(
+            @CompiledParameter(defaultValue = "\"hello\"", name = "alternateOne", required = true) String one,
+            int two, ExampleRequest request, ModelBody modelBody) {
+        // Does nothing.
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.core.internal;
+
+import java.util.Map;
+
+/**
+ * Example template, whose parameters are nested classes and a top level class
+ * whose name contains a dollar sign.
+ *
+ * @version $Rev$ $Date$
+ */
+public class NestedTypesExampleModel {
+
+    /**
+     * It executes.
+     *
+     * @param one Parameter one.
+     * @param two Parameter two.
+     * @param three Parameter three.
+     * @param four Parameter four.
+     * @param request The request.
+     */
+    public void execute(Example$Value one, Map.Entry<String, String> two, Value three,
+            Value.Part[] four, ExampleRequest request) {
+        // Does nothing.
+    }
+
+    /**
+     * Example nested class.
+     */
+    public static class Value {
+
+        /**
+         * Example class nested twice.
+         */
+        public static class Part {
+
+        }
+    }
+}
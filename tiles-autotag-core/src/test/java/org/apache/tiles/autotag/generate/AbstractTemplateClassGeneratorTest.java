@@ -20,6 +20,7 @@
  */
 package org.apache.tiles.autotag.generate;
 
+import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.createMockBuilder;
 import static org.easymock.EasyMock.expect;
@@ -27,6 +28,8 @@ import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.io.File;
 import java.io.IOException;
@@ -40,6 +43,9 @@ import org.apache.tiles.autotag.core.OutputLocator;
 import org.apache.tiles.autotag.core.DirectoryOutputLocator;
 import org.apache.tiles.autotag.model.TemplateClass;
 import org.apache.tiles.autotag.model.TemplateSuite;
+import org.apache.tiles.autotag.tool.StringTool;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
@@ -122,6 +128,53 @@ public class AbstractTemplateClassGeneratorTest {
         verify(velocityEngine, generator, suite, clazz, template, parameters);
     }
 
+    /**
+     * Tests that the template is resolved once, and that the contexts of
+     * the classes share the values of the generation.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void testGenerateTwice() throws Exception {
+        directory.delete();
+        directory.mkdir();
+        OutputLocator locator = new DirectoryOutputLocator(directory);
+        TemplateSuite suite = createMock(TemplateSuite.class);
+        TemplateClass clazz1 = createMock(TemplateClass.class);
+        TemplateClass clazz2 = createMock(TemplateClass.class);
+        Template template = createMock(Template.class);
+        Map<String, String> parameters = createMock(Map.class);
+        String packageName = "org.apache.tiles.autotag.test";
+        String runtimeClass = "org.apache.tiles.autotag.test.DoStuffRuntime";
+        String requestClass = "org.apache.tiles.autotag.test.DoStuffRequest";
+        Capture<VelocityContext> contexts = Capture.newInstance(CaptureType.ALL);
+
+        expect(generator.getDirectoryName(packageName, suite, clazz1, parameters, runtimeClass, requestClass)).andReturn("mydir");
+        expect(generator.getFilename(packageName, suite, clazz1, parameters, runtimeClass, requestClass)).andReturn("myfile1.txt");
+        expect(generator.getTemplatePath(packageName, suite, clazz1, parameters, runtimeClass, requestClass)).andReturn("/sample.vm");
+        expect(generator.getDirectoryName(packageName, suite, clazz2, parameters, runtimeClass, requestClass)).andReturn("mydir");
+        expect(generator.getFilename(packageName, suite, clazz2, parameters, runtimeClass, requestClass)).andReturn("myfile2.txt");
+        expect(generator.getTemplatePath(packageName, suite, clazz2, parameters, runtimeClass, requestClass)).andReturn("/sample.vm");
+        expect(velocityEngine.getTemplate("/sample.vm")).andReturn(template);
+        template.merge(capture(contexts), isA(Writer.class));
+        expectLastCall().times(2);
+
+        replay(velocityEngine, generator, suite, clazz1, clazz2, template, parameters);
+        generator.generate(locator, packageName, suite, clazz1, parameters, runtimeClass, requestClass);
+        generator.generate(locator, packageName, suite, clazz2, parameters, runtimeClass, requestClass);
+        VelocityContext context1 = contexts.getValues().get(0);
+        VelocityContext context2 = contexts.getValues().get(1);
+        assertSame(clazz1, context1.get("clazz"));
+        assertSame(clazz2, context2.get("clazz"));
+        assertSame(suite, context2.get("suite"));
+        assertSame(parameters, context2.get("parameters"));
+        assertEquals(packageName, context2.get("packageName"));
+        assertEquals(runtimeClass, context2.get("runtimeClass"));
+        assertEquals(requestClass, context2.get("requestClass"));
+        assertSame(context1.getChainedContext(), context2.getChainedContext());
+        assertSame(StringTool.INSTANCE, context2.get("stringTool"));
+        verify(velocityEngine, generator, suite, clazz1, clazz2, template, parameters);
+    }
+
     /**
      * Test method for {@link AbstractTemplateClassGenerator#generate(File, String, TemplateSuite, TemplateClass, Map)}.
      * @throws Exception If something goes wrong.
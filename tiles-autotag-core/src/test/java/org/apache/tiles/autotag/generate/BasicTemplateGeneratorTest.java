@@ -22,21 +22,37 @@ package org.apache.tiles.autotag.generate;
 
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.tiles.autotag.core.AutotagRuntimeException;
+import org.apache.tiles.autotag.core.FingerprintingOutputLocator;
 import org.apache.tiles.autotag.core.OutputLocator;
+import org.apache.tiles.autotag.core.TemplateFingerprints;
 import org.apache.tiles.autotag.generate.BasicTemplateGenerator.TCGeneratorDirectoryPair;
 import org.apache.tiles.autotag.generate.BasicTemplateGenerator.TSGeneratorDirectoryPair;
+import org.apache.tiles.autotag.model.StreamingTemplateSuiteFactory;
 import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateClassConsumer;
 import org.apache.tiles.autotag.model.TemplateSuite;
+import org.easymock.IAnswer;
 import org.junit.Test;
 
 /**
@@ -79,4 +95,181 @@ public class BasicTemplateGeneratorTest {
         generator.generate("my.package", suite, parameters, "my.Runtime", "my.Request");
         verify(suite, templateClass, templateSuiteGenerator, templateClassGenerator, parameters);
     }
+
+    /**
+     * Tests that fingerprinting output locators are given the fingerprints
+     * of the template class and of the suite.
+     */
+    @Test
+    public void testGenerateFingerprinting() {
+        FingerprintingOutputLocator locator = createMock(FingerprintingOutputLocator.class);
+        OutputLocator suiteLocator = createMock(OutputLocator.class);
+        OutputLocator classLocator = createMock(OutputLocator.class);
+        TemplateClass templateClass = new TemplateClass("my.TemplateModel");
+        TemplateSuite suite = new TemplateSuite("suite", "docs", Collections.singletonList(templateClass));
+        TemplateSuiteGenerator templateSuiteGenerator = createMock(TemplateSuiteGenerator.class);
+        TemplateClassGenerator templateClassGenerator = createMock(TemplateClassGenerator.class);
+        Map<String, String> parameters = createMock(Map.class);
+
+        expect(locator.forFingerprint(TemplateFingerprints.getFingerprint(suite))).andReturn(suiteLocator);
+        expect(locator.forFingerprint(TemplateFingerprints.getFingerprint(suite, templateClass))).andReturn(classLocator);
+        templateSuiteGenerator.generate(suiteLocator, "my.package", suite, parameters);
+        templateClassGenerator.generate(classLocator, "my.package", suite, templateClass, parameters, "my.Runtime", "my.Request");
+
+        replay(locator, suiteLocator, classLocator, templateSuiteGenerator, templateClassGenerator, parameters);
+        List<TSGeneratorDirectoryPair> tsList = new ArrayList<BasicTemplateGenerator.TSGeneratorDirectoryPair>();
+        tsList.add(new TSGeneratorDirectoryPair(locator, templateSuiteGenerator));
+        List<TCGeneratorDirectoryPair> tcList = new ArrayList<BasicTemplateGenerator.TCGeneratorDirectoryPair>();
+        tcList.add(new TCGeneratorDirectoryPair(locator, templateClassGenerator));
+        BasicTemplateGenerator generator = new BasicTemplateGenerator(tsList, tcList, true, false);
+        generator.generate("my.package", suite, parameters, "my.Runtime", "my.Request");
+        verify(locator, suiteLocator, classLocator, templateSuiteGenerator, templateClassGenerator, parameters);
+    }
+
+    /**
+     * Test method for {@link BasicTemplateGenerator#generate(String, StreamingTemplateSuiteFactory, Map, String, String)}.
+     */
+    @Test
+    public void testGenerateStreaming() {
+        OutputLocator locator = createMock(OutputLocator.class);
+        final TemplateSuite suite = createMock(TemplateSuite.class);
+        final TemplateClass templateClass = createMock(TemplateClass.class);
+        StreamingTemplateSuiteFactory factory = createMock(StreamingTemplateSuiteFactory.class);
+        TemplateSuiteGenerator templateSuiteGenerator = createMock(TemplateSuiteGenerator.class);
+        TemplateClassGenerator templateClassGenerator = createMock(TemplateClassGenerator.class);
+        Map<String, String> parameters = createMock(Map.class);
+
+        expect(factory.createTemplateSuite(isA(TemplateClassConsumer.class))).andAnswer(new IAnswer<TemplateSuite>() {
+
+            @Override
+            public TemplateSuite answer() {
+                ((TemplateClassConsumer) getCurrentArguments()[0]).accept(suite, templateClass);
+                return suite;
+            }
+        });
+        templateClassGenerator.generate(locator, "my.package", suite, templateClass, parameters, "my.Runtime", "my.Request");
+        templateSuiteGenerator.generate(locator, "my.package", suite, parameters);
+
+        replay(suite, templateClass, factory, templateSuiteGenerator, templateClassGenerator, parameters);
+        List<TSGeneratorDirectoryPair> tsList = new ArrayList<BasicTemplateGenerator.TSGeneratorDirectoryPair>();
+        tsList.add(new TSGeneratorDirectoryPair(locator, templateSuiteGenerator));
+        List<TCGeneratorDirectoryPair> tcList = new ArrayList<BasicTemplateGenerator.TCGeneratorDirectoryPair>();
+        tcList.add(new TCGeneratorDirectoryPair(locator, templateClassGenerator));
+        BasicTemplateGenerator generator = new BasicTemplateGenerator(tsList, tcList, true, false);
+        assertSame(suite, generator.generate("my.package", factory, parameters, "my.Runtime", "my.Request"));
+        verify(suite, templateClass, factory, templateSuiteGenerator, templateClassGenerator, parameters);
+    }
+
+    /**
+     * Test method for {@link BasicTemplateGenerator#generate(String, StreamingTemplateSuiteFactory, Map, String, String)},
+     * when the generation of a template class fails.
+     */
+    @Test(expected = AutotagRuntimeException.class)
+    public void testGenerateStreamingException() {
+        OutputLocator locator = createMock(OutputLocator.class);
+        final TemplateSuite suite = createMock(TemplateSuite.class);
+        final TemplateClass templateClass = createMock(TemplateClass.class);
+        StreamingTemplateSuiteFactory factory = createMock(StreamingTemplateSuiteFactory.class);
+        TemplateSuiteGenerator templateSuiteGenerator = createMock(TemplateSuiteGenerator.class);
+        TemplateClassGenerator templateClassGenerator = createMock(TemplateClassGenerator.class);
+        Map<String, String> parameters = createMock(Map.class);
+
+        expect(factory.createTemplateSuite(isA(TemplateClassConsumer.class))).andAnswer(new IAnswer<TemplateSuite>() {
+
+            @Override
+            public TemplateSuite answer() {
+                ((TemplateClassConsumer) getCurrentArguments()[0]).accept(suite, templateClass);
+                return suite;
+            }
+        });
+        templateClassGenerator.generate(locator, "my.package", suite, templateClass, parameters, "my.Runtime", "my.Request");
+        expectLastCall().andThrow(new AutotagRuntimeException("Failed"));
+
+        replay(suite, templateClass, factory, templateSuiteGenerator, templateClassGenerator, parameters);
+        List<TSGeneratorDirectoryPair> tsList = new ArrayList<BasicTemplateGenerator.TSGeneratorDirectoryPair>();
+        tsList.add(new TSGeneratorDirectoryPair(locator, templateSuiteGenerator));
+        List<TCGeneratorDirectoryPair> tcList = new ArrayList<BasicTemplateGenerator.TCGeneratorDirectoryPair>();
+        tcList.add(new TCGeneratorDirectoryPair(locator, templateClassGenerator));
+        BasicTemplateGenerator generator = new BasicTemplateGenerator(tsList, tcList, true, false);
+        try {
+            generator.generate("my.package", factory, parameters, "my.Runtime", "my.Request");
+        } finally {
+            verify(suite, templateClass, factory, templateSuiteGenerator, templateClassGenerator, parameters);
+        }
+    }
+
+    /**
+     * Test method for {@link BasicTemplateGenerator#generate(String, TemplateSuite, Map, String, String)},
+     * in parallel.
+     */
+    @Test
+    public void testGenerateParallel() {
+        OutputLocator locator = createMock(OutputLocator.class);
+        List<TemplateClass> templateClasses = new ArrayList<TemplateClass>();
+        for (int i = 0; i < 20; i++) {
+            templateClasses.add(new TemplateClass("my.Template" + i + "Model"));
+        }
+        TemplateSuite suite = new TemplateSuite("suite", "docs", templateClasses);
+        final Set<TemplateClass> generated = Collections.newSetFromMap(
+                new ConcurrentHashMap<TemplateClass, Boolean>());
+        TemplateSuiteGenerator templateSuiteGenerator = createMock(TemplateSuiteGenerator.class);
+        TemplateClassGenerator templateClassGenerator = new TemplateClassGenerator() {
+
+            @Override
+            public void generate(OutputLocator outputLocator, String packageName,
+                    TemplateSuite suite, TemplateClass clazz, Map<String, String> parameters,
+                    String runtimeClass, String requestClass) {
+                assertTrue(generated.add(clazz));
+            }
+        };
+        Map<String, String> parameters = Collections.emptyMap();
+
+        templateSuiteGenerator.generate(locator, "my.package", suite, parameters);
+
+        replay(locator, templateSuiteGenerator);
+        List<TSGeneratorDirectoryPair> tsList = new ArrayList<BasicTemplateGenerator.TSGeneratorDirectoryPair>();
+        tsList.add(new TSGeneratorDirectoryPair(locator, templateSuiteGenerator));
+        List<TCGeneratorDirectoryPair> tcList = new ArrayList<BasicTemplateGenerator.TCGeneratorDirectoryPair>();
+        tcList.add(new TCGeneratorDirectoryPair(locator, templateClassGenerator));
+        BasicTemplateGenerator generator = new BasicTemplateGenerator(tsList, tcList, true, false, 4);
+        generator.generate("my.package", suite, parameters, "my.Runtime", "my.Request");
+        assertEquals(new HashSet<TemplateClass>(templateClasses), generated);
+        verify(locator, templateSuiteGenerator);
+    }
+
+    /**
+     * Test method for {@link BasicTemplateGenerator#generate(String, TemplateSuite, Map, String, String)},
+     * in parallel, when the generation of several template classes fails.
+     */
+    @Test
+    public void testGenerateParallelException() {
+        OutputLocator locator = createMock(OutputLocator.class);
+        List<TemplateClass> templateClasses = new ArrayList<TemplateClass>();
+        for (int i = 0; i < 3; i++) {
+            templateClasses.add(new TemplateClass("my.Template" + i + "Model"));
+        }
+        TemplateSuite suite = new TemplateSuite("suite", "docs", templateClasses);
+        TemplateClassGenerator templateClassGenerator = new TemplateClassGenerator() {
+
+            @Override
+            public void generate(OutputLocator outputLocator, String packageName,
+                    TemplateSuite suite, TemplateClass clazz, Map<String, String> parameters,
+                    String runtimeClass, String requestClass) {
+                throw new IllegalStateException(clazz.getName());
+            }
+        };
+
+        List<TCGeneratorDirectoryPair> tcList = new ArrayList<BasicTemplateGenerator.TCGeneratorDirectoryPair>();
+        tcList.add(new TCGeneratorDirectoryPair(locator, templateClassGenerator));
+        BasicTemplateGenerator generator = new BasicTemplateGenerator(
+                new ArrayList<TSGeneratorDirectoryPair>(), tcList, true, false, 2);
+        try {
+            generator.generate("my.package", suite, Collections.<String, String>emptyMap(),
+                    "my.Runtime", "my.Request");
+            fail("The generation should have failed");
+        } catch (AutotagRuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals(2, e.getCause().getSuppressed().length);
+        }
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.generate;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tiles.autotag.model.StreamingTemplateSuiteFactory;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.junit.Test;
+
+/**
+ * Tests {@link TemplateGenerator}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class TemplateGeneratorTest {
+
+    /**
+     * Test method for {@link TemplateGenerator#generate(String, StreamingTemplateSuiteFactory, Map, String, String)}.
+     */
+    @Test
+    public void testGenerateStreaming() {
+        TemplateSuite suite = createMock(TemplateSuite.class);
+        StreamingTemplateSuiteFactory factory = createMock(StreamingTemplateSuiteFactory.class);
+        @SuppressWarnings("unchecked")
+        Map<String, String> parameters = createMock(Map.class);
+        final List<TemplateSuite> generated = new ArrayList<TemplateSuite>();
+
+        expect(factory.createTemplateSuite()).andReturn(suite);
+
+        replay(suite, factory, parameters);
+        TemplateGenerator generator = new TemplateGenerator() {
+
+            @Override
+            public void generate(String packageName, TemplateSuite suite,
+                    Map<String, String> parameters, String runtimeClass,
+                    String requestClass) {
+                generated.add(suite);
+            }
+
+            @Override
+            public boolean isGeneratingResources() {
+                return true;
+            }
+
+            @Override
+            public boolean isGeneratingClasses() {
+                return true;
+            }
+        };
+        assertSame(suite, generator.generate("my.package", factory, parameters, "my.Runtime", "my.Request"));
+        assertSame(suite, generated.get(0));
+        verify(suite, factory, parameters);
+    }
+}
@@ -140,6 +140,39 @@ public class TemplateClassTest {
         verify(method);
     }
 
+    /**
+     * Test method for {@link TemplateClass#isStateless()}.
+     */
+    @Test
+    public void testSetStateless() {
+        TemplateClass templateClass = new TemplateClass("name");
+        assertFalse(templateClass.isStateless());
+        templateClass.setStateless(true);
+        assertTrue(templateClass.isStateless());
+    }
+
+    /**
+     * Test method for {@link TemplateClass#isMemoizedBody()}.
+     */
+    @Test
+    public void testSetMemoizedBody() {
+        TemplateClass templateClass = new TemplateClass("name");
+        assertFalse(templateClass.isMemoizedBody());
+        templateClass.setMemoizedBody(true);
+        assertTrue(templateClass.isMemoizedBody());
+    }
+
+    /**
+     * Test method for {@link TemplateClass#isCacheable()}.
+     */
+    @Test
+    public void testSetCacheable() {
+        TemplateClass templateClass = new TemplateClass("name");
+        assertFalse(templateClass.isCacheable());
+        templateClass.setCacheable(true);
+        assertTrue(templateClass.isCacheable());
+    }
+
     /**
      * Test method for {@link TemplateClass#toString()}.
      */
@@ -22,8 +22,11 @@ package org.apache.tiles.autotag.tool;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import org.apache.tiles.autotag.model.TemplateParameter;
 import org.junit.Test;
 
 /**
@@ -48,6 +51,28 @@ public class StringToolTest {
         assertTrue(splitted.isEmpty());
     }
 
+    /**
+     * Test method for {@link StringTool#appendLines(StringBuilder, String, String)}.
+     */
+    @Test
+    public void testAppendLines() {
+        StringBuilder builder = new StringBuilder();
+        StringTool.appendLines(builder, " * ", "time\nto\r\nsplit\r\n\nnow\n");
+        assertEquals(" * time\n * to\n * split\n * \n * now\n", builder.toString());
+        builder.setLength(0);
+        StringTool.appendLines(builder, " * ", null);
+        StringTool.appendLines(builder, " * ", "");
+        assertEquals("", builder.toString());
+        StringTool tool = new StringTool();
+        String toSplit = "one\rtwo\r\n\r\nthree";
+        for (String line : tool.splitOnNewlines(toSplit)) {
+            builder.append("-").append(line).append('\n');
+        }
+        StringBuilder appended = new StringBuilder();
+        StringTool.appendLines(appended, "-", toSplit);
+        assertEquals(builder.toString(), appended.toString());
+    }
+
     /**
      * Test method for {@link org.apache.tiles.autotag.tool.StringTool#capitalizeFirstLetter(java.lang.String)}.
      */
@@ -67,6 +92,8 @@ public class StringToolTest {
         assertEquals("1", tool.getDefaultValue("byte", "1"));
         assertEquals("null", tool.getDefaultValue("Whatever", null));
         assertEquals("thatsit", tool.getDefaultValue("Whatever", "thatsit"));
+        assertEquals("0L", tool.getDefaultValue("long"));
+        assertEquals("null", tool.getDefaultValue("Whatever"));
     }
 
     /**
@@ -79,4 +106,29 @@ public class StringToolTest {
         assertEquals("Whatever", tool.getClassToCast("Whatever"));
     }
 
+    /**
+     * Test method for {@link StringTool#getParameterGetter(String)}.
+     */
+    @Test
+    public void testGetParameterGetter() {
+        StringTool tool = new StringTool();
+        assertEquals("getIntParameter", tool.getParameterGetter("int"));
+        assertEquals("getBooleanParameter", tool.getParameterGetter("boolean"));
+        assertEquals("getParameter", tool.getParameterGetter("java.lang.Integer"));
+        assertTrue(tool.isPrimitive("char"));
+        assertFalse(tool.isPrimitive("java.lang.String"));
+    }
+
+    /**
+     * Test method for {@link StringTool#getPrimitiveTypes(java.util.Collection)}.
+     */
+    @Test
+    public void testGetPrimitiveTypes() {
+        List<TemplateParameter> parameters = new ArrayList<TemplateParameter>();
+        parameters.add(new TemplateParameter("one", "one", "int", null, false, false));
+        parameters.add(new TemplateParameter("two", "two", "java.lang.String", null, false, false));
+        parameters.add(new TemplateParameter("three", "three", "boolean", null, false, false));
+        parameters.add(new TemplateParameter("four", "four", "int", null, false, false));
+        assertEquals(Arrays.asList("int", "boolean"), new StringTool().getPrimitiveTypes(parameters));
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.jsp;
+
+import java.util.Map;
+
+import org.apache.tiles.autotag.generate.AbstractEmittingTemplateSuiteGenerator;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.apache.tiles.autotag.tool.StringTool;
+
+/**
+ * Generates the TLD file, using a template suite, with Java code producing
+ * exactly what {@link TLDGenerator} renders from <code>tld.vm</code>.
+ *
+ * @version $Rev$ $Date$
+ */
+public class EmittingTLDGenerator extends AbstractEmittingTemplateSuiteGenerator {
+
+    @Override
+    protected void emit(StringBuilder out, String packageName,
+            TemplateSuite suite, Map<String, String> parameters) {
+        out.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "\n"
+                + "<!-- This file was automatically generated by Apache Tiles Autotag. -->\n"
+                + "<taglib\n"
+                + "  xsi:schemaLocation=\"http://java.sun.com/xml/ns/javaee http://java.sun.com/xml/ns/javaee/web-jsptaglibrary_2_1.xsd\"\n"
+                + "  xmlns=\"http://java.sun.com/xml/ns/javaee\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+                + "  version=\"2.1\">\n"
+                + "   <description>\n"
+                + "   <![CDATA[\n");
+        StringTool.appendLines(out, "   ", suite.getDocumentation());
+        out.append("   ]]>\n"
+                + "   </description>\n"
+                + "   <tlib-version>1.2</tlib-version>\n"
+                + "   <short-name>").append(suite.getName()).append("</short-name>\n"
+                + "   <uri>").append(parameters.get("taglibURI")).append("</uri>\n");
+        for (TemplateClass clazz : suite.getTemplateClasses()) {
+            out.append("   <tag>\n"
+                    + "      <description>\n"
+                    + "      <![CDATA[\n");
+            StringTool.appendLines(out, "      ", clazz.getDocumentation());
+            out.append("      ]]>\n"
+                    + "      </description>\n"
+                    + "      <name>").append(clazz.getTagName()).append("</name>\n"
+                    + "      <tag-class>").append(packageName).append('.')
+                    .append(clazz.getTagClassPrefix()).append("Tag</tag-class>\n"
+                    + "      <body-content>").append(clazz.hasBody() ? "scriptless" : "empty")
+                    .append("</body-content>\n");
+            for (TemplateParameter parameter : clazz.getParameters()) {
+                out.append("      <attribute>\n"
+                        + "         <description>\n"
+                        + "         <![CDATA[\n");
+                StringTool.appendLines(out, "         ", parameter.getDocumentation());
+                out.append("         ]]>\n"
+                        + "         </description>\n"
+                        + "         <name>").append(parameter.getExportedName()).append("</name>\n"
+                        + "         <required>").append(parameter.isRequired()).append("</required>\n"
+                        + "         <rtexprvalue>true</rtexprvalue>\n"
+                        + "         <type>").append(parameter.getType()).append("</type>\n"
+                        + "      </attribute>\n");
+            }
+            out.append("   </tag>\n");
+        }
+        out.append("</taglib>\n");
+    }
+
+    @Override
+    protected String getFilename(String packageName,
+            TemplateSuite suite, Map<String, String> parameters) {
+        return suite.getName() + "-jsp.tld";
+    }
+
+    @Override
+    protected String getDirectoryName(String packageName,
+            TemplateSuite suite, Map<String, String> parameters) {
+        return "META-INF/tld/";
+    }
+}
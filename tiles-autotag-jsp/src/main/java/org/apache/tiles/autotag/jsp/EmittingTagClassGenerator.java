@@ -0,0 +1,301 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.jsp;
+
+import java.util.Map;
+
+import org.apache.tiles.autotag.generate.AbstractEmittingTemplateClassGenerator;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.apache.tiles.autotag.tool.StringTool;
+
+/**
+ * Generates a tag class using a template class, with Java code producing
+ * exactly what {@link TagClassGenerator} renders from
+ * <code>bodyTag.vm</code> and <code>classicTag.vm</code>.
+ *
+ * @version $Rev$ $Date$
+ */
+public class EmittingTagClassGenerator extends AbstractEmittingTemplateClassGenerator {
+
+    @Override
+    protected void emit(StringBuilder out, String packageName,
+            TemplateSuite suite, TemplateClass clazz, Map<String, String> parameters,
+            String runtimeClass, String requestClass) {
+        if (TagClassGenerator.isClassicTag(clazz, parameters)) {
+            emitClassicTag(out, packageName, clazz, runtimeClass, requestClass);
+            return;
+        }
+        boolean hasBody = clazz.hasBody();
+        out.append("/*\n"
+                + " * This file was automatically generated by Apache Tiles Autotag.\n"
+                + " */\n"
+                + "package ").append(packageName).append(";\n"
+                + "\n"
+                + "import java.io.IOException;\n");
+        if (isCached(clazz)) {
+            out.append("import java.util.Arrays;\n");
+        }
+        out.append("\n"
+                + "import javax.servlet.jsp.JspException;\n"
+                + "import javax.servlet.jsp.tagext.SimpleTagSupport;\n"
+                + "\n");
+        if (hasBody) {
+            out.append("import org.apache.tiles.autotag.core.runtime.ModelBody;\n");
+            if (clazz.isMemoizedBody()) {
+                out.append("import org.apache.tiles.autotag.core.runtime.MemoizingModelBody;\n");
+            }
+        }
+        out.append("import org.apache.tiles.autotag.core.runtime.AutotagRuntime;\n"
+                + "import org.apache.tiles.autotag.core.runtime.AutotagRuntimeFactory;\n");
+        emitCacheImports(out, clazz);
+        out.append("\n"
+                + "/**\n");
+        StringTool.appendLines(out, " * ", clazz.getDocumentation());
+        out.append(" */\n"
+                + "public class ").append(clazz.getTagClassPrefix()).append("Tag extends SimpleTagSupport {\n"
+                + "\n");
+        emitRuntimeFactory(out, runtimeClass, requestClass);
+        emitCache(out, clazz);
+        if (!clazz.isStateless()) {
+            out.append("    /**\n"
+                    + "     * The template model.\n"
+                    + "     */\n"
+                    + "    private ").append(clazz.getName()).append(" model = new ")
+                    .append(clazz.getName()).append("();\n"
+                    + "\n");
+        }
+        emitProperties(out, clazz);
+        out.append("    /** {@inheritDoc} */\n"
+                + "    @Override\n"
+                + "    public void doTag() throws JspException, IOException {\n"
+                + "        AutotagRuntime<").append(requestClass).append("> runtime = RUNTIME_FACTORY.getRuntime();\n"
+                + "        try {\n"
+                + "            if (runtime instanceof SimpleTagSupport) {\n"
+                + "                SimpleTagSupport tag = (SimpleTagSupport) runtime;\n"
+                + "                tag.setJspContext(getJspContext());\n"
+                + "                tag.setJspBody(getJspBody());\n"
+                + "                tag.setParent(getParent());\n"
+                + "                tag.doTag();\n"
+                + "            }\n");
+        if (isCached(clazz)) {
+            emitCachedExecution(out, clazz, "");
+        } else {
+            out.append("            ").append(requestClass).append(" request = runtime.createRequest();\n");
+            if (hasBody) {
+                out.append("            ModelBody modelBody = ").append(getModelBody(clazz)).append(";\n");
+            }
+            out.append("            ").append(getModel(clazz)).append(".execute(\n");
+            for (TemplateParameter parameter : clazz.getParameters()) {
+                out.append("                ").append(parameter.getName()).append(",\n");
+            }
+            out.append("                request");
+            if (hasBody) {
+                out.append(", modelBody");
+            }
+            out.append("\n"
+                    + "            );\n");
+        }
+        out.append("        } finally {\n"
+                + "            RUNTIME_FACTORY.release(runtime);\n"
+                + "        }\n"
+                + "    }\n");
+        emitModelHolder(out, clazz);
+        out.append("}\n");
+    }
+
+    /**
+     * Emits the fields of the attributes of a tag, with their getters and
+     * setters.
+     *
+     * @param out The builder to append the code to.
+     * @param clazz The template class.
+     */
+    private void emitProperties(StringBuilder out, TemplateClass clazz) {
+        for (TemplateParameter parameter : clazz.getParameters()) {
+            out.append("    /**\n");
+            StringTool.appendLines(out, "     * ", parameter.getDocumentation());
+            out.append("     */\n"
+                    + "    private ").append(parameter.getType()).append(' ')
+                    .append(parameter.getName()).append(";\n"
+                    + "\n");
+        }
+        for (TemplateParameter parameter : clazz.getParameters()) {
+            String suffix = parameter.getGetterSetterSuffix();
+            out.append("    /**\n"
+                    + "     * Getter for ").append(parameter.getExportedName()).append(" property.\n"
+                    + "     *\n"
+                    + "     * @return\n");
+            StringTool.appendLines(out, "     * ", parameter.getDocumentation());
+            out.append("     */\n"
+                    + "    public ").append(parameter.getType())
+                    .append("boolean".equals(parameter.getType()) ? " is" : " get")
+                    .append(suffix).append("() {\n"
+                    + "        return ").append(parameter.getName()).append(";\n"
+                    + "    }\n"
+                    + "\n"
+                    + "    /**\n"
+                    + "     * Setter for ").append(parameter.getExportedName()).append(" property.\n"
+                    + "     *\n"
+                    + "     * @param ").append(parameter.getName()).append('\n');
+            StringTool.appendLines(out, "     * ", parameter.getDocumentation());
+            out.append("     */\n"
+                    + "    public void set").append(suffix).append('(')
+                    .append(parameter.getType()).append(' ').append(parameter.getName()).append(") {\n"
+                    + "        this.").append(parameter.getName()).append(" = ")
+                    .append(parameter.getName()).append(";\n"
+                    + "    }\n"
+                    + "\n");
+        }
+    }
+
+    /**
+     * Emits a classic tag, as <code>classicTag.vm</code> does.
+     *
+     * @param out The builder to append the code to.
+     * @param packageName The name of the package.
+     * @param clazz The template class.
+     * @param runtimeClass The runtime class.
+     * @param requestClass The request class.
+     */
+    private void emitClassicTag(StringBuilder out, String packageName,
+            TemplateClass clazz, String runtimeClass, String requestClass) {
+        out.append("/*\n"
+                + " * This file was automatically generated by Apache Tiles Autotag.\n"
+                + " */\n"
+                + "package ").append(packageName).append(";\n"
+                + "\n"
+                + "import java.io.IOException;\n");
+        if (isCached(clazz)) {
+            out.append("import java.util.Arrays;\n");
+        }
+        out.append("\n"
+                + "import javax.servlet.jsp.JspException;\n"
+                + "import javax.servlet.jsp.tagext.SimpleTagSupport;\n"
+                + "import javax.servlet.jsp.tagext.TagSupport;\n"
+                + "\n"
+                + "import org.apache.tiles.autotag.core.runtime.AutotagRuntime;\n"
+                + "import org.apache.tiles.autotag.core.runtime.AutotagRuntimeFactory;\n");
+        emitCacheImports(out, clazz);
+        out.append("\n"
+                + "/**\n");
+        StringTool.appendLines(out, " * ", clazz.getDocumentation());
+        out.append(" */\n"
+                + "public class ").append(clazz.getTagClassPrefix()).append("Tag extends TagSupport {\n"
+                + "\n");
+        emitRuntimeFactory(out, runtimeClass, requestClass);
+        emitCache(out, clazz);
+        if (!clazz.isStateless()) {
+            out.append("    /**\n"
+                    + "     * The template model, shared by all the invocations of this handler.\n"
+                    + "     */\n"
+                    + "    private ").append(clazz.getName()).append(" model = new ")
+                    .append(clazz.getName()).append("();\n"
+                    + "\n");
+        }
+        emitProperties(out, clazz);
+        out.append("    /** {@inheritDoc} */\n"
+                + "    @Override\n"
+                + "    public int doEndTag() throws JspException {\n"
+                + "        try {\n"
+                + "            execute();\n"
+                + "        } catch (IOException e) {\n"
+                + "            throw new JspException(e);\n"
+                + "        }\n"
+                + "        return EVAL_PAGE;\n"
+                + "    }\n"
+                + "\n"
+                + "    /** {@inheritDoc} */\n"
+                + "    @Override\n"
+                + "    public void release() {\n"
+                + "        super.release();\n");
+        for (TemplateParameter parameter : clazz.getParameters()) {
+            out.append("        ").append(parameter.getName()).append(" = ")
+                    .append(StringTool.INSTANCE.getDefaultValue(parameter.getType())).append(";\n");
+        }
+        out.append("    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Executes the model with the attributes of the tag.\n"
+                + "     *\n"
+                + "     * @throws JspException If something goes wrong.\n"
+                + "     * @throws IOException If something goes wrong when writing.\n"
+                + "     */\n"
+                + "    private void execute() throws JspException, IOException {\n"
+                + "        AutotagRuntime<").append(requestClass).append("> runtime = RUNTIME_FACTORY.getRuntime();\n"
+                + "        try {\n"
+                + "            if (runtime instanceof SimpleTagSupport) {\n"
+                + "                SimpleTagSupport tag = (SimpleTagSupport) runtime;\n"
+                + "                tag.setJspContext(pageContext);\n"
+                + "                tag.setParent(getParent());\n"
+                + "                tag.doTag();\n"
+                + "            }\n");
+        if (isCached(clazz)) {
+            emitCachedExecution(out, clazz, "");
+        } else {
+            out.append("            ").append(requestClass).append(" request = runtime.createRequest();\n"
+                    + "            ").append(getModel(clazz)).append(".execute(\n");
+            for (TemplateParameter parameter : clazz.getParameters()) {
+                out.append("                ").append(parameter.getName()).append(",\n");
+            }
+            out.append("                request\n"
+                    + "            );\n");
+        }
+        out.append("        } finally {\n"
+                + "            RUNTIME_FACTORY.release(runtime);\n"
+                + "        }\n"
+                + "    }\n");
+        emitModelHolder(out, clazz);
+        out.append("}\n");
+    }
+
+    /**
+     * Emits the field of the factory of the runtimes.
+     *
+     * @param out Where to emit the code.
+     * @param runtimeClass The runtime class.
+     * @param requestClass The request class.
+     */
+    private void emitRuntimeFactory(StringBuilder out, String runtimeClass, String requestClass) {
+        out.append("    /**\n"
+                + "     * The factory of the runtimes.\n"
+                + "     */\n"
+                + "    private static final AutotagRuntimeFactory<").append(requestClass)
+                .append("> RUNTIME_FACTORY =\n"
+                + "            AutotagRuntimeFactory.of(").append(runtimeClass).append("::new);\n"
+                + "\n");
+    }
+
+    @Override
+    protected String getDirectoryName(String packageName,
+            TemplateSuite suite, TemplateClass clazz, Map<String, String> parameters,
+            String runtimeClass, String requestClass) {
+        return packageName.replaceAll("\\.", "/");
+    }
+
+    @Override
+    protected String getFilename(String packageName,
+            TemplateSuite suite, TemplateClass clazz, Map<String, String> parameters,
+            String runtimeClass, String requestClass) {
+        return clazz.getTagClassPrefix() + "Tag.java";
+    }
+}
@@ -21,9 +21,11 @@
 package org.apache.tiles.autotag.jsp;
 
 import org.apache.tiles.autotag.core.OutputLocator;
+import org.apache.tiles.autotag.generate.TemplateClassGenerator;
 import org.apache.tiles.autotag.generate.TemplateGenerator;
 import org.apache.tiles.autotag.generate.TemplateGeneratorBuilder;
 import org.apache.tiles.autotag.generate.TemplateGeneratorFactory;
+import org.apache.tiles.autotag.generate.TemplateSuiteGenerator;
 import org.apache.velocity.app.VelocityEngine;
 
 /**
@@ -44,7 +46,7 @@ public class JspTemplateGeneratorFactory implements TemplateGeneratorFactory {
     private OutputLocator resourcesOutputLocator;
 
     /**
-     * The Velocity engine.
+     * The Velocity engine, <code>null</code> to emit the code with Java code.
      */
     private VelocityEngine velocityEngine;
 
@@ -70,15 +72,36 @@ public class JspTemplateGeneratorFactory implements TemplateGeneratorFactory {
         this.templateGeneratorBuilder = templateGeneratorBuilder;
     }
 
+    /**
+     * Constructor that emits the tag classes and the TLD with Java code instead
+     * of rendering Velocity templates. The generated files are the same.
+     *
+     * @param classesOutputLocator The directory where classes will be generated.
+     * @param resourcesOutputLocator The directory where the TLD file will be generated.
+     * @param templateGeneratorBuilder The template generator builder.
+     */
+    public JspTemplateGeneratorFactory(OutputLocator classesOutputLocator,
+            OutputLocator resourcesOutputLocator,
+            TemplateGeneratorBuilder templateGeneratorBuilder) {
+        this(classesOutputLocator, resourcesOutputLocator, null, templateGeneratorBuilder);
+    }
+
     @Override
     public TemplateGenerator createTemplateGenerator() {
+        TemplateSuiteGenerator suiteGenerator;
+        TemplateClassGenerator classGenerator;
+        if (velocityEngine != null) {
+            suiteGenerator = new TLDGenerator(velocityEngine);
+            classGenerator = new TagClassGenerator(velocityEngine);
+        } else {
+            suiteGenerator = new EmittingTLDGenerator();
+            classGenerator = new EmittingTagClassGenerator();
+        }
         return templateGeneratorBuilder
                 .setClassesOutputLocator(classesOutputLocator)
                 .setResourcesOutputLocator(resourcesOutputLocator)
-                .addResourcesTemplateSuiteGenerator(
-                        new TLDGenerator(velocityEngine))
-                .addClassesTemplateClassGenerator(
-                        new TagClassGenerator(velocityEngine)).build();
+                .addResourcesTemplateSuiteGenerator(suiteGenerator)
+                .addClassesTemplateClassGenerator(classGenerator).build();
     }
 
 }
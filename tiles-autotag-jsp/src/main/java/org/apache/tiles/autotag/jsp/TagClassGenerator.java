@@ -28,12 +28,21 @@ import org.apache.tiles.autotag.model.TemplateSuite;
 import org.apache.velocity.app.VelocityEngine;
 
 /**
- * Generates a tag class using a template class.
+ * Generates a tag class using a template class. Tags are simple tags, unless
+ * the <code>classicTags</code> parameter is <code>true</code>: then the tags
+ * without a body are classic tags, that containers can pool and reuse.
+ * Tags with a body stay simple tags, because their model may evaluate the
+ * body at any time, that only a fragment allows.
  *
  * @version $Rev$ $Date$
  */
 public class TagClassGenerator extends AbstractTemplateClassGenerator {
 
+    /**
+     * The parameter that enables classic tags.
+     */
+    public static final String CLASSIC_TAGS = "classicTags";
+
     /**
      * Constructor.
      *
@@ -61,6 +70,21 @@ public class TagClassGenerator extends AbstractTemplateClassGenerator {
     protected String getTemplatePath(String packageName,
             TemplateSuite suite, TemplateClass clazz, Map<String, String> parameters,
             String runtimeClass, String requestClass) {
+        if (isClassicTag(clazz, parameters)) {
+            return "/org/apache/tiles/autotag/jsp/classicTag.vm";
+        }
         return "/org/apache/tiles/autotag/jsp/bodyTag.vm";
     }
+
+    /**
+     * Checks if a classic tag must be generated for a template class.
+     *
+     * @param clazz The template class.
+     * @param parameters The map of parameters.
+     * @return <code>true</code> if a classic tag must be generated.
+     */
+    static boolean isClassicTag(TemplateClass clazz, Map<String, String> parameters) {
+        return parameters != null && Boolean.parseBoolean(parameters.get(CLASSIC_TAGS))
+                && !clazz.hasBody();
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ * This file was automatically generated by Apache Tiles Autotag.
+ */
+package org.apache.tiles.autotag.jsp.test;
+
+import java.io.IOException;
+
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.SimpleTagSupport;
+import javax.servlet.jsp.tagext.TagSupport;
+
+import org.apache.tiles.autotag.core.runtime.AutotagRuntime;
+import org.apache.tiles.autotag.core.runtime.AutotagRuntimeFactory;
+
+/**
+ * Documentation of the DoStuffNoBody class.
+ */
+public class DoStuffNoBodyTag extends TagSupport {
+
+    /**
+     * The factory of the runtimes.
+     */
+    private static final AutotagRuntimeFactory<org.apache.tiles.autotag.jsp.test.Request> RUNTIME_FACTORY =
+            AutotagRuntimeFactory.of(org.apache.tiles.autotag.jsp.test.Runtime::new);
+
+    /**
+     * The template model, shared by all the invocations of this handler.
+     */
+    private org.apache.tiles.autotag.template.DoStuffNoBodyTemplate model = new org.apache.tiles.autotag.template.DoStuffNoBodyTemplate();
+
+    /**
+     * Parameter one.
+     */
+    private java.lang.Double one;
+
+    /**
+     * Parameter two.
+     */
+    private float two;
+
+    /**
+     * Parameter three.
+     */
+    private java.util.Date three;
+
+    /**
+     * Getter for one property.
+     *
+     * @return
+     * Parameter one.
+     */
+    public java.lang.Double getOne() {
+        return one;
+    }
+
+    /**
+     * Setter for one property.
+     *
+     * @param one
+     * Parameter one.
+     */
+    public void setOne(java.lang.Double one) {
+        this.one = one;
+    }
+
+    /**
+     * Getter for two property.
+     *
+     * @return
+     * Parameter two.
+     */
+    public float getTwo() {
+        return two;
+    }
+
+    /**
+     * Setter for two property.
+     *
+     * @param two
+     * Parameter two.
+     */
+    public void setTwo(float two) {
+        this.two = two;
+    }
+
+    /**
+     * Getter for three property.
+     *
+     * @return
+     * Parameter three.
+     */
+    public java.util.Date getThree() {
+        return three;
+    }
+
+    /**
+     * Setter for three property.
+     *
+     * @param three
+     * Parameter three.
+     */
+    public void setThree(java.util.Date three) {
+        this.three = three;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int doEndTag() throws JspException {
+        try {
+            execute();
+        } catch (IOException e) {
+            throw new JspException(e);
+        }
+        return EVAL_PAGE;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void release() {
+        super.release();
+        one = null;
+        two = 0.0f;
+        three = null;
+    }
+
+    /**
+     * Executes the model with the attributes of the tag.
+     *
+     * @throws JspException If something goes wrong.
+     * @throws IOException If something goes wrong when writing.
+     */
+    private void execute() throws JspException, IOException {
+        AutotagRuntime<org.apache.tiles.autotag.jsp.test.Request> runtime = RUNTIME_FACTORY.getRuntime();
+        try {
+            if (runtime instanceof SimpleTagSupport) {
+                SimpleTagSupport tag = (SimpleTagSupport) runtime;
+                tag.setJspContext(pageContext);
+                tag.setParent(getParent());
+                tag.doTag();
+            }
+            org.apache.tiles.autotag.jsp.test.Request request = runtime.createRequest();
+            model.execute(
+                one,
+                two,
+                three,
+                request
+            );
+        } finally {
+            RUNTIME_FACTORY.release(runtime);
+        }
+    }
+}
@@ -9,12 +9,19 @@ import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.tagext.SimpleTagSupport;
 
 import org.apache.tiles.autotag.core.runtime.AutotagRuntime;
+import org.apache.tiles.autotag.core.runtime.AutotagRuntimeFactory;
 
 /**
  * Documentation of the DoStuffNoBody class.
  */
 public class DoStuffNoBodyTag extends SimpleTagSupport {
 
+    /**
+     * The factory of the runtimes.
+     */
+    private static final AutotagRuntimeFactory<org.apache.tiles.autotag.jsp.test.Request> RUNTIME_FACTORY =
+            AutotagRuntimeFactory.of(org.apache.tiles.autotag.jsp.test.Runtime::new);
+
     /**
      * The template model.
      */
@@ -98,20 +105,24 @@ public class DoStuffNoBodyTag extends SimpleTagSupport {
     /** {@inheritDoc} */
     @Override
     public void doTag() throws JspException, IOException {
-        AutotagRuntime<org.apache.tiles.autotag.jsp.test.Request> runtime = new org.apache.tiles.autotag.jsp.test.Runtime();
-        if (runtime instanceof SimpleTagSupport) {
-            SimpleTagSupport tag = (SimpleTagSupport) runtime;
-            tag.setJspContext(getJspContext());
-            tag.setJspBody(getJspBody());
-            tag.setParent(getParent());
-            tag.doTag();
+        AutotagRuntime<org.apache.tiles.autotag.jsp.test.Request> runtime = RUNTIME_FACTORY.getRuntime();
+        try {
+            if (runtime instanceof SimpleTagSupport) {
+                SimpleTagSupport tag = (SimpleTagSupport) runtime;
+                tag.setJspContext(getJspContext());
+                tag.setJspBody(getJspBody());
+                tag.setParent(getParent());
+                tag.doTag();
+            }
+            org.apache.tiles.autotag.jsp.test.Request request = runtime.createRequest();
+            model.execute(
+                one,
+                two,
+                three,
+                request
+            );
+        } finally {
+            RUNTIME_FACTORY.release(runtime);
         }
-        org.apache.tiles.autotag.jsp.test.Request request = runtime.createRequest();        
-        model.execute(
-            one,
-            two,
-            three,
-            request
-        );
     }
 }
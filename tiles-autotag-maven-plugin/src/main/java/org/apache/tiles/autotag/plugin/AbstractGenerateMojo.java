@@ -21,24 +21,38 @@
 package org.apache.tiles.autotag.plugin;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.apache.tiles.autotag.core.BinaryTemplateSuiteReader;
+import org.apache.tiles.autotag.core.FingerprintingOutputLocator;
+import org.apache.tiles.autotag.core.MemoryOutputLocator;
+import org.apache.tiles.autotag.core.OutputContents;
 import org.apache.tiles.autotag.core.OutputLocator;
+import org.apache.tiles.autotag.core.XmlTemplateSuiteReader;
 import org.apache.tiles.autotag.generate.TemplateGenerator;
+import org.apache.tiles.autotag.generate.TemplateGeneratorBuilder;
 import org.apache.tiles.autotag.generate.TemplateGeneratorFactory;
+import org.apache.tiles.autotag.model.TemplateClass;
 import org.apache.tiles.autotag.model.TemplateSuite;
 import org.apache.velocity.app.VelocityEngine;
 import org.sonatype.plexus.build.incremental.BuildContext;
@@ -57,6 +71,27 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
      */
     static final String META_INF_TEMPLATE_SUITE_XML = "META-INF/template-suite.xml";
 
+    /**
+     * The position of the template suite binary descriptor.
+     */
+    static final String META_INF_TEMPLATE_SUITE_BIN = "META-INF/template-suite.bin";
+
+    /**
+     * The version of the generation state format, part of its context.
+     */
+    static final String STATE_VERSION = "1";
+
+    /**
+     * The key of the context in the generation state.
+     */
+    static final String STATE_CONTEXT = "@context";
+
+    /**
+     * The name of the interface of the runtimes that can cache the output of
+     * the cacheable models.
+     */
+    static final String CAPTURING_RUNTIME_CLASS = "org.apache.tiles.autotag.core.runtime.CapturingAutotagRuntime";
+
     /**
      * The classpath elements.
      */
@@ -87,6 +122,63 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
 	@Parameter(required = true)
     String packageName;
 
+    /**
+     * Whether to read the XML descriptor with XStream, instead of the faster
+     * StAX reader. The StAX reader falls back to XStream anyway for the
+     * descriptors it cannot read.
+     */
+	@Parameter(defaultValue = "false")
+    boolean xstreamDescriptor;
+
+    /**
+     * Directory of the generation state, that stores the fingerprint of the
+     * inputs of every generated file, so that only the files whose template
+     * class changed are generated again.
+     */
+	@Parameter(defaultValue = "${project.build.directory}/autotag-cache")
+    File stateDirectory;
+
+    /**
+     * Whether to generate the files in parallel.
+     */
+	@Parameter(defaultValue = "false")
+    boolean parallel;
+
+    /**
+     * Number of threads generating the files in parallel, 0 for the number
+     * of available processors.
+     */
+	@Parameter(defaultValue = "0")
+    int threads;
+
+    /**
+     * Whether to emit the files with Java code instead of rendering Velocity
+     * templates. The generated files are the same, but generated faster.
+     */
+	@Parameter(defaultValue = "false")
+    boolean javaEmitters;
+
+    /**
+     * Whether to compile the generated classes in memory, writing only their
+     * class files to [outputDirectory], instead of writing their sources to
+     * [classesOutputDirectory] for the compile phase. Needs a JDK.
+     */
+	@Parameter(defaultValue = "false")
+    boolean compileInMemory;
+
+    /**
+     * Where the class files are written when compiling in memory.
+     */
+	@Parameter(defaultValue = "${project.build.outputDirectory}")
+    File outputDirectory;
+
+    /**
+     * The release to compile for when compiling in memory, by default the
+     * one of the running JDK.
+     */
+	@Parameter(property = "maven.compiler.release")
+    String release;
+
 	@Parameter( defaultValue = "${project}", readonly = true )
     MavenProject project;
 
@@ -96,41 +188,81 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
 	OutputLocator classesOutputLocator;
 	OutputLocator resourcesOutputLocator;
 
-	private ClassLoader cl;
-
     /** {@inheritDoc} */
     public void execute() throws MojoExecutionException {
         try {
         	TemplateSuite suite;
-        	URLConnection templateSuite = findTemplateSuiteDescriptor();
-        	long lastModified = templateSuite.getLastModified();
-        	InputStream stream = templateSuite.getInputStream();
+        	DescriptorLocator.Descriptor descriptor = DescriptorLocator.find(classpathElements);
+        	long lastModified = descriptor.getLastModified();
+        	InputStream stream = descriptor.openStream();
             try {
-	            XStream xstream = new XStream(new SunUnsafeReflectionProvider());
-	            xstream.allowTypesByWildcard(new String[] { 
-	                    "org.apache.tiles.**"
-	                    });
-
-	            suite = (TemplateSuite) xstream.fromXML(stream);
+            	if (descriptor.isBinary()) {
+            		suite = new BinaryTemplateSuiteReader().read(stream);
+            	} else if (xstreamDescriptor) {
+            		suite = readWithXStream(stream);
+            	} else {
+            		try {
+            			suite = new XmlTemplateSuiteReader().read(stream);
+            		} catch (IOException e) {
+            			getLog().debug("Cannot read " + descriptor + " with StAX, using XStream", e);
+            			stream.close();
+            			stream = descriptor.openStream();
+            			suite = readWithXStream(stream);
+            		}
+            	}
             } finally {
 	            stream.close();
             }
-            classesOutputLocator = new MavenOutputLocator(classesOutputDirectory, lastModified);
-            resourcesOutputLocator = new MavenOutputLocator(resourcesOutputDirectory, lastModified);
-            Properties props = new Properties();
-            InputStream propsStream = getClass().getResourceAsStream("/org/apache/tiles/autotag/velocity.properties");
-            props.load(propsStream);
-            propsStream.close();
+            Map<String, String> parameters = getParameters();
+            String runtimeClass = getRuntimeClass();
+            checkCacheableModels(suite, runtimeClass);
+            File stateFile = null;
+            Properties previousState = null;
+            Properties state = null;
+            if (stateDirectory != null) {
+            	stateFile = new File(stateDirectory, getClass().getSimpleName() + "-state.properties");
+            	String context = getStateContext(parameters, runtimeClass);
+            	previousState = loadState(stateFile, context);
+            	state = new Properties();
+            	state.setProperty(STATE_CONTEXT, context);
+            }
+            Set<File> writtenClasses = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+            Set<File> writtenResources = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+            MemoryOutputLocator memoryClasses = null;
+            if (compileInMemory) {
+            	memoryClasses = new MemoryOutputLocator();
+            	classesOutputLocator = memoryClasses;
+            } else {
+	            classesOutputLocator = new MavenOutputLocator(classesOutputDirectory, lastModified,
+	            		previousState, state, writtenClasses, null);
+            }
+            resourcesOutputLocator = new MavenOutputLocator(resourcesOutputDirectory, lastModified,
+            		previousState, state, writtenResources, null);
+            VelocityEngine velocityEngine = null;
+            if (!javaEmitters) {
+	            Properties props = new Properties();
+	            InputStream propsStream = getClass().getResourceAsStream("/org/apache/tiles/autotag/velocity.properties");
+	            props.load(propsStream);
+	            propsStream.close();
+	            velocityEngine = new VelocityEngine(props);
+            }
             TemplateGenerator generator = createTemplateGeneratorFactory(
-                    new VelocityEngine(props)).createTemplateGenerator();
-            generator.generate(packageName, suite, getParameters(), getRuntimeClass(), requestClass);
+                    velocityEngine).createTemplateGenerator();
+            generator.generate(packageName, suite, parameters, runtimeClass, requestClass);
+            if (state != null) {
+            	saveState(stateFile, state);
+            }
             if (generator.isGeneratingResources()) {
-            	buildContext.refresh(resourcesOutputDirectory);
+            	refresh(writtenResources);
                 addResourceDirectory(resourcesOutputDirectory.getAbsolutePath());
             }
             if (generator.isGeneratingClasses()) {
-            	buildContext.refresh(classesOutputDirectory);
-                addCompileSourceRoot(classesOutputDirectory.getAbsolutePath());
+            	if (memoryClasses != null) {
+            		compileInMemory(memoryClasses.getContents());
+            	} else {
+	            	refresh(writtenClasses);
+	                addCompileSourceRoot(classesOutputDirectory.getAbsolutePath());
+            	}
             }
         } catch (IOException e) {
             throw new MojoExecutionException("error", e);
@@ -141,6 +273,152 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
         }
     }
 
+	/**
+	 * Reads the XML descriptor with XStream.
+	 *
+	 * @param stream The stream of the descriptor.
+	 * @return The template suite.
+	 */
+	private TemplateSuite readWithXStream(InputStream stream) {
+		XStream xstream = new XStream(new SunUnsafeReflectionProvider());
+		xstream.allowTypesByWildcard(new String[] { 
+				"org.apache.tiles.**"
+				});
+
+		return (TemplateSuite) xstream.fromXML(stream);
+	}
+
+	/**
+	 * Warns when the suite has cacheable models but the runtime cannot
+	 * capture their output: their output would never be cached.
+	 *
+	 * @param suite The template suite.
+	 * @param runtimeClass The runtime class.
+	 */
+	void checkCacheableModels(TemplateSuite suite, String runtimeClass) {
+		List<String> cacheableModels = new ArrayList<String>();
+		for (TemplateClass templateClass : suite.getTemplateClasses()) {
+			if (templateClass.isCacheable() && !templateClass.hasBody()) {
+				cacheableModels.add(templateClass.getName());
+			}
+		}
+		if (cacheableModels.isEmpty()) {
+			return;
+		}
+		URL[] urls = new URL[classpathElements.size()];
+		try {
+			for (int i = 0; i < urls.length; i++) {
+				urls[i] = new File(classpathElements.get(i)).toURI().toURL();
+			}
+			URLClassLoader loader = new URLClassLoader(urls, ClassLoader.getPlatformClassLoader());
+			try {
+				Class<?> capturing = Class.forName(CAPTURING_RUNTIME_CLASS, false, loader);
+				if (!capturing.isAssignableFrom(Class.forName(runtimeClass, false, loader))) {
+					getLog().warn("The runtime " + runtimeClass + " does not implement "
+							+ CAPTURING_RUNTIME_CLASS + ", the output of the cacheable models "
+							+ cacheableModels + " will not be cached");
+				}
+			} finally {
+				loader.close();
+			}
+		} catch (ClassNotFoundException | LinkageError | IOException e) {
+			getLog().warn("Cannot check whether the runtime " + runtimeClass
+					+ " caches the output of the cacheable models " + cacheableModels, e);
+		}
+	}
+
+	/**
+	 * Returns the context of the generation state: when it changes, all the
+	 * files are generated again.
+	 *
+	 * @param parameters The map of parameters.
+	 * @param runtimeClass The runtime class.
+	 * @return The context.
+	 */
+	private String getStateContext(Map<String, String> parameters, String runtimeClass) {
+		StringBuilder context = new StringBuilder(STATE_VERSION);
+		context.append('|').append(AbstractGenerateMojo.class.getPackage().getImplementationVersion());
+		context.append('|').append(packageName);
+		context.append('|').append(requestClass);
+		context.append('|').append(runtimeClass);
+		context.append('|').append(new TreeMap<String, String>(parameters));
+		return context.toString();
+	}
+
+	/**
+	 * Loads the generation state, or returns an empty one if there is none
+	 * or if it has been created for another context.
+	 *
+	 * @param stateFile The file of the state.
+	 * @param context The current context.
+	 * @return The generation state.
+	 */
+	private Properties loadState(File stateFile, String context) {
+		Properties state = new Properties();
+		if (stateFile.exists()) {
+			try {
+				InputStream stream = new FileInputStream(stateFile);
+				try {
+					state.load(stream);
+				} finally {
+					stream.close();
+				}
+			} catch (IOException | RuntimeException e) {
+				getLog().warn("Cannot read the generation state " + stateFile + ", all the files will be generated", e);
+				state.clear();
+			}
+			if (!context.equals(state.getProperty(STATE_CONTEXT))) {
+				state.clear();
+			}
+		}
+		return state;
+	}
+
+	private void saveState(File stateFile, Properties state) throws IOException {
+		stateFile.getParentFile().mkdirs();
+		OutputStream stream = new FileOutputStream(stateFile);
+		try {
+			state.store(stream, null);
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Compiles the generated sources and writes their class files.
+	 *
+	 * @param sources The generated sources, by path.
+	 * @throws IOException If something goes wrong when writing.
+	 * @throws MojoExecutionException If the sources do not compile.
+	 */
+	private void compileInMemory(Map<String, byte[]> sources) throws IOException, MojoExecutionException {
+		InMemoryCompiler compiler = new InMemoryCompiler(classpathElements, release);
+		List<File> writtenFiles = new ArrayList<File>();
+		boolean success = compiler.compile(sources, outputDirectory, writtenFiles);
+		for (String message : compiler.getMessages()) {
+			if (success) {
+				getLog().warn(message);
+			} else {
+				getLog().error(message);
+			}
+		}
+		if (!success) {
+			throw new MojoExecutionException("The generated classes do not compile");
+		}
+		refresh(writtenFiles);
+	}
+
+	/**
+	 * Refreshes the files that have been written, and only them.
+	 *
+	 * @param files The written files.
+	 */
+	private void refresh(Collection<File> files) {
+		for (File file : files) {
+			buildContext.refresh(file);
+		}
+	}
+
 	private void addResourceDirectory(String directory) {
 		boolean addResource = true;
 		List<Resource> resources = project.getResources();
@@ -170,10 +448,25 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
 	}
 
 
+	/**
+	 * Creates the builder of the template generator, configured to generate
+	 * the files in parallel if needed.
+	 *
+	 * @return The template generator builder.
+	 */
+	protected TemplateGeneratorBuilder createTemplateGeneratorBuilder() {
+		TemplateGeneratorBuilder builder = TemplateGeneratorBuilder.createNewInstance();
+		if (parallel) {
+			builder.setParallelism(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+		}
+		return builder;
+	}
+
 	/**
      * Creates a template generator factory.
      *
-     * @param velocityEngine The Velocity engine.
+     * @param velocityEngine The Velocity engine, <code>null</code> to emit
+     * the files with Java code.
      * @return The template generator factory.
      */
     protected abstract TemplateGeneratorFactory createTemplateGeneratorFactory(VelocityEngine velocityEngine);
@@ -185,39 +478,30 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
      */
     protected abstract Map<String, String> getParameters();
 
-    /**
-     * Searches for the template suite descriptor in all dependencies and sources.
-     *
-     * @return The inputstream of the identified descriptor.
-     * @throws IOException If something goes wrong.
-     */
-    private URLConnection findTemplateSuiteDescriptor() throws IOException {
-        URL[] urls = new URL[classpathElements.size()];
-        int i = 0;
-        for ( String classpathElement: classpathElements )
-        {
-            urls[i++] = new File(classpathElement).toURI().toURL();
-        }
-
-        cl = new URLClassLoader( urls );
-
-        return cl.getResource(META_INF_TEMPLATE_SUITE_XML).openConnection();
-    }
-
     /**
      * Name of the Runtime class.
      * @return The name of the Runtime class.
      */
     protected abstract String getRuntimeClass();
 
-    private final class MavenOutputLocator implements OutputLocator {
+    private final class MavenOutputLocator implements FingerprintingOutputLocator {
     	
     	private File outputDirectory;
     	private long sourceLastModified;
+    	private Properties previousState;
+    	private Properties state;
+    	private Set<File> written;
+    	private String fingerprint;
     	
-    	private MavenOutputLocator(File outputDirectory, long sourceLastModified) {
+    	private MavenOutputLocator(File outputDirectory, long sourceLastModified,
+    			Properties previousState, Properties state, Set<File> written,
+    			String fingerprint) {
     		this.outputDirectory = outputDirectory;
     		this.sourceLastModified = sourceLastModified;
+    		this.previousState = previousState;
+    		this.state = state;
+    		this.written = written;
+    		this.fingerprint = fingerprint;
     	}
     	
 		@Override
@@ -225,13 +509,46 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
 				throws IOException {
 			File target = new File(outputDirectory, resourcePath);
 			target.getParentFile().mkdirs();
+			if (fingerprint != null) {
+				state.setProperty(target.getPath(), fingerprint);
+			}
+			written.add(target);
 			return buildContext.newFileOutputStream(target);
 		}
 
+		@Override
+		public boolean write(String resourcePath, byte[] content)
+				throws IOException {
+			File target = new File(outputDirectory, resourcePath);
+			if (OutputContents.hasContent(target, content)) {
+				if (fingerprint != null) {
+					state.setProperty(target.getPath(), fingerprint);
+				}
+				return false;
+			}
+			return FingerprintingOutputLocator.super.write(resourcePath, content);
+		}
+
 		@Override
 		public boolean isUptodate(String resourcePath) {
 			File target = new File(outputDirectory, resourcePath);
-			return target.exists() && target.lastModified() > sourceLastModified;
+			if (fingerprint == null) {
+				return target.exists() && target.lastModified() > sourceLastModified;
+			}
+			if (target.exists() && fingerprint.equals(previousState.getProperty(target.getPath()))) {
+				state.setProperty(target.getPath(), fingerprint);
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public OutputLocator forFingerprint(String fingerprint) {
+			if (state == null) {
+				return this;
+			}
+			return new MavenOutputLocator(outputDirectory, sourceLastModified,
+					previousState, state, written, fingerprint);
 		}
 	}
 }
@@ -37,10 +37,19 @@ package org.apache.tiles.autotag.plugin;
  */
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -52,18 +61,40 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.apache.tiles.autotag.core.BinaryTemplateSuiteWriter;
 import org.apache.tiles.autotag.core.QDoxTemplateSuiteFactory;
+import org.apache.tiles.autotag.core.SourceCache;
+import org.apache.tiles.autotag.core.XmlTemplateSuiteWriter;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
 import org.apache.tiles.autotag.model.TemplateSuite;
 import org.codehaus.plexus.util.Scanner;
 import org.sonatype.plexus.build.incremental.BuildContext;
 
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.reflection.SunUnsafeReflectionProvider;
 
 /**
  * Creates a descriptor for the template model in XML format.
  */
 @Mojo(name = "create-descriptor", defaultPhase = LifecyclePhase.GENERATE_RESOURCES)
 public class CreateDescriptorMojo extends AbstractMojo {
+
+    /**
+     * The version of the source cache format, part of its context. The fields
+     * of the cached classes are part of the context too, so it does not need
+     * to change when they do.
+     */
+    static final String SOURCE_CACHE_VERSION = "2";
+
+    /**
+     * The classes stored in the source cache.
+     */
+    private static final Class<?>[] SOURCE_CACHE_CLASSES = {SourceCache.class,
+            SourceCache.Entry.class, TemplateClass.class, TemplateMethod.class,
+            TemplateParameter.class};
+
     /**
      * Location of the file.
      */
@@ -106,6 +137,41 @@ public class CreateDescriptorMojo extends AbstractMojo {
 	@Parameter(defaultValue="org.apache.tiles.request.Request", required = true)
     String requestClass;
 
+    /**
+     * Number of threads used to parse the sources, 1 to parse them sequentially.
+     */
+	@Parameter(defaultValue = "1")
+    int parallelism;
+
+    /**
+     * Location of the cache of parsed source files, none by default. Unchanged
+     * files are not parsed again, unless the classes declared in the files or
+     * the request class change.
+     */
+	@Parameter
+    File sourceCacheFile;
+
+    /**
+     * Whether to write the binary descriptor too, which is faster to read
+     * than the XML one.
+     */
+	@Parameter(defaultValue = "true")
+    boolean binaryDescriptor;
+
+    /**
+     * Whether to skip the source files that cannot declare a template class,
+     * found with a byte scan, instead of parsing them.
+     */
+	@Parameter(defaultValue = "false")
+    boolean prefilter;
+
+    /**
+     * Whether to write the XML descriptor with XStream, instead of the faster
+     * StAX writer that produces the same XML.
+     */
+	@Parameter(defaultValue = "false")
+    boolean xstreamDescriptor;
+
 	@Parameter(property = "project", required = true, readonly = true)
     MavenProject project;
 
@@ -122,14 +188,16 @@ public class CreateDescriptorMojo extends AbstractMojo {
             	buildContext.refresh(dir);
             }
             File outputFile = new File(dir, "template-suite.xml");
-            boolean uptodate = outputFile.exists();
+            File binaryOutputFile = new File(dir, "template-suite.bin");
+            boolean uptodate = outputFile.exists()
+                    && (!binaryDescriptor || binaryOutputFile.exists());
             File[] files = new File[fileNames.length];
             for(int i=0; i<fileNames.length; i++) {
             	files[i] = new File(sourceDirectory, fileNames[i]);
             	uptodate &= buildContext.isUptodate(outputFile, files[i]);
             }
             if(!uptodate) {
-                createDescriptor(outputFile, files);
+                createDescriptor(outputFile, binaryOutputFile, files);
 			}
             addResourceDirectory(outputDirectory.getAbsolutePath());
         } catch (IOException e) {
@@ -137,19 +205,109 @@ public class CreateDescriptorMojo extends AbstractMojo {
         }
     }
 
-	private void createDescriptor(File outputFile, File[] files)
-			throws IOException {
+	private void createDescriptor(File outputFile, File binaryOutputFile,
+			File[] files) throws IOException {
 		QDoxTemplateSuiteFactory factory = new QDoxTemplateSuiteFactory(files);
 		factory.setSuiteName(name);
 		factory.setSuiteDocumentation(documentation);
 		factory.setRequestClass(requestClass);
+		factory.setParallelism(parallelism);
+		factory.setPrefilter(prefilter);
+		SourceCache sourceCache = null;
+		if (sourceCacheFile != null) {
+			sourceCache = loadSourceCache();
+			factory.setSourceCache(sourceCache);
+		}
 		TemplateSuite suite = factory.createTemplateSuite();
-		XStream xstream = new XStream();
+		if (sourceCache != null) {
+			saveSourceCache(sourceCache);
+		}
 		OutputStream os = buildContext.newFileOutputStream(outputFile);
 		Writer writer = new OutputStreamWriter(os);
-		xstream.toXML(suite, writer);
+		if (xstreamDescriptor) {
+			new XStream().toXML(suite, writer);
+		} else {
+			new XmlTemplateSuiteWriter().write(suite, writer);
+		}
 		writer.close();
 		os.close();
+		if (binaryDescriptor) {
+			os = buildContext.newFileOutputStream(binaryOutputFile);
+			try {
+				new BinaryTemplateSuiteWriter().write(suite, os);
+			} finally {
+				os.close();
+			}
+		} else if (binaryOutputFile.exists()) {
+			// A stale binary descriptor would be read instead of the XML one.
+			binaryOutputFile.delete();
+			buildContext.refresh(binaryOutputFile);
+		}
+	}
+
+	/**
+	 * Loads the source cache, or creates a new one if there is none or if it
+	 * has been created for another request class or another version of the
+	 * cached classes. The entries are keyed by the content of the files, so
+	 * the cache is kept when files are added, removed or renamed.
+	 *
+	 * @return The source cache.
+	 */
+	SourceCache loadSourceCache() {
+		StringBuilder context = new StringBuilder(SOURCE_CACHE_VERSION);
+		context.append('|').append(getSourceCacheShape());
+		context.append('|').append(requestClass);
+		if (sourceCacheFile.exists()) {
+			try {
+				Reader reader = new InputStreamReader(new FileInputStream(sourceCacheFile), StandardCharsets.UTF_8);
+				try {
+					XStream xstream = new XStream(new SunUnsafeReflectionProvider());
+					xstream.allowTypesByWildcard(new String[] {
+							"org.apache.tiles.**"
+							});
+					SourceCache sourceCache = (SourceCache) xstream.fromXML(reader);
+					if (context.toString().equals(sourceCache.getContext())) {
+						return sourceCache;
+					}
+				} finally {
+					reader.close();
+				}
+			} catch (IOException | RuntimeException e) {
+				getLog().warn("Cannot read the source cache " + sourceCacheFile + ", all the files will be parsed", e);
+			}
+		}
+		return new SourceCache(context.toString());
+	}
+
+	/**
+	 * Describes the fields of the classes stored in the source cache, so that
+	 * a cache written by another version of them is not used.
+	 *
+	 * @return The description of the fields.
+	 */
+	static String getSourceCacheShape() {
+		StringBuilder shape = new StringBuilder();
+		for (Class<?> clazz : SOURCE_CACHE_CLASSES) {
+			List<String> fields = new ArrayList<String>();
+			for (Field field : clazz.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					fields.add(field.getName() + ':' + field.getType().getName());
+				}
+			}
+			Collections.sort(fields);
+			shape.append(clazz.getSimpleName()).append(fields);
+		}
+		return shape.toString();
+	}
+
+	private void saveSourceCache(SourceCache sourceCache) throws IOException {
+		sourceCacheFile.getParentFile().mkdirs();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(sourceCacheFile), StandardCharsets.UTF_8);
+		try {
+			new XStream().toXML(sourceCache, writer);
+		} finally {
+			writer.close();
+		}
 	}
 
 	private void addResourceDirectory(String directory) {
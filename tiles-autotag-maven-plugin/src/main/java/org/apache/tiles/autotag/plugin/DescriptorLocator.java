@@ -0,0 +1,310 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.plugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds the template suite descriptor in the classpath elements of a
+ * project, looking into directories and jars directly instead of through a
+ * class loader. What every jar contains is cached for the lifetime of the
+ * JVM, keyed by its path, size and modification time, and every jar is
+ * closed once read, so repeated builds in the same JVM neither reopen
+ * unchanged jars nor leak file handles.
+ *
+ * @version $Rev$ $Date$
+ */
+final class DescriptorLocator {
+
+    /**
+     * What the already opened jars contain, by path.
+     */
+    private static final Map<String, JarContent> JAR_CONTENTS =
+            new ConcurrentHashMap<String, JarContent>();
+
+    /**
+     * Constructor, private to avoid instantiation.
+     */
+    private DescriptorLocator() {
+    }
+
+    /**
+     * Finds the descriptor. As with a class loader, the first classpath
+     * element that contains the XML descriptor wins; the binary descriptor
+     * is preferred when it is next to it and at least as recent, so that a
+     * stale binary descriptor is not used. If no element contains the XML
+     * descriptor, the first binary descriptor is used.
+     *
+     * @param classpathElements The classpath elements.
+     * @return The descriptor.
+     * @throws IOException If no descriptor is found, or if something goes
+     * wrong when reading a jar.
+     */
+    static Descriptor find(List<String> classpathElements) throws IOException {
+        Descriptor binary = null;
+        for (String classpathElement : classpathElements) {
+            File file = new File(classpathElement);
+            Descriptor xml;
+            Descriptor bin;
+            if (file.isDirectory()) {
+                xml = getFileDescriptor(file, AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_XML);
+                bin = getFileDescriptor(file, AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_BIN);
+            } else if (file.isFile()) {
+                JarContent content = getJarContent(file);
+                xml = content.xml;
+                bin = content.bin;
+            } else {
+                continue;
+            }
+            if (xml != null) {
+                return bin != null && bin.getLastModified() >= xml.getLastModified() ? bin : xml;
+            }
+            if (binary == null) {
+                binary = bin;
+            }
+        }
+        if (binary == null) {
+            throw new IOException("Cannot find " + AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_XML
+                    + " in the classpath");
+        }
+        return binary;
+    }
+
+    /**
+     * Clears the cache of jar contents.
+     */
+    static void clearCache() {
+        JAR_CONTENTS.clear();
+    }
+
+    /**
+     * Returns the descriptor in a directory.
+     *
+     * @param directory The directory.
+     * @param path The path of the descriptor.
+     * @return The descriptor, or <code>null</code> if there is none.
+     */
+    private static Descriptor getFileDescriptor(File directory, String path) {
+        File file = new File(directory, path);
+        if (!file.isFile()) {
+            return null;
+        }
+        return new Descriptor(file, null, file.lastModified());
+    }
+
+    /**
+     * Returns the descriptors of a jar, from the cache when it did not
+     * change since it was read.
+     *
+     * @param jar The jar.
+     * @return The descriptors of the jar.
+     * @throws IOException If something goes wrong when reading the jar.
+     */
+    private static JarContent getJarContent(File jar) throws IOException {
+        String key = jar.getAbsolutePath();
+        long size = jar.length();
+        long lastModified = jar.lastModified();
+        JarContent content = JAR_CONTENTS.get(key);
+        if (content == null || content.size != size
+                || content.lastModified != lastModified) {
+            ZipFile zip;
+            try {
+                zip = new ZipFile(jar);
+            } catch (ZipException e) {
+                // Not a jar, as a class loader would ignore it.
+                zip = null;
+            }
+            if (zip == null) {
+                content = new JarContent(size, lastModified, null, null);
+            } else {
+                try {
+                    content = new JarContent(size, lastModified,
+                            getJarDescriptor(jar, zip, AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_XML),
+                            getJarDescriptor(jar, zip, AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_BIN));
+                } finally {
+                    zip.close();
+                }
+            }
+            JAR_CONTENTS.put(key, content);
+        }
+        return content;
+    }
+
+    /**
+     * Returns the descriptor in a jar.
+     *
+     * @param jar The jar.
+     * @param zip The opened jar.
+     * @param path The path of the descriptor.
+     * @return The descriptor, or <code>null</code> if there is none.
+     */
+    private static Descriptor getJarDescriptor(File jar, ZipFile zip, String path) {
+        ZipEntry entry = zip.getEntry(path);
+        if (entry == null) {
+            return null;
+        }
+        long time = entry.getTime();
+        return new Descriptor(jar, path, time >= 0 ? time : jar.lastModified());
+    }
+
+    /**
+     * A template suite descriptor.
+     */
+    static final class Descriptor {
+
+        /**
+         * The descriptor file, or the jar that contains it.
+         */
+        private File file;
+
+        /**
+         * The path of the descriptor in the jar, <code>null</code> if it is
+         * not in a jar.
+         */
+        private String entry;
+
+        /**
+         * The modification time of the descriptor.
+         */
+        private long lastModified;
+
+        /**
+         * Constructor.
+         *
+         * @param file The descriptor file, or the jar that contains it.
+         * @param entry The path of the descriptor in the jar.
+         * @param lastModified The modification time of the descriptor.
+         */
+        private Descriptor(File file, String entry, long lastModified) {
+            this.file = file;
+            this.entry = entry;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Returns the modification time of the descriptor.
+         *
+         * @return The modification time.
+         */
+        long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Checks if this is the binary descriptor.
+         *
+         * @return <code>true</code> if it is the binary descriptor.
+         */
+        boolean isBinary() {
+            return (entry != null ? entry : file.getName()).endsWith(".bin");
+        }
+
+        /**
+         * Opens the descriptor. Closing the stream also closes the jar.
+         *
+         * @return The stream of the descriptor.
+         * @throws IOException If something goes wrong.
+         */
+        InputStream openStream() throws IOException {
+            if (entry == null) {
+                return new FileInputStream(file);
+            }
+            final ZipFile zip = new ZipFile(file);
+            try {
+                ZipEntry zipEntry = zip.getEntry(entry);
+                if (zipEntry == null) {
+                    throw new IOException("Cannot find " + this);
+                }
+                return new FilterInputStream(zip.getInputStream(zipEntry)) {
+
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            zip.close();
+                        }
+                    }
+                };
+            } catch (IOException | RuntimeException e) {
+                zip.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return entry != null ? file + "!/" + entry : file.toString();
+        }
+    }
+
+    /**
+     * The descriptors of a jar.
+     */
+    private static final class JarContent {
+
+        /**
+         * The size of the jar.
+         */
+        private long size;
+
+        /**
+         * The modification time of the jar.
+         */
+        private long lastModified;
+
+        /**
+         * The XML descriptor, if any.
+         */
+        private Descriptor xml;
+
+        /**
+         * The binary descriptor, if any.
+         */
+        private Descriptor bin;
+
+        /**
+         * Constructor.
+         *
+         * @param size The size of the jar.
+         * @param lastModified The modification time of the jar.
+         * @param xml The XML descriptor, if any.
+         * @param bin The binary descriptor, if any.
+         */
+        private JarContent(long size, long lastModified, Descriptor xml,
+                Descriptor bin) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.xml = xml;
+            this.bin = bin;
+        }
+    }
+}
@@ -43,9 +43,9 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
-import org.apache.tiles.autotag.generate.TemplateGeneratorBuilder;
 import org.apache.tiles.autotag.generate.TemplateGeneratorFactory;
 import org.apache.tiles.autotag.jsp.JspTemplateGeneratorFactory;
+import org.apache.tiles.autotag.jsp.TagClassGenerator;
 import org.apache.velocity.app.VelocityEngine;
 
 
@@ -70,11 +70,22 @@ public class GenerateJspMojo extends AbstractGenerateMojo {
 	@Parameter(defaultValue = "org.apache.tiles.autotag.jsp.runtime.Runtime", required = true)
     String jspRuntime;
 
+    /**
+     * Whether to generate classic tags, that containers can pool, for the
+     * templates without a body. Templates with a body are always generated
+     * as simple tags.
+     */
+	@Parameter(defaultValue = "false")
+    boolean classicTags;
+
     /** {@inheritDoc} */
     @Override
     protected Map<String, String> getParameters() {
         Map<String, String> params = new HashMap<String, String>();
         params.put("taglibURI", taglibURI);
+        if (classicTags) {
+            params.put(TagClassGenerator.CLASSIC_TAGS, Boolean.TRUE.toString());
+        }
         return params;
     }
 
@@ -89,6 +100,6 @@ public class GenerateJspMojo extends AbstractGenerateMojo {
             VelocityEngine velocityEngine) {
         return new JspTemplateGeneratorFactory(classesOutputLocator,
                 resourcesOutputLocator, velocityEngine,
-                TemplateGeneratorBuilder.createNewInstance());
+                createTemplateGeneratorBuilder());
     }
 }
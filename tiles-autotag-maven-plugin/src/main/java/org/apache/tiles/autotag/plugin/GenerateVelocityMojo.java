@@ -42,7 +42,6 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
-import org.apache.tiles.autotag.generate.TemplateGeneratorBuilder;
 import org.apache.tiles.autotag.generate.TemplateGeneratorFactory;
 import org.apache.tiles.autotag.velocity.VelocityTemplateGeneratorFactory;
 import org.apache.velocity.app.VelocityEngine;
@@ -80,6 +79,6 @@ public class GenerateVelocityMojo extends AbstractGenerateMojo {
             VelocityEngine velocityEngine) {
         return new VelocityTemplateGeneratorFactory(classesOutputLocator,
                 resourcesOutputLocator, velocityEngine,
-                TemplateGeneratorBuilder.createNewInstance());
+                createTemplateGeneratorBuilder());
     }
 }
@@ -0,0 +1,255 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.tiles.autotag.core.OutputContents;
+
+/**
+ * Compiles generated sources kept in memory with the compiler of the running
+ * JDK, and writes the class files directly, so that the sources are never
+ * written nor parsed again by a later compilation. Class files are written
+ * only when all the sources compile, and only when their content changed.
+ *
+ * @version $Rev$ $Date$
+ */
+final class InMemoryCompiler {
+
+    /**
+     * The suffix of the source files.
+     */
+    private static final String SOURCE_SUFFIX = JavaFileObject.Kind.SOURCE.extension;
+
+    /**
+     * The classpath to compile against.
+     */
+    private List<String> classpathElements;
+
+    /**
+     * The release to compile for, <code>null</code> for the one of the JDK.
+     */
+    private String release;
+
+    /**
+     * The errors and warnings of the last compilation.
+     */
+    private List<String> messages = new ArrayList<String>();
+
+    /**
+     * Constructor.
+     *
+     * @param classpathElements The classpath to compile against.
+     * @param release The release to compile for, <code>null</code> for the
+     * one of the JDK.
+     */
+    InMemoryCompiler(List<String> classpathElements, String release) {
+        this.classpathElements = classpathElements;
+        this.release = release;
+    }
+
+    /**
+     * Compiles the sources, and writes the class files.
+     *
+     * @param sources The content of the files, by path. Only the Java sources
+     * are compiled, other files are ignored.
+     * @param outputDirectory The directory of the class files.
+     * @param writtenFiles Where the written class files are added.
+     * @return <code>true</code> if the sources have been compiled,
+     * <code>false</code> if there are errors, see {@link #getMessages()}.
+     * @throws IOException If something goes wrong when writing.
+     */
+    boolean compile(Map<String, byte[]> sources, File outputDirectory,
+            List<File> writtenFiles) throws IOException {
+        messages.clear();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IOException("No Java compiler is available, a JDK is needed to compile in memory");
+        }
+        List<JavaFileObject> units = new ArrayList<JavaFileObject>();
+        for (Map.Entry<String, byte[]> entry : sources.entrySet()) {
+            String path = entry.getKey().replace(File.separatorChar, '/');
+            if (path.endsWith(SOURCE_SUFFIX)) {
+                // The generators encode with the default charset.
+                units.add(new SourceFile(path, new String(entry.getValue(), Charset.defaultCharset())));
+            }
+        }
+        if (units.isEmpty()) {
+            return true;
+        }
+        List<String> options = new ArrayList<String>();
+        options.add("-classpath");
+        options.add(String.join(File.pathSeparator, classpathElements));
+        options.add("-proc:none");
+        if (release != null) {
+            options.add("--release");
+            options.add(release);
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager standardManager = compiler.getStandardFileManager(diagnostics, null, null);
+        MemoryFileManager fileManager = new MemoryFileManager(standardManager);
+        boolean success;
+        try {
+            success = compiler.getTask(null, fileManager, diagnostics, options, null, units).call();
+        } finally {
+            fileManager.close();
+        }
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            messages.add(diagnostic.toString());
+        }
+        if (!success) {
+            return false;
+        }
+        for (Map.Entry<String, ByteArrayOutputStream> entry : fileManager.classes.entrySet()) {
+            File file = new File(outputDirectory, entry.getKey().replace('.', '/')
+                    + JavaFileObject.Kind.CLASS.extension);
+            byte[] content = entry.getValue().toByteArray();
+            if (!OutputContents.hasContent(file, content)) {
+                file.getParentFile().mkdirs();
+                OutputStream stream = new FileOutputStream(file);
+                try {
+                    stream.write(content);
+                } finally {
+                    stream.close();
+                }
+                writtenFiles.add(file);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the errors and warnings of the last compilation.
+     *
+     * @return The messages.
+     */
+    List<String> getMessages() {
+        return messages;
+    }
+
+    /**
+     * A source file in memory.
+     */
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        /**
+         * The source code.
+         */
+        private String code;
+
+        /**
+         * Constructor.
+         *
+         * @param path The path of the file.
+         * @param code The source code.
+         */
+        private SourceFile(String path, String code) {
+            super(URI.create("string:///" + path), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    /**
+     * A class file in memory.
+     */
+    private static final class MemoryClassFile extends SimpleJavaFileObject {
+
+        /**
+         * The content of the class file.
+         */
+        private ByteArrayOutputStream content;
+
+        /**
+         * Constructor.
+         *
+         * @param className The name of the class.
+         * @param content The content of the class file.
+         */
+        private MemoryClassFile(String className, ByteArrayOutputStream content) {
+            super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+            this.content = content;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            content.reset();
+            return content;
+        }
+    }
+
+    /**
+     * Keeps the class files in memory, and reads everything else as the
+     * standard file manager does.
+     */
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+        /**
+         * The content of the class files, by class name.
+         */
+        private Map<String, ByteArrayOutputStream> classes = new TreeMap<String, ByteArrayOutputStream>();
+
+        /**
+         * Constructor.
+         *
+         * @param fileManager The standard file manager.
+         */
+        private MemoryFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className,
+                JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+            if (kind != JavaFileObject.Kind.CLASS) {
+                return super.getJavaFileForOutput(location, className, kind, sibling);
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            classes.put(className, content);
+            return new MemoryClassFile(className, content);
+        }
+    }
+}
@@ -21,9 +21,16 @@
 package org.apache.tiles.autotag.plugin;
 
 import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -32,11 +39,23 @@ import java.util.Map;
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
+import org.apache.tiles.autotag.core.BinaryTemplateSuiteWriter;
+import org.apache.tiles.autotag.core.FingerprintingOutputLocator;
+import org.apache.tiles.autotag.core.OutputLocator;
+import org.apache.tiles.autotag.core.runtime.AutotagRuntime;
+import org.apache.tiles.autotag.core.runtime.CapturingAutotagRuntime;
+import org.apache.tiles.autotag.core.runtime.ModelBody;
 import org.apache.tiles.autotag.generate.TemplateGenerator;
 import org.apache.tiles.autotag.generate.TemplateGeneratorFactory;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
 import org.apache.tiles.autotag.model.TemplateSuite;
 import org.apache.velocity.app.VelocityEngine;
+import org.easymock.Capture;
+import org.easymock.IAnswer;
 import org.junit.Test;
 import org.sonatype.plexus.build.incremental.BuildContext;
 
@@ -80,8 +99,6 @@ public class AbstractGenerateMojoTest {
         mojo.requestClass = "my.package.Request";
         mojo.buildContext = buildContext;
 
-        buildContext.refresh(isA(File.class));
-        expectLastCall().times(2);
         expect(mojo.createTemplateGeneratorFactory(isA(VelocityEngine.class))).andReturn(factory);
         expect(factory.createTemplateGenerator()).andReturn(generator);
         expect(mojo.getParameters()).andReturn(params);
@@ -100,4 +117,296 @@ public class AbstractGenerateMojoTest {
         verify(mavenProject, buildContext, mojo, factory, generator, params);
     }
 
+    /**
+     * Tests {@link AbstractGenerateMojo#execute()} when a binary descriptor is
+     * next to the XML one.
+     * @throws IOException If something goes wrong.
+     * @throws MojoExecutionException If something goes wrong.
+     */
+    @Test
+    public void testExecuteBinaryDescriptor() throws IOException, MojoExecutionException {
+        MavenProject mavenProject = createMock(MavenProject.class);
+        BuildContext buildContext = createMock(BuildContext.class);
+        TemplateGeneratorFactory factory = createMock(TemplateGeneratorFactory.class);
+        TemplateGenerator generator = createMock(TemplateGenerator.class);
+
+        Map<String, String> params = createMock(Map.class);
+        AbstractGenerateMojo mojo = createMockBuilder(AbstractGenerateMojo.class).createMock();
+        File temp = File.createTempFile("autotagmojogen", ".tmp");
+        temp.delete();
+        temp.mkdirs();
+        File classpathElement = new File(temp, "classpath/");
+        File metaInf = new File(classpathElement, "META-INF");
+        metaInf.mkdirs();
+        // The XML descriptor must not be read.
+        FileUtils.writeStringToFile(new File(metaInf, "template-suite.xml"), "<broken", "UTF-8");
+        OutputStream stream = new FileOutputStream(new File(metaInf, "template-suite.bin"));
+        try {
+            new BinaryTemplateSuiteWriter().write(new TemplateSuite("binary", "docs"), stream);
+        } finally {
+            stream.close();
+        }
+        List<String> classpathElements = new ArrayList<String>();
+        classpathElements.add(classpathElement.getAbsolutePath());
+        mojo.classpathElements = classpathElements;
+        File resourcesOutputDirectory = new File(temp, "res/");
+        File classesOutputDirectory = new File(temp, "classes/");
+        resourcesOutputDirectory.mkdir();
+        classesOutputDirectory.mkdir();
+        mojo.resourcesOutputDirectory = resourcesOutputDirectory;
+        mojo.classesOutputDirectory = classesOutputDirectory;
+        mojo.packageName = "my.package";
+        mojo.project = mavenProject;
+        mojo.requestClass = "my.package.Request";
+        mojo.buildContext = buildContext;
+
+        Capture<TemplateSuite> suite = newCapture();
+        expect(mojo.createTemplateGeneratorFactory(isA(VelocityEngine.class))).andReturn(factory);
+        expect(factory.createTemplateGenerator()).andReturn(generator);
+        expect(mojo.getParameters()).andReturn(params);
+        expect(mojo.getRuntimeClass()).andReturn("my.package.Runtime");
+        generator.generate(eq("my.package"), capture(suite), eq(params), eq("my.package.Runtime"), eq("my.package.Request"));
+        expect(generator.isGeneratingClasses()).andReturn(false);
+        expect(generator.isGeneratingResources()).andReturn(false);
+
+        replay(mavenProject, buildContext, mojo, factory, generator, params);
+        mojo.execute();
+        FileUtils.deleteDirectory(temp);
+        assertEquals("binary", suite.getValue().getName());
+        verify(mavenProject, buildContext, mojo, factory, generator, params);
+    }
+
+    /**
+     * Tests that {@link AbstractGenerateMojo#execute()} keeps the fingerprint
+     * of the generated files, so that only the changed ones are generated
+     * again.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void testExecuteFingerprints() throws Exception {
+        File temp = File.createTempFile("autotagmojogen", ".tmp");
+        temp.delete();
+        temp.mkdirs();
+        File classesOutputDirectory = new File(temp, "classes/");
+        final File generated = new File(classesOutputDirectory, "my/package/Generated.java");
+
+        executeWithFingerprints(temp, new IAnswer<Object>() {
+
+            @Override
+            public Object answer() throws Throwable {
+                OutputLocator locator = ((FingerprintingOutputLocator) mojo.classesOutputLocator)
+                        .forFingerprint("one");
+                assertFalse(locator.isUptodate("my/package/Generated.java"));
+                locator.getOutputStream("my/package/Generated.java").close();
+                return null;
+            }
+        }, generated);
+        assertTrue(new File(temp, "state/" + mojoClassName + "-state.properties").exists());
+
+        executeWithFingerprints(temp, new IAnswer<Object>() {
+
+            @Override
+            public Object answer() throws Throwable {
+                FingerprintingOutputLocator locator = (FingerprintingOutputLocator) mojo.classesOutputLocator;
+                assertTrue(locator.forFingerprint("one").isUptodate("my/package/Generated.java"));
+                assertFalse(locator.forFingerprint("two").isUptodate("my/package/Generated.java"));
+                // The same content is not written again.
+                assertFalse(locator.forFingerprint("two").write("my/package/Generated.java", new byte[0]));
+                return null;
+            }
+        }, null);
+        FileUtils.deleteDirectory(temp);
+    }
+
+    /**
+     * Tests {@link AbstractGenerateMojo#execute()} when compiling in memory:
+     * class files are written, sources are not.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void testExecuteCompileInMemory() throws Exception {
+        MavenProject mavenProject = createMock(MavenProject.class);
+        BuildContext buildContext = createMock(BuildContext.class);
+        TemplateGeneratorFactory factory = createMock(TemplateGeneratorFactory.class);
+        TemplateGenerator generator = createMock(TemplateGenerator.class);
+        Map<String, String> params = Collections.singletonMap("key", "value");
+        final AbstractGenerateMojo compilingMojo = createMockBuilder(AbstractGenerateMojo.class).createMock();
+        File temp = File.createTempFile("autotagmojogen", ".tmp");
+        temp.delete();
+        temp.mkdirs();
+        List<String> classpathElements = new ArrayList<String>();
+        File source = new File(System.getProperty("basedir"), "src/test/resources");
+        classpathElements.add(source.getAbsolutePath());
+        compilingMojo.classpathElements = classpathElements;
+        compilingMojo.resourcesOutputDirectory = new File(temp, "res/");
+        compilingMojo.classesOutputDirectory = new File(temp, "classes/");
+        compilingMojo.outputDirectory = new File(temp, "target-classes/");
+        compilingMojo.compileInMemory = true;
+        compilingMojo.packageName = "my.pkg";
+        compilingMojo.project = mavenProject;
+        compilingMojo.requestClass = "my.pkg.Request";
+        compilingMojo.buildContext = buildContext;
+        File compiled = new File(temp, "target-classes/my/pkg/Generated.class");
+
+        expect(compilingMojo.createTemplateGeneratorFactory(isA(VelocityEngine.class))).andReturn(factory);
+        expect(factory.createTemplateGenerator()).andReturn(generator);
+        expect(compilingMojo.getParameters()).andReturn(params);
+        expect(compilingMojo.getRuntimeClass()).andReturn("my.pkg.Runtime");
+        generator.generate(eq("my.pkg"), isA(TemplateSuite.class), eq(params), eq("my.pkg.Runtime"), eq("my.pkg.Request"));
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+
+            @Override
+            public Object answer() throws Throwable {
+                compilingMojo.classesOutputLocator.write("my/pkg/Generated.java",
+                        "package my.pkg;\npublic class Generated {}\n".getBytes("UTF-8"));
+                return null;
+            }
+        });
+        expect(generator.isGeneratingClasses()).andReturn(true);
+        expect(generator.isGeneratingResources()).andReturn(false);
+        buildContext.refresh(compiled);
+
+        replay(mavenProject, buildContext, compilingMojo, factory, generator);
+        compilingMojo.execute();
+        assertTrue(compiled.isFile());
+        assertFalse(new File(temp, "classes/my/pkg/Generated.java").exists());
+        verify(mavenProject, buildContext, compilingMojo, factory, generator);
+        FileUtils.deleteDirectory(temp);
+    }
+
+    /**
+     * Tests {@link AbstractGenerateMojo#checkCacheableModels(TemplateSuite, String)}.
+     * @throws URISyntaxException If something goes wrong.
+     */
+    @Test
+    public void testCheckCacheableModels() throws URISyntaxException {
+        AbstractGenerateMojo checkingMojo = createMockBuilder(AbstractGenerateMojo.class).createMock();
+        Log log = createMock(Log.class);
+        checkingMojo.setLog(log);
+        checkingMojo.classpathElements = new ArrayList<String>();
+        checkingMojo.classpathElements.add(getLocation(AbstractGenerateMojoTest.class));
+        checkingMojo.classpathElements.add(getLocation(CapturingAutotagRuntime.class));
+        TemplateSuite suite = new TemplateSuite("suite", "docs");
+        List<TemplateParameter> params = new ArrayList<TemplateParameter>();
+        params.add(new TemplateParameter("request", "request", "my.package.Request", null, false, true));
+        TemplateClass templateClass = new TemplateClass("my.package.CachedModel", "cached", "Cached",
+                new TemplateMethod("execute", params));
+        templateClass.setCacheable(true);
+        suite.addTemplateClass(templateClass);
+
+        log.warn(and(contains("does not implement"), contains("my.package.CachedModel")));
+        log.warn(contains("Cannot check"), isA(ClassNotFoundException.class));
+
+        replay(checkingMojo, log);
+        checkingMojo.checkCacheableModels(suite, MockCapturingRuntime.class.getName());
+        checkingMojo.checkCacheableModels(suite, MockRuntime.class.getName());
+        checkingMojo.checkCacheableModels(suite, "my.package.MissingRuntime");
+        checkingMojo.checkCacheableModels(new TemplateSuite("empty", "docs"), "my.package.MissingRuntime");
+        verify(checkingMojo, log);
+    }
+
+    /**
+     * Returns the classpath element of a class.
+     *
+     * @param clazz The class.
+     * @return The path of the directory or of the JAR of the class.
+     * @throws URISyntaxException If something goes wrong.
+     */
+    private String getLocation(Class<?> clazz) throws URISyntaxException {
+        return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+    }
+
+    /**
+     * The mojo being executed.
+     */
+    private AbstractGenerateMojo mojo;
+
+    /**
+     * The class name of the mocked mojos.
+     */
+    private String mojoClassName;
+
+    /**
+     * Executes a mojo with a generation state.
+     *
+     * @param temp The temporary directory.
+     * @param generation What the generator does.
+     * @param generated The file that is generated, if any.
+     * @throws Exception If something goes wrong.
+     */
+    private void executeWithFingerprints(File temp, IAnswer<Object> generation,
+            File generated) throws Exception {
+        MavenProject mavenProject = createMock(MavenProject.class);
+        BuildContext buildContext = createMock(BuildContext.class);
+        TemplateGeneratorFactory factory = createMock(TemplateGeneratorFactory.class);
+        TemplateGenerator generator = createMock(TemplateGenerator.class);
+        Map<String, String> params = Collections.singletonMap("key", "value");
+        mojo = createMockBuilder(AbstractGenerateMojo.class).createMock();
+        mojoClassName = mojo.getClass().getSimpleName();
+        List<String> classpathElements = new ArrayList<String>();
+        File source = new File(System.getProperty("basedir"), "src/test/resources");
+        classpathElements.add(source.getAbsolutePath());
+        mojo.classpathElements = classpathElements;
+        mojo.resourcesOutputDirectory = new File(temp, "res/");
+        mojo.classesOutputDirectory = new File(temp, "classes/");
+        mojo.stateDirectory = new File(temp, "state/");
+        mojo.packageName = "my.package";
+        mojo.project = mavenProject;
+        mojo.requestClass = "my.package.Request";
+        mojo.buildContext = buildContext;
+
+        expect(mojo.createTemplateGeneratorFactory(isA(VelocityEngine.class))).andReturn(factory);
+        expect(factory.createTemplateGenerator()).andReturn(generator);
+        expect(mojo.getParameters()).andReturn(params);
+        expect(mojo.getRuntimeClass()).andReturn("my.package.Runtime");
+        generator.generate(eq("my.package"), isA(TemplateSuite.class), eq(params), eq("my.package.Runtime"), eq("my.package.Request"));
+        expectLastCall().andAnswer(generation);
+        if (generated != null) {
+            generated.getParentFile().mkdirs();
+            expect(buildContext.newFileOutputStream(generated)).andReturn(new FileOutputStream(generated));
+        }
+        expect(generator.isGeneratingClasses()).andReturn(false);
+        expect(generator.isGeneratingResources()).andReturn(false);
+
+        replay(mavenProject, buildContext, mojo, factory, generator);
+        mojo.execute();
+        verify(mavenProject, buildContext, mojo, factory, generator);
+    }
+
+    /**
+     * A runtime that cannot capture the output.
+     */
+    public static class MockRuntime implements AutotagRuntime<Object> {
+
+        @Override
+        public Object createRequest() {
+            return null;
+        }
+
+        @Override
+        public ModelBody createModelBody() {
+            return null;
+        }
+
+        @Override
+        public <T> T getParameter(String name, Class<T> type, T defaultValue) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * A runtime that can capture the output.
+     */
+    public static class MockCapturingRuntime extends MockRuntime implements CapturingAutotagRuntime<Object> {
+
+        @Override
+        public Object createRequest(Writer writer) {
+            return null;
+        }
+
+        @Override
+        public Writer getWriter() {
+            return null;
+        }
+    }
 }
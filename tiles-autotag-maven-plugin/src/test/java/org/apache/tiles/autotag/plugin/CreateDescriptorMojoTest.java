@@ -26,6 +26,7 @@ import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -37,6 +38,7 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -44,6 +46,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
+import org.apache.tiles.autotag.core.BinaryTemplateSuiteReader;
 import org.apache.tiles.autotag.core.runtime.ModelBody;
 import org.apache.tiles.autotag.model.TemplateClass;
 import org.apache.tiles.autotag.model.TemplateMethod;
@@ -190,6 +193,207 @@ public class CreateDescriptorMojoTest {
         verify(mavenProject, buildContext);
     }
 
+    /**
+     * Test method for {@link org.apache.tiles.autotag.plugin.CreateDescriptorMojo#execute()}
+     * with a source cache.
+     * @throws IOException If something goes wrong.
+     * @throws MojoExecutionException If something goes wrong.
+     */
+    @Test
+    public void testExecuteWithSourceCache() throws IOException, MojoExecutionException {
+        File temp = File.createTempFile("autotagmojo", ".tmp");
+        temp.delete();
+        temp.mkdirs();
+        File sourceCacheFile = new File(temp, "cache/source-cache.xml");
+
+        String descriptor = executeWithSourceCache(temp, sourceCacheFile);
+        assertTrue(sourceCacheFile.exists());
+        long cacheLength = sourceCacheFile.length();
+        assertEquals(descriptor, executeWithSourceCache(temp, sourceCacheFile));
+        assertEquals(cacheLength, sourceCacheFile.length());
+
+        FileUtils.deleteDirectory(temp);
+    }
+
+    /**
+     * Test method for {@link org.apache.tiles.autotag.plugin.CreateDescriptorMojo#execute()}
+     * with a source cache, when a file is removed: the cache is kept.
+     * @throws IOException If something goes wrong.
+     * @throws MojoExecutionException If something goes wrong.
+     */
+    @Test
+    public void testExecuteWithSourceCacheFileRemoved() throws IOException, MojoExecutionException {
+        File temp = File.createTempFile("autotagmojo", ".tmp");
+        temp.delete();
+        temp.mkdirs();
+        File sourceCacheFile = new File(temp, "cache/source-cache.xml");
+        String[] models = getModels(new File(System.getProperty("basedir"), "src/test/java"));
+        String[] remainingModels = Arrays.copyOf(models, models.length - 1);
+
+        executeWithSourceCache(temp, sourceCacheFile, models);
+        CreateDescriptorMojo mojo = new CreateDescriptorMojo();
+        mojo.requestClass = ExampleRequest.class.getName();
+        mojo.sourceCacheFile = sourceCacheFile;
+        assertEquals(models.length, mojo.loadSourceCache().size());
+        String descriptor = executeWithSourceCache(temp, sourceCacheFile, remainingModels);
+        assertEquals(remainingModels.length, mojo.loadSourceCache().size());
+        assertEquals(descriptor, executeWithSourceCache(temp, new File(temp, "cache/other-cache.xml"),
+                remainingModels));
+
+        FileUtils.deleteDirectory(temp);
+    }
+
+    /**
+     * Test method for {@link CreateDescriptorMojo#getSourceCacheShape()}.
+     */
+    @Test
+    public void testGetSourceCacheShape() {
+        String shape = CreateDescriptorMojo.getSourceCacheShape();
+        assertTrue(shape.contains("TemplateClass["));
+        assertTrue(shape.contains("cacheable:boolean"));
+        assertTrue(shape.contains("memoizedBody:boolean"));
+        assertTrue(shape.contains("stateless:boolean"));
+        assertEquals(shape, CreateDescriptorMojo.getSourceCacheShape());
+    }
+
+    private String executeWithSourceCache(File temp, File sourceCacheFile) throws IOException, MojoExecutionException {
+        return executeWithSourceCache(temp, sourceCacheFile,
+                getModels(new File(System.getProperty("basedir"), "src/test/java")));
+    }
+
+    private String executeWithSourceCache(File temp, File sourceCacheFile, String[] models)
+            throws IOException, MojoExecutionException {
+        MavenProject mavenProject = createMock(MavenProject.class);
+        BuildContext buildContext = createMock(BuildContext.class);
+        Scanner scanner = createMock(Scanner.class);
+
+        CreateDescriptorMojo mojo = new CreateDescriptorMojo();
+        mojo.sourceDirectory = new File(System.getProperty("basedir"), "src/test/java");
+        mojo.outputDirectory = temp;
+        mojo.name = "test";
+        mojo.project = mavenProject;
+        mojo.requestClass = ExampleRequest.class.getName();
+        mojo.buildContext = buildContext;
+        mojo.sourceCacheFile = sourceCacheFile;
+
+        expect(mavenProject.getResources()).andReturn(Collections.emptyList());
+        mavenProject.addResource(isA(Resource.class));
+        expect(buildContext.newScanner(isA(File.class))).andReturn(scanner);
+        scanner.setIncludes(isA(String[].class));
+        scanner.scan();
+        expect(scanner.getIncludedFiles()).andReturn(models);
+        File file = new File(temp, "META-INF/template-suite.xml");
+        file.getParentFile().mkdirs();
+        expect(buildContext.isUptodate(isA(File.class), isA(File.class))).andReturn(false).times(models.length);
+        expect(buildContext.newFileOutputStream(isA(File.class))).andReturn(new FileOutputStream(file));
+        replay(mavenProject, buildContext, scanner);
+        mojo.execute();
+        verify(mavenProject, buildContext);
+        return FileUtils.readFileToString(file, "UTF-8");
+    }
+
+    /**
+     * Test method for {@link org.apache.tiles.autotag.plugin.CreateDescriptorMojo#execute()}
+     * with a binary descriptor.
+     * @throws IOException If something goes wrong.
+     * @throws MojoExecutionException If something goes wrong.
+     */
+    @Test
+    public void testExecuteBinaryDescriptor() throws IOException, MojoExecutionException {
+        MavenProject mavenProject = createMock(MavenProject.class);
+        BuildContext buildContext = createMock(BuildContext.class);
+        Scanner scanner = createMock(Scanner.class);
+
+        CreateDescriptorMojo mojo = new CreateDescriptorMojo();
+        mojo.sourceDirectory = new File(System.getProperty("basedir"), "src/test/java");
+        String[] models = getModels(mojo.sourceDirectory);
+        File temp = File.createTempFile("autotagmojo", ".tmp");
+        temp.delete();
+        temp.mkdirs();
+        mojo.outputDirectory = temp;
+        mojo.name = "test";
+        mojo.documentation = "This are the docs";
+        mojo.project = mavenProject;
+        mojo.requestClass = ExampleRequest.class.getName();
+        mojo.buildContext = buildContext;
+        mojo.binaryDescriptor = true;
+
+        expect(mavenProject.getResources()).andReturn(Collections.emptyList());
+        mavenProject.addResource(isA(Resource.class));
+        expect(buildContext.newScanner(isA(File.class))).andReturn(scanner);
+        scanner.setIncludes(isA(String[].class));
+        scanner.scan();
+        expect(scanner.getIncludedFiles()).andReturn(models);
+        File file = new File(temp, "META-INF/template-suite.xml");
+        File binaryFile = new File(temp, "META-INF/template-suite.bin");
+        file.getParentFile().mkdirs();
+        expect(buildContext.isUptodate(isA(File.class), isA(File.class))).andReturn(false).times(models.length);
+        expect(buildContext.newFileOutputStream(file)).andReturn(new FileOutputStream(file));
+        expect(buildContext.newFileOutputStream(binaryFile)).andReturn(new FileOutputStream(binaryFile));
+        replay(mavenProject, buildContext, scanner);
+        mojo.execute();
+
+        XStream xstream = new XStream(new SunUnsafeReflectionProvider());
+        xstream.allowTypesByWildcard(new String[] {
+                "org.apache.tiles.**"
+                });
+        InputStream sis = new FileInputStream(file);
+        TemplateSuite suite = (TemplateSuite) xstream.fromXML(sis);
+        sis.close();
+        sis = new FileInputStream(binaryFile);
+        TemplateSuite binarySuite = new BinaryTemplateSuiteReader().read(sis);
+        sis.close();
+        assertEquals(suite.toString(), binarySuite.toString());
+        FileUtils.deleteDirectory(temp);
+        verify(mavenProject, buildContext);
+    }
+
+    /**
+     * Test method for {@link org.apache.tiles.autotag.plugin.CreateDescriptorMojo#execute()}
+     * without a binary descriptor, when one has been written before.
+     * @throws IOException If something goes wrong.
+     * @throws MojoExecutionException If something goes wrong.
+     */
+    @Test
+    public void testExecuteStaleBinaryDescriptor() throws IOException, MojoExecutionException {
+        MavenProject mavenProject = createMock(MavenProject.class);
+        BuildContext buildContext = createMock(BuildContext.class);
+        Scanner scanner = createMock(Scanner.class);
+
+        CreateDescriptorMojo mojo = new CreateDescriptorMojo();
+        mojo.sourceDirectory = new File(System.getProperty("basedir"), "src/test/java");
+        String[] models = getModels(mojo.sourceDirectory);
+        File temp = File.createTempFile("autotagmojo", ".tmp");
+        temp.delete();
+        temp.mkdirs();
+        mojo.outputDirectory = temp;
+        mojo.name = "test";
+        mojo.project = mavenProject;
+        mojo.requestClass = ExampleRequest.class.getName();
+        mojo.buildContext = buildContext;
+        mojo.binaryDescriptor = false;
+
+        File file = new File(temp, "META-INF/template-suite.xml");
+        File binaryFile = new File(temp, "META-INF/template-suite.bin");
+        FileUtils.writeStringToFile(binaryFile, "stale", "UTF-8");
+        expect(mavenProject.getResources()).andReturn(Collections.emptyList());
+        mavenProject.addResource(isA(Resource.class));
+        expect(buildContext.newScanner(isA(File.class))).andReturn(scanner);
+        scanner.setIncludes(isA(String[].class));
+        scanner.scan();
+        expect(scanner.getIncludedFiles()).andReturn(models);
+        expect(buildContext.isUptodate(isA(File.class), isA(File.class))).andReturn(false).times(models.length);
+        expect(buildContext.newFileOutputStream(file)).andReturn(new FileOutputStream(file));
+        buildContext.refresh(binaryFile);
+        replay(mavenProject, buildContext, scanner);
+        mojo.execute();
+
+        assertTrue(file.exists());
+        assertFalse(binaryFile.exists());
+        FileUtils.deleteDirectory(temp);
+        verify(mavenProject, buildContext);
+    }
+
 	private String[] getModels(File sourceDirectory) {
 		File modelDir = new File(sourceDirectory, "org/apache/tiles/autotag/plugin/internal/");
         String[] models = modelDir.list(new FilenameFilter() {
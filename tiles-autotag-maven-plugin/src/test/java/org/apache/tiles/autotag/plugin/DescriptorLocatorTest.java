@@ -0,0 +1,211 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.plugin;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link DescriptorLocator}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class DescriptorLocatorTest {
+
+    /**
+     * The temporary directory.
+     */
+    private File temp;
+
+    /**
+     * Creates the temporary directory.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Before
+    public void setUp() throws IOException {
+        temp = File.createTempFile("autotaglocator", ".tmp");
+        temp.delete();
+        temp.mkdirs();
+        DescriptorLocator.clearCache();
+    }
+
+    /**
+     * Deletes the temporary directory.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(temp);
+        DescriptorLocator.clearCache();
+    }
+
+    /**
+     * Tests finding the descriptor in a directory.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testFindInDirectory() throws IOException {
+        File directory = new File(temp, "classes");
+        File xml = new File(directory, AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_XML);
+        FileUtils.writeStringToFile(xml, "xml", StandardCharsets.UTF_8);
+        DescriptorLocator.Descriptor descriptor = DescriptorLocator.find(Arrays.asList(
+                new File(temp, "missing").getAbsolutePath(), directory.getAbsolutePath()));
+        assertFalse(descriptor.isBinary());
+        assertEquals(xml.lastModified(), descriptor.getLastModified());
+        assertEquals("xml", read(descriptor));
+    }
+
+    /**
+     * Tests that a binary descriptor older than the XML one next to it is
+     * not used.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testFindStaleBinary() throws IOException {
+        File directory = new File(temp, "classes");
+        File xml = new File(directory, AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_XML);
+        FileUtils.writeStringToFile(xml, "xml", StandardCharsets.UTF_8);
+        File bin = new File(directory, AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_BIN);
+        FileUtils.writeStringToFile(bin, "bin", StandardCharsets.UTF_8);
+        assertTrue(bin.setLastModified(xml.lastModified() - 10000));
+        DescriptorLocator.Descriptor descriptor = DescriptorLocator.find(
+                Collections.singletonList(directory.getAbsolutePath()));
+        assertFalse(descriptor.isBinary());
+        assertEquals("xml", read(descriptor));
+
+        assertTrue(bin.setLastModified(xml.lastModified()));
+        descriptor = DescriptorLocator.find(Collections.singletonList(directory.getAbsolutePath()));
+        assertTrue(descriptor.isBinary());
+    }
+
+    /**
+     * Tests finding the descriptor in jars, the binary one being preferred
+     * when it is next to the XML one.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testFindInJar() throws IOException {
+        File other = new File(temp, "other.jar");
+        writeJar(other, "META-INF/MANIFEST.MF", "manifest");
+        File notJar = new File(temp, "other.pom");
+        FileUtils.writeStringToFile(notJar, "<project/>", StandardCharsets.UTF_8);
+        File jar = new File(temp, "model.jar");
+        writeJar(jar, AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_XML, "xml",
+                AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_BIN, "bin");
+        DescriptorLocator.Descriptor descriptor = DescriptorLocator.find(Arrays.asList(
+                other.getAbsolutePath(), notJar.getAbsolutePath(), jar.getAbsolutePath()));
+        assertTrue(descriptor.isBinary());
+        assertEquals("bin", read(descriptor));
+
+        // The changed jar is read again.
+        writeJar(jar, AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_XML, "changed xml");
+        descriptor = DescriptorLocator.find(Collections.singletonList(jar.getAbsolutePath()));
+        assertFalse(descriptor.isBinary());
+        assertEquals("changed xml", read(descriptor));
+        // Jars are closed, so they can be deleted.
+        assertTrue(jar.delete());
+    }
+
+    /**
+     * Tests that the first XML descriptor wins over a binary descriptor
+     * alone.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testFindXmlFirst() throws IOException {
+        File bin = new File(temp, "bin.jar");
+        writeJar(bin, AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_BIN, "bin");
+        File xml = new File(temp, "xml.jar");
+        writeJar(xml, AbstractGenerateMojo.META_INF_TEMPLATE_SUITE_XML, "xml");
+        assertEquals("xml", read(DescriptorLocator.find(Arrays.asList(
+                bin.getAbsolutePath(), xml.getAbsolutePath()))));
+        assertEquals("bin", read(DescriptorLocator.find(Arrays.asList(
+                bin.getAbsolutePath()))));
+    }
+
+    /**
+     * Tests that a missing descriptor is reported.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test(expected = IOException.class)
+    public void testFindNone() throws IOException {
+        DescriptorLocator.find(Collections.singletonList(temp.getAbsolutePath()));
+    }
+
+    /**
+     * Reads a descriptor.
+     *
+     * @param descriptor The descriptor.
+     * @return Its content.
+     * @throws IOException If something goes wrong.
+     */
+    private String read(DescriptorLocator.Descriptor descriptor) throws IOException {
+        InputStream stream = descriptor.openStream();
+        try {
+            return IOUtils.toString(stream, StandardCharsets.UTF_8);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Writes a jar. Its size changes with its content, so that the cache
+     * notices it even within the resolution of modification times.
+     *
+     * @param jar The jar.
+     * @param entries The paths and contents of the entries.
+     * @throws IOException If something goes wrong.
+     */
+    private void writeJar(File jar, String... entries) throws IOException {
+        ZipOutputStream stream = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            for (int i = 0; i < entries.length; i += 2) {
+                stream.putNextEntry(new ZipEntry(entries[i]));
+                stream.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                stream.closeEntry();
+            }
+        } finally {
+            stream.close();
+        }
+    }
+}
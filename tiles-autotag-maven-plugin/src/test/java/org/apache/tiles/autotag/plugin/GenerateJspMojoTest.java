@@ -49,6 +49,9 @@ public class GenerateJspMojoTest {
         GenerateJspMojo mojo = new GenerateJspMojo();
         mojo.taglibURI = "http://www.test.org/taglib";
         assertEquals("http://www.test.org/taglib", mojo.getParameters().get("taglibURI"));
+        assertNull(mojo.getParameters().get("classicTags"));
+        mojo.classicTags = true;
+        assertEquals("true", mojo.getParameters().get("classicTags"));
     }
 
 }
@@ -0,0 +1,132 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.plugin;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link InMemoryCompiler}.
+ *
+ * @version $Rev$ $Date$
+ */
+public class InMemoryCompilerTest {
+
+    /**
+     * The temporary directory.
+     */
+    private File temp;
+
+    /**
+     * Sets up the test.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Before
+    public void setUp() throws IOException {
+        temp = File.createTempFile("autotagcompiler", ".tmp");
+        temp.delete();
+        temp.mkdirs();
+    }
+
+    /**
+     * Tears down the test.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(temp);
+    }
+
+    /**
+     * Tests {@link InMemoryCompiler#compile(Map, File, List)}.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testCompile() throws IOException {
+        Map<String, byte[]> sources = new TreeMap<String, byte[]>();
+        sources.put("my/pkg/One.java", getBytes("package my.pkg;\npublic class One {\n"
+                + "    private Two two = new Two();\n"
+                + "    private Runnable inner = new Runnable() { public void run() {} };\n}\n"));
+        sources.put("my/pkg/Two.java", getBytes("package my.pkg;\npublic class Two {}\n"));
+        sources.put("META-INF/tld/test.tld", getBytes("not Java"));
+        InMemoryCompiler compiler = new InMemoryCompiler(Collections.<String>emptyList(), null);
+        List<File> written = new ArrayList<File>();
+
+        assertTrue(compiler.compile(sources, temp, written));
+        File one = new File(temp, "my/pkg/One.class");
+        assertTrue(one.isFile());
+        assertTrue(new File(temp, "my/pkg/One$1.class").isFile());
+        assertTrue(new File(temp, "my/pkg/Two.class").isFile());
+        assertEquals(3, written.size());
+        assertFalse(new File(temp, "my/pkg/One.java").exists());
+
+        written.clear();
+        assertTrue(compiler.compile(sources, temp, written));
+        assertTrue(written.isEmpty());
+    }
+
+    /**
+     * Tests {@link InMemoryCompiler#compile(Map, File, List)} when the
+     * sources do not compile.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void testCompileErrors() throws IOException {
+        Map<String, byte[]> sources = new TreeMap<String, byte[]>();
+        sources.put("my/pkg/One.java", getBytes("package my.pkg;\npublic class One {}\n"));
+        sources.put("my/pkg/Broken.java", getBytes("package my.pkg;\npublic class Broken { Missing missing; }\n"));
+        InMemoryCompiler compiler = new InMemoryCompiler(Collections.<String>emptyList(), null);
+        List<File> written = new ArrayList<File>();
+
+        assertFalse(compiler.compile(sources, temp, written));
+        assertTrue(written.isEmpty());
+        assertFalse(new File(temp, "my/pkg/One.class").exists());
+        assertEquals(1, compiler.getMessages().size());
+        assertTrue(compiler.getMessages().get(0).contains("Missing"));
+    }
+
+    /**
+     * Encodes a source as the generators do.
+     *
+     * @param source The source.
+     * @return The bytes of the source.
+     */
+    private byte[] getBytes(String source) {
+        return source.getBytes(Charset.defaultCharset());
+    }
+}
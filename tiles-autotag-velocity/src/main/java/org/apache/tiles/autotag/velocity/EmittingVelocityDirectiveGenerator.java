@@ -0,0 +1,331 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.velocity;
+
+import java.util.Map;
+
+import org.apache.tiles.autotag.generate.AbstractEmittingTemplateClassGenerator;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.apache.tiles.autotag.tool.StringTool;
+
+/**
+ * Generates a Velocity directive using a template class, with Java code
+ * producing exactly what {@link VelocityDirectiveGenerator} renders from
+ * <code>velocityDirective.vm</code>.
+ *
+ * @version $Rev$ $Date$
+ */
+public class EmittingVelocityDirectiveGenerator extends AbstractEmittingTemplateClassGenerator {
+
+    /**
+     * The tool to compute casts and default values.
+     */
+    private StringTool stringTool = StringTool.INSTANCE;
+
+    @Override
+    protected void emit(StringBuilder out, String packageName,
+            TemplateSuite suite, TemplateClass clazz, Map<String, String> parameters,
+            String runtimeClass, String requestClass) {
+        boolean hasBody = clazz.hasBody();
+        out.append("/*\n"
+                + " * This file was automatically generated by Apache Tiles Autotag.\n"
+                + " */\n"
+                + "package ").append(packageName).append(";\n"
+                + "\n"
+                + "import java.io.IOException;\n"
+                + "import java.io.Writer;\n"
+                + "import java.util.Arrays;\n"
+                + "\n");
+        if (hasBody) {
+            out.append("import org.apache.tiles.autotag.core.runtime.ModelBody;\n");
+            if (clazz.isMemoizedBody()) {
+                out.append("import org.apache.tiles.autotag.core.runtime.MemoizingModelBody;\n");
+            }
+        }
+        out.append("import org.apache.tiles.autotag.core.runtime.AutotagRuntime;\n"
+                + "import org.apache.tiles.autotag.core.runtime.AutotagRuntimeFactory;\n");
+        emitCacheImports(out, clazz);
+        out.append("import org.apache.tiles.autotag.core.runtime.util.ParameterConverter;\n"
+                + "import org.apache.velocity.context.InternalContextAdapter;\n"
+                + "import org.apache.velocity.exception.TemplateInitException;\n"
+                + "import org.apache.velocity.runtime.RuntimeServices;\n"
+                + "import org.apache.velocity.runtime.directive.Directive;\n"
+                + "import org.apache.velocity.runtime.parser.node.ASTFalse;\n"
+                + "import org.apache.velocity.runtime.parser.node.ASTFloatingPointLiteral;\n"
+                + "import org.apache.velocity.runtime.parser.node.ASTIntegerLiteral;\n"
+                + "import org.apache.velocity.runtime.parser.node.ASTMap;\n"
+                + "import org.apache.velocity.runtime.parser.node.ASTStringLiteral;\n"
+                + "import org.apache.velocity.runtime.parser.node.ASTTrue;\n"
+                + "import org.apache.velocity.runtime.parser.node.Node;\n"
+                + "\n"
+                + "/**\n");
+        StringTool.appendLines(out, " * ", clazz.getDocumentation());
+        out.append(" */\n"
+                + "public class ").append(clazz.getTagClassPrefix()).append("Directive extends Directive {\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The exported names of the parameters, in the order of the model.\n"
+                + "     */\n"
+                + "    private static final String[] PARAMETER_NAMES = {\n");
+        for (TemplateParameter parameter : clazz.getParameters()) {
+            out.append("        \"").append(parameter.getExportedName()).append("\",\n");
+        }
+        out.append("    };\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The types of the parameters, in the order of the model.\n"
+                + "     */\n"
+                + "    private static final Class<?>[] PARAMETER_TYPES = {\n");
+        for (TemplateParameter parameter : clazz.getParameters()) {
+            out.append("        ").append(stringTool.getClassToCast(parameter.getType())).append(".class,\n");
+        }
+        out.append("    };\n"
+                + "\n"
+                + "    /**\n"
+                + "     * The factory of the runtimes.\n"
+                + "     */\n"
+                + "    private static final AutotagRuntimeFactory<").append(requestClass)
+                .append("> RUNTIME_FACTORY =\n"
+                + "            AutotagRuntimeFactory.of(").append(runtimeClass).append("::new);\n"
+                + "\n");
+        emitCache(out, clazz);
+        if (!clazz.isStateless()) {
+            out.append("    /**\n"
+                    + "     * The template model.\n"
+                    + "     */\n"
+                    + "    private ").append(clazz.getName()).append(" model = new ")
+                    .append(clazz.getName()).append("();\n"
+                    + "\n");
+        }
+        out.append("    /**\n"
+                + "     * For every parameter, the index of its value in the map literal of the\n"
+                + "     * arguments, -1 if it is missing; <code>null</code> if the arguments are\n"
+                + "     * not a map literal with constant keys, and are read by the runtime.\n"
+                + "     */\n"
+                + "    private int[] argumentIndexes;\n"
+                + "\n"
+                + "    /**\n"
+                + "     * For every parameter, its value when its argument is a literal that\n"
+                + "     * converts to its type, evaluated and converted once; <code>null</code>\n"
+                + "     * when it must be evaluated at every render.\n"
+                + "     */\n"
+                + "    private Object[] argumentValues;\n"
+                + "\n"
+                + "    /** {@inheritDoc} */\n"
+                + "    @Override\n"
+                + "    public String getName() {\n"
+                + "        return \"").append(suite.getName()).append('_')
+                .append(clazz.getTagName()).append("\";\n"
+                + "    }\n"
+                + "\n"
+                + "    /** {@inheritDoc} */\n"
+                + "    @Override\n"
+                + "    public int getType() {\n"
+                + "        return ").append(hasBody ? "BLOCK" : "LINE").append(";\n"
+                + "    }\n"
+                + "\n"
+                + "    /** {@inheritDoc} */\n"
+                + "    @Override\n"
+                + "    public void init(RuntimeServices rs, InternalContextAdapter context, Node node)\n"
+                + "            throws TemplateInitException {\n"
+                + "        super.init(rs, context, node);\n"
+                + "        if (node.jjtGetNumChildren() == 0 || !(node.jjtGetChild(0) instanceof ASTMap)) {\n"
+                + "            return;\n"
+                + "        }\n"
+                + "        Node arguments = node.jjtGetChild(0);\n"
+                + "        int[] indexes = new int[PARAMETER_NAMES.length];\n"
+                + "        Arrays.fill(indexes, -1);\n"
+                + "        for (int i = 0; i + 1 < arguments.jjtGetNumChildren(); i += 2) {\n"
+                + "            Node key = arguments.jjtGetChild(i);\n"
+                + "            if (!(key instanceof ASTStringLiteral) || !((ASTStringLiteral) key).isConstant()) {\n"
+                + "                return;\n"
+                + "            }\n"
+                + "            Object name = key.value(context);\n"
+                + "            for (int j = 0; j < PARAMETER_NAMES.length; j++) {\n"
+                + "                if (PARAMETER_NAMES[j].equals(name)) {\n"
+                + "                    indexes[j] = i + 1;\n"
+                + "                }\n"
+                + "            }\n"
+                + "        }\n"
+                + "        Object[] values = new Object[PARAMETER_NAMES.length];\n"
+                + "        for (int j = 0; j < PARAMETER_NAMES.length; j++) {\n"
+                + "            Node value = indexes[j] >= 0 ? arguments.jjtGetChild(indexes[j]) : null;\n"
+                + "            if (value instanceof ASTIntegerLiteral || value instanceof ASTFloatingPointLiteral\n"
+                + "                    || value instanceof ASTTrue || value instanceof ASTFalse\n"
+                + "                    || value instanceof ASTStringLiteral && ((ASTStringLiteral) value).isConstant()) {\n"
+                + "                Object constant = value.value(context);\n"
+                + "                try {\n"
+                + "                    values[j] = ParameterConverter.convert(constant, PARAMETER_TYPES[j]);\n"
+                + "                } catch (RuntimeException e) {\n"
+                + "                    // Not convertible, left to fail at render time.\n"
+                + "                }\n"
+                + "            }\n"
+                + "        }\n"
+                + "        argumentValues = values;\n"
+                + "        argumentIndexes = indexes;\n"
+                + "    }\n"
+                + "\n"
+                + "    /** {@inheritDoc} */\n"
+                + "    @Override\n"
+                + "    public boolean render(InternalContextAdapter context, Writer writer, Node node)\n"
+                + "            throws IOException {\n"
+                + "        AutotagRuntime<").append(requestClass).append("> runtime = RUNTIME_FACTORY.getRuntime();\n"
+                + "        try {\n"
+                + "            if (runtime instanceof Directive) {\n"
+                + "                ((Directive) runtime).render(context, writer, node);\n"
+                + "            }\n");
+        if (isCached(clazz)) {
+            int index = 0;
+            for (TemplateParameter parameter : clazz.getParameters()) {
+                out.append("            ").append(parameter.getType()).append(' ')
+                        .append(parameter.getName()).append("Value = ");
+                emitParameterValue(out, parameter, index++);
+                out.append(";\n");
+            }
+            emitCachedExecution(out, clazz, "Value");
+        } else {
+            out.append("            ").append(requestClass).append(" request = runtime.createRequest();\n");
+            if (hasBody) {
+                out.append("            ModelBody modelBody = ").append(getModelBody(clazz)).append(";\n");
+            }
+            out.append("            ").append(getModel(clazz)).append(".execute(\n");
+            int index = 0;
+            for (TemplateParameter parameter : clazz.getParameters()) {
+                out.append("                ");
+                emitParameterValue(out, parameter, index++);
+                out.append(",\n");
+            }
+            out.append("                request");
+            if (hasBody) {
+                out.append(", modelBody");
+            }
+            out.append("\n"
+                    + "            );\n");
+        }
+        out.append("        } finally {\n"
+                + "            RUNTIME_FACTORY.release(runtime);\n"
+                + "        }\n"
+                + "        return true;\n"
+                + "    }\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Returns the value of a parameter, evaluating only its own argument\n"
+                + "     * when the arguments are a map literal with constant keys, and not even\n"
+                + "     * that argument when it is a literal.\n"
+                + "     *\n"
+                + "     * @param runtime The runtime.\n"
+                + "     * @param context The context.\n"
+                + "     * @param node The node of the directive.\n"
+                + "     * @param index The index of the parameter.\n"
+                + "     * @param type The type of the parameter.\n"
+                + "     * @param defaultValue The value to use when the parameter is missing.\n"
+                + "     * @return The value of the parameter.\n"
+                + "     */\n"
+                + "    private <T> T getParameter(AutotagRuntime<?> runtime, InternalContextAdapter context,\n"
+                + "            Node node, int index, Class<T> type, T defaultValue) {\n"
+                + "        if (argumentIndexes == null) {\n"
+                + "            return runtime.getParameter(PARAMETER_NAMES[index], type, defaultValue);\n"
+                + "        }\n"
+                + "        Object value = getArgument(context, node, index);\n"
+                + "        return value != null ? ParameterConverter.convert(value, type) : defaultValue;\n"
+                + "    }\n");
+        for (String type : stringTool.getPrimitiveTypes(clazz.getParameters())) {
+            String getter = stringTool.getParameterGetter(type);
+            out.append("\n"
+                    + "    /**\n"
+                    + "     * Returns the value of a parameter of type ").append(type)
+                    .append(", as {@link #getParameter}\n"
+                    + "     * does, without boxing it when the runtime reads it.\n"
+                    + "     *\n"
+                    + "     * @param runtime The runtime.\n"
+                    + "     * @param context The context.\n"
+                    + "     * @param node The node of the directive.\n"
+                    + "     * @param index The index of the parameter.\n"
+                    + "     * @param defaultValue The value to use when the parameter is missing.\n"
+                    + "     * @return The value of the parameter.\n"
+                    + "     */\n"
+                    + "    private ").append(type).append(' ').append(getter)
+                    .append("(AutotagRuntime<?> runtime, InternalContextAdapter context,\n"
+                    + "            Node node, int index, ").append(type).append(" defaultValue) {\n"
+                    + "        if (argumentIndexes == null) {\n"
+                    + "            return runtime.").append(getter)
+                    .append("(PARAMETER_NAMES[index], defaultValue);\n"
+                    + "        }\n"
+                    + "        Object value = getArgument(context, node, index);\n"
+                    + "        return value != null ? ParameterConverter.convert(value, ")
+                    .append(stringTool.getClassToCast(type)).append(".class) : defaultValue;\n"
+                    + "    }\n");
+        }
+        out.append("\n"
+                + "    /**\n"
+                + "     * Returns the value of the argument of a parameter, when the arguments\n"
+                + "     * are a map literal with constant keys.\n"
+                + "     *\n"
+                + "     * @param context The context.\n"
+                + "     * @param node The node of the directive.\n"
+                + "     * @param index The index of the parameter.\n"
+                + "     * @return The value of the argument, <code>null</code> if it is missing.\n"
+                + "     */\n"
+                + "    private Object getArgument(InternalContextAdapter context, Node node, int index) {\n"
+                + "        int argument = argumentIndexes[index];\n"
+                + "        Object value = argumentValues[index];\n"
+                + "        if (value == null && argument >= 0) {\n"
+                + "            value = node.jjtGetChild(0).jjtGetChild(argument).value(context);\n"
+                + "        }\n"
+                + "        return value;\n"
+                + "    }\n");
+        emitModelHolder(out, clazz);
+        out.append("}\n");
+    }
+
+    /**
+     * Emits the expression of the value of a parameter in the render method.
+     *
+     * @param out The builder to append the code to.
+     * @param parameter The parameter.
+     * @param index The index of the parameter.
+     */
+    private void emitParameterValue(StringBuilder out, TemplateParameter parameter, int index) {
+        String type = parameter.getType();
+        out.append(stringTool.getParameterGetter(type))
+                .append("(runtime, context, node, ").append(index).append(", ");
+        if (!stringTool.isPrimitive(type)) {
+            out.append(stringTool.getClassToCast(type)).append(".class, ");
+        }
+        out.append(stringTool.getDefaultValue(type, parameter.getDefaultValue())).append(")");
+    }
+
+    @Override
+    protected String getDirectoryName(String packageName,
+            TemplateSuite suite, TemplateClass clazz, Map<String, String> parameters,
+            String runtimeClass, String requestClass) {
+        return packageName.replaceAll("\\.", "/");
+    }
+
+    @Override
+    protected String getFilename(String packageName,
+            TemplateSuite suite, TemplateClass clazz, Map<String, String> parameters,
+            String runtimeClass, String requestClass) {
+        return clazz.getTagClassPrefix() + "Directive.java";
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.velocity;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.tiles.autotag.generate.AbstractEmittingTemplateSuiteGenerator;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateSuite;
+
+/**
+ * Generates a Velocity properties containing the list of generated user
+ * directives, with Java code producing exactly what
+ * {@link VelocityPropertiesGenerator} renders from
+ * <code>velocityProperties.vm</code>.
+ *
+ * @version $Rev$ $Date$
+ */
+public class EmittingVelocityPropertiesGenerator extends AbstractEmittingTemplateSuiteGenerator {
+
+    @Override
+    protected void emit(StringBuilder out, String packageName,
+            TemplateSuite suite, Map<String, String> parameters) {
+        out.append("# This file was automatically generated by Apache Tiles Autotag.\n"
+                + "userdirective=");
+        Iterator<TemplateClass> classes = suite.getTemplateClasses().iterator();
+        while (classes.hasNext()) {
+            out.append(packageName).append('.').append(classes.next().getTagClassPrefix())
+                    .append("Directive");
+            if (classes.hasNext()) {
+                out.append(",\\\n  ");
+            }
+        }
+    }
+
+    @Override
+    protected String getFilename(String packageName,
+            TemplateSuite suite, Map<String, String> parameters) {
+        return "velocity.properties";
+    }
+
+    @Override
+    protected String getDirectoryName(String packageName,
+            TemplateSuite suite, Map<String, String> parameters) {
+        return "META-INF/";
+    }
+}
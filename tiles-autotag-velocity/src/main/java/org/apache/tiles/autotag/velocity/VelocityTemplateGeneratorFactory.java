@@ -21,9 +21,11 @@
 package org.apache.tiles.autotag.velocity;
 
 import org.apache.tiles.autotag.core.OutputLocator;
+import org.apache.tiles.autotag.generate.TemplateClassGenerator;
 import org.apache.tiles.autotag.generate.TemplateGenerator;
 import org.apache.tiles.autotag.generate.TemplateGeneratorBuilder;
 import org.apache.tiles.autotag.generate.TemplateGeneratorFactory;
+import org.apache.tiles.autotag.generate.TemplateSuiteGenerator;
 import org.apache.velocity.app.VelocityEngine;
 
 /**
@@ -46,7 +48,7 @@ public class VelocityTemplateGeneratorFactory implements
     private OutputLocator resourcesOutputLocator;
 
     /**
-     * The Velocity engine.
+     * The Velocity engine, <code>null</code> to emit the code with Java code.
      */
     private VelocityEngine velocityEngine;
 
@@ -72,15 +74,36 @@ public class VelocityTemplateGeneratorFactory implements
         this.templateGeneratorBuilder = templateGeneratorBuilder;
     }
 
+    /**
+     * Constructor that emits the directives and velocity.properties with Java code instead
+     * of rendering Velocity templates. The generated files are the same.
+     *
+     * @param classesOutputLocator The directory where classes will be generated.
+     * @param resourcesOutputLocator The directory where velocity.properties will be written.
+     * @param templateGeneratorBuilder The template generator builder.
+     */
+    public VelocityTemplateGeneratorFactory(OutputLocator classesOutputLocator,
+            OutputLocator resourcesOutputLocator,
+            TemplateGeneratorBuilder templateGeneratorBuilder) {
+        this(classesOutputLocator, resourcesOutputLocator, null, templateGeneratorBuilder);
+    }
+
     @Override
     public TemplateGenerator createTemplateGenerator() {
+        TemplateSuiteGenerator suiteGenerator;
+        TemplateClassGenerator classGenerator;
+        if (velocityEngine != null) {
+            suiteGenerator = new VelocityPropertiesGenerator(velocityEngine);
+            classGenerator = new VelocityDirectiveGenerator(velocityEngine);
+        } else {
+            suiteGenerator = new EmittingVelocityPropertiesGenerator();
+            classGenerator = new EmittingVelocityDirectiveGenerator();
+        }
         return templateGeneratorBuilder
                 .setClassesOutputLocator(classesOutputLocator)
                 .setResourcesOutputLocator(resourcesOutputLocator)
-                .addResourcesTemplateSuiteGenerator(
-                        new VelocityPropertiesGenerator(velocityEngine))
-                .addClassesTemplateClassGenerator(
-                        new VelocityDirectiveGenerator(velocityEngine)).build();
+                .addResourcesTemplateSuiteGenerator(suiteGenerator)
+                .addClassesTemplateClassGenerator(classGenerator).build();
     }
 
 }
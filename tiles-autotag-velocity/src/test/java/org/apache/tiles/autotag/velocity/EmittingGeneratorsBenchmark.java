@@ -0,0 +1,121 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.velocity;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.tiles.autotag.generate.TemplateClassGenerator;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.apache.velocity.app.VelocityEngine;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Compares the time needed to generate the classes with {@link EmittingVelocityDirectiveGenerator} and
+ * {@link VelocityDirectiveGenerator}. It is not run by the build, only with the
+ * <code>benchmarks</code> profile: <code>mvn test -Pbenchmarks</code>. Every
+ * generator is timed on its best round, after warm-up rounds. The required
+ * speedup, 2 times, is below the measured one, 4 to 9 times.
+ *
+ * @version $Rev$ $Date$
+ */
+public class EmittingGeneratorsBenchmark {
+
+    /**
+     * The number of warm-up rounds, so that the generators are compiled.
+     */
+    private static final int WARM_UP_ROUNDS = 10;
+
+    /**
+     * The number of timed rounds.
+     */
+    private static final int TIMED_ROUNDS = 10;
+
+    /**
+     * The number of times the suite is generated in every round.
+     */
+    private static final int TIMED_GENERATIONS = 50;
+
+    /**
+     * The Velocity engine.
+     */
+    private VelocityEngine velocityEngine;
+
+    /**
+     * Sets up the benchmark.
+     * @throws Exception If something goes wrong.
+     */
+    @Before
+    public void setUp() throws Exception {
+        Properties props = new Properties();
+        InputStream propsStream = getClass().getResourceAsStream("/org/apache/tiles/autotag/velocity.properties");
+        props.load(propsStream);
+        propsStream.close();
+        velocityEngine = new VelocityEngine(props);
+    }
+
+    /**
+     * Tests that {@link EmittingVelocityDirectiveGenerator} generates the classes much faster than
+     * {@link VelocityDirectiveGenerator}, as the emitters are meant to.
+     */
+    @Test
+    public void testClassGeneratorFaster() {
+        TemplateSuite suite = EmittingGeneratorsTest.createSuite();
+        Map<String, String> parameters = EmittingGeneratorsTest.createParameters();
+        long velocityTime = time(new VelocityDirectiveGenerator(velocityEngine), suite, parameters);
+        long emittingTime = time(new EmittingVelocityDirectiveGenerator(), suite, parameters);
+        assertTrue("Emitters: " + emittingTime + " ns, Velocity: " + velocityTime + " ns",
+                emittingTime * 2 < velocityTime);
+    }
+
+    /**
+     * Times a generator on its best round, after the warm-up rounds. Every
+     * round generates all the classes of the suite {@value #TIMED_GENERATIONS}
+     * times.
+     *
+     * @param generator The generator.
+     * @param suite The suite.
+     * @param parameters The parameters of the generator.
+     * @return The time of the best round, in nanoseconds.
+     */
+    private long time(TemplateClassGenerator generator, TemplateSuite suite, Map<String, String> parameters) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < WARM_UP_ROUNDS + TIMED_ROUNDS; i++) {
+            EmittingGeneratorsTest.MemoryOutputLocator locator = new EmittingGeneratorsTest.MemoryOutputLocator();
+            long start = System.nanoTime();
+            for (int j = 0; j < TIMED_GENERATIONS; j++) {
+                for (TemplateClass clazz : suite.getTemplateClasses()) {
+                    generator.generate(locator, "org.apache.tiles.autotag.velocity.test", suite, clazz,
+                            parameters, "org.apache.tiles.autotag.velocity.test.Runtime", EmittingGeneratorsTest.REQUEST_CLASS);
+                }
+            }
+            if (i >= WARM_UP_ROUNDS) {
+                best = Math.min(best, System.nanoTime() - start);
+            }
+        }
+        return best;
+    }
+}
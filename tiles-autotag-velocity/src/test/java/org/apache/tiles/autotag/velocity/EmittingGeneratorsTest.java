@@ -0,0 +1,242 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.velocity;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.tiles.autotag.core.OutputLocator;
+import org.apache.tiles.autotag.core.runtime.ModelBody;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.apache.velocity.app.VelocityEngine;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link EmittingVelocityDirectiveGenerator} and {@link EmittingVelocityPropertiesGenerator} generate exactly
+ * what {@link VelocityDirectiveGenerator} and {@link VelocityPropertiesGenerator} render.
+ *
+ * @version $Rev$ $Date$
+ */
+public class EmittingGeneratorsTest {
+
+    public static final String REQUEST_CLASS = "org.apache.tiles.autotag.velocity.test.Request";
+
+    /**
+     * The Velocity engine.
+     */
+    private VelocityEngine velocityEngine;
+
+    /**
+     * Sets up the test.
+     * @throws Exception If something goes wrong.
+     */
+    @Before
+    public void setUp() throws Exception {
+        Properties props = new Properties();
+        InputStream propsStream = getClass().getResourceAsStream("/org/apache/tiles/autotag/velocity.properties");
+        props.load(propsStream);
+        propsStream.close();
+        velocityEngine = new VelocityEngine(props);
+    }
+
+    /**
+     * Test method for
+     * {@link EmittingVelocityDirectiveGenerator#generate(OutputLocator, String, TemplateSuite, TemplateClass, Map, String, String)}.
+     */
+    @Test
+    public void testClassGenerator() {
+        TemplateSuite suite = createSuite();
+        Map<String, String> parameters = createParameters();
+        MemoryOutputLocator expected = new MemoryOutputLocator();
+        MemoryOutputLocator effective = new MemoryOutputLocator();
+        VelocityDirectiveGenerator velocityGenerator = new VelocityDirectiveGenerator(velocityEngine);
+        EmittingVelocityDirectiveGenerator emittingGenerator = new EmittingVelocityDirectiveGenerator();
+        for (TemplateClass clazz : suite.getTemplateClasses()) {
+            velocityGenerator.generate(expected, "org.apache.tiles.autotag.velocity.test", suite, clazz,
+                    parameters, "org.apache.tiles.autotag.velocity.test.Runtime", REQUEST_CLASS);
+            emittingGenerator.generate(effective, "org.apache.tiles.autotag.velocity.test", suite, clazz,
+                    parameters, "org.apache.tiles.autotag.velocity.test.Runtime", REQUEST_CLASS);
+        }
+        assertEquals(suite.getTemplateClasses().size(), expected.files.size());
+        assertEquals(expected.files, effective.files);
+    }
+
+    /**
+     * Test method for
+     * {@link EmittingVelocityPropertiesGenerator#generate(OutputLocator, String, TemplateSuite, Map)}.
+     */
+    @Test
+    public void testSuiteGenerator() {
+        TemplateSuite suite = createSuite();
+        Map<String, String> parameters = createParameters();
+        MemoryOutputLocator expected = new MemoryOutputLocator();
+        MemoryOutputLocator effective = new MemoryOutputLocator();
+        new VelocityPropertiesGenerator(velocityEngine).generate(expected, "org.apache.tiles.autotag.velocity.test", suite, parameters);
+        new EmittingVelocityPropertiesGenerator().generate(effective, "org.apache.tiles.autotag.velocity.test", suite, parameters);
+        assertEquals(1, expected.files.size());
+        assertEquals(expected.files, effective.files);
+
+        suite = new TemplateSuite("empty", null);
+        expected = new MemoryOutputLocator();
+        effective = new MemoryOutputLocator();
+        new VelocityPropertiesGenerator(velocityEngine).generate(expected, "org.apache.tiles.autotag.velocity.test", suite, parameters);
+        new EmittingVelocityPropertiesGenerator().generate(effective, "org.apache.tiles.autotag.velocity.test", suite, parameters);
+        assertEquals(expected.files, effective.files);
+    }
+
+    /**
+     * Creates the parameters of the generators.
+     *
+     * @return The parameters.
+     */
+    static Map<String, String> createParameters() {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("taglibURI", "http://www.initrode.net/tags/test");
+        return parameters;
+    }
+
+    /**
+     * Creates a suite covering the variations of the templates: multi-line,
+     * empty and missing documentation, with and without a body, boolean
+     * parameters, default values, no parameters at all, memoized
+     * bodies, stateless and cacheable models.
+     *
+     * @return The suite.
+     */
+    static TemplateSuite createSuite() {
+        TemplateSuite suite = new TemplateSuite("tldtest", "Test for TLD docs.\nOn two lines.");
+
+        List<TemplateParameter> params = new ArrayList<TemplateParameter>();
+        TemplateParameter param = new TemplateParameter("one", "one", "java.lang.String", null, true, false);
+        param.setDocumentation("Parameter one.\r\nWith a second line.\r\n\r\nAnd a third one.");
+        params.add(param);
+        param = new TemplateParameter("two", "two", "int", "42", false, false);
+        param.setDocumentation("");
+        params.add(param);
+        param = new TemplateParameter("three", "three", "boolean", null, false, false);
+        params.add(param);
+        param = new TemplateParameter("four", "fourth", "java.lang.Boolean", "Boolean.TRUE", false, false);
+        param.setDocumentation("Parameter four.");
+        params.add(param);
+        param = new TemplateParameter("request", "request", REQUEST_CLASS, null, false, true);
+        param.setDocumentation("The request.");
+        params.add(param);
+        param = new TemplateParameter("modelBody", "modelBody", ModelBody.class.getName(), null, false, false);
+        param.setDocumentation("The body.");
+        params.add(param);
+        TemplateClass clazz = new TemplateClass("org.apache.tiles.autotag.template.DoStuffTemplate",
+                "doStuff", "DoStuff", new TemplateMethod("execute", params));
+        clazz.setDocumentation("Documentation of the DoStuff class.\nIt spans\rthree lines.");
+        suite.addTemplateClass(clazz);
+
+        params = new ArrayList<TemplateParameter>();
+        param = new TemplateParameter("one", "one", "java.lang.Double", null, true, false);
+        param.setDocumentation("Parameter one.");
+        params.add(param);
+        param = new TemplateParameter("two", "two", "float", null, false, false);
+        param.setDocumentation("Parameter two.");
+        params.add(param);
+        param = new TemplateParameter("three", "three", "char", null, false, false);
+        param.setDocumentation("Parameter three.\n");
+        params.add(param);
+        param = new TemplateParameter("request", "request", REQUEST_CLASS, null, false, true);
+        param.setDocumentation("The request.");
+        params.add(param);
+        clazz = new TemplateClass("org.apache.tiles.autotag.template.DoStuffNoBodyTemplate",
+                "doStuffNoBody", "DoStuffNoBody", new TemplateMethod("execute", params));
+        clazz.setCacheable(true);
+        suite.addTemplateClass(clazz);
+
+        params = new ArrayList<TemplateParameter>();
+        param = new TemplateParameter("request", "request", REQUEST_CLASS, null, false, true);
+        params.add(param);
+        param = new TemplateParameter("modelBody", "modelBody", ModelBody.class.getName(), null, false, false);
+        params.add(param);
+        clazz = new TemplateClass("org.apache.tiles.autotag.template.NoParametersTemplate",
+                "noParameters", "NoParameters", new TemplateMethod("execute", params));
+        clazz.setDocumentation("");
+        clazz.setMemoizedBody(true);
+        clazz.setCacheable(true);
+        suite.addTemplateClass(clazz);
+
+        params = new ArrayList<TemplateParameter>();
+        param = new TemplateParameter("one", "one", "long", "1L", false, false);
+        param.setDocumentation("Parameter one.");
+        params.add(param);
+        param = new TemplateParameter("request", "request", REQUEST_CLASS, null, false, true);
+        params.add(param);
+        clazz = new TemplateClass("org.apache.tiles.autotag.template.StatelessTemplate",
+                "stateless", "Stateless", new TemplateMethod("execute", params));
+        clazz.setDocumentation("A stateless model.");
+        clazz.setStateless(true);
+        suite.addTemplateClass(clazz);
+
+        params = new ArrayList<TemplateParameter>();
+        param = new TemplateParameter("request", "request", REQUEST_CLASS, null, false, true);
+        params.add(param);
+        clazz = new TemplateClass("org.apache.tiles.autotag.template.CachedTemplate",
+                "cached", "Cached", new TemplateMethod("execute", params));
+        clazz.setDocumentation("A cacheable stateless model.");
+        clazz.setStateless(true);
+        clazz.setCacheable(true);
+        suite.addTemplateClass(clazz);
+        return suite;
+    }
+
+    /**
+     * Keeps the generated files in memory.
+     */
+    static class MemoryOutputLocator implements OutputLocator {
+
+        /**
+         * The content of the files, by path.
+         */
+        private Map<String, String> files = new HashMap<String, String>();
+
+        @Override
+        public OutputStream getOutputStream(final String resourcePath) {
+            return new ByteArrayOutputStream() {
+
+                @Override
+                public void close() {
+                    files.put(resourcePath, toString());
+                }
+            };
+        }
+
+        @Override
+        public boolean isUptodate(String resourcePath) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.velocity;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tiles.autotag.core.DirectoryOutputLocator;
+import org.apache.tiles.autotag.model.TemplateClass;
+import org.apache.tiles.autotag.model.TemplateMethod;
+import org.apache.tiles.autotag.model.TemplateParameter;
+import org.apache.tiles.autotag.model.TemplateSuite;
+import org.apache.tiles.autotag.velocity.internal.ExampleModel;
+import org.apache.tiles.autotag.velocity.internal.ExampleRequest;
+import org.apache.tiles.autotag.velocity.internal.ExampleRuntime;
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.parser.node.ASTDirective;
+import org.apache.velocity.runtime.parser.node.Node;
+import org.apache.velocity.runtime.resource.loader.StringResourceLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the directives that {@link VelocityDirectiveGenerator} generates, by
+ * compiling one and rendering it through a Velocity engine.
+ *
+ * @version $Rev$ $Date$
+ */
+public class VelocityDirectiveRenderTest {
+
+    /**
+     * The package of the generated directive.
+     */
+    private static final String PACKAGE_NAME = "org.apache.tiles.autotag.velocity.internal";
+
+    /**
+     * The directory of the generated and compiled directive.
+     */
+    private File directory;
+
+    /**
+     * The engine, with the compiled directive.
+     */
+    private VelocityEngine engine;
+
+    /**
+     * The class loader of the compiled directive.
+     */
+    private URLClassLoader classLoader;
+
+    /**
+     * Generates and compiles the directive, and creates the engine.
+     *
+     * @throws Exception If something goes wrong.
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("autotag", null);
+        directory.delete();
+        directory.mkdir();
+
+        Properties props = new Properties();
+        InputStream propsStream = getClass().getResourceAsStream("/org/apache/tiles/autotag/velocity.properties");
+        props.load(propsStream);
+        propsStream.close();
+        VelocityDirectiveGenerator generator = new VelocityDirectiveGenerator(new VelocityEngine(props));
+        TemplateSuite suite = new TemplateSuite("tldtest", "Test for rendering.");
+        TemplateClass clazz = createTemplateClass();
+        suite.addTemplateClass(clazz);
+        generator.generate(new DirectoryOutputLocator(directory), PACKAGE_NAME, suite, clazz, null,
+                ExampleRuntime.class.getName(), ExampleRequest.class.getName());
+        assertTrue(compile(new File(directory, PACKAGE_NAME.replace('.', '/') + "/ExampleDirective.java")));
+
+        classLoader = new URLClassLoader(new URL[] {directory.toURI().toURL()}, getClass().getClassLoader());
+        engine = new VelocityEngine();
+        engine.setProperty(RuntimeConstants.CUSTOM_DIRECTIVES, PACKAGE_NAME + ".ExampleDirective");
+        engine.setProperty(RuntimeConstants.RESOURCE_LOADERS, "string");
+        engine.setProperty("resource.loader.string.class", StringResourceLoader.class.getName());
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            engine.init();
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    /**
+     * Tears down the test.
+     *
+     * @throws IOException If something goes wrong.
+     */
+    @After
+    public void tearDown() throws IOException {
+        classLoader.close();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    /**
+     * Tests that literals are converted to the types of the parameters, as
+     * values are at render time.
+     */
+    @Test
+    public void testRenderLiterals() {
+        assertEquals("1/2.0/3/four",
+                render("#tldtest_example({\"one\": 1, \"two\": 2, \"three\": \"3\", \"four\": \"four\"})",
+                        new VelocityContext()));
+        assertEquals("0/2.5/null/4",
+                render("#tldtest_example({\"two\": 2.5, \"four\": 4})", new VelocityContext()));
+    }
+
+    /**
+     * Tests that literals are converted once, when the directive is
+     * initialized, and that variables are left to be evaluated at render time.
+     *
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void testInitFoldsLiterals() throws Exception {
+        StringResourceLoader.getRepository().putStringResource("fold.vm",
+                "#tldtest_example({\"one\": 1, \"two\": 2, \"three\": \"3\", \"four\": $four})");
+        Template template = engine.getTemplate("fold.vm");
+        ASTDirective node = findDirective((Node) template.getData());
+        assertNotNull(node);
+        Object directive = getField(node, "directive");
+        Object[] values = (Object[]) getField(directive, "argumentValues");
+        assertArrayEquals(new Object[] {1L, 2.0, 3, null}, values);
+
+        VelocityContext context = new VelocityContext();
+        context.put("four", "four");
+        StringWriter writer = new StringWriter();
+        template.merge(context, writer);
+        assertEquals("1/2.0/3/four", writer.toString());
+    }
+
+    /**
+     * Tests that values of variables are converted to the types of the
+     * parameters.
+     */
+    @Test
+    public void testRenderVariables() {
+        VelocityContext context = new VelocityContext();
+        context.put("one", 5);
+        context.put("two", 6);
+        context.put("three", "7");
+        context.put("four", 8);
+        assertEquals("5/6.0/7/8",
+                render("#tldtest_example({\"one\": $one, \"two\": $two, \"three\": $three, \"four\": $four})",
+                        context));
+        assertEquals("5/6.0/7/8",
+                render("#tldtest_example({\"one\": $one, \"two\": $two, \"three\": $three, \"four\": $four})",
+                        context));
+    }
+
+    /**
+     * Tests that the parameters are read by the runtime when the argument is
+     * not a map literal, the primitive ones with the getters that
+     * {@link ExampleRuntime} overrides, since it refuses to read them boxed.
+     */
+    @Test
+    public void testRenderRuntime() {
+        Map<String, Object> args = new HashMap<String, Object>();
+        args.put("one", 9);
+        args.put("two", 1.5);
+        args.put("three", 3L);
+        args.put("four", "x");
+        VelocityContext context = new VelocityContext();
+        context.put("args", args);
+        assertEquals("9/1.5/3/x", render("#tldtest_example($args)", context));
+    }
+
+    /**
+     * Renders a template.
+     *
+     * @param template The template.
+     * @param context The context.
+     * @return The rendered text.
+     */
+    private String render(String template, VelocityContext context) {
+        StringWriter writer = new StringWriter();
+        assertTrue(engine.evaluate(context, writer, "test", template));
+        return writer.toString();
+    }
+
+    /**
+     * Finds the first directive in a tree of nodes.
+     *
+     * @param node The root of the tree.
+     * @return The directive, <code>null</code> if there is none.
+     */
+    private static ASTDirective findDirective(Node node) {
+        if (node instanceof ASTDirective) {
+            return (ASTDirective) node;
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            ASTDirective directive = findDirective(node.jjtGetChild(i));
+            if (directive != null) {
+                return directive;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of a private field.
+     *
+     * @param object The object that holds the field.
+     * @param name The name of the field.
+     * @return The value of the field.
+     * @throws Exception If something goes wrong.
+     */
+    private static Object getField(Object object, String name) throws Exception {
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    /**
+     * Creates the template class of {@link ExampleModel}.
+     *
+     * @return The template class.
+     */
+    private static TemplateClass createTemplateClass() {
+        List<TemplateParameter> params = new ArrayList<TemplateParameter>();
+        params.add(new TemplateParameter("one", "one", "long", null, false, false));
+        params.add(new TemplateParameter("two", "two", "double", null, false, false));
+        params.add(new TemplateParameter("three", "three", "java.lang.Integer", null, false, false));
+        params.add(new TemplateParameter("four", "four", "java.lang.String", null, false, false));
+        params.add(new TemplateParameter("request", "request", ExampleRequest.class.getName(), null, false, true));
+        for (TemplateParameter param : params) {
+            param.setDocumentation("Parameter " + param.getName() + ".");
+        }
+        TemplateClass clazz = new TemplateClass(ExampleModel.class.getName(), "example", "Example",
+                new TemplateMethod("execute", params));
+        clazz.setDocumentation("Documentation of the Example class.");
+        return clazz;
+    }
+
+    /**
+     * Compiles a source against the class path of the test.
+     *
+     * @param source The source to compile.
+     * @return <code>true</code> if the compilation succeeded.
+     * @throws IOException If something goes wrong.
+     */
+    private boolean compile(File source) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(
+                null, null, StandardCharsets.UTF_8);
+        try {
+            return compiler.getTask(null, fileManager, null, Arrays.asList(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-d", directory.getAbsolutePath()), null,
+                    fileManager.getJavaFileObjects(source)).call();
+        } finally {
+            fileManager.close();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.velocity.internal;
+
+import java.io.IOException;
+
+/**
+ * Example template, that writes its parameters.
+ *
+ * @version $Rev$ $Date$
+ */
+public class ExampleModel {
+
+    /**
+     * Writes the parameters, separated by slashes.
+     *
+     * @param one Parameter one.
+     * @param two Parameter two.
+     * @param three Parameter three.
+     * @param four Parameter four.
+     * @param request The request.
+     * @throws IOException If something goes wrong when writing.
+     */
+    public void execute(long one, double two, Integer three, String four, ExampleRequest request)
+            throws IOException {
+        request.getWriter().write(one + "/" + two + "/" + three + "/" + four);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * $Id$
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tiles.autotag.velocity.internal;
+
+import java.io.Writer;
+import java.util.Map;
+
+import org.apache.tiles.autotag.core.runtime.AutotagRuntime;
+import org.apache.tiles.autotag.core.runtime.ModelBody;
+import org.apache.tiles.autotag.core.runtime.util.ParameterConverter;
+import org.apache.velocity.context.InternalContextAdapter;
+import org.apache.velocity.runtime.directive.Directive;
+import org.apache.velocity.runtime.parser.node.Node;
+
+/**
+ * Example runtime, that reads the parameters from the map that the only
+ * argument of the directive evaluates to. It overrides the primitive getters
+ * of the parameters it knows, and refuses to read those parameters boxed.
+ *
+ * @version $Rev$ $Date$
+ */
+public class ExampleRuntime extends Directive implements AutotagRuntime<ExampleRequest> {
+
+    /**
+     * The context.
+     */
+    private InternalContextAdapter context;
+
+    /**
+     * The writer.
+     */
+    private Writer writer;
+
+    /**
+     * The node of the directive.
+     */
+    private Node node;
+
+    /**
+     * The evaluated parameters.
+     */
+    private Map<?, ?> parameters;
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return "exampleRuntime";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getType() {
+        return LINE;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean render(InternalContextAdapter context, Writer writer, Node node) {
+        this.context = context;
+        this.writer = writer;
+        this.node = node;
+        parameters = null;
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ExampleRequest createRequest() {
+        return new ExampleRequest(writer);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ModelBody createModelBody() {
+        throw new UnsupportedOperationException("The example directive has no body");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> T getParameter(String name, Class<T> type, T defaultValue) {
+        if (type == Long.class || type == Double.class) {
+            throw new IllegalStateException("The parameter " + name + " must be read without boxing");
+        }
+        Object value = getArgument(name);
+        return value != null ? ParameterConverter.convert(value, type) : defaultValue;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getLongParameter(String name, long defaultValue) {
+        Object value = getArgument(name);
+        return value != null ? ((Number) value).longValue() : defaultValue;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getDoubleParameter(String name, double defaultValue) {
+        Object value = getArgument(name);
+        return value != null ? ((Number) value).doubleValue() : defaultValue;
+    }
+
+    /**
+     * Returns the value of a parameter, evaluating the argument of the
+     * directive the first time.
+     *
+     * @param name The name of the parameter.
+     * @return The value, <code>null</code> if it is missing.
+     */
+    private Object getArgument(String name) {
+        if (parameters == null) {
+            parameters = (Map<?, ?>) node.jjtGetChild(0).value(context);
+        }
+        return parameters.get(name);
+    }
+}